@@ -1,14 +1,60 @@
 package deltav.android;
 
+import java.io.File;
+import java.io.IOException;
+
 import playn.android.GameActivity;
 import playn.core.PlayN;
 
 import deltav.core.DeltaV;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.save.WorldSaveFile;
 
 public class DeltaVActivity extends GameActivity {
 
   @Override
   public void main(){
-    PlayN.run(new DeltaV());
+    final DeltaV game = new DeltaV();
+    final File saveFile = new File(getFilesDir(), "world.dvs");
+
+    // Pick up where we left off if we were suspended mid-game.
+    if (saveFile.exists()) {
+      try {
+        game.setWorld(WorldSaveFile.read(saveFile));
+      } catch (IOException e) {
+        PlayN.log().warn("Couldn't restore the saved game", e);
+      }
+      saveFile.delete();
+    }
+
+    // Save the world whenever we're suspended, since we may not be resumed.
+    PlayN.setLifecycleListener(new PlayN.LifecycleListener() {
+      @Override
+      public void onPause() {
+        synchronized (game) {
+          DeltaVWorld world = game.getWorld();
+          if (world == null || world.isGameOver()) {
+            return;
+          }
+          try {
+            WorldSaveFile.write(world, saveFile);
+          } catch (IOException e) {
+            PlayN.log().warn("Couldn't save the game", e);
+          }
+        }
+      }
+
+      @Override
+      public void onResume() {
+        // The game is still in memory, so the save is out of date.
+        saveFile.delete();
+      }
+
+      @Override
+      public void onExit() {
+      }
+    });
+
+    PlayN.run(game);
   }
 }
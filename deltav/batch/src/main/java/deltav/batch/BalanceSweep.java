@@ -0,0 +1,106 @@
+package deltav.batch;
+
+import deltav.core.config.DeltaVGameConfig;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Plays a lot of games with the seeking bot for each value of one balance
+ * setting, and prints how they went.
+ *
+ * Usage: BalanceSweep parameter values [games] [ticks] [debris pieces]
+ *
+ * where parameter is one of gravity, thrust, maxFuel, maxFuelPerDebris,
+ * drain or points, and values is a comma separated list, for example:
+ *
+ *   BalanceSweep drain 5,10,20 100000 6000
+ *
+ * Each value gets the same seeds, so differences between them come from the
+ * setting and not from luck.
+ */
+public class BalanceSweep {
+
+    /**
+     * The most worlds to hold in memory at once.  Bigger sweeps are run in
+     * batches of this many.
+     */
+    private static final int WORLDS_PER_BATCH = 16384;
+
+    /**
+     * The defaults: a thousand games of a minute each.
+     */
+    private static final int DEFAULT_GAMES = 1000;
+    private static final int DEFAULT_TICKS = 60 * 1000 / DeltaVGameConfig.SIMULATION_STEP_MILLIS;
+
+    /**
+     * The seed for the first game of every value.
+     */
+    private static final long SEED = 1;
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: BalanceSweep parameter values [games] [ticks] [debris pieces]");
+            System.exit(1);
+        }
+        String parameter = args[0];
+        String[] values = args[1].split(",");
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_GAMES;
+        int ticks = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_TICKS;
+        int debris = args.length > 4 ? Integer.parseInt(args[4]) : DeltaVGameConfig.NUMBER_OF_DEBRIS_PIECES;
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (String value : values) {
+                WorldConfig config = new WorldConfig();
+                set(config, parameter, value.trim());
+
+                long start = System.nanoTime();
+                BatchStatistics statistics = null;
+                for (int first = 0; first < games; first += WORLDS_PER_BATCH) {
+                    WorldConfig[] configs = new WorldConfig[Math.min(WORLDS_PER_BATCH, games - first)];
+                    for (int w = 0; w < configs.length; w++) {
+                        configs[w] = config;
+                    }
+                    BatchSimulation simulation = new BatchSimulation(configs, debris, SEED + first);
+                    simulation.setController(new SeekingController());
+                    simulation.run(ticks, executor, threads);
+                    if (statistics == null) {
+                        statistics = BatchStatistics.of(simulation);
+                    } else {
+                        statistics.add(simulation, 0, configs.length);
+                    }
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.println(parameter + " = " + value + ": " + statistics);
+                System.out.println(String.format("    %.1f seconds, %.0f games/s", seconds, games / seconds));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Set a parameter by name.
+     *
+     * @throws IllegalArgumentException If there's no such parameter.
+     */
+    static void set(WorldConfig config, String parameter, String value) {
+        if (parameter.equals("gravity")) {
+            config.setGravity(Double.parseDouble(value));
+        } else if (parameter.equals("thrust")) {
+            config.setThrusterThrust(Double.parseDouble(value));
+        } else if (parameter.equals("maxFuel")) {
+            config.setMaxFuel(Integer.parseInt(value));
+        } else if (parameter.equals("maxFuelPerDebris")) {
+            config.setMaxFuelPerDebris(Integer.parseInt(value));
+        } else if (parameter.equals("drain")) {
+            config.setFuelDrainedByBlackHole(Integer.parseInt(value));
+        } else if (parameter.equals("points")) {
+            config.setPointsPerDebris(Integer.parseInt(value));
+        } else {
+            throw new IllegalArgumentException("Unknown parameter " + parameter);
+        }
+    }
+}
@@ -0,0 +1,557 @@
+package deltav.batch;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.input.ShipControls;
+import deltav.core.model.BlackHole;
+import deltav.core.model.GravityField;
+import deltav.core.model.Integrator;
+import deltav.core.util.ResumableRandom;
+import deltav.core.util.SweptCollision;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs thousands of independent games at once, for balancing sweeps and for
+ * trying out bots.  Every world has its own config and seed, and all of them
+ * step forward together, a tick at a time, split across a thread pool.
+ *
+ * A DeltaVWorld per game would spend most of its memory on things a batch
+ * doesn't need - a gravity grid, a collision grid, interpolation state - so
+ * instead every world's state is packed into shared arrays indexed by world,
+ * and debris by world * debrisPerWorld + slot.  Worlds with the same gravity
+ * share one GravityField.  The step itself is DeltaVWorld's, line for line:
+ * with the default config a world here plays out exactly as a DeltaVWorld
+ * with the same seed and input would.  Mutual gravity and debris collisions
+ * are left out, as they are off in the game.
+ */
+public class BatchSimulation {
+
+    /**
+     * Below this many worlds per partition, handing work to another thread
+     * isn't worth it.
+     */
+    private static final int MIN_WORLDS_PER_PARTITION = 64;
+
+    /**
+     * The number of worlds and the debris in each.
+     */
+    private final int worlds;
+    private final int debrisPerWorld;
+
+    /**
+     * Each world's config, and the gravity field for it.
+     */
+    private final WorldConfig[] configs;
+    private final GravityField[] gravityFields;
+
+    /**
+     * How everything moves under gravity.
+     */
+    private Integrator integrator = DeltaVGameConfig.VERLET_INTEGRATION_ENABLED
+            ? Integrator.VERLET : Integrator.SEMI_IMPLICIT_EULER;
+
+    /**
+     * Flies the ships.  Without one, they drift.
+     */
+    private ShipController controller;
+
+    /**
+     * The seed and the state of the randomness in each world.
+     */
+    private final long[] seeds;
+    private final long[] randomStates;
+
+    /**
+     * Each world's ship.
+     */
+    private final double[] shipX;
+    private final double[] shipY;
+    private final double[] shipVelocityX;
+    private final double[] shipVelocityY;
+    private final double[] shipHeading;
+    private final int[] fuel;
+    private final double[] fuelOwed;
+
+    /**
+     * Each world's game so far: the score, how many ticks it lasted, what
+     * happened to its debris and whether it is over.
+     */
+    private final int[] scores;
+    private final int[] ticks;
+    private final int[] captured;
+    private final int[] swallowed;
+    private final boolean[] gameOver;
+
+    /**
+     * The debris in every world.
+     */
+    private final double[] debrisX;
+    private final double[] debrisY;
+    private final double[] debrisVelocityX;
+    private final double[] debrisVelocityY;
+
+    /**
+     * The number of ticks run so far.
+     */
+    private int tick;
+
+    /**
+     * Create a batch, seeding world w with seed + w.
+     *
+     * @param configs The config for each world.  Worlds may share configs.
+     * @param debrisPerWorld The number of debris pieces in each world.
+     * @param seed The seed for the first world.
+     */
+    public BatchSimulation(WorldConfig[] configs, int debrisPerWorld, long seed) {
+        this(configs, debrisPerWorld, consecutiveSeeds(seed, configs.length));
+    }
+
+    /**
+     * Create a batch.
+     *
+     * @param configs The config for each world.  Worlds may share configs.
+     * @param debrisPerWorld The number of debris pieces in each world.
+     * @param seeds The seed for each world.
+     */
+    public BatchSimulation(WorldConfig[] configs, int debrisPerWorld, long[] seeds) {
+        if (seeds.length != configs.length) {
+            throw new IllegalArgumentException("A batch needs a seed for each world");
+        }
+        worlds = configs.length;
+        this.debrisPerWorld = debrisPerWorld;
+        this.configs = configs.clone();
+        this.seeds = seeds.clone();
+        randomStates = new long[worlds];
+        gravityFields = new GravityField[worlds];
+        shipX = new double[worlds];
+        shipY = new double[worlds];
+        shipVelocityX = new double[worlds];
+        shipVelocityY = new double[worlds];
+        shipHeading = new double[worlds];
+        fuel = new int[worlds];
+        fuelOwed = new double[worlds];
+        scores = new int[worlds];
+        ticks = new int[worlds];
+        captured = new int[worlds];
+        swallowed = new int[worlds];
+        gameOver = new boolean[worlds];
+        int totalDebris = worlds * debrisPerWorld;
+        debrisX = new double[totalDebris];
+        debrisY = new double[totalDebris];
+        debrisVelocityX = new double[totalDebris];
+        debrisVelocityY = new double[totalDebris];
+
+        // Build one gravity field per distinct gravity.  Fields are only read
+        // once built, so the threads can share them.
+        Map<Double, GravityField> fieldsByGravity = new HashMap<Double, GravityField>();
+        ResumableRandom random = new ResumableRandom(0);
+        for (int w = 0; w < worlds; w++) {
+            Double gravity = configs[w].getGravity();
+            GravityField field = fieldsByGravity.get(gravity);
+            if (field == null) {
+                field = createGravityField(gravity);
+                fieldsByGravity.put(gravity, field);
+            }
+            gravityFields[w] = field;
+
+            // The ship starts in the top left corner, at rest, pointing up,
+            // and the debris is scattered over the screen at rest - exactly
+            // as in a new DeltaVWorld.
+            fuel[w] = configs[w].getMaxFuel();
+            random.setSeed(seeds[w]);
+            for (int i = w * debrisPerWorld; i < (w + 1) * debrisPerWorld; i++) {
+                debrisY[i] = random.nextInt(DeltaVGameConfig.WORLD_HEIGHT);
+                debrisX[i] = random.nextInt(DeltaVGameConfig.WORLD_WIDTH);
+            }
+            randomStates[w] = random.getState();
+        }
+    }
+
+    private static long[] consecutiveSeeds(long seed, int count) {
+        long[] seeds = new long[count];
+        for (int w = 0; w < count; w++) {
+            seeds[w] = seed + w;
+        }
+        return seeds;
+    }
+
+    /**
+     * A gravity field like a new DeltaVWorld's, with the black hole's pull
+     * set to the given gravity.
+     */
+    private static GravityField createGravityField(double gravity) {
+        GravityField field = new GravityField(
+                0 - DeltaVGameConfig.WORLD_WIDTH * .1,
+                0 - DeltaVGameConfig.WORLD_HEIGHT * .1,
+                DeltaVGameConfig.WORLD_WIDTH * 1.1,
+                DeltaVGameConfig.WORLD_HEIGHT * 1.1,
+                DeltaVGameConfig.GRAVITY_FIELD_CELL_SIZE);
+        field.addBlackHole(new BlackHole(DeltaVGameConfig.WORLD_WIDTH / 2, DeltaVGameConfig.WORLD_HEIGHT / 2,
+                DeltaVGameConfig.BLACK_HOLE_WIDTH, DeltaVGameConfig.BLACK_HOLE_HEIGHT, gravity));
+        field.rebuildIfNeeded();
+        return field;
+    }
+
+    // Getters and setters.
+
+    public int getWorldCount() {
+        return worlds;
+    }
+
+    public int getDebrisPerWorld() {
+        return debrisPerWorld;
+    }
+
+    public WorldConfig getConfig(int world) {
+        return configs[world];
+    }
+
+    public long getSeed(int world) {
+        return seeds[world];
+    }
+
+    /**
+     * The number of ticks run so far.
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    public Integrator getIntegrator() {
+        return integrator;
+    }
+
+    public void setIntegrator(Integrator integrator) {
+        this.integrator = integrator;
+    }
+
+    public ShipController getController() {
+        return controller;
+    }
+
+    public void setController(ShipController controller) {
+        this.controller = controller;
+    }
+
+    public double getShipxPosition(int world) {
+        return shipX[world];
+    }
+
+    public double getShipyPosition(int world) {
+        return shipY[world];
+    }
+
+    public double getShipVelocityInX(int world) {
+        return shipVelocityX[world];
+    }
+
+    public double getShipVelocityInY(int world) {
+        return shipVelocityY[world];
+    }
+
+    public double getShipHeading(int world) {
+        return shipHeading[world];
+    }
+
+    public int getFuelRemaining(int world) {
+        return fuel[world];
+    }
+
+    public int getScore(int world) {
+        return scores[world];
+    }
+
+    /**
+     * How many ticks the world's game lasted, or has lasted so far.
+     */
+    public int getTicks(int world) {
+        return ticks[world];
+    }
+
+    public int getCaptured(int world) {
+        return captured[world];
+    }
+
+    public int getSwallowed(int world) {
+        return swallowed[world];
+    }
+
+    public boolean isGameOver(int world) {
+        return gameOver[world];
+    }
+
+    public double getDebrisxPosition(int world, int i) {
+        return debrisX[world * debrisPerWorld + i];
+    }
+
+    public double getDebrisyPosition(int world, int i) {
+        return debrisY[world * debrisPerWorld + i];
+    }
+
+    public double getDebrisVelocityInX(int world, int i) {
+        return debrisVelocityX[world * debrisPerWorld + i];
+    }
+
+    public double getDebrisVelocityInY(int world, int i) {
+        return debrisVelocityY[world * debrisPerWorld + i];
+    }
+
+    /**
+     * Are all the games over?
+     */
+    public boolean isFinished() {
+        for (int w = 0; w < worlds; w++) {
+            if (!gameOver[w]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Run every world on this thread.
+     *
+     * @param maxTicks The most ticks to run.  We stop sooner if every game
+     *                 ends.
+     */
+    public void run(int maxTicks) {
+        Partition all = new Partition(0, worlds);
+        for (int t = 0; t < maxTicks && !isFinished(); t++) {
+            all.call();
+            tick++;
+        }
+    }
+
+    /**
+     * Run the worlds across a thread pool.  The worlds are split into a few
+     * partitions per thread, and every partition finishes each tick before
+     * any starts the next, so a controller always sees every world at the
+     * same tick.  The results are exactly those of running on one thread.
+     *
+     * @param maxTicks The most ticks to run.  We stop sooner if every game
+     *                 ends.
+     * @param executor The pool to run on.
+     * @param threads How many threads the pool has.
+     * @throws InterruptedException If we are interrupted while waiting for a
+     *                              tick to finish.
+     */
+    public void run(int maxTicks, ExecutorService executor, int threads) throws InterruptedException {
+        int partitionCount = Math.max(1, Math.min(threads * 4, worlds / MIN_WORLDS_PER_PARTITION));
+        List<Partition> partitions = new ArrayList<Partition>(partitionCount);
+        for (int p = 0; p < partitionCount; p++) {
+            partitions.add(new Partition(
+                    (int)((long)worlds * p / partitionCount), (int)((long)worlds * (p + 1) / partitionCount)));
+        }
+
+        for (int t = 0; t < maxTicks; t++) {
+            boolean playing = false;
+            for (int p = 0; p < partitionCount; p++) {
+                playing |= partitions.get(p).playing;
+            }
+            if (!playing) {
+                break;
+            }
+            for (Future<Boolean> result : executor.invokeAll(partitions)) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+            tick++;
+        }
+    }
+
+    /**
+     * Steps a range of worlds by one tick.  Each partition has its own
+     * scratch space, so partitions can run side by side.
+     */
+    private class Partition implements Callable<Boolean> {
+
+        private final int from;
+        private final int to;
+        private final Integrator.Body body = new Integrator.Body();
+        private final ResumableRandom random = new ResumableRandom(0);
+
+        /**
+         * Is any of our games still going?
+         */
+        private boolean playing = true;
+
+        Partition(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Boolean call() {
+            boolean anyPlaying = false;
+            for (int w = from; w < to; w++) {
+                if (!gameOver[w]) {
+                    int controls = controller == null
+                            ? ShipControls.NONE : controller.getControls(BatchSimulation.this, w, tick);
+                    step(w, controls, DeltaVGameConfig.SIMULATION_STEP_MILLIS, body, random);
+                    anyPlaying |= !gameOver[w];
+                }
+            }
+            playing = anyPlaying;
+            return anyPlaying;
+        }
+    }
+
+    /**
+     * Step one world by one tick, as DeltaVWorld.updatePhysics does.
+     */
+    private void step(int w, int controls, int deltaT, Integrator.Body body, ResumableRandom random) {
+        WorldConfig config = configs[w];
+        GravityField gravityField = gravityFields[w];
+        random.setState(randomStates[w]);
+        ticks[w]++;
+
+        // The ship, as DeltaVShip.updatePhysics.
+        int rotationDirection = ShipControls.getRotationDirection(controls);
+        if (rotationDirection != 0) {
+            shipHeading[w] += DeltaVGameConfig.ROTATION_SPEED * rotationDirection
+                    * deltaT / DeltaVGameConfig.REFERENCE_STEP_MILLIS;
+        }
+        body.extraAccelerationInX = 0;
+        body.extraAccelerationInY = 0;
+        if (ShipControls.isThrusting(controls) && fuel[w] > 0) {
+            burnFuel(w, deltaT / DeltaVGameConfig.REFERENCE_STEP_MILLIS);
+            body.extraAccelerationInX = config.getThrusterThrust() * Math.sin(shipHeading[w]);
+            body.extraAccelerationInY = -config.getThrusterThrust() * Math.cos(shipHeading[w]);
+        }
+        double shipStartX = shipX[w];
+        double shipStartY = shipY[w];
+        body.xPosition = shipX[w];
+        body.yPosition = shipY[w];
+        body.velocityInX = shipVelocityX[w];
+        body.velocityInY = shipVelocityY[w];
+        integrator.advance(body, gravityField, deltaT);
+        float halfWidth = (float)DeltaVGameConfig.SHIP_WIDTH / 2;
+        float halfHeight = (float)DeltaVGameConfig.SHIP_HEIGHT / 2;
+        shipX[w] = body.xPosition;
+        shipY[w] = body.yPosition;
+        shipVelocityX[w] = body.velocityInX;
+        shipVelocityY[w] = body.velocityInY;
+        if (shipX[w] < 0 + halfWidth) {
+            shipX[w] = 0 + halfWidth;
+            shipVelocityX[w] = 0;
+        } else if (shipX[w] > DeltaVGameConfig.WORLD_WIDTH - halfWidth) {
+            shipX[w] = DeltaVGameConfig.WORLD_WIDTH - halfWidth;
+            shipVelocityX[w] = 0;
+        }
+        if (shipY[w] < 0 + halfHeight) {
+            shipY[w] = 0 + halfHeight;
+            shipVelocityY[w] = 0;
+        } else if (shipY[w] > DeltaVGameConfig.WORLD_HEIGHT - halfHeight) {
+            shipY[w] = DeltaVGameConfig.WORLD_HEIGHT - halfHeight;
+            shipVelocityY[w] = 0;
+        }
+        double shipTopLeftX = shipX[w] - halfWidth;
+        double shipBottomRightX = shipX[w] + halfWidth;
+        double shipTopLeftY = shipY[w] - halfHeight;
+        double shipBottomRightY = shipY[w] + halfHeight;
+        double shipMovedX = shipX[w] - shipStartX;
+        double shipMovedY = shipY[w] - shipStartY;
+
+        // The debris, as DebrisField.updatePhysics, then its collisions, as
+        // DebrisField.detectCollision.  Whether a piece is caught only
+        // depends on where it went, so we can act on each as we find it and
+        // still draw the same random numbers, in the same slot order, as the
+        // world would.
+        double minX = 0 - DeltaVGameConfig.WORLD_WIDTH * .1;
+        double maxX = DeltaVGameConfig.WORLD_WIDTH * 1.1;
+        double minY = 0 - DeltaVGameConfig.WORLD_HEIGHT * .1;
+        double maxY = DeltaVGameConfig.WORLD_HEIGHT * 1.1;
+        body.extraAccelerationInX = 0;
+        body.extraAccelerationInY = 0;
+        int first = w * debrisPerWorld;
+        int last = first + debrisPerWorld;
+        for (int i = first; i < last; i++) {
+            double startX = debrisX[i];
+            double startY = debrisY[i];
+            body.xPosition = startX;
+            body.yPosition = startY;
+            body.velocityInX = debrisVelocityX[i];
+            body.velocityInY = debrisVelocityY[i];
+            integrator.advance(body, gravityField, deltaT);
+            double px = body.xPosition;
+            double py = body.yPosition;
+            double vx = body.velocityInX;
+            double vy = body.velocityInY;
+            if (px < minX) {
+                px = minX;
+                vx = 0;
+            } else if (px > maxX) {
+                px = maxX;
+                vx = 0;
+            }
+            if (py < minY) {
+                py = minY;
+                vy = 0;
+            } else if (py > maxY) {
+                py = maxY;
+                vy = 0;
+            }
+            debrisX[i] = px;
+            debrisY[i] = py;
+            debrisVelocityX[i] = vx;
+            debrisVelocityY[i] = vy;
+
+            double shipTime = SweptCollision.segmentHitsBox(startX + shipMovedX, startY + shipMovedY, px, py,
+                    shipTopLeftX, shipBottomRightX, shipTopLeftY, shipBottomRightY);
+            double before = shipTime == SweptCollision.MISS ? Double.MAX_VALUE : shipTime;
+            if (gravityField.findBlackHoleIndexCrossing(startX, startY, px, py, before) >= 0) {
+                respawn(i, random);
+                swallowed[w]++;
+            } else if (shipTime != SweptCollision.MISS) {
+                respawn(i, random);
+                addFuel(w, random.nextInt(config.getMaxFuelPerDebris() - 1) + 1);
+                scores[w] += config.getPointsPerDebris();
+                captured[w]++;
+            }
+        }
+
+        // The black hole drains the ship's fuel.
+        if (gravityField.findBlackHoleIndexCrossing(shipStartX, shipStartY, shipX[w], shipY[w]) >= 0) {
+            burnFuel(w, config.getFuelDrainedByBlackHole() * deltaT / DeltaVGameConfig.REFERENCE_STEP_MILLIS);
+            if (fuel[w] <= 0) {
+                gameOver[w] = true;
+            }
+        }
+        randomStates[w] = random.getState();
+    }
+
+    /**
+     * Respawn a piece of debris, as DebrisField.respawn.
+     */
+    private void respawn(int i, ResumableRandom r) {
+        debrisX[i] = r.nextInt(DeltaVGameConfig.WORLD_WIDTH);
+        debrisY[i] = r.nextInt(DeltaVGameConfig.WORLD_HEIGHT);
+        debrisVelocityX[i] = r.nextInt(1) == 0 ? r.nextInt(5) : r.nextInt(5) * -1;
+        debrisVelocityY[i] = r.nextInt(1) == 0 ? r.nextInt(5) : r.nextInt(5) * -1;
+    }
+
+    private void addFuel(int w, int addedFuel) {
+        fuel[w] = Math.min(fuel[w] + addedFuel, configs[w].getMaxFuel());
+        fuel[w] = Math.max(fuel[w], 0);
+    }
+
+    /**
+     * Burn fuel, carrying any fraction of a unit, as DeltaVShip.burnFuel.
+     */
+    private void burnFuel(int w, double burnedFuel) {
+        fuelOwed[w] += burnedFuel;
+        int whole = (int)fuelOwed[w];
+        fuelOwed[w] -= whole;
+        addFuel(w, -whole);
+    }
+}
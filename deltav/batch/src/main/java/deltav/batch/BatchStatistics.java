@@ -0,0 +1,141 @@
+package deltav.batch;
+
+/**
+ * How a set of games in a batch turned out, summed up.
+ */
+public class BatchStatistics {
+
+    private int games;
+    private double meanScore;
+    private double scoreStandardDeviation;
+    private int minScore;
+    private int maxScore;
+    private double gameOverFraction;
+    private double meanTicks;
+    private double meanCaptured;
+    private double meanSwallowed;
+    private double meanFuelRemaining;
+
+    private BatchStatistics() {
+    }
+
+    /**
+     * Sum up every world in a batch.
+     */
+    public static BatchStatistics of(BatchSimulation simulation) {
+        return of(simulation, 0, simulation.getWorldCount());
+    }
+
+    /**
+     * Sum up a range of worlds in a batch, such as the ones that share a
+     * config.
+     *
+     * @param simulation The batch.
+     * @param from The first world.
+     * @param to One past the last world.
+     */
+    public static BatchStatistics of(BatchSimulation simulation, int from, int to) {
+        BatchStatistics statistics = new BatchStatistics();
+        statistics.add(simulation, from, to);
+        return statistics;
+    }
+
+    /**
+     * Add a range of worlds to what we have so far, so a sweep too big for
+     * one batch can be run in several.
+     *
+     * @param simulation The batch.
+     * @param from The first world.
+     * @param to One past the last world.
+     */
+    public void add(BatchSimulation simulation, int from, int to) {
+        // Work in sums, then turn them back into means.
+        double scoreSum = meanScore * games;
+        double scoreSquareSum = (scoreStandardDeviation * scoreStandardDeviation + meanScore * meanScore) * games;
+        double gameOverSum = gameOverFraction * games;
+        double tickSum = meanTicks * games;
+        double capturedSum = meanCaptured * games;
+        double swallowedSum = meanSwallowed * games;
+        double fuelSum = meanFuelRemaining * games;
+        for (int w = from; w < to; w++) {
+            int score = simulation.getScore(w);
+            if (games == 0 || score < minScore) {
+                minScore = score;
+            }
+            if (games == 0 || score > maxScore) {
+                maxScore = score;
+            }
+            games++;
+            scoreSum += score;
+            scoreSquareSum += (double)score * score;
+            gameOverSum += simulation.isGameOver(w) ? 1 : 0;
+            tickSum += simulation.getTicks(w);
+            capturedSum += simulation.getCaptured(w);
+            swallowedSum += simulation.getSwallowed(w);
+            fuelSum += simulation.getFuelRemaining(w);
+        }
+        if (games == 0) {
+            return;
+        }
+        meanScore = scoreSum / games;
+        scoreStandardDeviation = Math.sqrt(Math.max(0, scoreSquareSum / games - meanScore * meanScore));
+        gameOverFraction = gameOverSum / games;
+        meanTicks = tickSum / games;
+        meanCaptured = capturedSum / games;
+        meanSwallowed = swallowedSum / games;
+        meanFuelRemaining = fuelSum / games;
+    }
+
+    // Getters.
+
+    public int getGames() {
+        return games;
+    }
+
+    public double getMeanScore() {
+        return meanScore;
+    }
+
+    public double getScoreStandardDeviation() {
+        return scoreStandardDeviation;
+    }
+
+    public int getMinScore() {
+        return minScore;
+    }
+
+    public int getMaxScore() {
+        return maxScore;
+    }
+
+    /**
+     * The fraction of games that ended with the ship drained dry.
+     */
+    public double getGameOverFraction() {
+        return gameOverFraction;
+    }
+
+    public double getMeanTicks() {
+        return meanTicks;
+    }
+
+    public double getMeanCaptured() {
+        return meanCaptured;
+    }
+
+    public double getMeanSwallowed() {
+        return meanSwallowed;
+    }
+
+    public double getMeanFuelRemaining() {
+        return meanFuelRemaining;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games: score %.2f +/- %.2f (%d to %d), %.1f%% game over, "
+                        + "%.0f ticks, %.2f captured, %.2f swallowed, %.1f fuel left",
+                games, meanScore, scoreStandardDeviation, minScore, maxScore, gameOverFraction * 100,
+                meanTicks, meanCaptured, meanSwallowed, meanFuelRemaining);
+    }
+}
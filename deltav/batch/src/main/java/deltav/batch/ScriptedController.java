@@ -0,0 +1,41 @@
+package deltav.batch;
+
+/**
+ * Flies every ship through the same fixed script of controls, over and over.
+ * The script is a list of controls and how many ticks to hold each for.
+ */
+public class ScriptedController implements ShipController {
+
+    /**
+     * The controls for each tick of one pass through the script.
+     */
+    private final int[] controlsByTick;
+
+    /**
+     * Create a script.
+     *
+     * @param durations How many ticks to hold each set of controls for.
+     * @param controls Each set of controls, packed by ShipControls.
+     */
+    public ScriptedController(int[] durations, int[] controls) {
+        if (durations.length != controls.length || durations.length == 0) {
+            throw new IllegalArgumentException("A script needs a duration for each set of controls");
+        }
+        int length = 0;
+        for (int k = 0; k < durations.length; k++) {
+            length += durations[k];
+        }
+        controlsByTick = new int[length];
+        int tick = 0;
+        for (int k = 0; k < durations.length; k++) {
+            for (int t = 0; t < durations[k]; t++) {
+                controlsByTick[tick++] = controls[k];
+            }
+        }
+    }
+
+    @Override
+    public int getControls(BatchSimulation simulation, int world, int tick) {
+        return controlsByTick[tick % controlsByTick.length];
+    }
+}
@@ -0,0 +1,45 @@
+package deltav.batch;
+
+import deltav.core.input.ShipControls;
+
+/**
+ * A simple bot: it turns towards the nearest piece of debris and thrusts
+ * when it is roughly facing it.  It doesn't think about the black hole at
+ * all, which makes it a fair stand-in for a new player.
+ */
+public class SeekingController implements ShipController {
+
+    /**
+     * How close to facing the target the ship must be to thrust, in radians.
+     */
+    private static final double THRUST_ANGLE = Math.PI / 8;
+
+    @Override
+    public int getControls(BatchSimulation simulation, int world, int tick) {
+        double shipX = simulation.getShipxPosition(world);
+        double shipY = simulation.getShipyPosition(world);
+
+        // Find the nearest piece of debris.
+        int debris = simulation.getDebrisPerWorld();
+        double bestDistanceSquared = Double.MAX_VALUE;
+        double targetX = shipX;
+        double targetY = shipY;
+        for (int i = 0; i < debris; i++) {
+            double deltaX = simulation.getDebrisxPosition(world, i) - shipX;
+            double deltaY = simulation.getDebrisyPosition(world, i) - shipY;
+            double distanceSquared = deltaX * deltaX + deltaY * deltaY;
+            if (distanceSquared < bestDistanceSquared) {
+                bestDistanceSquared = distanceSquared;
+                targetX = shipX + deltaX;
+                targetY = shipY + deltaY;
+            }
+        }
+
+        // A heading of 0 points up the screen and increases clockwise.
+        double wanted = Math.atan2(targetX - shipX, shipY - targetY);
+        double error = wanted - simulation.getShipHeading(world);
+        error -= 2 * Math.PI * Math.floor(error / (2 * Math.PI) + 0.5);
+        int rotationDirection = error > 0.05 ? 1 : (error < -0.05 ? -1 : 0);
+        return ShipControls.encode(Math.abs(error) < THRUST_ANGLE, rotationDirection);
+    }
+}
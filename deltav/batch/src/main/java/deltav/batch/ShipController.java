@@ -0,0 +1,23 @@
+package deltav.batch;
+
+/**
+ * Flies the ship in each world of a batch.  This is the batch equivalent of
+ * the keyboard: every tick, for every world still playing, it is asked for
+ * the ship's controls.
+ *
+ * Worlds are stepped on several threads at once, so implementations must be
+ * safe to call concurrently for different worlds.  Any state kept per world
+ * should be indexed by world.
+ */
+public interface ShipController {
+
+    /**
+     * Choose the ship's controls for the coming tick.
+     *
+     * @param simulation The batch, for looking at the world's state.
+     * @param world The world whose ship is being flown.
+     * @param tick The tick about to be run.
+     * @return The controls, packed by ShipControls.
+     */
+    int getControls(BatchSimulation simulation, int world, int tick);
+}
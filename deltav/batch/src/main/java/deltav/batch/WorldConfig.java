@@ -0,0 +1,120 @@
+package deltav.batch;
+
+import deltav.core.config.DeltaVGameConfig;
+
+/**
+ * The balance settings for one world in a batch.  These are the values from
+ * DeltaVGameConfig worth tuning, as an instance so that every world in a
+ * batch can have its own.  A new config starts with the game's values.
+ */
+public class WorldConfig {
+
+    /**
+     * The black hole's gravitational constant.
+     */
+    private double gravity = DeltaVGameConfig.GRAVITY;
+
+    /**
+     * The strength of the ship's thruster.
+     */
+    private double thrusterThrust = DeltaVGameConfig.THRUSTER_THRUST;
+
+    /**
+     * The most fuel the ship can carry, and how much it starts with.
+     */
+    private int maxFuel = DeltaVGameConfig.MAX_FUEL;
+
+    /**
+     * Capturing debris gives between 1 and one less than this much fuel.
+     */
+    private int maxFuelPerDebris = DeltaVGameConfig.MAX_FUEL_PER_DEBRIS;
+
+    /**
+     * The fuel the black hole drains while the ship is in it, per
+     * REFERENCE_STEP_MILLIS.
+     */
+    private int fuelDrainedByBlackHole = DeltaVGameConfig.FUEL_DRAINED_BY_BLACK_HOLE;
+
+    /**
+     * The points for each piece of debris captured.
+     */
+    private int pointsPerDebris = DeltaVGameConfig.POINTS_PER_DEBRIS;
+
+    /**
+     * A copy of this config, to tweak for the next variant in a sweep.
+     */
+    public WorldConfig copy() {
+        WorldConfig copy = new WorldConfig();
+        copy.gravity = gravity;
+        copy.thrusterThrust = thrusterThrust;
+        copy.maxFuel = maxFuel;
+        copy.maxFuelPerDebris = maxFuelPerDebris;
+        copy.fuelDrainedByBlackHole = fuelDrainedByBlackHole;
+        copy.pointsPerDebris = pointsPerDebris;
+        return copy;
+    }
+
+    // Getters and setters.
+
+    public double getGravity() {
+        return gravity;
+    }
+
+    public void setGravity(double gravity) {
+        this.gravity = gravity;
+    }
+
+    public double getThrusterThrust() {
+        return thrusterThrust;
+    }
+
+    public void setThrusterThrust(double thrusterThrust) {
+        this.thrusterThrust = thrusterThrust;
+    }
+
+    public int getMaxFuel() {
+        return maxFuel;
+    }
+
+    public void setMaxFuel(int maxFuel) {
+        this.maxFuel = maxFuel;
+    }
+
+    public int getMaxFuelPerDebris() {
+        return maxFuelPerDebris;
+    }
+
+    /**
+     * @throws IllegalArgumentException If the value is less than 2, which
+     *                                  leaves no fuel to give.
+     */
+    public void setMaxFuelPerDebris(int maxFuelPerDebris) {
+        if (maxFuelPerDebris < 2) {
+            throw new IllegalArgumentException("maxFuelPerDebris must be at least 2");
+        }
+        this.maxFuelPerDebris = maxFuelPerDebris;
+    }
+
+    public int getFuelDrainedByBlackHole() {
+        return fuelDrainedByBlackHole;
+    }
+
+    public void setFuelDrainedByBlackHole(int fuelDrainedByBlackHole) {
+        this.fuelDrainedByBlackHole = fuelDrainedByBlackHole;
+    }
+
+    public int getPointsPerDebris() {
+        return pointsPerDebris;
+    }
+
+    public void setPointsPerDebris(int pointsPerDebris) {
+        this.pointsPerDebris = pointsPerDebris;
+    }
+
+    @Override
+    public String toString() {
+        return "gravity " + gravity + ", thrust " + thrusterThrust + ", max fuel " + maxFuel
+                + ", max fuel per debris " + maxFuelPerDebris + ", drain " + fuelDrainedByBlackHole
+                + ", points " + pointsPerDebris;
+    }
+}
@@ -0,0 +1,113 @@
+package deltav.batch;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.input.ShipControls;
+import deltav.core.model.DebrisField;
+import deltav.core.model.DeltaVShip;
+import deltav.core.model.DeltaVWorld;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class BatchSimulationTest {
+
+    /**
+     * With the default config, a world in a batch flown by a bot should play
+     * out exactly as a DeltaVWorld with the same seed given the same controls.
+     * @throws Exception
+     */
+    @Test
+    public void testMatchesWorld() throws Exception {
+        int debris = 50;
+        long seed = 42L;
+        BatchSimulation simulation = new BatchSimulation(new WorldConfig[] {new WorldConfig()}, debris, seed);
+        SeekingController bot = new SeekingController();
+        simulation.setController(bot);
+        DeltaVWorld world = new DeltaVWorld(debris, seed);
+
+        for (int tick = 0; tick < 3000; tick++) {
+            ShipControls.apply(bot.getControls(simulation, 0, tick), world.getShip());
+            simulation.run(1);
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+
+            DeltaVShip ship = world.getShip();
+            assertEquals(ship.getxPosition(), simulation.getShipxPosition(0), 0);
+            assertEquals(ship.getyPosition(), simulation.getShipyPosition(0), 0);
+            assertEquals(ship.getHeading(), simulation.getShipHeading(0), 0);
+            assertEquals(ship.getFuelRemaining(), simulation.getFuelRemaining(0));
+            assertEquals(world.getScore(), simulation.getScore(0));
+            assertEquals(world.isGameOver(), simulation.isGameOver(0));
+            DebrisField debrisField = world.getDebrisField();
+            for (int i = 0; i < debris; i++) {
+                assertEquals(debrisField.getxPosition(i), simulation.getDebrisxPosition(0, i), 0);
+                assertEquals(debrisField.getyPosition(i), simulation.getDebrisyPosition(0, i), 0);
+            }
+        }
+        assertTrue(simulation.getScore(0) > 0);
+    }
+
+    /**
+     * Running across a pool should give exactly the results of running on
+     * one thread.
+     * @throws Exception
+     */
+    @Test
+    public void testThreadsMatchSingleThread() throws Exception {
+        WorldConfig[] configs = new WorldConfig[1000];
+        for (int w = 0; w < configs.length; w++) {
+            configs[w] = new WorldConfig();
+        }
+        BatchSimulation serial = new BatchSimulation(configs, 10, 7L);
+        serial.setController(new SeekingController());
+        serial.run(500);
+
+        BatchSimulation parallel = new BatchSimulation(configs, 10, 7L);
+        parallel.setController(new SeekingController());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            parallel.run(500, executor, 4);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(serial.getTick(), parallel.getTick());
+        for (int w = 0; w < configs.length; w++) {
+            assertEquals(serial.getScore(w), parallel.getScore(w));
+            assertEquals(serial.getFuelRemaining(w), parallel.getFuelRemaining(w));
+            assertEquals(serial.getShipxPosition(w), parallel.getShipxPosition(w), 0);
+            assertEquals(serial.getDebrisxPosition(w, 9), parallel.getDebrisxPosition(w, 9), 0);
+        }
+    }
+
+    /**
+     * Each world runs with its own config: an idle ship falls into the black
+     * hole, and the game should end sooner the more fuel it drains.
+     * @throws Exception
+     */
+    @Test
+    public void testPerWorldConfig() throws Exception {
+        WorldConfig gentle = new WorldConfig();
+        gentle.setFuelDrainedByBlackHole(1);
+        WorldConfig harsh = new WorldConfig();
+        harsh.setFuelDrainedByBlackHole(100);
+        WorldConfig[] configs = new WorldConfig[200];
+        for (int w = 0; w < configs.length; w++) {
+            configs[w] = w < 100 ? gentle : harsh;
+        }
+        BatchSimulation simulation = new BatchSimulation(configs, 10, 3L);
+        simulation.run(5000);
+
+        // The gentle drain never runs the tank dry, the harsh one always does.
+        BatchStatistics gentleStatistics = BatchStatistics.of(simulation, 0, 100);
+        BatchStatistics harshStatistics = BatchStatistics.of(simulation, 100, 200);
+        assertEquals(100, harshStatistics.getGames());
+        assertEquals(0, gentleStatistics.getGameOverFraction(), 0);
+        assertEquals(1, harshStatistics.getGameOverFraction(), 0);
+        assertTrue(harshStatistics.getMeanTicks() < gentleStatistics.getMeanTicks());
+        assertEquals(gentle, simulation.getConfig(0));
+        assertEquals(harsh, simulation.getConfig(199));
+    }
+}
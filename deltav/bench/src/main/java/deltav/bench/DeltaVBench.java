@@ -0,0 +1,28 @@
+package deltav.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the DeltaV benchmarks.  Any JMH command line options are honoured, but
+ * we always attach the GC profiler so every run reports gc.alloc.rate.norm
+ * alongside throughput.
+ *
+ * Usage: java -jar bench/target/benchmarks.jar [JMH options] [benchmark regex]
+ */
+public class DeltaVBench {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include("deltav\\.bench\\..*");
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,73 @@
+package deltav.bench;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.BlackHole;
+import deltav.core.model.DeltaVObject;
+import deltav.core.model.GravityField;
+import deltav.core.util.GravityUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single gravity calculation, the innermost call of every tick,
+ * computed directly and sampled from the precomputed gravity field.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GravityBenchmark {
+
+    /**
+     * An object sitting somewhere off-center, so every branch of the
+     * calculation is exercised.
+     */
+    private DeltaVObject object;
+
+    /**
+     * Caller-owned output for the allocation-free kernel.
+     */
+    private final GravityUtil.ForceOfGravity force = new GravityUtil.ForceOfGravity();
+
+    /**
+     * The default single black hole, as a precomputed field.
+     */
+    private GravityField field;
+
+    @Setup
+    public void setUp() {
+        object = new DeltaVObject() {
+        };
+        object.setxPosition(DeltaVGameConfig.SCREEN_WIDTH * 0.3);
+        object.setyPosition(DeltaVGameConfig.SCREEN_HEIGHT * 0.7);
+
+        field = new GravityField(
+                0 - DeltaVGameConfig.SCREEN_WIDTH * .1,
+                0 - DeltaVGameConfig.SCREEN_HEIGHT * .1,
+                DeltaVGameConfig.SCREEN_WIDTH * 1.1,
+                DeltaVGameConfig.SCREEN_HEIGHT * 1.1,
+                DeltaVGameConfig.GRAVITY_FIELD_CELL_SIZE);
+        field.addBlackHole(BlackHole.createDefault());
+        field.rebuildIfNeeded();
+    }
+
+    @Benchmark
+    public GravityUtil.ForceOfGravity forceOfGravityOnObject() {
+        return GravityUtil.getForceOfGravityOnObject(object);
+    }
+
+    @Benchmark
+    public GravityUtil.ForceOfGravity computeForceOfGravityAt() {
+        GravityUtil.computeForceOfGravityAt(object.getxPosition(), object.getyPosition(), force);
+        return force;
+    }
+
+    @Benchmark
+    public GravityUtil.ForceOfGravity sampleGravityField() {
+        field.sample(object.getxPosition(), object.getyPosition(), force);
+        return force;
+    }
+}
@@ -0,0 +1,77 @@
+package deltav.bench;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.util.BarnesHutTree;
+import deltav.core.util.GravityUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a full tick's worth of mutual gravity - the force on every body
+ * from every other - computed with the Barnes-Hut tree against brute force.
+ * The tree's numbers include rebuilding it, as the world does every tick.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MutualGravityBenchmark {
+
+    @Param({"1000", "5000", "20000"})
+    public int bodyCount;
+
+    @Param({"0.5", "0.8"})
+    public double theta;
+
+    private double[] x;
+    private double[] y;
+    private BarnesHutTree tree;
+    private final GravityUtil.ForceOfGravity force = new GravityUtil.ForceOfGravity();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random r = new Random(1);
+        x = new double[bodyCount];
+        y = new double[bodyCount];
+        for (int b = 0; b < bodyCount; b++) {
+            x[b] = r.nextDouble() * DeltaVGameConfig.SCREEN_WIDTH;
+            y[b] = r.nextDouble() * DeltaVGameConfig.SCREEN_HEIGHT;
+        }
+        tree = new BarnesHutTree(DeltaVGameConfig.MUTUAL_GRAVITY,
+                DeltaVGameConfig.MUTUAL_GRAVITY_SOFTENING, bodyCount);
+        fill();
+    }
+
+    private void fill() {
+        tree.clear();
+        for (int b = 0; b < bodyCount; b++) {
+            tree.add(x[b], y[b], DeltaVGameConfig.DEBRIS_MASS, b);
+        }
+    }
+
+    @Benchmark
+    public double barnesHut() {
+        fill();
+        tree.build();
+        double sum = 0;
+        for (int b = 0; b < bodyCount; b++) {
+            tree.accelerationAt(x[b], y[b], b, theta, force);
+            sum += force.forceInX + force.forceInY;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double bruteForce() {
+        double sum = 0;
+        for (int b = 0; b < bodyCount; b++) {
+            tree.accelerationAtBruteForce(x[b], y[b], b, force);
+            sum += force.forceInX + force.forceInY;
+        }
+        return sum;
+    }
+}
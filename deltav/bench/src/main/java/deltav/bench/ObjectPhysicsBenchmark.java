@@ -0,0 +1,73 @@
+package deltav.bench;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.DebrisField;
+import deltav.core.model.DeltaVObject;
+import deltav.core.model.DeltaVShip;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one physics step for each kind of object in the world.  Each
+ * benchmark puts its object back in the same spot first, so the numbers don't
+ * depend on where the object has drifted to.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ObjectPhysicsBenchmark {
+
+    private static final double START_X = DeltaVGameConfig.SCREEN_WIDTH * 0.3;
+    private static final double START_Y = DeltaVGameConfig.SCREEN_HEIGHT * 0.7;
+
+    private DeltaVObject object;
+    private DeltaVShip ship;
+    private DebrisField debris;
+
+    @Setup
+    public void setUp() {
+        object = new DeltaVObject() {
+        };
+        ship = new DeltaVShip();
+        ship.setThrusting(true);
+        ship.setRotationDirection(1);
+        debris = new DebrisField(1);
+        debris.spawn(0, START_X, START_Y, 0, 0);
+    }
+
+    @Benchmark
+    public DeltaVObject objectUpdatePhysics() {
+        object.setxPosition(START_X);
+        object.setyPosition(START_Y);
+        object.setVelocityInX(1);
+        object.setVelocityInY(1);
+        object.updatePhysics(10);
+        return object;
+    }
+
+    @Benchmark
+    public DeltaVShip shipUpdatePhysics() {
+        ship.setxPosition(START_X);
+        ship.setyPosition(START_Y);
+        ship.setVelocityInX(1);
+        ship.setVelocityInY(1);
+        ship.setFuelRemaining(DeltaVGameConfig.MAX_FUEL);
+        ship.updatePhysics(10);
+        return ship;
+    }
+
+    /**
+     * Debris no longer has its own class, so this measures a one-piece
+     * DebrisField, the per-piece cost of the debris step.
+     */
+    @Benchmark
+    public DebrisField debrisUpdatePhysics() {
+        debris.spawn(0, START_X, START_Y, 1, 1);
+        debris.updatePhysics(10);
+        return debris;
+    }
+}
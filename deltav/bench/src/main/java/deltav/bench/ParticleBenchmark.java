@@ -0,0 +1,53 @@
+package deltav.bench;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.particle.ParticleSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures stepping a particle system with a steady number of particles
+ * alive, under the default world's gravity.  Whatever dies each step is
+ * replaced, so the pool stays full of particles at every stage of life and
+ * gc.alloc.rate.norm should stay at zero.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParticleBenchmark {
+
+    @Param({"1000", "10000", "30000"})
+    public int particleCount;
+
+    private DeltaVWorld world;
+    private ParticleSystem particles;
+    private final Random random = new Random(1L);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new DeltaVWorld(0, 1L);
+        particles = new ParticleSystem(particleCount);
+        refill();
+    }
+
+    @Benchmark
+    public ParticleSystem update() {
+        particles.update(DeltaVGameConfig.SIMULATION_STEP_MILLIS, world.getGravityField());
+        refill();
+        return particles;
+    }
+
+    private void refill() {
+        while (particles.getCount() < particleCount) {
+            particles.emit(random.nextDouble() * world.getWidth(), random.nextDouble() * world.getHeight(),
+                    random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2,
+                    DeltaVGameConfig.EXHAUST_LIFE_MILLIS / 2 + random.nextInt(DeltaVGameConfig.EXHAUST_LIFE_MILLIS));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package deltav.bench;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.DeltaVWorld;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full DeltaVWorld tick - ship, debris and collisions - across a
+ * range of debris counts.  A world scale above 1 spreads the debris over a
+ * world that many screens wide and high, which is split into sectors, so
+ * the tick should cost about the same however much debris there is.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorldTickBenchmark {
+
+    @Param({"20", "1000", "10000", "100000"})
+    public int debrisCount;
+
+    @Param({"1", "10"})
+    public int worldScale;
+
+    private DeltaVWorld world;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new DeltaVWorld(debrisCount, 1L,
+                DeltaVGameConfig.WORLD_WIDTH * worldScale, DeltaVGameConfig.WORLD_HEIGHT * worldScale);
+    }
+
+    @Benchmark
+    public DeltaVWorld tick() {
+        // The ship tends to fall into the black hole and end the game, after
+        // which a tick does nothing.  Keep it topped up so we always measure
+        // a real tick.
+        world.getShip().setFuelRemaining(DeltaVGameConfig.MAX_FUEL);
+        world.updatePhysics(10);
+        return world;
+    }
+}
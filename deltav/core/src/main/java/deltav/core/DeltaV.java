@@ -3,23 +3,147 @@ package deltav.core;
 import static playn.core.PlayN.*;
 
 import deltav.core.config.DeltaVGameConfig;
+import deltav.core.event.GameEventRing;
+import deltav.core.input.InputRecorder;
+import deltav.core.input.ShipKeyboardListener;
+import deltav.core.model.DebrisStepper;
 import deltav.core.model.DeltaVWorld;
+import deltav.core.particle.ParticleEffects;
+import deltav.core.particle.ParticleSystem;
+import deltav.core.perf.PerfMetrics;
+import deltav.core.render.PerfOverlay;
+import deltav.core.render.TextureAtlas;
+import deltav.core.render.WorldRenderer;
 import playn.core.*;
+import playn.core.util.Callback;
 
 public class DeltaV extends Game.Default {
 
+    /**
+     * The key that shows and hides the perf overlay.
+     */
+    private static final Key PERF_OVERLAY_KEY = Key.F3;
+
     /**
      * Our game world.
      */
     private DeltaVWorld world;
 
+    /**
+     * Draws our game world, once the sprite atlas's manifest has loaded.
+     */
+    private WorldRenderer renderer;
+
     /**
      * An ImmediateLayer to render the game in.
      */
     private ImmediateLayer immLayer;
 
+    /**
+     * How far we are between the latest update and the next, as of the most
+     * recent paint.
+     */
+    private float alpha;
+
+    /**
+     * A platform-specific way of stepping debris, or null to let the world
+     * do it itself.
+     */
+    private DebrisStepper debrisStepper;
+
+    /**
+     * Should we record the player's input so the game can be replayed?
+     */
+    private boolean recordingInput;
+
+    /**
+     * Records the player's input, if we are recording.
+     */
+    private InputRecorder inputRecorder;
+
+    /**
+     * Times every phase of the game loop, and the overlay that shows them.
+     */
+    private PerfMetrics perfMetrics;
+    private PerfOverlay perfOverlay;
+
+    /**
+     * Where the world publishes what happens in the game.
+     */
+    private final GameEventRing eventRing = new GameEventRing(DeltaVGameConfig.EVENT_RING_CAPACITY);
+
+    /**
+     * Exhaust, sparks and the like.  These follow the world's events, so are
+     * created with the ring.
+     */
+    private final ParticleEffects particleEffects =
+            new ParticleEffects(new ParticleSystem(DeltaVGameConfig.PARTICLE_CAPACITY), eventRing);
+
     public DeltaV() {
-        super(10);
+        // Game.Default runs update at this fixed rate however fast we are
+        // painting, and tells paint how far between updates each frame falls.
+        super(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+    }
+
+    /**
+     * Have the world step its debris with the given stepper.  Must be called
+     * before the game starts.
+     */
+    public void setDebrisStepper(DebrisStepper debrisStepper) {
+        this.debrisStepper = debrisStepper;
+    }
+
+    /**
+     * Record the player's input so the game can be replayed with
+     * InputReplay.  Must be called before the game starts.
+     */
+    public void setRecordingInput(boolean recordingInput) {
+        this.recordingInput = recordingInput;
+    }
+
+    /**
+     * Carry on from a saved world rather than starting a new one.  Must be
+     * called before the game starts.  A game carried on this way isn't
+     * recorded, since a recording has to start from a fresh world.
+     */
+    public void setWorld(DeltaVWorld world) {
+        this.world = world;
+    }
+
+    /**
+     * The world being played.  Updates hold the lock on this game, so hold
+     * it too while reading the world from another thread, e.g. to save it.
+     */
+    public DeltaVWorld getWorld() {
+        return world;
+    }
+
+    /**
+     * Record the game loop's timings into the given metrics.  Must be called
+     * before the game starts; otherwise we time with PlayN's clock and don't
+     * count allocations.
+     */
+    public void setPerfMetrics(PerfMetrics perfMetrics) {
+        this.perfMetrics = perfMetrics;
+    }
+
+    public PerfMetrics getPerfMetrics() {
+        return perfMetrics;
+    }
+
+    /**
+     * What happens in the game, for anything that wants to follow along.
+     * Consumers can be added at any time and read on any thread.
+     */
+    public GameEventRing getEventRing() {
+        return eventRing;
+    }
+
+    /**
+     * The recording of the current game, or null if we aren't recording.
+     */
+    public InputRecorder getInputRecorder() {
+        return inputRecorder;
     }
 
     @Override
@@ -28,23 +152,88 @@ public class DeltaV extends Game.Default {
         Image bgImage = assets().getImage("images/bg2.jpg");
         ImageLayer bgLayer = graphics().createImageLayer(bgImage);
         graphics().rootLayer().add(bgLayer);
-        world = new DeltaVWorld();
+        boolean restored = world != null;
+        if (!restored) {
+            world = new DeltaVWorld();
+        }
+        world.setDebrisStepper(debrisStepper);
+        if (recordingInput && !restored) {
+            inputRecorder = new InputRecorder(world, DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        }
+        if (perfMetrics == null) {
+            perfMetrics = new PerfMetrics(new PerfMetrics.Clock() {
+                public long nanoTime() {
+                    return (long)(currentTime() * 1000000);
+                }
+            });
+        }
+        world.setPerfMetrics(perfMetrics);
+        world.setEventRing(eventRing);
+        TextureAtlas.load(TextureAtlas.SPRITES, new Callback<TextureAtlas>() {
+            public void onSuccess(TextureAtlas sprites) {
+                renderer = new WorldRenderer(world, sprites);
+                renderer.setPerfMetrics(perfMetrics);
+                renderer.setParticles(particleEffects.getParticles());
+            }
+
+            public void onFailure(Throwable cause) {
+                log().error("Couldn't load " + TextureAtlas.SPRITES, cause);
+            }
+        });
+        perfOverlay = new PerfOverlay(perfMetrics, 10, 70);
+
+        // The ship gets every key except the one for the overlay.
+        final ShipKeyboardListener shipListener = new ShipKeyboardListener(world.getShip());
+        keyboard().setListener(new Keyboard.Listener() {
+            public void onKeyDown(Keyboard.Event event) {
+                if (event.key() == PERF_OVERLAY_KEY) {
+                    perfOverlay.toggle();
+                } else {
+                    shipListener.onKeyDown(event);
+                }
+            }
+
+            public void onKeyTyped(Keyboard.TypedEvent event) {
+                shipListener.onKeyTyped(event);
+            }
+
+            public void onKeyUp(Keyboard.Event event) {
+                shipListener.onKeyUp(event);
+            }
+        });
         immLayer = graphics().createImmediateLayer(new ImmediateLayer.Renderer() {
             public void render(Surface surface) {
+                perfMetrics.frame();
+                perfMetrics.begin(PerfMetrics.RENDER);
                 surface.clear();
-                world.paint(surface);
+                if (renderer != null) {
+                    renderer.paint(surface, alpha);
+                }
+                perfMetrics.end(PerfMetrics.RENDER);
+                perfOverlay.paint(surface);
             }
         });
         graphics().rootLayer().add(immLayer);
     }
 
     @Override
-    public void update(int delta) {
+    public synchronized void update(int delta) {
+        perfMetrics.begin(PerfMetrics.UPDATE);
+        if (inputRecorder != null) {
+            inputRecorder.record();
+        }
         world.updatePhysics(delta);
+        particleEffects.update(world, delta);
+        if (inputRecorder != null && world.isGameOver()) {
+            inputRecorder.finish();
+        }
+        perfMetrics.end(PerfMetrics.UPDATE);
     }
 
     @Override
     public void paint(float alpha) {
-        // Nothing to do, we paint each update.
+        // The ImmediateLayer does the actual drawing when the frame renders,
+        // it just needs to know where between updates we are.
+        this.alpha = alpha;
     }
 }
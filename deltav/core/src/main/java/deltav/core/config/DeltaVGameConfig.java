@@ -14,29 +14,173 @@ public class DeltaVGameConfig {
     public static final float GRAVITY = 50000.0F;
 
     /**
-     * The width and height of our world.
+     * The number of milliseconds of game time simulated by each update.  The
+     * display can refresh at any rate; frames drawn between updates are
+     * interpolated.  Raising this runs the physics less often, which helps on
+     * weak devices.
+     */
+    public static final int SIMULATION_STEP_MILLIS = 10;
+
+    /**
+     * How often a game server sends each client a snapshot of the world, in
+     * ticks.  Clients interpolate between snapshots, so this mostly trades
+     * bandwidth against how far behind the server they draw.
+     */
+    public static final int SNAPSHOT_INTERVAL_TICKS = 5;
+
+    /**
+     * How many ticks behind the newest snapshot a client draws.  Two
+     * snapshot intervals lets one arrive late without the picture freezing.
+     */
+    public static final int SNAPSHOT_DELAY_TICKS = SNAPSHOT_INTERVAL_TICKS * 2;
+
+    /**
+     * Roughly how many bytes each snapshot after the first may take.  When
+     * more debris has strayed from where clients think it is than fits, the
+     * worst is corrected first and the rest waits for the next snapshot.
+     */
+    public static final int SNAPSHOT_BUDGET_BYTES = 4096;
+
+    /**
+     * How many game events the event ring holds.  A consumer that falls this
+     * far behind starts losing the oldest.
+     */
+    public static final int EVENT_RING_CAPACITY = 1024;
+
+    /**
+     * Velocities are measured in pixels per this many milliseconds.  It is the
+     * step the game was originally tuned at, so that changing
+     * SIMULATION_STEP_MILLIS doesn't change how fast things move.
+     */
+    public static final double REFERENCE_STEP_MILLIS = 10D;
+
+    /**
+     * The width and height of the screen.
      */
     public static final int SCREEN_WIDTH = 1200;
     public static final int SCREEN_HEIGHT = 850;
 
+    /**
+     * The width and height of a world, unless it is created bigger.  The
+     * camera follows the ship around worlds bigger than the screen.
+     */
+    public static final int WORLD_WIDTH = SCREEN_WIDTH;
+    public static final int WORLD_HEIGHT = SCREEN_HEIGHT;
+
     /**
      * We need to put bounds on our acceleration to keep the physics from
-     * becoming unstable near the black hole.
+     * becoming unstable near the black hole.  At the default GRAVITY this only
+     * bites within about 22 pixels of a well's center, inside the black hole
+     * itself; passes outside that are kept accurate by substepping instead.
      */
     public static final double MAX_ACCEL_OF_GRAVITY = 100D;
 
+    /**
+     * The spacing of the grid the gravity field is precomputed on.  Smaller
+     * is closer to the exact force and takes more memory; 0 turns the grid
+     * off and sums every black hole's pull exactly for each object.
+     */
+    public static final double GRAVITY_FIELD_CELL_SIZE = 8D;
+
+    /**
+     * Objects closer than this to a black hole split each step into smaller
+     * substeps, so close passes are integrated accurately without everything
+     * else paying for it.  The closer they are the more substeps they take,
+     * up to MAX_SUBSTEPS.
+     */
+    public static final double SUBSTEP_RADIUS = 120D;
+    public static final int MAX_SUBSTEPS = 16;
+
+    /**
+     * Should the world integrate with second order Verlet rather than
+     * semi-implicit Euler?
+     */
+    public static final boolean VERLET_INTEGRATION_ENABLED = true;
+
     /**
      * The number of debris pieces to maintain the world.
      */
     public static final int NUMBER_OF_DEBRIS_PIECES = 20;
 
+    /**
+     * The radius of a piece of debris, used when debris collide with each
+     * other.
+     */
+    public static final double DEBRIS_RADIUS = 10D;
+
+    /**
+     * Should pieces of debris bounce off one another?
+     */
+    public static final boolean DEBRIS_COLLISIONS_ENABLED = false;
+
+    /**
+     * The size of each cell in the collision grid.  This should be comfortably
+     * bigger than the ship and the black hole, so a collision query only ever
+     * touches a handful of cells.
+     */
+    public static final double COLLISION_CELL_SIZE = 64D;
+
+    /**
+     * Worlds too big to simulate all at once are split into square sectors,
+     * this many collision cells on a side.  Sectors within
+     * ACTIVE_SECTOR_RADIUS sectors of the ship's are stepped every tick.
+     * Those within DORMANT_SECTOR_RADIUS are dormant, stepped in one go every
+     * DORMANT_STEP_TICKS ticks, and anything further away is frozen until
+     * the ship comes back.  The active sectors should cover the screen
+     * around the ship, wherever in its sector it is.
+     */
+    public static final int SECTOR_CELLS = 16;
+    public static final int ACTIVE_SECTOR_RADIUS = 1;
+    public static final int DORMANT_SECTOR_RADIUS = 3;
+    public static final int DORMANT_STEP_TICKS = 8;
+
+    /**
+     * Should debris and the ship pull on each other, as well as being pulled
+     * by the black hole?
+     */
+    public static final boolean MUTUAL_GRAVITY_ENABLED = false;
+
+    /**
+     * The gravitational constant between objects in the world, as opposed to
+     * the black hole's GRAVITY.
+     */
+    public static final double MUTUAL_GRAVITY = 200D;
+
+    /**
+     * Objects closer than about this many pixels pull on each other less than
+     * the inverse square law would say, so close passes don't fling them
+     * apart.
+     */
+    public static final double MUTUAL_GRAVITY_SOFTENING = 10D;
+
+    /**
+     * The masses used for mutual gravity.
+     */
+    public static final double DEBRIS_MASS = 1D;
+    public static final double SHIP_MASS = 5D;
+
+    /**
+     * The Barnes-Hut opening angle.  Groups of objects whose size divided by
+     * their distance is less than this are treated as a single mass.  Lower is
+     * more accurate and slower; 0 is exact.
+     */
+    public static final double BARNES_HUT_THETA = 0.5D;
+
+    /**
+     * The dimensions of the ship, used for bounding it within the world and
+     * for collisions.  These match the ship's image, but are known up front so
+     * the simulation never has to wait on an asset load.
+     */
+    public static final int SHIP_WIDTH = 48;
+    public static final int SHIP_HEIGHT = 48;
+
     /**
      * The strength of the ship's thruster.
      */
     public static final float THRUSTER_THRUST = 2.0F;
 
     /**
-     * The speed at which the ship can rotate.
+     * The speed at which the ship can rotate, in radians per reference step.
      */
     public static final double ROTATION_SPEED = Math.PI / 64;
 
@@ -51,7 +195,8 @@ public class DeltaVGameConfig {
     public static final int MAX_FUEL_PER_DEBRIS = 10;
 
     /**
-     * The amount of fuel the black hole drains per tick in contact.
+     * The amount of fuel the black hole drains in contact, per
+     * REFERENCE_STEP_MILLIS, like the thruster's one unit.
      */
     public static final int FUEL_DRAINED_BY_BLACK_HOLE = 10;
 
@@ -60,6 +205,36 @@ public class DeltaVGameConfig {
      */
     public static final int POINTS_PER_DEBRIS = 1;
 
+    /**
+     * The most particles alive at once.  Effects that would go over this are
+     * cut short rather than growing the pool.
+     */
+    public static final int PARTICLE_CAPACITY = 32768;
+
+    /**
+     * The thruster's exhaust: how many particles it puts out per tick while
+     * firing, how fast they leave the ship relative to it, and how long they
+     * last.
+     */
+    public static final int EXHAUST_PARTICLES_PER_TICK = 3;
+    public static final double EXHAUST_SPEED = 4D;
+    public static final int EXHAUST_LIFE_MILLIS = 600;
+
+    /**
+     * The burst of sparks when the ship captures a piece of debris.
+     */
+    public static final int CAPTURE_PARTICLES = 40;
+    public static final double CAPTURE_SPEED = 3D;
+    public static final int CAPTURE_LIFE_MILLIS = 500;
+
+    /**
+     * The swirl of particles around a black hole as it swallows a piece of
+     * debris.
+     */
+    public static final int SWALLOW_PARTICLES = 24;
+    public static final double SWALLOW_SPEED = 2D;
+    public static final int SWALLOW_LIFE_MILLIS = 1500;
+
     /**
      * The width of the black hole in the center of the world.
      */
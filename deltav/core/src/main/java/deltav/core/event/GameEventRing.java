@@ -0,0 +1,200 @@
+package deltav.core.event;
+
+/**
+ * A fixed size ring of game events, written by the tick and read by any
+ * number of consumers - audio, telemetry, achievements and so on - each at
+ * its own pace and, on platforms that have them, on its own thread.
+ *
+ * An event is a type and two ints, kept in parallel arrays allocated up
+ * front, so publishing allocates nothing.  The tick never waits for anyone:
+ * it writes the next slot and moves the published sequence on.  A consumer
+ * that falls a whole ring behind loses the oldest events it hadn't read and
+ * is told how many.
+ *
+ * There are no locks.  The one volatile published sequence hands the event
+ * data over to consumers, and a consumer checks after copying events out
+ * that the producer hadn't come round the ring and started overwriting them
+ * while it did.  Only one thread may publish.
+ */
+public class GameEventRing {
+
+    /**
+     * The event types.
+     *
+     * DEBRIS_CAPTURED: the ship caught a piece of debris.  The slot is the
+     * piece's, which has already respawned, and the amount is the fuel it
+     * gave.
+     *
+     * DEBRIS_SWALLOWED: a piece of debris fell into a black hole.  The slot
+     * is the piece's, which has already respawned, and the amount is the
+     * black hole's index in the world's gravity field.
+     *
+     * SHIP_DRAINED: the ship touched a black hole.  The amount is the fuel
+     * it has left.
+     *
+     * GAME_OVER: the ship ran out of fuel in a black hole.  The amount is the
+     * final score.
+     */
+    public static final int DEBRIS_CAPTURED = 1;
+    public static final int DEBRIS_SWALLOWED = 2;
+    public static final int SHIP_DRAINED = 3;
+    public static final int GAME_OVER = 4;
+
+    private static final String[] NAMES = {
+            "none", "debris captured", "debris swallowed", "ship drained", "game over"
+    };
+
+    /**
+     * Told of each event a consumer reads.
+     */
+    public interface Handler {
+
+        /**
+         * @param type What happened, e.g. DEBRIS_CAPTURED.
+         * @param slot The debris slot involved, or -1.
+         * @param amount A number that depends on the type.
+         */
+        void onEvent(int type, int slot, int amount);
+    }
+
+    private final int capacity;
+    private final int mask;
+
+    private final int[] types;
+    private final int[] slots;
+    private final int[] amounts;
+
+    /**
+     * The number of events ever published.  Event n lives at n & mask until
+     * event n + capacity overwrites it.
+     */
+    private volatile long published;
+
+    /**
+     * Create a ring.
+     *
+     * @param capacity How many events the ring holds.  This must be a power
+     *                 of two.
+     */
+    public GameEventRing(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        types = new int[capacity];
+        slots = new int[capacity];
+        amounts = new int[capacity];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public static String getName(int type) {
+        return NAMES[type];
+    }
+
+    /**
+     * Add an event.  Only ever call this from one thread.
+     */
+    public void publish(int type, int slot, int amount) {
+        long sequence = published;
+        int index = (int)sequence & mask;
+        types[index] = type;
+        slots[index] = slot;
+        amounts[index] = amount;
+        published = sequence + 1;
+    }
+
+    /**
+     * A new consumer, which will read every event published from now on.
+     * Each consumer should only be used by one thread at a time.
+     */
+    public Consumer newConsumer() {
+        return new Consumer(published);
+    }
+
+    /**
+     * Reads events from the ring.  Events are copied out into the consumer's
+     * own arrays and checked before any handler sees them, so a handler can
+     * take as long as it likes.
+     */
+    public class Consumer {
+
+        private final int[] readTypes = new int[capacity];
+        private final int[] readSlots = new int[capacity];
+        private final int[] readAmounts = new int[capacity];
+
+        /**
+         * The next event to read.  Volatile so that writing it keeps the
+         * copies out of the ring from being put off until after we've checked
+         * they weren't overwritten.
+         */
+        private volatile long next;
+
+        /**
+         * The number of events lost by falling too far behind.
+         */
+        private long dropped;
+
+        private Consumer(long next) {
+            this.next = next;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * How many events are waiting to be read, as far as we can tell
+         * right now.
+         */
+        public long getBacklog() {
+            return published - next;
+        }
+
+        /**
+         * Hand every event published since the last poll to a handler, in
+         * order.  Never waits.
+         *
+         * @param handler Told of each event.
+         * @return The number of events handled.
+         */
+        public int poll(Handler handler) {
+            long from = next;
+            long to = published;
+            if (to - from > capacity) {
+                // We've been lapped, so the oldest events are gone.
+                dropped += to - capacity - from;
+                from = to - capacity;
+            }
+            int count = (int)(to - from);
+            for (int k = 0; k < count; k++) {
+                int index = (int)(from + k) & mask;
+                readTypes[k] = types[index];
+                readSlots[k] = slots[index];
+                readAmounts[k] = amounts[index];
+            }
+            next = to;
+
+            // The producer may have come round and overwritten some of what
+            // we just copied.  Event n is safe as long as the producer hasn't
+            // started on event n + capacity.
+            long overwritten = published - capacity + 1 - from;
+            int first = 0;
+            if (overwritten > 0) {
+                first = (int)Math.min(overwritten, count);
+                dropped += first;
+            }
+            for (int k = first; k < count; k++) {
+                handler.onEvent(readTypes[k], readSlots[k], readAmounts[k]);
+            }
+            return count - first;
+        }
+    }
+}
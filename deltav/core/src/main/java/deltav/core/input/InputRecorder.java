@@ -0,0 +1,148 @@
+package deltav.core.input;
+
+import deltav.core.model.DeltaVWorld;
+
+import java.util.Arrays;
+
+/**
+ * Records a game so it can be replayed exactly.  The world is deterministic
+ * given its seed, so all we need to keep is the seed and the ship's controls
+ * whenever they change, stamped with the tick they changed on.  A whole game
+ * is usually a few hundred bytes.
+ *
+ * The log looks like this, with every number after the seed written as a
+ * variable length int (seven bits per byte, low bits first):
+ *
+ *   'D' 'V' 'R' version  seed (8 bytes, high byte first)
+ *   debris pieces  step millis
+ *   ticks since the previous change  controls      (repeated)
+ *   ticks since the previous change  END  final score  final fuel
+ *
+ * Controls are a single byte, packed by ShipControls.
+ *
+ * Call record once per update, before the world updates, and finish when
+ * the game ends.  InputReplay plays the log back.
+ */
+public class InputRecorder {
+
+    /**
+     * The magic bytes and version at the start of every log.
+     */
+    static final byte[] MAGIC = {'D', 'V', 'R'};
+    static final int VERSION = 1;
+
+    /**
+     * Marks the end of the input, in place of a controls byte.
+     */
+    static final int END = 0xFF;
+
+    /**
+     * The world being recorded.
+     */
+    private final DeltaVWorld world;
+
+    /**
+     * The log so far.
+     */
+    private byte[] bytes = new byte[64];
+    private int length;
+
+    /**
+     * The number of updates recorded, the tick of the last change and the
+     * controls it changed to.  The ship starts with its thruster off and not
+     * rotating.
+     */
+    private int tick;
+    private int lastChangeTick;
+    private int lastControls = ShipControls.NONE;
+
+    /**
+     * Has finish been called?
+     */
+    private boolean finished;
+
+    /**
+     * Start recording a world.  This must be called before the world's first
+     * update.
+     *
+     * @param world The world to record.
+     * @param stepMillis The number of milliseconds each update will
+     *                   simulate.
+     */
+    public InputRecorder(DeltaVWorld world, int stepMillis) {
+        this.world = world;
+        for (int k = 0; k < MAGIC.length; k++) {
+            writeByte(MAGIC[k]);
+        }
+        writeByte(VERSION);
+        long seed = world.getSeed();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            writeByte((int)(seed >>> shift));
+        }
+        writeVarInt(world.getDebrisField().getCapacity());
+        writeVarInt(stepMillis);
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Note the ship's controls for the update that is about to happen.
+     * Nothing is written unless they have changed.
+     */
+    public void record() {
+        if (finished) {
+            return;
+        }
+        int controls = ShipControls.encode(world.getShip());
+        if (controls != lastControls) {
+            writeVarInt(tick - lastChangeTick);
+            writeByte(controls);
+            lastChangeTick = tick;
+            lastControls = controls;
+        }
+        tick++;
+    }
+
+    /**
+     * Stop recording, noting the world's score and fuel so that a replay can
+     * check it ended up in the same place.  Later calls do nothing.
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        writeVarInt(tick - lastChangeTick);
+        writeByte(END);
+        writeVarInt(world.getScore());
+        writeVarInt(world.getShip().getFuelRemaining());
+    }
+
+    /**
+     * A copy of the log.  This is only complete once finish has been called.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeByte(int value) {
+        if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, length * 2);
+        }
+        bytes[length++] = (byte)value;
+    }
+}
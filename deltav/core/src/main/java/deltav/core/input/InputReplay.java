@@ -0,0 +1,158 @@
+package deltav.core.input;
+
+import deltav.core.model.DeltaVWorld;
+
+/**
+ * Plays back a log written by InputRecorder.  The replay rebuilds the world
+ * from the recorded seed and feeds the recorded controls to the ship on the
+ * same ticks, as fast as the world can update - there is no rendering and no
+ * waiting for the clock.  Since the world is deterministic, it finishes with
+ * exactly the score and fuel the original game did, unless the simulation
+ * has changed since the log was made.
+ */
+public class InputReplay {
+
+    /**
+     * The log being played.
+     */
+    private final byte[] bytes;
+
+    /**
+     * Where the input starts in the log, after the header.
+     */
+    private final int inputStart;
+
+    /**
+     * What the header says about the world.
+     */
+    private final long seed;
+    private final int numberOfDebrisPieces;
+    private final int stepMillis;
+
+    /**
+     * What the footer says about how the game ended.
+     */
+    private final int ticks;
+    private final int expectedScore;
+    private final int expectedFuel;
+
+    /**
+     * The read position while parsing.
+     */
+    private int position;
+
+    /**
+     * Read a log.
+     *
+     * @param bytes A finished log from InputRecorder.
+     * @throws IllegalArgumentException If the log isn't one we can play.
+     */
+    public InputReplay(byte[] bytes) {
+        this.bytes = bytes;
+        for (int k = 0; k < InputRecorder.MAGIC.length; k++) {
+            if (readByte() != (InputRecorder.MAGIC[k] & 0xFF)) {
+                throw new IllegalArgumentException("Not a replay");
+            }
+        }
+        int version = readByte();
+        if (version != InputRecorder.VERSION) {
+            throw new IllegalArgumentException("Unsupported replay version " + version);
+        }
+        long seed = 0;
+        for (int k = 0; k < 8; k++) {
+            seed = seed << 8 | readByte();
+        }
+        this.seed = seed;
+        numberOfDebrisPieces = readVarInt();
+        stepMillis = readVarInt();
+        inputStart = position;
+
+        // Skim the input for the footer.
+        int tick = 0;
+        while (true) {
+            tick += readVarInt();
+            if (readByte() == InputRecorder.END) {
+                break;
+            }
+        }
+        ticks = tick;
+        expectedScore = readVarInt();
+        expectedFuel = readVarInt();
+    }
+
+    // Getters.
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNumberOfDebrisPieces() {
+        return numberOfDebrisPieces;
+    }
+
+    public int getStepMillis() {
+        return stepMillis;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    public int getExpectedScore() {
+        return expectedScore;
+    }
+
+    public int getExpectedFuel() {
+        return expectedFuel;
+    }
+
+    /**
+     * Play the whole game back in a fresh world.
+     *
+     * @return The world, as it was when recording finished.
+     */
+    public DeltaVWorld run() {
+        DeltaVWorld world = new DeltaVWorld(numberOfDebrisPieces, seed);
+        position = inputStart;
+        int nextChange = readVarInt();
+        for (int tick = 0; tick < ticks; tick++) {
+            while (tick == nextChange) {
+                int controls = readByte();
+                ShipControls.apply(controls, world.getShip());
+                nextChange += readVarInt();
+            }
+            world.updatePhysics(stepMillis);
+        }
+        return world;
+    }
+
+    /**
+     * Play the game back and check it ended the way it did when it was
+     * recorded.
+     *
+     * @return True if the final score and fuel match the recording.
+     */
+    public boolean verify() {
+        DeltaVWorld world = run();
+        return world.getScore() == expectedScore
+                && world.getShip().getFuelRemaining() == expectedFuel;
+    }
+
+    private int readVarInt() {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    private int readByte() {
+        if (position >= bytes.length) {
+            throw new IllegalArgumentException("Replay is truncated");
+        }
+        return bytes[position++] & 0xFF;
+    }
+}
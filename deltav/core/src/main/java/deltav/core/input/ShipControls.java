@@ -0,0 +1,51 @@
+package deltav.core.input;
+
+import deltav.core.model.DeltaVShip;
+
+/**
+ * Packs the ship's controls into a single byte and back, for anything that
+ * needs to store or send them: replays, and clients of a game server.  Bit 0
+ * is the thruster, and bits 1 and 2 hold the rotation direction plus one.
+ */
+public class ShipControls {
+
+    /**
+     * The controls of a ship that isn't thrusting or rotating.
+     */
+    public static final int NONE = encode(false, 0);
+
+    private ShipControls() {
+    }
+
+    public static int encode(boolean thrusting, int rotationDirection) {
+        return (thrusting ? 1 : 0) | (rotationDirection + 1) << 1;
+    }
+
+    public static int encode(DeltaVShip ship) {
+        return encode(ship.isThrusting(), ship.getRotationDirection());
+    }
+
+    /**
+     * Is this a byte encode could have produced?  Anything read from a
+     * network should be checked before it is applied.
+     */
+    public static boolean isValid(int controls) {
+        return (controls & ~7) == 0 && (controls >> 1) != 3;
+    }
+
+    public static boolean isThrusting(int controls) {
+        return (controls & 1) != 0;
+    }
+
+    public static int getRotationDirection(int controls) {
+        return ((controls >> 1) & 3) - 1;
+    }
+
+    /**
+     * Set a ship's controls.
+     */
+    public static void apply(int controls, DeltaVShip ship) {
+        ship.setThrusting(isThrusting(controls));
+        ship.setRotationDirection(getRotationDirection(controls));
+    }
+}
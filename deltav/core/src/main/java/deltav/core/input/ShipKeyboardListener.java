@@ -0,0 +1,48 @@
+package deltav.core.input;
+
+import deltav.core.model.DeltaVShip;
+import playn.core.Key;
+import playn.core.Keyboard;
+
+/**
+ * Translates keyboard events into ship controls.  The ship itself knows
+ * nothing about keyboards, this is the only place the two meet.
+ */
+public class ShipKeyboardListener implements Keyboard.Listener {
+
+    /**
+     * The ship we are flying.
+     */
+    private final DeltaVShip ship;
+
+    public ShipKeyboardListener(DeltaVShip ship) {
+        this.ship = ship;
+    }
+
+    @Override
+    public void onKeyDown(Keyboard.Event event) {
+        Key key = event.key();
+        if (key.equals(Key.SPACE)) {
+            ship.setThrusting(true);
+        } else if (key.equals(Key.LEFT)) {
+            ship.setRotationDirection(-1);
+        } else if (key.equals(Key.RIGHT)) {
+            ship.setRotationDirection(1);
+        }
+    }
+
+    @Override
+    public void onKeyTyped(Keyboard.TypedEvent event) {
+        // Nothing needed here, I don't think?
+    }
+
+    @Override
+    public void onKeyUp(Keyboard.Event event) {
+        Key key = event.key();
+        if (key.equals(Key.SPACE)) {
+            ship.setThrusting(false);
+        } else if(key.equals(Key.LEFT) || key.equals(Key.RIGHT)) {
+            ship.setRotationDirection(0);
+        }
+    }
+}
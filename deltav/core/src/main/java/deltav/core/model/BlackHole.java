@@ -0,0 +1,83 @@
+package deltav.core.model;
+
+import deltav.core.config.DeltaVGameConfig;
+
+/**
+ * A gravity well.  Black holes pull on everything in the world, swallow any
+ * debris that falls into them and drain the fuel of a ship that strays in.
+ */
+public class BlackHole {
+
+    /**
+     * The position of the black hole's center.
+     */
+    private final double xPosition;
+    private final double yPosition;
+
+    /**
+     * The dimensions of the black hole, used for collisions.
+     */
+    private final double width;
+    private final double height;
+
+    /**
+     * This black hole's gravitational constant.
+     */
+    private final double gravity;
+
+    public BlackHole(double xPosition, double yPosition, double width, double height, double gravity) {
+        this.xPosition = xPosition;
+        this.yPosition = yPosition;
+        this.width = width;
+        this.height = height;
+        this.gravity = gravity;
+    }
+
+    /**
+     * Create the standard black hole from DeltaVGameConfig, in the center of
+     * the screen.
+     */
+    public static BlackHole createDefault() {
+        return new BlackHole(DeltaVGameConfig.SCREEN_WIDTH / 2, DeltaVGameConfig.SCREEN_HEIGHT / 2,
+                DeltaVGameConfig.BLACK_HOLE_WIDTH, DeltaVGameConfig.BLACK_HOLE_HEIGHT,
+                DeltaVGameConfig.GRAVITY);
+    }
+
+    // Getters.
+
+    public double getxPosition() {
+        return xPosition;
+    }
+
+    public double getyPosition() {
+        return yPosition;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    public double getGravity() {
+        return gravity;
+    }
+
+    public double getTopLeftX() {
+        return xPosition - width / 2;
+    }
+
+    public double getBottomRightX() {
+        return xPosition + width / 2;
+    }
+
+    public double getTopLeftY() {
+        return yPosition - height / 2;
+    }
+
+    public double getBottomRightY() {
+        return yPosition + height / 2;
+    }
+}
@@ -0,0 +1,96 @@
+package deltav.core.model;
+
+import java.util.Arrays;
+
+/**
+ * A reusable list of the things that happened to debris during a tick: which
+ * pieces were captured by the ship and which fell into the black hole.
+ * Collision checks only record events; DeltaVWorld applies them afterwards,
+ * in slot order.  That keeps score, fuel and the random numbers each respawn
+ * gets independent of the order the checks ran in, which is what lets the
+ * checks be split across threads.
+ *
+ * Each event is packed into one int, slot in the high bits and type in the
+ * low bits, so sorting the ints sorts the events by slot.
+ */
+public class DebrisEvents {
+
+    /**
+     * Not an event: the piece of debris hit nothing.
+     */
+    public static final int NONE = 0;
+
+    /**
+     * The piece of debris touched the ship.
+     */
+    public static final int CAPTURED = 1;
+
+    /**
+     * The piece of debris fell into the black hole.
+     */
+    public static final int SWALLOWED = 2;
+
+    private static final int TYPE_BITS = 2;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    /**
+     * The packed events.
+     */
+    private int[] events;
+
+    /**
+     * The number of events recorded.
+     */
+    private int count;
+
+    public DebrisEvents(int initialCapacity) {
+        events = new int[Math.max(initialCapacity, 1)];
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getSlot(int k) {
+        return events[k] >>> TYPE_BITS;
+    }
+
+    public int getType(int k) {
+        return events[k] & TYPE_MASK;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Record an event.
+     *
+     * @param slot The debris slot it happened to.
+     * @param type CAPTURED or SWALLOWED.
+     */
+    public void add(int slot, int type) {
+        if (count == events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        events[count++] = (slot << TYPE_BITS) | type;
+    }
+
+    /**
+     * Append every event in another list to this one.
+     */
+    public void addAll(DebrisEvents other) {
+        if (count + other.count > events.length) {
+            events = Arrays.copyOf(events, Math.max(events.length * 2, count + other.count));
+        }
+        System.arraycopy(other.events, 0, events, count, other.count);
+        count += other.count;
+    }
+
+    /**
+     * Put the events in slot order.
+     */
+    public void sort() {
+        Arrays.sort(events, 0, count);
+    }
+}
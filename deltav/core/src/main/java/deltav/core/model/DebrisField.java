@@ -0,0 +1,545 @@
+package deltav.core.model;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.util.SweptCollision;
+
+import java.util.Random;
+
+/**
+ * Stores every piece of debris in the world as a structure of arrays rather
+ * than as individual objects.  Positions and velocities live in parallel
+ * primitive arrays indexed by slot, and a bitmap records which slots are
+ * currently alive.  Iterating the field is a linear walk over a handful of
+ * arrays, so we can keep tens of thousands of pieces around without the GC
+ * ever noticing them.
+ */
+public class DebrisField {
+
+    /**
+     * The maximum number of pieces this field can hold.
+     */
+    private final int capacity;
+
+    /**
+     * The positions of each piece along the X and Y axes.
+     */
+    final double[] x;
+    final double[] y;
+
+    /**
+     * The positions of each piece as of the previous update, so that frames
+     * drawn between updates can be interpolated.
+     */
+    final double[] previousX;
+    final double[] previousY;
+
+    /**
+     * The X and Y components of each piece's velocity.
+     */
+    final double[] velocityInX;
+    final double[] velocityInY;
+
+    /**
+     * One bit per slot, set if the slot holds a live piece of debris.
+     */
+    private final long[] alive;
+
+    /**
+     * The number of live pieces.
+     */
+    private int count;
+
+    /**
+     * How the debris moves under gravity, and scratch space for it, reused
+     * for every piece.
+     */
+    private Integrator integrator = Integrator.SEMI_IMPLICIT_EULER;
+    private final Integrator.Body body = new Integrator.Body();
+
+    /**
+     * The gravity acting on the debris, and the black holes that swallow it.
+     * Without one, debris only knows about the black hole in the center of
+     * the screen.
+     */
+    private GravityField gravityField;
+
+    /**
+     * The size of the world the debris is kept around and respawned in.
+     */
+    private int width = DeltaVGameConfig.WORLD_WIDTH;
+    private int height = DeltaVGameConfig.WORLD_HEIGHT;
+
+    public DebrisField(int capacity) {
+        this.capacity = capacity;
+        x = new double[capacity];
+        y = new double[capacity];
+        previousX = new double[capacity];
+        previousY = new double[capacity];
+        velocityInX = new double[capacity];
+        velocityInY = new double[capacity];
+        alive = new long[(capacity + 63) >>> 6];
+    }
+
+    // Getters and setters.
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getxPosition(int i) {
+        return x[i];
+    }
+
+    public void setxPosition(int i, double xPosition) {
+        x[i] = xPosition;
+    }
+
+    public double getyPosition(int i) {
+        return y[i];
+    }
+
+    public void setyPosition(int i, double yPosition) {
+        y[i] = yPosition;
+    }
+
+    public double getPreviousxPosition(int i) {
+        return previousX[i];
+    }
+
+    public double getPreviousyPosition(int i) {
+        return previousY[i];
+    }
+
+    public double getVelocityInX(int i) {
+        return velocityInX[i];
+    }
+
+    public void setVelocityInX(int i, double velocity) {
+        velocityInX[i] = velocity;
+    }
+
+    public double getVelocityInY(int i) {
+        return velocityInY[i];
+    }
+
+    public void setVelocityInY(int i, double velocity) {
+        velocityInY[i] = velocity;
+    }
+
+    public GravityField getGravityField() {
+        return gravityField;
+    }
+
+    public void setGravityField(GravityField gravityField) {
+        this.gravityField = gravityField;
+    }
+
+    public Integrator getIntegrator() {
+        return integrator;
+    }
+
+    public void setIntegrator(Integrator integrator) {
+        this.integrator = integrator;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Keep debris around, and respawn it in, a world of the given size from
+     * now on.
+     */
+    public void setBounds(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public boolean isAlive(int i) {
+        return (alive[i >>> 6] & (1L << i)) != 0;
+    }
+
+    // The raw arrays, for saving and restoring the whole field at once, and
+    // for platform kernels that step it themselves.  These are the live
+    // state, not copies.
+
+    public double[] getxPositions() {
+        return x;
+    }
+
+    public double[] getyPositions() {
+        return y;
+    }
+
+    public double[] getPreviousxPositions() {
+        return previousX;
+    }
+
+    public double[] getPreviousyPositions() {
+        return previousY;
+    }
+
+    public double[] getVelocitiesInX() {
+        return velocityInX;
+    }
+
+    public double[] getVelocitiesInY() {
+        return velocityInY;
+    }
+
+    /**
+     * The alive bitmap, one bit per slot, 64 slots to a word.  Call recount
+     * after changing it.
+     */
+    public long[] getAliveBits() {
+        return alive;
+    }
+
+    /**
+     * Count the live pieces again, after the alive bitmap has been changed
+     * directly.  Bits past the last slot are cleared.
+     */
+    public void recount() {
+        if ((capacity & 63) != 0) {
+            alive[alive.length - 1] &= (1L << capacity) - 1;
+        }
+        count = 0;
+        for (int word = 0; word < alive.length; word++) {
+            count += Long.bitCount(alive[word]);
+        }
+    }
+
+    /**
+     * Bring a piece of debris to life in the given slot.  The piece appears
+     * at its new position outright, rather than being interpolated there.
+     *
+     * @return The slot index, for convenience.
+     */
+    public int spawn(int i, double xPosition, double yPosition, double vx, double vy) {
+        if (!isAlive(i)) {
+            alive[i >>> 6] |= 1L << i;
+            count++;
+        }
+        x[i] = xPosition;
+        y[i] = yPosition;
+        previousX[i] = xPosition;
+        previousY[i] = yPosition;
+        velocityInX[i] = vx;
+        velocityInY[i] = vy;
+        return i;
+    }
+
+    /**
+     * Remove the piece of debris in the given slot from the world.
+     */
+    public void kill(int i) {
+        if (isAlive(i)) {
+            alive[i >>> 6] &= ~(1L << i);
+            count--;
+        }
+    }
+
+    /**
+     * Find the next live slot at or after the given index.
+     *
+     * @return The slot index, or -1 if there are no more live pieces.
+     */
+    public int nextAlive(int from) {
+        if (from >= capacity) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long bits = alive[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                int i = (word << 6) + Long.numberOfTrailingZeros(bits);
+                return i < capacity ? i : -1;
+            }
+            if (++word == alive.length) {
+                return -1;
+            }
+            bits = alive[word];
+        }
+    }
+
+    /**
+     * Update the physics for every live piece.  For debris, we don't bound it
+     * within the world, but within a rectangle slightly larger than the size
+     * of the world.  I want the debris to be seen flying off the edge, but
+     * if I don't bound it, they tend to remain out of reach for a very long
+     * time.
+     *
+     * @param deltaT The number of millis since the last update.
+     */
+    public void updatePhysics(int deltaT) {
+        updatePhysics(0, capacity, deltaT, body);
+    }
+
+    /**
+     * Update the physics for the live pieces in a range of slots.  Pieces
+     * don't affect each other here, so separate ranges can be updated on
+     * separate threads, as long as each has its own scratch space.
+     *
+     * @param from The first slot to update.
+     * @param to One past the last slot to update.
+     * @param deltaT The number of millis since the last update.
+     * @param body Scratch space for the integrator.
+     */
+    public void updatePhysics(int from, int to, int deltaT, Integrator.Body body) {
+        double minX = 0 - width * .1;
+        double maxX = width * 1.1;
+        double minY = 0 - height * .1;
+        double maxY = height * 1.1;
+        body.extraAccelerationInX = 0;
+        body.extraAccelerationInY = 0;
+
+        for (int i = nextAlive(from); i >= 0 && i < to; i = nextAlive(i + 1)) {
+            advance(i, deltaT, body, minX, maxX, minY, maxY);
+        }
+    }
+
+    /**
+     * Update the physics for just the listed pieces, e.g. the ones in the
+     * part of the world being simulated.  Each must be alive and listed only
+     * once.
+     *
+     * @param slots The slots to update.
+     * @param count The number of slots listed.
+     * @param deltaT The number of millis since these pieces were last
+     *               updated.
+     */
+    public void updatePhysics(int[] slots, int count, int deltaT) {
+        double minX = 0 - width * .1;
+        double maxX = width * 1.1;
+        double minY = 0 - height * .1;
+        double maxY = height * 1.1;
+        body.extraAccelerationInX = 0;
+        body.extraAccelerationInY = 0;
+
+        for (int k = 0; k < count; k++) {
+            advance(slots[k], deltaT, body, minX, maxX, minY, maxY);
+        }
+    }
+
+    private void advance(int i, int deltaT, Integrator.Body body,
+                         double minX, double maxX, double minY, double maxY) {
+        body.xPosition = x[i];
+        body.yPosition = y[i];
+        body.velocityInX = velocityInX[i];
+        body.velocityInY = velocityInY[i];
+        integrator.advance(body, gravityField, deltaT);
+        double px = body.xPosition;
+        double py = body.yPosition;
+        double vx = body.velocityInX;
+        double vy = body.velocityInY;
+
+        if (px < minX) {
+            px = minX;
+            vx = 0;
+        } else if (px > maxX) {
+            px = maxX;
+            vx = 0;
+        }
+        if (py < minY) {
+            py = minY;
+            vy = 0;
+        } else if (py > maxY) {
+            py = maxY;
+            vy = 0;
+        }
+
+        previousX[i] = x[i];
+        previousY[i] = y[i];
+        x[i] = px;
+        y[i] = py;
+        velocityInX[i] = vx;
+        velocityInY[i] = vy;
+    }
+
+    /**
+     * Move a piece of debris to a random spot in the world with a random
+     * velocity.
+     *
+     * @param i The slot to respawn.
+     * @param r The source of randomness to use.
+     */
+    public void respawn(int i, Random r) {
+        spawn(i,
+                r.nextInt(width),
+                r.nextInt(height),
+                r.nextInt(1) == 0 ? r.nextInt(5) : r.nextInt(5) * -1,
+                r.nextInt(1) == 0 ? r.nextInt(5) : r.nextInt(5) * -1);
+    }
+
+    /**
+     * Bounce two pieces of debris off each other if they overlap, or touched
+     * at some point during their last step, and are moving towards one
+     * another.  Every piece has the same mass, so an elastic collision just
+     * swaps the components of their velocities along the line between their
+     * centers.
+     *
+     * Pieces fast enough to pass right through each other in one step are
+     * caught by following both back along their paths; we bounce them where
+     * they first touched, and send them on from there for the rest of the
+     * step.  That only works if both paths are this step's: a piece that
+     * wasn't stepped still has the path from its last step, however long
+     * ago that was.
+     *
+     * @param i The first piece.
+     * @param j The second piece.
+     * @param radius The radius of a piece of debris.
+     * @param swept Whether both pieces were just stepped together, so we
+     *              can follow them back along their paths.  If not, only
+     *              overlapping pieces collide.
+     * @return True if the pieces collided.
+     */
+    public boolean collide(int i, int j, double radius, boolean swept) {
+        double deltaX = x[j] - x[i];
+        double deltaY = y[j] - y[i];
+        double distanceSquared = deltaX * deltaX + deltaY * deltaY;
+        double minimumDistance = radius * 2;
+        if (distanceSquared < minimumDistance * minimumDistance) {
+            return distanceSquared != 0 && bounce(i, j, deltaX, deltaY, distanceSquared);
+        }
+        if (!swept) {
+            return false;
+        }
+
+        // They don't overlap now, but may have touched on the way here.
+        double startX = previousX[j] - previousX[i];
+        double startY = previousY[j] - previousY[i];
+        double moveX = deltaX - startX;
+        double moveY = deltaY - startY;
+        // If they started out overlapping, they have since come apart.
+        double time = SweptCollision.circlesTouch(startX, startY, moveX, moveY, minimumDistance);
+        if (time == SweptCollision.MISS || time == 0) {
+            return false;
+        }
+        double touchX = startX + moveX * time;
+        double touchY = startY + moveY * time;
+        distanceSquared = touchX * touchX + touchY * touchY;
+        if (distanceSquared == 0) {
+            return false;
+        }
+
+        // Bounce the moves they made this step just like their velocities,
+        // and replay what's left of them from where they touched.
+        double movedXi = x[i] - previousX[i];
+        double movedYi = y[i] - previousY[i];
+        double movedXj = x[j] - previousX[j];
+        double movedYj = y[j] - previousY[j];
+        if (!bounce(i, j, touchX, touchY, distanceSquared)) {
+            return false;
+        }
+        double impulse = ((movedXj - movedXi) * touchX + (movedYj - movedYi) * touchY) / distanceSquared;
+        double left = 1 - time;
+        x[i] = previousX[i] + movedXi * time + (movedXi + impulse * touchX) * left;
+        y[i] = previousY[i] + movedYi * time + (movedYi + impulse * touchY) * left;
+        x[j] = previousX[j] + movedXj * time + (movedXj - impulse * touchX) * left;
+        y[j] = previousY[j] + movedYj * time + (movedYj - impulse * touchY) * left;
+        return true;
+    }
+
+    /**
+     * Swap the components of two pieces' velocities along the line between
+     * them, if they are closing.
+     */
+    private boolean bounce(int i, int j, double deltaX, double deltaY, double distanceSquared) {
+        // Only bounce if they are closing, otherwise two overlapping pieces
+        // would keep swapping velocities and stick together.
+        double closingSpeed = (velocityInX[j] - velocityInX[i]) * deltaX
+                + (velocityInY[j] - velocityInY[i]) * deltaY;
+        if (closingSpeed >= 0) {
+            return false;
+        }
+
+        double impulse = closingSpeed / distanceSquared;
+        velocityInX[i] += impulse * deltaX;
+        velocityInY[i] += impulse * deltaY;
+        velocityInX[j] -= impulse * deltaX;
+        velocityInY[j] -= impulse * deltaY;
+        return true;
+    }
+
+    /**
+     * Check every live piece in a range of slots against the ship and the
+     * black holes, recording what we find, in slot order.
+     *
+     * @param from The first slot to check.
+     * @param to One past the last slot to check.
+     * @param shipTopLeftX The left edge of the ship.
+     * @param shipBottomRightX The right edge of the ship.
+     * @param shipTopLeftY The top edge of the ship.
+     * @param shipBottomRightY The bottom edge of the ship.
+     * @param shipMovedX How far the ship moved along the X axis this step.
+     * @param shipMovedY How far the ship moved along the Y axis this step.
+     * @param events Where to record the events.
+     */
+    public void detectCollisions(int from, int to, double shipTopLeftX, double shipBottomRightX,
+                                 double shipTopLeftY, double shipBottomRightY,
+                                 double shipMovedX, double shipMovedY, DebrisEvents events) {
+        for (int i = nextAlive(from); i >= 0 && i < to; i = nextAlive(i + 1)) {
+            int type = detectCollision(i, shipTopLeftX, shipBottomRightX, shipTopLeftY, shipBottomRightY,
+                    shipMovedX, shipMovedY);
+            if (type != DebrisEvents.NONE) {
+                events.add(i, type);
+            }
+        }
+    }
+
+    /**
+     * What did a piece of debris run into on its last step?  We follow it in
+     * a straight line from its previous position to its current one, so
+     * however fast it or the ship is going it can't skip over either.  If
+     * its path crosses both the ship and a black hole, whichever it reached
+     * first wins, and the ship if it reached both at once.
+     *
+     * @param i The piece to check.
+     * @param shipTopLeftX The left edge of the ship.
+     * @param shipBottomRightX The right edge of the ship.
+     * @param shipTopLeftY The top edge of the ship.
+     * @param shipBottomRightY The bottom edge of the ship.
+     * @param shipMovedX How far the ship moved along the X axis this step.
+     * @param shipMovedY How far the ship moved along the Y axis this step.
+     * @return DebrisEvents.CAPTURED, SWALLOWED or NONE.
+     */
+    public int detectCollision(int i, double shipTopLeftX, double shipBottomRightX,
+                               double shipTopLeftY, double shipBottomRightY,
+                               double shipMovedX, double shipMovedY) {
+        // The ship moved too, so look at the piece from where the ship ended
+        // up: there it starts out shifted by the ship's move.
+        double shipTime = SweptCollision.segmentHitsBox(previousX[i] + shipMovedX, previousY[i] + shipMovedY,
+                x[i], y[i], shipTopLeftX, shipBottomRightX, shipTopLeftY, shipBottomRightY);
+        double before = shipTime == SweptCollision.MISS ? Double.MAX_VALUE : shipTime;
+        if (gravityField != null) {
+            if (gravityField.findBlackHoleIndexCrossing(previousX[i], previousY[i], x[i], y[i], before) >= 0) {
+                return DebrisEvents.SWALLOWED;
+            }
+        } else {
+            double time = SweptCollision.segmentHitsBox(previousX[i], previousY[i], x[i], y[i],
+                    DeltaVGameConfig.BLACK_HOLE_TOP_LEFT_X,
+                    DeltaVGameConfig.BLACK_HOLE_BOTTOM_RIGHT_X,
+                    DeltaVGameConfig.BLACK_HOLE_TOP_LEFT_Y,
+                    DeltaVGameConfig.BLACK_HOLE_BOTTOM_RIGHT_Y);
+            if (time != SweptCollision.MISS && time < before) {
+                return DebrisEvents.SWALLOWED;
+            }
+        }
+        return shipTime == SweptCollision.MISS ? DebrisEvents.NONE : DebrisEvents.CAPTURED;
+    }
+
+    public boolean isBoundedBy(int i, double topLeftX, double bottomRightX, double topLeftY, double bottomRightY) {
+        return x[i] > topLeftX &&
+                x[i] <= bottomRightX &&
+                y[i] > topLeftY &&
+                y[i] <= bottomRightY;
+    }
+}
@@ -0,0 +1,31 @@
+package deltav.core.model;
+
+/**
+ * Advances the debris field by one tick.  DeltaVWorld steps debris itself,
+ * single-threaded, unless it is given one of these; platforms that can run
+ * threads plug in a parallel implementation here.
+ *
+ * Implementations must give exactly the same results as the world's own
+ * step: every live piece integrated with DebrisField.updatePhysics, and the
+ * same events DebrisField.detectCollisions would record, in slot order.
+ */
+public interface DebrisStepper {
+
+    /**
+     * Move every live piece of debris forward and record which pieces ran
+     * into the ship or a black hole on the way.
+     *
+     * @param field The debris to step.
+     * @param deltaT The number of millis since the last update.
+     * @param shipTopLeftX The left edge of the ship.
+     * @param shipBottomRightX The right edge of the ship.
+     * @param shipTopLeftY The top edge of the ship.
+     * @param shipBottomRightY The bottom edge of the ship.
+     * @param shipMovedX How far the ship moved along the X axis this step.
+     * @param shipMovedY How far the ship moved along the Y axis this step.
+     * @param events Where to record the events, in slot order.
+     */
+    void step(DebrisField field, int deltaT, double shipTopLeftX, double shipBottomRightX,
+              double shipTopLeftY, double shipBottomRightY, double shipMovedX, double shipMovedY,
+              DebrisEvents events);
+}
@@ -1,33 +1,17 @@
 package deltav.core.model;
 
-import deltav.core.util.GravityUtil;
-import playn.core.Image;
-import playn.core.ImageLayer;
-import playn.core.Surface;
-
-import static playn.core.PlayN.graphics;
-
 /**
  * An abstract base class representing anything in the game world that is under
- * the effects of gravity.
+ * the effects of gravity.  This is pure simulation state; how (or whether) the
+ * object gets drawn is up to the render package.
  */
 public abstract class DeltaVObject {
 
     /**
-     * The image for this object.
-     */
-    private Image img;
-
-    /**
-     * An ImageLayer to store the object on.  This will let us rotate.
+     * The dimensions of the object, used for bounding and collisions.
      */
-    protected ImageLayer imgLayer;
-
-    /**
-     * The dimensions of our image.
-     */
-    protected float imgWidth;
-    protected float imgHeight;
+    protected float width;
+    protected float height;
 
     /**
      * The object's current position along the X axis.
@@ -49,6 +33,26 @@ public abstract class DeltaVObject {
      */
     protected double velocityInY;
 
+    /**
+     * The object's position as of the previous update, so that frames drawn
+     * between updates can be interpolated.
+     */
+    protected double previousxPosition;
+    protected double previousyPosition;
+
+    /**
+     * How the object moves under gravity, and scratch space for it, reused
+     * every tick so updating physics doesn't allocate.
+     */
+    protected Integrator integrator = Integrator.SEMI_IMPLICIT_EULER;
+    protected final Integrator.Body body = new Integrator.Body();
+
+    /**
+     * The gravity acting on the object.  Without one, the object is pulled
+     * towards the single black hole in the center of the screen.
+     */
+    protected GravityField gravityField;
+
     // Getters and setters.
 
     public double getxPosition() {
@@ -67,6 +71,14 @@ public abstract class DeltaVObject {
         this.yPosition = yPosition;
     }
 
+    public double getPreviousxPosition() {
+        return previousxPosition;
+    }
+
+    public double getPreviousyPosition() {
+        return previousyPosition;
+    }
+
     public double getVelocityInX() {
         return velocityInX;
     }
@@ -83,16 +95,25 @@ public abstract class DeltaVObject {
         this.velocityInY = velocityInY;
     }
 
-    public Image getImg() {
-        return img;
+    public float getWidth() {
+        return width;
     }
 
-    public void setImg(Image img) {
-        this.img = img;
-        this.imgWidth = img.width();
-        this.imgHeight = img.height();
-        this.imgLayer = graphics().createImageLayer(img);
-        imgLayer.setOrigin(imgWidth / 2, imgHeight / 2);
+    public float getHeight() {
+        return height;
+    }
+
+    public void setDimensions(float width, float height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void setGravityField(GravityField gravityField) {
+        this.gravityField = gravityField;
+    }
+
+    public void setIntegrator(Integrator integrator) {
+        this.integrator = integrator;
     }
 
     /**
@@ -102,20 +123,39 @@ public abstract class DeltaVObject {
      * @param deltaT The number of millis since the last update.
      */
     public void updatePhysics(int deltaT) {
-        GravityUtil.ForceOfGravity force = GravityUtil.getForceOfGravityOnObject(this);
-
-        // Apply the acceleration to the object.
-        velocityInX += force.forceInX * deltaT / 1000D;
-        velocityInY += force.forceInY * deltaT / 1000D;
+        savePreviousState();
+        integrate(deltaT, 0, 0);
+    }
 
-        // Apply the velocity to the object.
-        xPosition += velocityInX;
-        yPosition += velocityInY;
+    /**
+     * Move the object forward under gravity with the integrator, plus any
+     * other acceleration acting on it.
+     *
+     * @param deltaT The number of millis to move forward by.
+     * @param extraAccelerationInX Acceleration on top of gravity along the X
+     *                             axis, held constant over the step.
+     * @param extraAccelerationInY The same along the Y axis.
+     */
+    protected void integrate(int deltaT, double extraAccelerationInX, double extraAccelerationInY) {
+        body.xPosition = xPosition;
+        body.yPosition = yPosition;
+        body.velocityInX = velocityInX;
+        body.velocityInY = velocityInY;
+        body.extraAccelerationInX = extraAccelerationInX;
+        body.extraAccelerationInY = extraAccelerationInY;
+        integrator.advance(body, gravityField, deltaT);
+        xPosition = body.xPosition;
+        yPosition = body.yPosition;
+        velocityInX = body.velocityInX;
+        velocityInY = body.velocityInY;
     }
 
-    public void draw(Surface surface) {
-        imgLayer.setTranslation((float)xPosition, (float)yPosition);
-        surface.drawLayer(imgLayer);
+    /**
+     * Remember where we are before an update moves us.
+     */
+    protected void savePreviousState() {
+        previousxPosition = xPosition;
+        previousyPosition = yPosition;
     }
 
     public boolean isBoundedBy(double topLeftX, double bottomRightX, double topLeftY, double bottomRightY) {
@@ -1,29 +1,24 @@
 package deltav.core.model;
 
 import deltav.core.config.DeltaVGameConfig;
-import deltav.core.util.GravityUtil;
-import playn.core.Image;
-import playn.core.Key;
-import playn.core.Keyboard;
-import playn.core.Surface;
-
-import static playn.core.PlayN.assets;
 
 /**
  * A class for representing the state of the player's ship.  This stores
- * things like fuel remaining, velocity, heading, etc.
+ * things like fuel remaining, velocity, heading, etc.  Input arrives through
+ * setThrusting and setRotationDirection, so the ship can be flown by the
+ * keyboard, a bot or a test alike.
  */
-public class DeltaVShip extends DeltaVObject implements Keyboard.Listener {
+public class DeltaVShip extends DeltaVObject {
 
     /**
-     * The image to use when thrusting.
+     * The direction the ship is currently pointing, in radians.
      */
-    private Image thrustingImg;
+    private double heading;
 
     /**
-     * The direction the ship is currently pointing, in radians.
+     * The heading as of the previous update, for interpolation.
      */
-    private double heading;
+    private double previousHeading;
 
     /**
      * A flag to store if the ship is currently thrusting or not.
@@ -42,11 +37,51 @@ public class DeltaVShip extends DeltaVObject implements Keyboard.Listener {
      */
     private int fuelRemaining;
 
+    /**
+     * Fuel burned but not yet taken off fuelRemaining, because it comes to
+     * less than a whole unit.
+     */
+    private double fuelOwed;
+
+    /**
+     * The size of the world the ship is kept inside.
+     */
+    private double boundsWidth = DeltaVGameConfig.WORLD_WIDTH;
+    private double boundsHeight = DeltaVGameConfig.WORLD_HEIGHT;
+
+    public DeltaVShip() {
+        setDimensions(DeltaVGameConfig.SHIP_WIDTH, DeltaVGameConfig.SHIP_HEIGHT);
+    }
+
     // Getters and setters.
+    public double getHeading() {
+        return heading;
+    }
+
+    public double getPreviousHeading() {
+        return previousHeading;
+    }
+
     public void setHeading(double heading) {
         this.heading = heading;
     }
 
+    public boolean isThrusting() {
+        return thrusting;
+    }
+
+    public void setThrusting(boolean thrusting) {
+        this.thrusting = thrusting;
+    }
+
+    public int getRotationDirection() {
+        return rotationDirection;
+    }
+
+    public void setRotationDirection(int rotationDirection) {
+        this.rotationDirection = rotationDirection;
+    }
+
     public int getFuelRemaining() {
         return fuelRemaining;
     }
@@ -55,107 +90,87 @@ public class DeltaVShip extends DeltaVObject implements Keyboard.Listener {
         this.fuelRemaining = fuelRemaining;
     }
 
-    public void addFuel(int addedFuel) {
-        fuelRemaining = Math.min(fuelRemaining + addedFuel, DeltaVGameConfig.MAX_FUEL);
-        fuelRemaining = Math.max(fuelRemaining, 0);
+    public double getFuelOwed() {
+        return fuelOwed;
     }
 
-    @Override
-    public void setImg(Image img) {
-        super.setImg(img);
-        // Set up the thrusting img.
-        thrustingImg = assets().getImage("images/spaceship-icon-thrust.png");
+    public void setFuelOwed(double fuelOwed) {
+        this.fuelOwed = fuelOwed;
     }
 
-    // Keyboard listener implementation
-    @Override
-    public void onKeyDown(Keyboard.Event event) {
-        Key key = event.key();
-        if (key.equals(Key.SPACE)) {
-            thrusting = true;
-            imgLayer.setImage(thrustingImg);
-        } else if (key.equals(Key.LEFT)) {
-            rotationDirection = -1;
-        } else if (key.equals(Key.RIGHT)) {
-            rotationDirection = 1;
-        }
+    /**
+     * Keep the ship inside a world of the given size from now on.
+     */
+    public void setBounds(double width, double height) {
+        this.boundsWidth = width;
+        this.boundsHeight = height;
     }
 
-    @Override
-    public void onKeyTyped(Keyboard.TypedEvent event) {
-        // Nothing needed here, I don't think?
+    public void addFuel(int addedFuel) {
+        fuelRemaining = Math.min(fuelRemaining + addedFuel, DeltaVGameConfig.MAX_FUEL);
+        fuelRemaining = Math.max(fuelRemaining, 0);
     }
 
-    @Override
-    public void onKeyUp(Keyboard.Event event) {
-        Key key = event.key();
-        if (key.equals(Key.SPACE)) {
-            thrusting = false;
-            imgLayer.setImage(getImg());
-        } else if(key.equals(Key.LEFT) || key.equals(Key.RIGHT)) {
-            rotationDirection = 0;
-        }
+    /**
+     * Burn some fuel.  Only whole units come off the tank; the rest is owed
+     * until the next burn, so the ship burns the same fuel per second
+     * whatever the simulation step.
+     *
+     * @param burnedFuel How much fuel to burn, which needn't be whole.
+     */
+    public void burnFuel(double burnedFuel) {
+        fuelOwed += burnedFuel;
+        int whole = (int)fuelOwed;
+        fuelOwed -= whole;
+        addFuel(-whole);
     }
 
     /**
-     * The ship's implementation bounds it within the screen and takes
+     * The ship's implementation bounds it within the world and takes
      * the force of the ship's thruster into account.
      *
      * @param deltaT The number of millis since the last update.
      */
     public void updatePhysics(int deltaT) {
-        GravityUtil.ForceOfGravity force = GravityUtil.getForceOfGravityOnObject(this);
-
-        // Apply the acceleration to the object.
-        velocityInX += force.forceInX * deltaT / 1000D;
-        velocityInY += force.forceInY * deltaT / 1000D;
+        savePreviousState();
 
         // If we are rotating, update our heading.
         if(rotationDirection != 0) {
-            heading += DeltaVGameConfig.ROTATION_SPEED * rotationDirection;
+            heading += DeltaVGameConfig.ROTATION_SPEED * rotationDirection
+                    * deltaT / DeltaVGameConfig.REFERENCE_STEP_MILLIS;
         }
 
-        // If we are thrusting, apply the thruster force.  Use heading to get
-        // the X and Y components.
-        // TODO: Honestly, it's a little silly to treat gravity and the thruster
-        // separately.  Maybe replace GravityUtil with just a ForcesUtil that
-        // would calculate all forces on an object.
+        // If we are thrusting, the thruster pushes us along our heading on
+        // top of gravity.  Use heading to get the X and Y components.
+        double thrusterForceInX = 0;
+        double thrusterForceInY = 0;
         if(thrusting && fuelRemaining > 0) {
-            fuelRemaining--;
-            double thrusterForceInX = DeltaVGameConfig.THRUSTER_THRUST * Math.sin(heading);
-            double thrusterForceInY = DeltaVGameConfig.THRUSTER_THRUST * Math.cos(heading);
-
-            velocityInX += thrusterForceInX * deltaT / 1000D;
-            velocityInY += thrusterForceInY * deltaT / -1000D;
+            burnFuel(deltaT / DeltaVGameConfig.REFERENCE_STEP_MILLIS);
+            thrusterForceInX = DeltaVGameConfig.THRUSTER_THRUST * Math.sin(heading);
+            thrusterForceInY = -DeltaVGameConfig.THRUSTER_THRUST * Math.cos(heading);
         }
+        integrate(deltaT, thrusterForceInX, thrusterForceInY);
 
-        // Apply the velocity to the object.
-        xPosition += velocityInX;
-        yPosition += velocityInY;
-
-        // Bound the ship within the screen.
-        if (xPosition < 0 + imgWidth / 2) {
-            xPosition = 0 + imgWidth / 2;
+        // Bound the ship within the world.
+        if (xPosition < 0 + width / 2) {
+            xPosition = 0 + width / 2;
             velocityInX = 0;
-        } else if (xPosition > DeltaVGameConfig.SCREEN_WIDTH - imgWidth / 2) {
-            xPosition = DeltaVGameConfig.SCREEN_WIDTH - imgWidth / 2;
+        } else if (xPosition > boundsWidth - width / 2) {
+            xPosition = boundsWidth - width / 2;
             velocityInX = 0;
         }
-        if (yPosition < 0 + imgHeight / 2) {
-            yPosition = 0 + imgHeight / 2;
+        if (yPosition < 0 + height / 2) {
+            yPosition = 0 + height / 2;
             velocityInY = 0;
-        } else if (yPosition > DeltaVGameConfig.SCREEN_HEIGHT - imgHeight / 2) {
-            yPosition = DeltaVGameConfig.SCREEN_HEIGHT - imgHeight / 2;
+        } else if (yPosition > boundsHeight - height / 2) {
+            yPosition = boundsHeight - height / 2;
             velocityInY = 0;
         }
     }
 
     @Override
-    public void draw(Surface surface) {
-        imgLayer.setRotation((float)heading);
-        if (thrusting && fuelRemaining <= 0) {
-            imgLayer.setImage(getImg());
-        }
-        super.draw(surface);
+    protected void savePreviousState() {
+        super.savePreviousState();
+        previousHeading = heading;
     }
 }
@@ -1,27 +1,137 @@
 package deltav.core.model;
 
 import deltav.core.config.DeltaVGameConfig;
-import playn.core.*;
-import playn.core.util.Callback;
+import deltav.core.event.GameEventRing;
+import deltav.core.perf.PerfMetrics;
+import deltav.core.util.BarnesHutTree;
+import deltav.core.util.GravityUtil;
+import deltav.core.util.ResumableRandom;
+import deltav.core.util.UniformGrid;
 
-import java.util.HashSet;
 import java.util.Random;
-import java.util.Set;
-
-import static playn.core.PlayN.assets;
-import static playn.core.PlayN.graphics;
-import static playn.core.PlayN.keyboard;
 
 /**
  * This class stores the state of the game world - primarily the objects within
- * it and global state such as the player's score, gravity, etc.
+ * it and global state such as the player's score, gravity, etc.  The world
+ * knows nothing about PlayN, so it can be stepped headless (for servers, bots
+ * and tests) as fast as the CPU allows.  Drawing it is the job of
+ * WorldRenderer.
+ *
+ * A world too big to simulate all at once is split into WorldSectors.  Only
+ * the debris around the ship is stepped every tick; further out it is
+ * stepped now and then, and further still it waits for the ship, so a tick
+ * costs the same however much debris the whole world holds.
  */
 public class DeltaVWorld {
 
     /**
-     * The current set of debris in the world.
+     * The current debris in the world.
+     */
+    private DebrisField debrisField;
+
+    /**
+     * A broadphase grid over the debris, so collision checks only look at
+     * debris near the thing being checked.
+     */
+    private UniformGrid debrisGrid;
+
+    /**
+     * Scratch space for the results of grid queries.
+     */
+    private int[] candidates;
+
+    /**
+     * The furthest any piece of debris moved along either axis as the grid
+     * was last brought up to date.  The grid files debris by where it ended
+     * up, so collision queries reach this far further to find everything
+     * whose path crossed them.
+     */
+    private double fastestDebrisMove;
+
+    /**
+     * The sectors of a world too big to simulate all at once, or null if it
+     * is all simulated every tick.
+     */
+    private WorldSectors sectors;
+
+    /**
+     * Which dormant sectors take their turn next.
+     */
+    private int dormantPhase;
+
+    /**
+     * The debris being simulated this tick, at the full rate and dormant.
+     * Without sectors, active only gets filled in (with every live piece)
+     * when mutual gravity or debris collisions need it.
+     */
+    private int[] active;
+    private int activeCount;
+    private int[] dormant;
+    private int dormantCount;
+
+    /**
+     * Marks the debris in active while debris collides: a slot is active if
+     * its mark is the current one.
+     */
+    private int[] activeMarks;
+    private int activeMark;
+
+    /**
+     * What happened to the debris this tick, waiting to be applied.
+     */
+    private DebrisEvents debrisEvents;
+
+    /**
+     * Steps the debris field, if something other than our own single-threaded
+     * step should do it.
+     */
+    private DebrisStepper debrisStepper;
+
+    /**
+     * The black holes in the world and the gravity they exert.
+     */
+    private GravityField gravityField;
+
+    /**
+     * How the ship and debris move under gravity.
+     */
+    private Integrator integrator = DeltaVGameConfig.VERLET_INTEGRATION_ENABLED
+            ? Integrator.VERLET : Integrator.SEMI_IMPLICIT_EULER;
+
+    /**
+     * A quadtree over the ship and debris for mutual gravity, and scratch
+     * space for reading accelerations out of it.
+     */
+    private BarnesHutTree gravityTree;
+    private GravityUtil.ForceOfGravity mutualForce;
+
+    /**
+     * Our one source of randomness for spawning debris and handing out fuel,
+     * and the seed it started from.  Everything random in the world comes
+     * from here, so two worlds with the same seed and the same input play
+     * out identically.  Its state is saved along with everything else, so a
+     * restored world carries on the same way too.
+     */
+    private final long seed;
+    private final ResumableRandom random;
+
+    /**
+     * The size of the world.  The ship is kept inside it, and debris a
+     * little way around it.
+     */
+    private final int width;
+    private final int height;
+
+    /**
+     * Times each phase of the update, or null if nobody is watching.
+     */
+    private PerfMetrics perfMetrics;
+
+    /**
+     * Where captures, black hole contact and the end of the game are
+     * published, or null if nobody is listening.
      */
-    private Set<DeltaVDebris> debrisSet;
+    private GameEventRing eventRing;
 
     /**
      * The player's ship.
@@ -33,72 +143,278 @@ public class DeltaVWorld {
      */
     private int score;
 
-    /**
-     * A text layer for rendering the scoreboard.
-     */
-    private GroupLayer textLayer;
-
     /**
      * Is the game over?
      */
     private boolean gameOver = false;
 
     public DeltaVWorld() {
+        this(DeltaVGameConfig.NUMBER_OF_DEBRIS_PIECES);
+    }
+
+    /**
+     * Create a world with the given number of debris pieces.
+     *
+     * @param numberOfDebrisPieces The number of debris pieces to maintain.
+     */
+    public DeltaVWorld(int numberOfDebrisPieces) {
+        this(numberOfDebrisPieces, new Random().nextLong());
+    }
+
+    /**
+     * Create a world with the given number of debris pieces, drawing all of
+     * its randomness from a generator with the given seed.  Two worlds
+     * created with the same seed will play out identically.
+     *
+     * @param numberOfDebrisPieces The number of debris pieces to maintain.
+     * @param seed The seed for the world's source of randomness.
+     */
+    public DeltaVWorld(int numberOfDebrisPieces, long seed) {
+        this(numberOfDebrisPieces, seed, DeltaVGameConfig.WORLD_WIDTH, DeltaVGameConfig.WORLD_HEIGHT);
+    }
+
+    /**
+     * Create a world of the given size.  Worlds bigger than the screen are
+     * scrolled around by the renderer's Camera.
+     *
+     * @param numberOfDebrisPieces The number of debris pieces to maintain.
+     * @param seed The seed for the world's source of randomness.
+     * @param width The width of the world.
+     * @param height The height of the world.
+     */
+    public DeltaVWorld(int numberOfDebrisPieces, long seed, int width, int height) {
+        this.seed = seed;
+        this.random = new ResumableRandom(seed);
+        this.width = width;
+        this.height = height;
+
+        // Start with the single black hole in the center of the world.  The
+        // field covers the same area debris is bounded to.
+        gravityField = new GravityField(
+                0 - width * .1,
+                0 - height * .1,
+                width * 1.1,
+                height * 1.1,
+                DeltaVGameConfig.GRAVITY_FIELD_CELL_SIZE);
+        gravityField.addBlackHole(new BlackHole(width / 2, height / 2,
+                DeltaVGameConfig.BLACK_HOLE_WIDTH, DeltaVGameConfig.BLACK_HOLE_HEIGHT,
+                DeltaVGameConfig.GRAVITY));
+
         // Initialize the ship.
         ship = new DeltaVShip();
-        keyboard().setListener(ship);
+        ship.setGravityField(gravityField);
+        ship.setIntegrator(integrator);
         ship.setVelocityInX(0);
         ship.setVelocityInY(0);
         ship.setyPosition(0);
         ship.setxPosition(0);
         ship.setHeading(0);
         ship.setFuelRemaining(DeltaVGameConfig.MAX_FUEL);
-        final Image img = assets().getImage("images/spaceship-icon.png");
-        ship.setImg(img);
-        img.addCallback(new Callback<Image>() {
-            @Override
-            public void onSuccess(Image image) {
-                // We call setImg again once the image loads so that we can
-                // properly set the width and height.  This feels gross...
-                ship.setImg(img);
-            }
-
-            @Override
-            public void onFailure(Throwable cause) {
-                throw new RuntimeException("Could not load ship asset: ", cause);
-            }
-        });
+        ship.setBounds(width, height);
 
         // Initialize the debris field.
-        debrisSet = new HashSet<DeltaVDebris>();
-        Random r = new Random();
-        for (int i = 0; i < DeltaVGameConfig.NUMBER_OF_DEBRIS_PIECES; i++) {
-            DeltaVDebris debris = new DeltaVDebris();
-            debris.setyPosition(r.nextInt(DeltaVGameConfig.SCREEN_HEIGHT));
-            debris.setxPosition(r.nextInt(DeltaVGameConfig.SCREEN_WIDTH));
-            final Image debrisImg = assets().getImage("images/mass1.png");
-            debris.setImg(debrisImg);
-            debrisSet.add(debris);
+        debrisField = new DebrisField(numberOfDebrisPieces);
+        debrisField.setGravityField(gravityField);
+        debrisField.setIntegrator(integrator);
+        debrisField.setBounds(width, height);
+        for (int i = 0; i < numberOfDebrisPieces; i++) {
+            double y = random.nextInt(height);
+            double x = random.nextInt(width);
+            debrisField.spawn(i, x, y, 0, 0);
         }
 
-        // Initialize the scoreboard.
-        textLayer = graphics().createGroupLayer();
+        // Initialize the collision grid over the area debris can reach.
+        debrisGrid = new UniformGrid(
+                0 - width * .1,
+                0 - height * .1,
+                width * 1.1,
+                height * 1.1,
+                DeltaVGameConfig.COLLISION_CELL_SIZE,
+                numberOfDebrisPieces);
+        candidates = new int[numberOfDebrisPieces];
+        active = new int[numberOfDebrisPieces];
+        activeMarks = new int[numberOfDebrisPieces];
+        debrisEvents = new DebrisEvents(16);
+        updateDebrisGrid();
+
+        // Split the world into sectors if it's too big to simulate at once.
+        WorldSectors worldSectors = new WorldSectors(debrisGrid, DeltaVGameConfig.SECTOR_CELLS,
+                DeltaVGameConfig.ACTIVE_SECTOR_RADIUS, DeltaVGameConfig.DORMANT_SECTOR_RADIUS,
+                DeltaVGameConfig.DORMANT_STEP_TICKS);
+        if (worldSectors.isStreaming()) {
+            sectors = worldSectors;
+            dormant = new int[numberOfDebrisPieces];
+        }
+
+        if (DeltaVGameConfig.MUTUAL_GRAVITY_ENABLED) {
+            gravityTree = new BarnesHutTree(DeltaVGameConfig.MUTUAL_GRAVITY,
+                    DeltaVGameConfig.MUTUAL_GRAVITY_SOFTENING, numberOfDebrisPieces + 1);
+            mutualForce = new GravityUtil.ForceOfGravity();
+        }
+    }
+
+    // Getters.
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getRandomState() {
+        return random.getState();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * The world's sectors, or null if the whole world is simulated every
+     * tick.
+     */
+    public WorldSectors getSectors() {
+        return sectors;
+    }
+
+    public int getDormantPhase() {
+        return dormantPhase;
+    }
+
+    /**
+     * The number of pieces of debris stepped at the full rate by the last
+     * update, if the world is split into sectors.
+     */
+    public int getActiveDebrisCount() {
+        return activeCount;
     }
 
     /**
-     * A convenience method for creating our scoreboard layer.  Shamelessly
-     * stolen from the showcases example.
+     * The number of pieces of debris in dormant sectors stepped by the last
+     * update, if the world is split into sectors.
+     */
+    public int getDormantDebrisCount() {
+        return dormantCount;
+    }
+
+    public DebrisField getDebrisField() {
+        return debrisField;
+    }
+
+    public DeltaVShip getShip() {
+        return ship;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public GravityField getGravityField() {
+        return gravityField;
+    }
+
+    /**
+     * Find the debris that may be inside a rectangle, e.g. to draw only what
+     * is on screen.  This only looks at the collision grid cells the
+     * rectangle overlaps, so it costs the same however big the world is.
+     * The grid is refiled once per update, so pieces near the edges of the
+     * rectangle may be just outside it; check their positions if that
+     * matters.
      *
-     * @param layout The text to lay out.
-     * @param color The color of the text.
-     * @return A new Layer containing the text.
+     * @param topLeftX The left edge of the rectangle.
+     * @param bottomRightX The right edge of the rectangle.
+     * @param topLeftY The top edge of the rectangle.
+     * @param bottomRightY The bottom edge of the rectangle.
+     * @param out Where to write the debris slots found.  This must be as big
+     *            as the debris field's capacity.
+     * @return The number of slots written to out.
      */
-    protected Layer createTextLayer(TextLayout layout, int color) {
-        CanvasImage image = graphics().createImage((int)Math.ceil(layout.width()),
-                (int)Math.ceil(layout.height()));
-        image.canvas().setFillColor(color);
-        image.canvas().fillText(layout, 0, 0);
-        return graphics().createImageLayer(image);
+    public int queryDebris(double topLeftX, double bottomRightX, double topLeftY, double bottomRightY, int[] out) {
+        return debrisGrid.query(topLeftX, bottomRightX, topLeftY, bottomRightY, out);
+    }
+
+    /**
+     * Add a black hole to the world.  The gravity field is rebuilt at the
+     * start of the next update.
+     */
+    public void addBlackHole(BlackHole blackHole) {
+        gravityField.addBlackHole(blackHole);
+    }
+
+    public void removeBlackHole(BlackHole blackHole) {
+        gravityField.removeBlackHole(blackHole);
+    }
+
+    /**
+     * Put back the state of a saved world.  Create the world with the saved
+     * seed and capacity and put back the ship, debris and black holes first;
+     * this sets the rest and brings the world's own bookkeeping into line.
+     * Nothing is interpolated across the restore.
+     *
+     * @param score The saved score.
+     * @param gameOver Whether the saved game was over.
+     * @param randomState The saved state of the world's randomness, from
+     *                    getRandomState.
+     * @param dormantPhase Which dormant sectors were due to step next, from
+     *                     getDormantPhase.
+     */
+    public void restore(int score, boolean gameOver, long randomState, int dormantPhase) {
+        this.score = score;
+        this.gameOver = gameOver;
+        random.setState(randomState);
+        this.dormantPhase = sectors == null ? 0 : dormantPhase % sectors.getDormantStepTicks();
+        ship.savePreviousState();
+        for (int i = 0; i < debrisField.getCapacity(); i++) {
+            if (debrisField.isAlive(i)) {
+                debrisGrid.update(i, debrisField.getxPosition(i), debrisField.getyPosition(i));
+            } else {
+                debrisGrid.remove(i);
+            }
+        }
+    }
+
+    public Integrator getIntegrator() {
+        return integrator;
+    }
+
+    /**
+     * Move the ship and debris with a different integrator from now on.
+     */
+    public void setIntegrator(Integrator integrator) {
+        this.integrator = integrator;
+        ship.setIntegrator(integrator);
+        debrisField.setIntegrator(integrator);
+    }
+
+    /**
+     * Step the debris with the given stepper rather than our own loop.  A
+     * stepper steps the whole field, so it isn't used once the world is
+     * split into sectors.
+     */
+    public void setDebrisStepper(DebrisStepper debrisStepper) {
+        this.debrisStepper = debrisStepper;
+    }
+
+    /**
+     * Time the gravity, integration and collision phases of every update
+     * into the given metrics, or stop timing them if it is null.
+     */
+    public void setPerfMetrics(PerfMetrics perfMetrics) {
+        this.perfMetrics = perfMetrics;
+    }
+
+    /**
+     * Publish what happens in every update to the given ring, or stop if it
+     * is null.  Updates are then the ring's one producer.
+     */
+    public void setEventRing(GameEventRing eventRing) {
+        this.eventRing = eventRing;
     }
 
     /**
@@ -112,80 +428,282 @@ public class DeltaVWorld {
             return;
         }
 
-        Random r = new Random();
+        // Catch the gravity field up with any black holes added or removed
+        // since the last update.  This is a no-op almost every tick.
+        if (perfMetrics != null) {
+            perfMetrics.begin(PerfMetrics.GRAVITY);
+        }
+        gravityField.rebuildIfNeeded();
+
+        // In a world split into sectors, only the debris near the ship is
+        // simulated: everything in the active sectors, and whichever dormant
+        // sectors' turn it is.
+        if (sectors != null) {
+            activeCount = sectors.collectActive(ship.getxPosition(), ship.getyPosition(), active);
+            dormantCount = sectors.collectDormant(ship.getxPosition(), ship.getyPosition(), dormantPhase, dormant);
+            dormantPhase = (dormantPhase + 1) % sectors.getDormantStepTicks();
+        } else if (gravityTree != null || DeltaVGameConfig.DEBRIS_COLLISIONS_ENABLED) {
+            activeCount = 0;
+            for (int i = debrisField.nextAlive(0); i >= 0; i = debrisField.nextAlive(i + 1)) {
+                active[activeCount++] = i;
+            }
+        }
+
+        // Let everything pull on everything else first, if we're doing that.
+        // This only changes velocities, on top of the black hole's pull.
+        if (gravityTree != null) {
+            applyMutualGravity(delta);
+        }
+        if (perfMetrics != null) {
+            perfMetrics.end(PerfMetrics.GRAVITY);
+            perfMetrics.begin(PerfMetrics.INTEGRATION);
+        }
 
         // Start with the ship's physics and store its bounding box dims.
         ship.updatePhysics(delta);
-        double shipTopLeftX = ship.getxPosition() - ship.getImg().width() / 2;
-        double shipBottomRightX = ship.getxPosition() + ship.getImg().width() / 2;
-        double shipTopLeftY = ship.getyPosition() - ship.getImg().height() / 2;
-        double shipBottomRightY = ship.getyPosition() + ship.getImg().height() / 2;
-
-        // Next update each piece of debris.
-        for (DeltaVDebris debris : debrisSet) {
-            debris.updatePhysics(delta);
-
-            // Collision detection.  Ship first.
-            if (debris.isBoundedBy(shipTopLeftX, shipBottomRightX, shipTopLeftY, shipBottomRightY)) {
-                // Collision.  Give the player some points, fuel, and respawn
-                // this debris piece elsewhere.
-                debris.respawn();
-                ship.addFuel(r.nextInt(DeltaVGameConfig.MAX_FUEL_PER_DEBRIS - 1) + 1);
-                score += DeltaVGameConfig.POINTS_PER_DEBRIS;
+        double shipTopLeftX = ship.getxPosition() - ship.getWidth() / 2;
+        double shipBottomRightX = ship.getxPosition() + ship.getWidth() / 2;
+        double shipTopLeftY = ship.getyPosition() - ship.getHeight() / 2;
+        double shipBottomRightY = ship.getyPosition() + ship.getHeight() / 2;
+        double shipMovedX = ship.getxPosition() - ship.getPreviousxPosition();
+        double shipMovedY = ship.getyPosition() - ship.getPreviousyPosition();
+
+        // Next update each piece of debris, refile it in the grid and work out
+        // which pieces hit something.  A stepper detects collisions as it
+        // goes, so its time all counts as integration.
+        debrisEvents.clear();
+        fastestDebrisMove = 0;
+        if (sectors != null) {
+            // Dormant debris catches up on all the ticks since its last turn.
+            debrisField.updatePhysics(active, activeCount, delta);
+            debrisField.updatePhysics(dormant, dormantCount, delta * sectors.getDormantStepTicks());
+            if (perfMetrics != null) {
+                perfMetrics.end(PerfMetrics.INTEGRATION);
+                perfMetrics.begin(PerfMetrics.COLLISION);
+            }
+            updateDebrisGrid(active, activeCount);
+            updateDebrisGrid(dormant, dormantCount);
+            detectDebrisCollisions(shipTopLeftX, shipBottomRightX, shipTopLeftY, shipBottomRightY,
+                    shipMovedX, shipMovedY);
+        } else if (debrisStepper != null) {
+            debrisStepper.step(debrisField, delta, shipTopLeftX, shipBottomRightX,
+                    shipTopLeftY, shipBottomRightY, shipMovedX, shipMovedY, debrisEvents);
+            if (perfMetrics != null) {
+                perfMetrics.end(PerfMetrics.INTEGRATION);
+                perfMetrics.begin(PerfMetrics.COLLISION);
             }
+            updateDebrisGrid();
+        } else {
+            debrisField.updatePhysics(delta);
+            if (perfMetrics != null) {
+                perfMetrics.end(PerfMetrics.INTEGRATION);
+                perfMetrics.begin(PerfMetrics.COLLISION);
+            }
+            updateDebrisGrid();
+            detectDebrisCollisions(shipTopLeftX, shipBottomRightX, shipTopLeftY, shipBottomRightY,
+                    shipMovedX, shipMovedY);
+        }
+
+        if (DeltaVGameConfig.DEBRIS_COLLISIONS_ENABLED) {
+            collideDebris();
+        }
 
-            // Now check to see if the debris has fallen into the black hole.
-            if (debris.isBoundedBy(DeltaVGameConfig.BLACK_HOLE_TOP_LEFT_X,
-                    DeltaVGameConfig.BLACK_HOLE_BOTTOM_RIGHT_X,
-                    DeltaVGameConfig.BLACK_HOLE_TOP_LEFT_Y,
-                    DeltaVGameConfig.BLACK_HOLE_BOTTOM_RIGHT_Y)) {
-                debris.respawn();
+        // Now act on the collisions, in slot order.  Captured debris gives
+        // the player some points and fuel, and anything that hit the ship or
+        // fell into the black hole respawns elsewhere.
+        for (int k = 0; k < debrisEvents.getCount(); k++) {
+            int slot = debrisEvents.getSlot(k);
+            int blackHole = -1;
+            if (eventRing != null && debrisEvents.getType(k) == DebrisEvents.SWALLOWED) {
+                blackHole = gravityField.findBlackHoleIndexCrossing(debrisField.getPreviousxPosition(slot),
+                        debrisField.getPreviousyPosition(slot), debrisField.getxPosition(slot),
+                        debrisField.getyPosition(slot));
+            }
+            respawnDebris(slot);
+            if (debrisEvents.getType(k) == DebrisEvents.CAPTURED) {
+                int fuel = random.nextInt(DeltaVGameConfig.MAX_FUEL_PER_DEBRIS - 1) + 1;
+                ship.addFuel(fuel);
+                score += DeltaVGameConfig.POINTS_PER_DEBRIS;
+                if (eventRing != null) {
+                    eventRing.publish(GameEventRing.DEBRIS_CAPTURED, slot, fuel);
+                }
+            } else if (eventRing != null) {
+                eventRing.publish(GameEventRing.DEBRIS_SWALLOWED, slot, blackHole);
             }
         }
 
-        // Check if the ship has fallen into the black hole.
-        if(ship.isBoundedBy(DeltaVGameConfig.BLACK_HOLE_TOP_LEFT_X,
-                DeltaVGameConfig.BLACK_HOLE_BOTTOM_RIGHT_X,
-                DeltaVGameConfig.BLACK_HOLE_TOP_LEFT_Y,
-                DeltaVGameConfig.BLACK_HOLE_BOTTOM_RIGHT_Y)) {
+        // Check if the ship has fallen into a black hole, or flown through one.
+        if(gravityField.findBlackHoleIndexCrossing(ship.getPreviousxPosition(), ship.getPreviousyPosition(),
+                ship.getxPosition(), ship.getyPosition()) >= 0) {
             // If it has, start draining fuel.  If fuel reaches 0, the game is
             // over.
-            ship.addFuel(DeltaVGameConfig.FUEL_DRAINED_BY_BLACK_HOLE * -1);
+            ship.burnFuel(DeltaVGameConfig.FUEL_DRAINED_BY_BLACK_HOLE
+                    * delta / DeltaVGameConfig.REFERENCE_STEP_MILLIS);
+            if (eventRing != null) {
+                eventRing.publish(GameEventRing.SHIP_DRAINED, -1, ship.getFuelRemaining());
+            }
             if(ship.getFuelRemaining() <= 0) {
                 gameOver = true;
+                if (eventRing != null) {
+                    eventRing.publish(GameEventRing.GAME_OVER, -1, score);
+                }
             }
         }
+        if (perfMetrics != null) {
+            perfMetrics.end(PerfMetrics.COLLISION);
+        }
     }
 
     /**
-     * Paint the world to the screen using the provided Surface.
+     * Accelerate the ship and every piece of active debris towards each
+     * other, using the Barnes-Hut tree so this costs O(n log n) rather than
+     * O(n^2).  Every acceleration is worked out from the positions at the
+     * start of the tick before any are applied.
      *
-     * @param surface The Surface to paint to.
+     * @param delta The number of milliseconds since the last update.
      */
-    public void paint(Surface surface) {
-        // Draw the ship and each piece of debris.
-        ship.draw(surface);
-        for (DeltaVDebris debris : debrisSet) {
-            debris.draw(surface);
+    private void applyMutualGravity(int delta) {
+        int shipId = debrisField.getCapacity();
+        gravityTree.clear();
+        gravityTree.add(ship.getxPosition(), ship.getyPosition(), DeltaVGameConfig.SHIP_MASS, shipId);
+        for (int k = 0; k < activeCount; k++) {
+            int i = active[k];
+            gravityTree.add(debrisField.getxPosition(i), debrisField.getyPosition(i), DeltaVGameConfig.DEBRIS_MASS, i);
         }
+        gravityTree.build();
 
-        // Blank the scoreboard and repopulate it with the current score and
-        // fuel.
-        textLayer.removeAll();
-        Font font = graphics().createFont("Courier", Font.Style.PLAIN, 18);
-        TextFormat format = new TextFormat().withFont(font);
-        String scoreboardText = "Fuel: " + ship.getFuelRemaining() + "\nScore: " + score;
-        if (gameOver) {
-            scoreboardText += "\nGAME OVER!";
+        double seconds = delta / 1000D;
+        for (int k = 0; k < activeCount; k++) {
+            int i = active[k];
+            gravityTree.accelerationAt(debrisField.getxPosition(i), debrisField.getyPosition(i), i,
+                    DeltaVGameConfig.BARNES_HUT_THETA, mutualForce);
+            debrisField.setVelocityInX(i, debrisField.getVelocityInX(i) + mutualForce.forceInX * seconds);
+            debrisField.setVelocityInY(i, debrisField.getVelocityInY(i) + mutualForce.forceInY * seconds);
+        }
+        gravityTree.accelerationAt(ship.getxPosition(), ship.getyPosition(), shipId,
+                DeltaVGameConfig.BARNES_HUT_THETA, mutualForce);
+        ship.setVelocityInX(ship.getVelocityInX() + mutualForce.forceInX * seconds);
+        ship.setVelocityInY(ship.getVelocityInY() + mutualForce.forceInY * seconds);
+    }
+
+    /**
+     * Record which debris ran into the ship or a black hole.  This gives the
+     * same events as DebrisField.detectCollisions, but only looks at debris in
+     * the grid cells near the ship and the black holes: near enough that it
+     * could have crossed them on its way to where it is now.
+     */
+    private void detectDebrisCollisions(double shipTopLeftX, double shipBottomRightX,
+                                        double shipTopLeftY, double shipBottomRightY,
+                                        double shipMovedX, double shipMovedY) {
+        double reach = fastestDebrisMove;
+
+        // Ship first, looking all along the way it came.
+        int count = debrisGrid.query(Math.min(shipTopLeftX, shipTopLeftX - shipMovedX) - reach,
+                Math.max(shipBottomRightX, shipBottomRightX - shipMovedX) + reach,
+                Math.min(shipTopLeftY, shipTopLeftY - shipMovedY) - reach,
+                Math.max(shipBottomRightY, shipBottomRightY - shipMovedY) + reach, candidates);
+        for (int k = 0; k < count; k++) {
+            int i = candidates[k];
+            if (debrisField.detectCollision(i, shipTopLeftX, shipBottomRightX, shipTopLeftY, shipBottomRightY,
+                    shipMovedX, shipMovedY) == DebrisEvents.CAPTURED) {
+                debrisEvents.add(i, DebrisEvents.CAPTURED);
+            }
+        }
+
+        // Then the black holes.  A piece is only swallowed once, by the first
+        // black hole it reached, even if it crossed several.
+        for (int h = 0; h < gravityField.getBlackHoleCount(); h++) {
+            BlackHole blackHole = gravityField.getBlackHole(h);
+            count = debrisGrid.query(blackHole.getTopLeftX() - reach, blackHole.getBottomRightX() + reach,
+                    blackHole.getTopLeftY() - reach, blackHole.getBottomRightY() + reach, candidates);
+            for (int k = 0; k < count; k++) {
+                int i = candidates[k];
+                if (debrisField.detectCollision(i, shipTopLeftX, shipBottomRightX, shipTopLeftY, shipBottomRightY,
+                        shipMovedX, shipMovedY) == DebrisEvents.SWALLOWED
+                        && gravityField.findBlackHoleIndexCrossing(debrisField.getPreviousxPosition(i),
+                                debrisField.getPreviousyPosition(i), debrisField.getxPosition(i),
+                                debrisField.getyPosition(i)) == h) {
+                    debrisEvents.add(i, DebrisEvents.SWALLOWED);
+                }
+            }
+        }
+
+        // The grid hands back candidates in cell order, so sort them to keep
+        // the order we respawn in (and so the random numbers each piece gets)
+        // independent of the grid.
+        debrisEvents.sort();
+    }
+
+    /**
+     * Respawn a piece of debris and refile it in the grid at its new spot.
+     *
+     * @param i The debris slot to respawn.
+     */
+    private void respawnDebris(int i) {
+        debrisField.respawn(i, random);
+        debrisGrid.update(i, debrisField.getxPosition(i), debrisField.getyPosition(i));
+    }
+
+    /**
+     * Refile every live piece of debris in the grid.  Most pieces stay in the
+     * same cell from one tick to the next, which costs nothing.
+     */
+    private void updateDebrisGrid() {
+        for (int i = debrisField.nextAlive(0); i >= 0; i = debrisField.nextAlive(i + 1)) {
+            updateDebrisGrid(i);
+        }
+    }
+
+    /**
+     * Refile just the listed pieces of debris in the grid.
+     */
+    private void updateDebrisGrid(int[] slots, int count) {
+        for (int k = 0; k < count; k++) {
+            updateDebrisGrid(slots[k]);
         }
+    }
+
+    /**
+     * Refile one piece of debris in the grid, and note how far it moved.
+     */
+    private void updateDebrisGrid(int i) {
+        double x = debrisField.getxPosition(i);
+        double y = debrisField.getyPosition(i);
+        fastestDebrisMove = Math.max(fastestDebrisMove, Math.max(Math.abs(x - debrisField.getPreviousxPosition(i)),
+                Math.abs(y - debrisField.getPreviousyPosition(i))));
+        debrisGrid.update(i, x, y);
+    }
 
-        // Create a new Layer for the text and append it to the textLayer.
-        TextLayout layout = graphics().layoutText(scoreboardText, format);
-        Layer layer = createTextLayer(layout, 0xFFFF0000);
-        layer.setTranslation(10, 10);
-        textLayer.add(layer);
+    /**
+     * Bounce active debris off each other.  Each piece only checks the
+     * pieces in the cells around it, far enough out to catch any piece it
+     * could have touched on the way here, and each pair is only handled
+     * once.
+     */
+    private void collideDebris() {
+        // In a world with sectors the grid also turns up debris that wasn't
+        // stepped this tick, or was stepped several ticks at once; those
+        // only bounce off what they overlap.
+        activeMark++;
+        for (int n = 0; n < activeCount; n++) {
+            activeMarks[active[n]] = activeMark;
+        }
 
-        // Draw the scoreboard.
-        surface.drawLayer(textLayer);
+        double reach = DeltaVGameConfig.DEBRIS_RADIUS * 2 + fastestDebrisMove * 2;
+        for (int n = 0; n < activeCount; n++) {
+            int i = active[n];
+            double x = debrisField.getxPosition(i);
+            double y = debrisField.getyPosition(i);
+            int count = debrisGrid.query(x - reach, x + reach, y - reach, y + reach, candidates);
+            for (int k = 0; k < count; k++) {
+                int j = candidates[k];
+                if (j > i && debrisField.collide(i, j, DeltaVGameConfig.DEBRIS_RADIUS,
+                        activeMarks[j] == activeMark)) {
+                    // Pieces that passed through each other get moved back.
+                    debrisGrid.update(i, debrisField.getxPosition(i), debrisField.getyPosition(i));
+                    debrisGrid.update(j, debrisField.getxPosition(j), debrisField.getyPosition(j));
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,350 @@
+package deltav.core.model;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.util.GravityUtil;
+import deltav.core.util.SweptCollision;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The gravity of every black hole in the world, summed.  The force depends
+ * only on position, so rather than working it out from scratch for every
+ * object every tick, we precompute it at the corners of a regular grid and
+ * sample that with bilinear interpolation.  The grid is only rebuilt when a
+ * black hole is added or removed.  Each component of the force changes sign
+ * on the line through a black hole's center, and the grid smooths that step
+ * out over one cell.
+ *
+ * A field created with a cell size of zero skips the grid and sums the wells
+ * exactly on every sample instead.
+ */
+public class GravityField {
+
+    /**
+     * The black holes making up the field.
+     */
+    private final List<BlackHole> blackHoles = new ArrayList<BlackHole>();
+
+    /**
+     * The area covered by the grid.  Samples outside it use the nearest edge.
+     */
+    private final double minX;
+    private final double minY;
+
+    /**
+     * The spacing of the grid, and its inverse to save a divide.
+     */
+    private final double cellSize;
+    private final double inverseCellSize;
+
+    /**
+     * The number of cells along each axis.  There is one more grid point than
+     * cells along each.
+     */
+    private final int columns;
+    private final int rows;
+
+    /**
+     * The force at each grid point, packed as x0, y0, x1, y1, ... row by row,
+     * so a sample reads two neighbouring pairs from each of two rows.
+     */
+    private final double[] forces;
+
+    /**
+     * Has a black hole been added or removed since the grid was built?
+     */
+    private boolean dirty = true;
+
+    /**
+     * Objects within this distance of a black hole split their steps into
+     * substeps, up to this many.
+     */
+    private double substepRadius = DeltaVGameConfig.SUBSTEP_RADIUS;
+    private int maxSubsteps = DeltaVGameConfig.MAX_SUBSTEPS;
+
+    /**
+     * Scratch space for building the grid and exact sampling.
+     */
+    private final GravityUtil.ForceOfGravity force = new GravityUtil.ForceOfGravity();
+
+    /**
+     * Create a field.
+     *
+     * @param minX The left edge of the area to cover.
+     * @param minY The top edge of the area to cover.
+     * @param maxX The right edge of the area to cover.
+     * @param maxY The bottom edge of the area to cover.
+     * @param cellSize The spacing of the grid, or 0 to always compute the
+     *                 force exactly.
+     */
+    public GravityField(double minX, double minY, double maxX, double maxY, double cellSize) {
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        if (cellSize > 0) {
+            inverseCellSize = 1 / cellSize;
+            columns = Math.max(1, (int)Math.ceil((maxX - minX) * inverseCellSize));
+            rows = Math.max(1, (int)Math.ceil((maxY - minY) * inverseCellSize));
+            forces = new double[(columns + 1) * (rows + 1) * 2];
+        } else {
+            inverseCellSize = 0;
+            columns = 0;
+            rows = 0;
+            forces = null;
+        }
+    }
+
+    public List<BlackHole> getBlackHoles() {
+        return Collections.unmodifiableList(blackHoles);
+    }
+
+    public int getBlackHoleCount() {
+        return blackHoles.size();
+    }
+
+    public BlackHole getBlackHole(int index) {
+        return blackHoles.get(index);
+    }
+
+    // The grid, for platform kernels that sample it themselves.  The forces
+    // are the live grid, not a copy, and are null if the field has no grid.
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getInverseCellSize() {
+        return inverseCellSize;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public double[] getForces() {
+        return forces;
+    }
+
+    public double getSubstepRadius() {
+        return substepRadius;
+    }
+
+    public void setSubstepRadius(double substepRadius) {
+        this.substepRadius = substepRadius;
+    }
+
+    public int getMaxSubsteps() {
+        return maxSubsteps;
+    }
+
+    public void setMaxSubsteps(int maxSubsteps) {
+        this.maxSubsteps = maxSubsteps;
+    }
+
+    public void addBlackHole(BlackHole blackHole) {
+        blackHoles.add(blackHole);
+        dirty = true;
+    }
+
+    public void removeBlackHole(BlackHole blackHole) {
+        if (blackHoles.remove(blackHole)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Rebuild the grid if the black holes have changed since it was last
+     * built.  Sampling doesn't do this itself, so that it is safe to sample
+     * from several threads at once; the world calls it before each tick.
+     */
+    public void rebuildIfNeeded() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        if (forces == null) {
+            return;
+        }
+        int k = 0;
+        for (int row = 0; row <= rows; row++) {
+            double y = minY + row * cellSize;
+            for (int column = 0; column <= columns; column++) {
+                computeExactly(minX + column * cellSize, y, force);
+                forces[k++] = force.forceInX;
+                forces[k++] = force.forceInY;
+            }
+        }
+    }
+
+    /**
+     * Sum the pull of every black hole at a point, exactly.
+     */
+    public void computeExactly(double x, double y, GravityUtil.ForceOfGravity out) {
+        double forceInX = 0;
+        double forceInY = 0;
+        for (int h = 0; h < blackHoles.size(); h++) {
+            BlackHole blackHole = blackHoles.get(h);
+            GravityUtil.computeForceOfGravityTowards(blackHole.getxPosition(), blackHole.getyPosition(),
+                    blackHole.getGravity(), x, y, out);
+            forceInX += out.forceInX;
+            forceInY += out.forceInY;
+        }
+        out.forceInX = forceInX;
+        out.forceInY = forceInY;
+    }
+
+    /**
+     * Get the force of gravity at a point.
+     *
+     * @param x The point's position along the X axis.
+     * @param y The point's position along the Y axis.
+     * @param out Where to store the x and y components of the force.
+     */
+    public void sample(double x, double y, GravityUtil.ForceOfGravity out) {
+        if (forces == null) {
+            computeExactly(x, y, out);
+            return;
+        }
+
+        // Find the cell, and how far across it we are.
+        double gridX = (x - minX) * inverseCellSize;
+        double gridY = (y - minY) * inverseCellSize;
+        int column = (int)gridX;
+        int row = (int)gridY;
+        if (gridX < 0) {
+            column = 0;
+            gridX = 0;
+        } else if (column >= columns) {
+            column = columns - 1;
+            gridX = columns;
+        }
+        if (gridY < 0) {
+            row = 0;
+            gridY = 0;
+        } else if (row >= rows) {
+            row = rows - 1;
+            gridY = rows;
+        }
+        double fractionX = gridX - column;
+        double fractionY = gridY - row;
+
+        int top = (row * (columns + 1) + column) * 2;
+        int bottom = top + (columns + 1) * 2;
+        double topX = forces[top] + (forces[top + 2] - forces[top]) * fractionX;
+        double topY = forces[top + 1] + (forces[top + 3] - forces[top + 1]) * fractionX;
+        double bottomX = forces[bottom] + (forces[bottom + 2] - forces[bottom]) * fractionX;
+        double bottomY = forces[bottom + 1] + (forces[bottom + 3] - forces[bottom + 1]) * fractionX;
+        out.forceInX = topX + (bottomX - topX) * fractionY;
+        out.forceInY = topY + (bottomY - topY) * fractionY;
+    }
+
+    /**
+     * Is the point inside any black hole?
+     *
+     * @return The black hole it is inside, or null.
+     */
+    public BlackHole findBlackHoleAt(double x, double y) {
+        int h = findBlackHoleIndexAt(x, y);
+        return h < 0 ? null : blackHoles.get(h);
+    }
+
+    /**
+     * Is the point inside any black hole?
+     *
+     * @return The index of the black hole it is inside, or -1.
+     */
+    public int findBlackHoleIndexAt(double x, double y) {
+        for (int h = 0; h < blackHoles.size(); h++) {
+            BlackHole blackHole = blackHoles.get(h);
+            if (x > blackHole.getTopLeftX() && x <= blackHole.getBottomRightX()
+                    && y > blackHole.getTopLeftY() && y <= blackHole.getBottomRightY()) {
+                return h;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Did a point moving in a straight line pass through any black hole?
+     * This catches a point fast enough to cross a black hole in one step,
+     * which findBlackHoleIndexAt, only looking at where it ends up, misses.
+     *
+     * @param startX Where the point starts along the X axis.
+     * @param startY Where the point starts along the Y axis.
+     * @param endX Where the point ends along the X axis.
+     * @param endY Where the point ends along the Y axis.
+     * @return The index of the first black hole it entered, or -1.
+     */
+    public int findBlackHoleIndexCrossing(double startX, double startY, double endX, double endY) {
+        return findBlackHoleIndexCrossing(startX, startY, endX, endY, Double.MAX_VALUE);
+    }
+
+    /**
+     * Did a point moving in a straight line pass into any black hole before
+     * some time?  If it entered more than one, the first it entered wins,
+     * and on a tie the first added.
+     *
+     * @param startX Where the point starts along the X axis.
+     * @param startY Where the point starts along the Y axis.
+     * @param endX Where the point ends along the X axis.
+     * @param endY Where the point ends along the Y axis.
+     * @param before Only count black holes entered strictly before this
+     *               time, as a fraction of the move.
+     * @return The index of the first black hole it entered, or -1.
+     */
+    public int findBlackHoleIndexCrossing(double startX, double startY, double endX, double endY, double before) {
+        int first = -1;
+        double firstTime = before;
+        for (int h = 0; h < blackHoles.size(); h++) {
+            BlackHole blackHole = blackHoles.get(h);
+            double time = SweptCollision.segmentHitsBox(startX, startY, endX, endY,
+                    blackHole.getTopLeftX(), blackHole.getBottomRightX(),
+                    blackHole.getTopLeftY(), blackHole.getBottomRightY());
+            if (time != SweptCollision.MISS && time < firstTime) {
+                first = h;
+                firstTime = time;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * How many substeps an object at a point should split each step into.
+     * Away from the black holes that is one.  Within the substep radius of a
+     * well it grows with (radius / distance) ^ 1.5, which keeps the step a
+     * fixed fraction of the time a close orbit at that distance takes.
+     *
+     * @param x The point's position along the X axis.
+     * @param y The point's position along the Y axis.
+     * @return The number of substeps, from 1 to the maximum.
+     */
+    public int getSubsteps(double x, double y) {
+        double radiusSquared = substepRadius * substepRadius;
+        int substeps = 1;
+        for (int h = 0; h < blackHoles.size(); h++) {
+            BlackHole blackHole = blackHoles.get(h);
+            double deltaX = blackHole.getxPosition() - x;
+            double deltaY = blackHole.getyPosition() - y;
+            double distanceSquared = deltaX * deltaX + deltaY * deltaY;
+            if (distanceSquared >= radiusSquared) {
+                continue;
+            }
+            if (distanceSquared == 0) {
+                return maxSubsteps;
+            }
+            double ratio = substepRadius / Math.sqrt(distanceSquared);
+            substeps = Math.max(substeps, (int)Math.ceil(ratio * Math.sqrt(ratio)));
+        }
+        return Math.min(substeps, maxSubsteps);
+    }
+}
@@ -0,0 +1,94 @@
+package deltav.core.model;
+
+import deltav.core.util.GravityUtil;
+
+/**
+ * Moves a body forward under gravity.  Each implementation is a different
+ * scheme for turning the force into a change in velocity and position over a
+ * step; the world picks one for the ship and all the debris.
+ *
+ * Near a black hole the force changes quickly over the distance an object
+ * covers in one step, which is where a fixed step goes wrong.  So advance
+ * asks the gravity field how many substeps an object needs where it is, and
+ * splits the step up only for objects close to a well.  Everything else
+ * takes one step a tick.
+ *
+ * Positions are in pixels, velocities in pixels per reference step and
+ * accelerations in pixels per reference step per second, as everywhere else.
+ */
+public abstract class Integrator {
+
+    /**
+     * Plain semi-implicit Euler: update the velocity from the force, then the
+     * position from the new velocity.  This is what objects have always done.
+     */
+    public static final Integrator SEMI_IMPLICIT_EULER = new SemiImplicitEulerIntegrator();
+
+    /**
+     * Second order Verlet, which keeps orbits from drifting for the same
+     * single force evaluation per step.
+     */
+    public static final Integrator VERLET = new VerletIntegrator();
+
+    /**
+     * The state of the body being moved, copied in and out by the caller so
+     * that one integrator can serve the ship and the debris field alike.
+     */
+    public static class Body {
+        public double xPosition;
+        public double yPosition;
+        public double velocityInX;
+        public double velocityInY;
+
+        /**
+         * Any acceleration on top of gravity, such as a ship's thrust, held
+         * constant over the step.
+         */
+        public double extraAccelerationInX;
+        public double extraAccelerationInY;
+
+        /**
+         * Scratch space for the force of gravity.
+         */
+        final GravityUtil.ForceOfGravity force = new GravityUtil.ForceOfGravity();
+    }
+
+    /**
+     * Move a body forward, in substeps if it is close to a black hole.
+     *
+     * @param body The body to move.
+     * @param gravityField The gravity acting on the body, or null for the
+     *                     single black hole in the center of the screen.
+     * @param deltaT The number of millis to move forward by.
+     * @return The number of substeps taken, which is also the number of
+     *         times the force of gravity was worked out.
+     */
+    public int advance(Body body, GravityField gravityField, double deltaT) {
+        int substeps = gravityField == null ? 1 : gravityField.getSubsteps(body.xPosition, body.yPosition);
+        double substep = deltaT / substeps;
+        for (int k = 0; k < substeps; k++) {
+            step(body, gravityField, substep);
+        }
+        return substeps;
+    }
+
+    /**
+     * Move a body forward by a single step.
+     *
+     * @param body The body to move.
+     * @param gravityField The gravity acting on the body, or null.
+     * @param deltaT The number of millis to move forward by.
+     */
+    protected abstract void step(Body body, GravityField gravityField, double deltaT);
+
+    /**
+     * Work out the force of gravity at a point into body.force.
+     */
+    protected static void computeForceOfGravity(Body body, GravityField gravityField, double x, double y) {
+        if (gravityField != null) {
+            gravityField.sample(x, y, body.force);
+        } else {
+            GravityUtil.computeForceOfGravityAt(x, y, body.force);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package deltav.core.model;
+
+import deltav.core.config.DeltaVGameConfig;
+
+/**
+ * Semi-implicit (symplectic) Euler: the force at the start of the step
+ * updates the velocity, and the new velocity moves the body.  It is only
+ * first order, but unlike plain Euler it doesn't steadily pump energy into
+ * orbits.
+ */
+class SemiImplicitEulerIntegrator extends Integrator {
+
+    @Override
+    protected void step(Body body, GravityField gravityField, double deltaT) {
+        computeForceOfGravity(body, gravityField, body.xPosition, body.yPosition);
+        body.velocityInX += (body.force.forceInX + body.extraAccelerationInX) * deltaT / 1000D;
+        body.velocityInY += (body.force.forceInY + body.extraAccelerationInY) * deltaT / 1000D;
+        body.xPosition += body.velocityInX * deltaT / DeltaVGameConfig.REFERENCE_STEP_MILLIS;
+        body.yPosition += body.velocityInY * deltaT / DeltaVGameConfig.REFERENCE_STEP_MILLIS;
+    }
+}
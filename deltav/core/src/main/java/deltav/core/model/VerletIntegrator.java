@@ -0,0 +1,29 @@
+package deltav.core.model;
+
+import deltav.core.config.DeltaVGameConfig;
+
+/**
+ * Verlet integration, in its drift-kick-drift (leapfrog) form: the body
+ * coasts for half a step, takes the whole step's change in velocity from the
+ * force at that midpoint, then coasts the other half on the new velocity.
+ *
+ * That is second order and time symmetric, so close passes come out the way
+ * they went in rather than gaining or losing energy, and it only needs the
+ * force once per step.  The velocity-first form needs the force at both ends
+ * of the step, which means either working it out twice or remembering it for
+ * every piece of debris between ticks.
+ */
+class VerletIntegrator extends Integrator {
+
+    @Override
+    protected void step(Body body, GravityField gravityField, double deltaT) {
+        double halfSteps = deltaT / 2 / DeltaVGameConfig.REFERENCE_STEP_MILLIS;
+        double midX = body.xPosition + body.velocityInX * halfSteps;
+        double midY = body.yPosition + body.velocityInY * halfSteps;
+        computeForceOfGravity(body, gravityField, midX, midY);
+        body.velocityInX += (body.force.forceInX + body.extraAccelerationInX) * deltaT / 1000D;
+        body.velocityInY += (body.force.forceInY + body.extraAccelerationInY) * deltaT / 1000D;
+        body.xPosition = midX + body.velocityInX * halfSteps;
+        body.yPosition = midY + body.velocityInY * halfSteps;
+    }
+}
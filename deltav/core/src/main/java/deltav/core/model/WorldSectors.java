@@ -0,0 +1,150 @@
+package deltav.core.model;
+
+import deltav.core.util.UniformGrid;
+
+/**
+ * Splits a world too big to simulate all at once into square sectors, each
+ * a block of cells of the world's collision grid, and finds the debris in
+ * the ones that need stepping.  Around the ship are the active sectors,
+ * stepped every tick; around those is a ring of dormant sectors, each
+ * stepped in one go every few ticks, with their turns staggered so the same
+ * share of the ring comes up every tick.  Everything further away is left
+ * where it is until the ship comes near enough to wake it.
+ *
+ * The debris is found through the grid, which already knows which cell every
+ * piece is in, so finding it only touches the cells of the sectors asked
+ * about.  However much debris is in the rest of the world, it costs nothing.
+ */
+public class WorldSectors {
+
+    private final UniformGrid grid;
+
+    /**
+     * The width and height of a sector, in grid cells.
+     */
+    private final int sectorCells;
+
+    /**
+     * How many sectors out from the ship's are active and dormant, and how
+     * many ticks there are between a dormant sector's steps.
+     */
+    private final int activeRadius;
+    private final int dormantRadius;
+    private final int dormantStepTicks;
+
+    /**
+     * The number of sectors along each axis.
+     */
+    private final int sectorColumns;
+    private final int sectorRows;
+
+    public WorldSectors(UniformGrid grid, int sectorCells, int activeRadius, int dormantRadius,
+                        int dormantStepTicks) {
+        this.grid = grid;
+        this.sectorCells = sectorCells;
+        this.activeRadius = activeRadius;
+        this.dormantRadius = dormantRadius;
+        this.dormantStepTicks = dormantStepTicks;
+        sectorColumns = (grid.getColumns() + sectorCells - 1) / sectorCells;
+        sectorRows = (grid.getRows() + sectorCells - 1) / sectorCells;
+    }
+
+    public int getSectorColumns() {
+        return sectorColumns;
+    }
+
+    public int getSectorRows() {
+        return sectorRows;
+    }
+
+    public int getDormantStepTicks() {
+        return dormantStepTicks;
+    }
+
+    /**
+     * Is the world bigger than the active sectors can cover?  If not,
+     * everything is always active and there's no point splitting it up.
+     */
+    public boolean isStreaming() {
+        return sectorColumns > activeRadius * 2 + 1 || sectorRows > activeRadius * 2 + 1;
+    }
+
+    /**
+     * The column of sectors a position along the X axis falls in.
+     */
+    public int getSectorColumn(double x) {
+        return grid.getColumn(x) / sectorCells;
+    }
+
+    /**
+     * The row of sectors a position along the Y axis falls in.
+     */
+    public int getSectorRow(double y) {
+        return grid.getRow(y) / sectorCells;
+    }
+
+    /**
+     * Collect the debris in the active sectors.
+     *
+     * @param x The ship's position along the X axis.
+     * @param y The ship's position along the Y axis.
+     * @param out Where to write the debris slots.  This must be as big as the
+     *            debris field's capacity.
+     * @return The number of slots written to out.
+     */
+    public int collectActive(double x, double y, int[] out) {
+        int column = getSectorColumn(x);
+        int row = getSectorRow(y);
+        return collect(column - activeRadius, column + activeRadius,
+                row - activeRadius, row + activeRadius, out, 0);
+    }
+
+    /**
+     * Collect the debris in the dormant sectors whose turn it is.  Each
+     * dormant sector's turn comes round once every dormantStepTicks phases.
+     *
+     * @param x The ship's position along the X axis.
+     * @param y The ship's position along the Y axis.
+     * @param phase Which turn it is, from 0 to dormantStepTicks - 1.
+     * @param out Where to write the debris slots.  This must be as big as the
+     *            debris field's capacity.
+     * @return The number of slots written to out.
+     */
+    public int collectDormant(double x, double y, int phase, int[] out) {
+        int column = getSectorColumn(x);
+        int row = getSectorRow(y);
+        int lastRow = Math.min(sectorRows - 1, row + dormantRadius);
+        int lastColumn = Math.min(sectorColumns - 1, column + dormantRadius);
+        int count = 0;
+        for (int r = Math.max(0, row - dormantRadius); r <= lastRow; r++) {
+            for (int c = Math.max(0, column - dormantRadius); c <= lastColumn; c++) {
+                if (Math.abs(c - column) <= activeRadius && Math.abs(r - row) <= activeRadius) {
+                    continue;
+                }
+                if ((c + r * sectorColumns) % dormantStepTicks != phase) {
+                    continue;
+                }
+                count = collect(c, c, r, r, out, count);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Collect the debris in a block of sectors, clipped to the world.
+     */
+    private int collect(int firstColumn, int lastColumn, int firstRow, int lastRow, int[] out, int count) {
+        firstColumn = Math.max(0, firstColumn);
+        firstRow = Math.max(0, firstRow);
+        lastColumn = Math.min(sectorColumns - 1, lastColumn);
+        lastRow = Math.min(sectorRows - 1, lastRow);
+        if (firstColumn > lastColumn || firstRow > lastRow) {
+            return count;
+        }
+        return grid.queryCells(firstColumn * sectorCells,
+                Math.min((lastColumn + 1) * sectorCells, grid.getColumns()) - 1,
+                firstRow * sectorCells,
+                Math.min((lastRow + 1) * sectorCells, grid.getRows()) - 1,
+                out, count);
+    }
+}
@@ -0,0 +1,54 @@
+package deltav.core.net;
+
+/**
+ * Reads what PacketWriter writes.
+ */
+public class PacketReader {
+
+    private byte[] bytes;
+    private int position;
+    private int end;
+
+    /**
+     * Start reading a packet.
+     *
+     * @param bytes The buffer holding the packet.
+     * @param offset Where in the buffer the packet starts.
+     * @param length The length of the packet.
+     */
+    public void wrap(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.position = offset;
+        this.end = offset + length;
+    }
+
+    public boolean hasRemaining() {
+        return position < end;
+    }
+
+    /**
+     * @throws IllegalArgumentException If the packet is truncated.
+     */
+    public int readByte() {
+        if (position >= end) {
+            throw new IllegalArgumentException("Packet is truncated");
+        }
+        return bytes[position++] & 0xFF;
+    }
+
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    public int readSignedVarInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,81 @@
+package deltav.core.net;
+
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer with the few encodings our packets need: single
+ * bytes, and variable length ints written seven bits per byte, low bits
+ * first, so small numbers take a single byte.  Signed ints are zigzag encoded
+ * first, so small negative numbers are small too.  The buffer is reused from
+ * one packet to the next.
+ */
+public class PacketWriter {
+
+    /**
+     * The most bytes a variable length int can take.
+     */
+    public static final int MAX_VARINT_BYTES = 5;
+
+    private byte[] bytes;
+    private int length;
+
+    public PacketWriter(int initialCapacity) {
+        bytes = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Empty the buffer, ready for the next packet.
+     */
+    public void reset() {
+        length = 0;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * The buffer itself.  Only the first getLength() bytes are the packet.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public void writeByte(int value) {
+        if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, length * 2);
+        }
+        bytes[length++] = (byte)value;
+    }
+
+    public void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    public void writeSignedVarInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * How many bytes writeVarInt would take for a value.
+     */
+    public static int varIntLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * How many bytes writeSignedVarInt would take for a value.
+     */
+    public static int signedVarIntLength(int value) {
+        return varIntLength((value << 1) ^ (value >> 31));
+    }
+}
@@ -0,0 +1,71 @@
+package deltav.core.net;
+
+/**
+ * What SnapshotEncoder and SnapshotDecoder have in common: the state the
+ * client believes the world is in.
+ *
+ * Between snapshots both ends move every piece of believed debris along by
+ * its believed velocity - dead reckoning - in exactly the same integer steps,
+ * so they always agree on where the client thinks everything is.  The
+ * encoder only sends a correction for debris that has drifted more than a
+ * pixel from where it really is.  Debris mostly coasts, so most of it costs
+ * nothing to send on most snapshots.
+ */
+abstract class SnapshotCodec {
+
+    /**
+     * Flags in each packet's flags byte.
+     */
+    static final int FLAG_KEYFRAME = 1;
+    static final int FLAG_GAME_OVER = 2;
+    static final int FLAG_THRUSTING = 4;
+
+    /**
+     * How far believed debris may drift before it is corrected, in fixed
+     * point: one pixel.
+     */
+    static final int TOLERANCE = WorldSnapshot.DEBRIS_POSITION_SCALE;
+
+    /**
+     * What the client believes.
+     */
+    final WorldSnapshot believed = new WorldSnapshot();
+
+    /**
+     * Has a keyframe been sent or received since the last reset?
+     */
+    boolean synced;
+
+    /**
+     * Forget what the client believes, so the next snapshot is sent whole.
+     */
+    public void reset() {
+        synced = false;
+    }
+
+    /**
+     * Start again from nothing at the given tick, for a keyframe.
+     */
+    void startKeyframe(int tick, int capacity) {
+        believed.setCapacity(capacity);
+        for (int i = 0; i < capacity; i++) {
+            believed.kill(i);
+        }
+        believed.tick = tick;
+    }
+
+    /**
+     * Move every piece of believed debris along by its velocity to the given
+     * tick.
+     */
+    void coast(int tick) {
+        int ticks = tick - believed.tick;
+        for (int i = 0; i < believed.capacity; i++) {
+            if (believed.alive[i]) {
+                believed.debrisX[i] += believed.debrisVelocityX[i] * ticks;
+                believed.debrisY[i] += believed.debrisVelocityY[i] * ticks;
+            }
+        }
+        believed.tick = tick;
+    }
+}
@@ -0,0 +1,92 @@
+package deltav.core.net;
+
+/**
+ * Reads the packets a SnapshotEncoder writes, rebuilding what the client
+ * should believe about the world.
+ */
+public class SnapshotDecoder extends SnapshotCodec {
+
+    private final PacketReader reader = new PacketReader();
+
+    /**
+     * The most debris slots we accept a snapshot for.
+     */
+    private final int maxCapacity;
+
+    public SnapshotDecoder() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxCapacity The most debris slots a snapshot may have, so a bad
+     *                    packet can't make us allocate without limit.
+     */
+    public SnapshotDecoder(int maxCapacity) {
+        this.maxCapacity = maxCapacity;
+    }
+
+    /**
+     * Read a snapshot.
+     *
+     * @param bytes The buffer holding the packet.
+     * @param offset Where in the buffer the packet starts.
+     * @param length The length of the packet.
+     * @param out Where to store the snapshot.
+     * @throws IllegalArgumentException If the packet is malformed, or isn't
+     *                                  a keyframe and we haven't seen the
+     *                                  packets before it.
+     */
+    public void decode(byte[] bytes, int offset, int length, WorldSnapshot out) {
+        reader.wrap(bytes, offset, length);
+        int tick = reader.readVarInt();
+        int flags = reader.readByte();
+        int capacity = reader.readVarInt();
+        if (capacity < 0 || capacity > maxCapacity) {
+            throw new IllegalArgumentException("Snapshot has " + capacity + " debris slots");
+        }
+        boolean keyframe = (flags & FLAG_KEYFRAME) != 0;
+        if (keyframe) {
+            startKeyframe(tick, capacity);
+        } else if (!synced) {
+            throw new IllegalArgumentException("Snapshot correction without a keyframe");
+        } else if (capacity != believed.capacity) {
+            throw new IllegalArgumentException("Snapshot correction changes the debris capacity");
+        } else {
+            coast(tick);
+        }
+
+        believed.gameOver = (flags & FLAG_GAME_OVER) != 0;
+        believed.thrusting = (flags & FLAG_THRUSTING) != 0;
+        believed.score = reader.readVarInt();
+        believed.fuel = reader.readVarInt();
+        believed.shipX = reader.readSignedVarInt() + (keyframe ? 0 : believed.shipX);
+        believed.shipY = reader.readSignedVarInt() + (keyframe ? 0 : believed.shipY);
+        believed.shipHeading = reader.readVarInt();
+
+        int i = 0;
+        while (true) {
+            int entry = reader.readVarInt();
+            // Check before adding, so a huge skip can't wrap i around.
+            if ((entry >>> 1) > capacity - i) {
+                throw new IllegalArgumentException("Snapshot runs past the last debris slot");
+            }
+            i += entry >>> 1;
+            if (i == capacity) {
+                break;
+            }
+            if ((entry & 1) != 0) {
+                believed.alive[i] = true;
+                believed.debrisX[i] += reader.readSignedVarInt();
+                believed.debrisY[i] += reader.readSignedVarInt();
+                believed.debrisVelocityX[i] += reader.readSignedVarInt();
+                believed.debrisVelocityY[i] += reader.readSignedVarInt();
+            } else {
+                believed.kill(i);
+            }
+            i++;
+        }
+
+        synced = true;
+        out.copyFrom(believed);
+    }
+}
@@ -0,0 +1,224 @@
+package deltav.core.net;
+
+/**
+ * Writes snapshots for one connection.  The first packet holds the whole
+ * world; after that we send the ship and scoreboard, plus corrections for
+ * debris the client has the wrong idea about (see SnapshotCodec).  Packets
+ * lay out like this (see PacketWriter for the int encodings):
+ *
+ *   tick  flags  debris slots  score  fuel
+ *   ship x and y, as signed differences from the previous snapshot
+ *   ship heading
+ *   for each corrected slot:
+ *     (slots skipped since the last one &lt;&lt; 1 | alive)
+ *     if alive, x, y, x velocity and y velocity, as signed differences from
+ *     what the client believes
+ *   (slots left to the end &lt;&lt; 1)
+ *
+ * Each packet after the first can be given a budget in bytes.  If more
+ * debris needs correcting than fits, the worst is corrected first and the rest waits for
+ * a later snapshot, so bandwidth stays bounded however much debris there is.
+ *
+ * The connection must deliver every packet, in order, to a single
+ * SnapshotDecoder.  If a packet is ever lost, reset both ends.
+ */
+public class SnapshotEncoder extends SnapshotCodec {
+
+    /**
+     * What we allow for the slot skip in front of each correction, for
+     * budgeting.  Two bytes covers gaps of up to 8191 slots.
+     */
+    private static final int SKIP_BYTES = 2;
+
+    /**
+     * How urgently each slot needs correcting, from 1 (appeared, vanished or
+     * way off) to 3 (just past the tolerance), or 0 if it doesn't.
+     */
+    private static final int LEVELS = 4;
+    private byte[] level = new byte[0];
+    private final int[] levelBytes = new int[LEVELS];
+
+    /**
+     * How many bytes correcting each slot would take.
+     */
+    private byte[] cost = new byte[0];
+
+    /**
+     * Where to start handing out corrections when a level has more than fit,
+     * moved on each time so every slot gets its turn.
+     */
+    private int rotation;
+
+    /**
+     * The most bytes a snapshot of the given capacity can take: a keyframe
+     * with every slot alive, and every number at its longest.
+     *
+     * @param capacity The number of debris slots.
+     * @return The size of the largest possible packet.
+     */
+    public static long getMaxPacketBytes(int capacity) {
+        long header = 1 + 7L * PacketWriter.MAX_VARINT_BYTES;
+        long slot = 5L * PacketWriter.MAX_VARINT_BYTES;
+        return header + slot * capacity + PacketWriter.MAX_VARINT_BYTES;
+    }
+
+    /**
+     * Write a snapshot, correcting every piece of debris that needs it.
+     *
+     * @param snapshot The snapshot to send.
+     * @param out Where to write the packet.  It is not reset first.
+     */
+    public void encode(WorldSnapshot snapshot, PacketWriter out) {
+        encode(snapshot, out, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Write a snapshot.
+     *
+     * @param snapshot The snapshot to send.
+     * @param out Where to write the packet.  It is not reset first.
+     * @param budgetBytes How big the packet may be.  This doesn't apply to
+     *                    keyframes, and a correction skipping more than
+     *                    8191 slots may overrun it by a byte.
+     */
+    public void encode(WorldSnapshot snapshot, PacketWriter out, int budgetBytes) {
+        int start = out.getLength();
+        boolean keyframe = !synced || believed.capacity != snapshot.capacity;
+        int capacity = snapshot.capacity;
+        if (keyframe) {
+            startKeyframe(snapshot.tick, capacity);
+        } else {
+            coast(snapshot.tick);
+        }
+
+        int flags = 0;
+        if (keyframe) {
+            flags |= FLAG_KEYFRAME;
+        }
+        if (snapshot.gameOver) {
+            flags |= FLAG_GAME_OVER;
+        }
+        if (snapshot.thrusting) {
+            flags |= FLAG_THRUSTING;
+        }
+        out.writeVarInt(snapshot.tick);
+        out.writeByte(flags);
+        out.writeVarInt(capacity);
+        out.writeVarInt(snapshot.score);
+        out.writeVarInt(snapshot.fuel);
+        out.writeSignedVarInt(snapshot.shipX - (keyframe ? 0 : believed.shipX));
+        out.writeSignedVarInt(snapshot.shipY - (keyframe ? 0 : believed.shipY));
+        out.writeVarInt(snapshot.shipHeading);
+        believed.score = snapshot.score;
+        believed.fuel = snapshot.fuel;
+        believed.gameOver = snapshot.gameOver;
+        believed.thrusting = snapshot.thrusting;
+        believed.shipX = snapshot.shipX;
+        believed.shipY = snapshot.shipY;
+        believed.shipHeading = snapshot.shipHeading;
+
+        // Work out what needs correcting, and how much of it we can afford.
+        classify(snapshot);
+        int allowance = keyframe
+                ? Integer.MAX_VALUE
+                : budgetBytes - (out.getLength() - start) - PacketWriter.MAX_VARINT_BYTES;
+        int partialLevel = LEVELS;
+        for (int l = 1; l < LEVELS; l++) {
+            if (levelBytes[l] > allowance) {
+                partialLevel = l;
+                break;
+            }
+            allowance -= levelBytes[l];
+        }
+
+        // Levels below the partial one go in whole.  From the partial level,
+        // take what we can afford starting from the rotation, and drop the
+        // rest from the packet.
+        if (partialLevel < LEVELS && capacity > 0) {
+            int i = rotation % capacity;
+            for (int k = 0; k < capacity; k++) {
+                if (level[i] == partialLevel) {
+                    if (cost[i] <= allowance) {
+                        allowance -= cost[i];
+                    } else {
+                        level[i] = 0;
+                    }
+                } else if (level[i] > partialLevel) {
+                    level[i] = 0;
+                }
+                if (++i == capacity) {
+                    i = 0;
+                }
+            }
+            rotation = i + capacity / 3 + 1;
+        }
+
+        int lastWritten = 0;
+        for (int i = 0; i < capacity; i++) {
+            if (level[i] == 0) {
+                continue;
+            }
+            boolean alive = snapshot.alive[i];
+            out.writeVarInt((i - lastWritten) << 1 | (alive ? 1 : 0));
+            if (alive) {
+                out.writeSignedVarInt(snapshot.debrisX[i] - believed.debrisX[i]);
+                out.writeSignedVarInt(snapshot.debrisY[i] - believed.debrisY[i]);
+                out.writeSignedVarInt(snapshot.debrisVelocityX[i] - believed.debrisVelocityX[i]);
+                out.writeSignedVarInt(snapshot.debrisVelocityY[i] - believed.debrisVelocityY[i]);
+                believed.alive[i] = true;
+                believed.debrisX[i] = snapshot.debrisX[i];
+                believed.debrisY[i] = snapshot.debrisY[i];
+                believed.debrisVelocityX[i] = snapshot.debrisVelocityX[i];
+                believed.debrisVelocityY[i] = snapshot.debrisVelocityY[i];
+            } else {
+                believed.kill(i);
+            }
+            lastWritten = i + 1;
+        }
+        out.writeVarInt((capacity - lastWritten) << 1);
+        synced = true;
+    }
+
+    /**
+     * Sort every slot into a level by how far the client's belief is from
+     * the truth.
+     */
+    private void classify(WorldSnapshot snapshot) {
+        int capacity = snapshot.capacity;
+        if (level.length < capacity) {
+            level = new byte[capacity];
+            cost = new byte[capacity];
+        }
+        for (int l = 0; l < LEVELS; l++) {
+            levelBytes[l] = 0;
+        }
+        for (int i = 0; i < capacity; i++) {
+            int l = 0;
+            if (snapshot.alive[i] != believed.alive[i]) {
+                l = 1;
+            } else if (snapshot.alive[i]) {
+                int error = Math.max(Math.abs(snapshot.debrisX[i] - believed.debrisX[i]),
+                        Math.abs(snapshot.debrisY[i] - believed.debrisY[i]));
+                if (error >= TOLERANCE * 64) {
+                    l = 1;
+                } else if (error >= TOLERANCE * 8) {
+                    l = 2;
+                } else if (error > TOLERANCE) {
+                    l = 3;
+                }
+            }
+            level[i] = (byte)l;
+            if (l != 0) {
+                int bytes = SKIP_BYTES;
+                if (snapshot.alive[i]) {
+                    bytes += PacketWriter.signedVarIntLength(snapshot.debrisX[i] - believed.debrisX[i])
+                            + PacketWriter.signedVarIntLength(snapshot.debrisY[i] - believed.debrisY[i])
+                            + PacketWriter.signedVarIntLength(snapshot.debrisVelocityX[i] - believed.debrisVelocityX[i])
+                            + PacketWriter.signedVarIntLength(snapshot.debrisVelocityY[i] - believed.debrisVelocityY[i]);
+                }
+                cost[i] = (byte)bytes;
+                levelBytes[l] += bytes;
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package deltav.core.net;
+
+/**
+ * Keeps the last few snapshots received from a server and works out which
+ * two to draw between.  Snapshots arrive every few ticks, and not at
+ * perfectly even intervals, so a client draws the world slightly in the past
+ * - a fixed number of ticks behind the newest snapshot - and blends between
+ * the snapshots either side of that moment, the same way a local game blends
+ * between its last two updates.
+ */
+public class SnapshotInterpolator {
+
+    /**
+     * The snapshots, oldest first, in a ring.  The ring has one spare slot,
+     * so next() never hands out a snapshot still in use.
+     */
+    private final WorldSnapshot[] snapshots;
+    private final int size;
+    private int first;
+    private int count;
+
+    /**
+     * How far behind the newest snapshot we draw, in ticks.
+     */
+    private final double delayTicks;
+
+    /**
+     * The tick we are drawing, or NaN before the first snapshot.
+     */
+    private double renderTick = Double.NaN;
+
+    /**
+     * The pair chosen by the last call to advance.
+     */
+    private WorldSnapshot from;
+    private WorldSnapshot to;
+    private float alpha;
+
+    /**
+     * Create an interpolator.
+     *
+     * @param size How many snapshots to keep.  This needs to cover the delay,
+     *             plus a few more in case of a hiccup.
+     * @param delayTicks How far behind the newest snapshot to draw.
+     */
+    public SnapshotInterpolator(int size, double delayTicks) {
+        this.size = size;
+        snapshots = new WorldSnapshot[size + 1];
+        for (int k = 0; k < snapshots.length; k++) {
+            snapshots[k] = new WorldSnapshot();
+        }
+        this.delayTicks = delayTicks;
+    }
+
+    /**
+     * The slot the next snapshot should be written to.  Decode straight into
+     * this and then call add, so nothing needs copying.
+     */
+    public WorldSnapshot next() {
+        return snapshots[(first + count) % snapshots.length];
+    }
+
+    /**
+     * Accept the snapshot just written to next().  A snapshot older than the
+     * newest we have is ignored.
+     */
+    public void add() {
+        WorldSnapshot snapshot = next();
+        if (count > 0 && snapshot.tick <= newest().tick) {
+            return;
+        }
+        if (count == size) {
+            first = (first + 1) % snapshots.length;
+        } else {
+            count++;
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * The most recently received snapshot, or null if there are none.
+     */
+    public WorldSnapshot newest() {
+        return count == 0 ? null : snapshots[(first + count - 1) % snapshots.length];
+    }
+
+    private WorldSnapshot get(int k) {
+        return snapshots[(first + k) % snapshots.length];
+    }
+
+    public double getRenderTick() {
+        return renderTick;
+    }
+
+    /**
+     * Move the clock on and choose the snapshots to draw between.  If the
+     * clock has drifted too far from where the snapshots say it should be -
+     * we are running out of snapshots, or have fallen well behind - it is
+     * pulled back to the target delay.
+     *
+     * @param elapsedTicks How many ticks' worth of time has passed since the
+     *                     last call.
+     * @return False if there is nothing to draw yet.
+     */
+    public boolean advance(double elapsedTicks) {
+        if (count == 0) {
+            return false;
+        }
+        double target = newest().tick - delayTicks;
+        if (Double.isNaN(renderTick)) {
+            renderTick = target;
+        } else {
+            renderTick += elapsedTicks;
+            if (renderTick > newest().tick || renderTick < target - delayTicks) {
+                renderTick = target;
+            }
+        }
+
+        // Find the last snapshot at or before the render tick.  Before the
+        // oldest we have, we just hold the oldest.
+        int k = count - 1;
+        while (k > 0 && get(k).tick > renderTick) {
+            k--;
+        }
+        from = get(k);
+        if (k == count - 1 || from.tick >= renderTick) {
+            to = from;
+            alpha = 0;
+        } else {
+            to = get(k + 1);
+            alpha = (float)((renderTick - from.tick) / (to.tick - from.tick));
+        }
+        return true;
+    }
+
+    /**
+     * The snapshot to draw from, as of the last advance.
+     */
+    public WorldSnapshot getFrom() {
+        return from;
+    }
+
+    /**
+     * The snapshot to draw towards, as of the last advance.
+     */
+    public WorldSnapshot getTo() {
+        return to;
+    }
+
+    /**
+     * How far from getFrom() to getTo() to draw, from 0 to 1.
+     */
+    public float getAlpha() {
+        return alpha;
+    }
+}
@@ -0,0 +1,202 @@
+package deltav.core.net;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.DebrisField;
+import deltav.core.model.DeltaVShip;
+import deltav.core.model.DeltaVWorld;
+
+import java.util.Arrays;
+
+/**
+ * The state of a world as a game server sends it to clients: everything
+ * needed to draw the game, quantized to integers.  Positions are stored in
+ * fixed point, which is as much precision as anyone can see and lets
+ * SnapshotEncoder send small integer differences rather than doubles.
+ */
+public class WorldSnapshot {
+
+    /**
+     * Fixed point scales.  Positions are kept to a sixteenth of a pixel for
+     * the ship and a sixty-fourth for debris, and debris velocities to a
+     * sixty-fourth of a pixel per tick, so that SnapshotCodec can move debris
+     * along by its velocity without the rounding adding up.  Headings are
+     * stored as a fraction of a full turn, in 16 bits.
+     */
+    public static final int SHIP_POSITION_SCALE = 16;
+    public static final int DEBRIS_POSITION_SCALE = 64;
+    public static final int DEBRIS_VELOCITY_SCALE = 64;
+    public static final int HEADING_UNITS = 1 << 16;
+
+    /**
+     * The server tick this snapshot was taken on.
+     */
+    int tick;
+
+    /**
+     * The game state shown on the scoreboard.
+     */
+    int score;
+    int fuel;
+    boolean gameOver;
+
+    /**
+     * The ship, in fixed point.
+     */
+    boolean thrusting;
+    int shipX;
+    int shipY;
+    int shipHeading;
+
+    /**
+     * Every debris slot, in fixed point, and whether it is alive.
+     */
+    int capacity;
+    boolean[] alive = new boolean[0];
+    int[] debrisX = new int[0];
+    int[] debrisY = new int[0];
+    int[] debrisVelocityX = new int[0];
+    int[] debrisVelocityY = new int[0];
+
+    /**
+     * Take a snapshot of a world.
+     *
+     * @param world The world to capture.
+     * @param tick The tick to stamp the snapshot with.
+     */
+    public void capture(DeltaVWorld world, int tick) {
+        this.tick = tick;
+        score = world.getScore();
+        gameOver = world.isGameOver();
+
+        DeltaVShip ship = world.getShip();
+        fuel = ship.getFuelRemaining();
+        thrusting = ship.isThrusting();
+        shipX = quantize(ship.getxPosition(), SHIP_POSITION_SCALE);
+        shipY = quantize(ship.getyPosition(), SHIP_POSITION_SCALE);
+        double turns = ship.getHeading() / (2 * Math.PI);
+        shipHeading = (int)Math.round((turns - Math.floor(turns)) * HEADING_UNITS) & (HEADING_UNITS - 1);
+
+        // Velocities are stored per tick rather than per reference step.
+        DebrisField debrisField = world.getDebrisField();
+        double velocityScale = DEBRIS_VELOCITY_SCALE * DeltaVGameConfig.SIMULATION_STEP_MILLIS
+                / DeltaVGameConfig.REFERENCE_STEP_MILLIS;
+        setCapacity(debrisField.getCapacity());
+        for (int i = 0; i < capacity; i++) {
+            alive[i] = debrisField.isAlive(i);
+            if (alive[i]) {
+                debrisX[i] = quantize(debrisField.getxPosition(i), DEBRIS_POSITION_SCALE);
+                debrisY[i] = quantize(debrisField.getyPosition(i), DEBRIS_POSITION_SCALE);
+                debrisVelocityX[i] = quantize(debrisField.getVelocityInX(i), velocityScale);
+                debrisVelocityY[i] = quantize(debrisField.getVelocityInY(i), velocityScale);
+            } else {
+                kill(i);
+            }
+        }
+    }
+
+    /**
+     * Make this snapshot a copy of another.
+     */
+    public void copyFrom(WorldSnapshot other) {
+        tick = other.tick;
+        score = other.score;
+        fuel = other.fuel;
+        gameOver = other.gameOver;
+        thrusting = other.thrusting;
+        shipX = other.shipX;
+        shipY = other.shipY;
+        shipHeading = other.shipHeading;
+        setCapacity(other.capacity);
+        System.arraycopy(other.alive, 0, alive, 0, capacity);
+        System.arraycopy(other.debrisX, 0, debrisX, 0, capacity);
+        System.arraycopy(other.debrisY, 0, debrisY, 0, capacity);
+        System.arraycopy(other.debrisVelocityX, 0, debrisVelocityX, 0, capacity);
+        System.arraycopy(other.debrisVelocityY, 0, debrisVelocityY, 0, capacity);
+    }
+
+    /**
+     * Mark a debris slot dead.
+     */
+    void kill(int i) {
+        alive[i] = false;
+        debrisX[i] = 0;
+        debrisY[i] = 0;
+        debrisVelocityX[i] = 0;
+        debrisVelocityY[i] = 0;
+    }
+
+    /**
+     * Resize for the given number of debris slots, growing the arrays if
+     * they are too small.  Newly added slots are dead.
+     */
+    void setCapacity(int capacity) {
+        if (alive.length < capacity) {
+            alive = Arrays.copyOf(alive, capacity);
+            debrisX = Arrays.copyOf(debrisX, capacity);
+            debrisY = Arrays.copyOf(debrisY, capacity);
+            debrisVelocityX = Arrays.copyOf(debrisVelocityX, capacity);
+            debrisVelocityY = Arrays.copyOf(debrisVelocityY, capacity);
+        }
+        for (int i = this.capacity; i < capacity; i++) {
+            kill(i);
+        }
+        this.capacity = capacity;
+    }
+
+    private static int quantize(double value, double scale) {
+        return (int)Math.round(value * scale);
+    }
+
+    // Getters, converting back from fixed point.
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getFuel() {
+        return fuel;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isThrusting() {
+        return thrusting;
+    }
+
+    public double getShipxPosition() {
+        return shipX / (double)SHIP_POSITION_SCALE;
+    }
+
+    public double getShipyPosition() {
+        return shipY / (double)SHIP_POSITION_SCALE;
+    }
+
+    /**
+     * The ship's heading, in radians from 0 to 2 pi.
+     */
+    public double getShipHeading() {
+        return shipHeading * (2 * Math.PI / HEADING_UNITS);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean isDebrisAlive(int i) {
+        return alive[i];
+    }
+
+    public double getDebrisxPosition(int i) {
+        return debrisX[i] / (double)DEBRIS_POSITION_SCALE;
+    }
+
+    public double getDebrisyPosition(int i) {
+        return debrisY[i] / (double)DEBRIS_POSITION_SCALE;
+    }
+}
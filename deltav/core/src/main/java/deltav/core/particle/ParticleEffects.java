@@ -0,0 +1,145 @@
+package deltav.core.particle;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.event.GameEventRing;
+import deltav.core.model.BlackHole;
+import deltav.core.model.DeltaVShip;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.model.GravityField;
+
+import java.util.Random;
+
+/**
+ * Emits the game's particle effects into a ParticleSystem: exhaust out of
+ * the back of the ship while the thruster fires, a burst of sparks wherever
+ * it captures debris, and a swirl around a black hole when one swallows a
+ * piece.  The bursts are driven by the game's event ring, so the world
+ * doesn't need to know about any of this.
+ *
+ * Effects are for show only, so they have a Random of their own and never
+ * draw on the world's.
+ */
+public class ParticleEffects implements GameEventRing.Handler {
+
+    private final ParticleSystem particles;
+
+    /**
+     * Where we hear of captures and swallowed debris, or null.
+     */
+    private final GameEventRing.Consumer events;
+
+    private final Random random = new Random();
+
+    /**
+     * The world being updated, while we poll for events.
+     */
+    private DeltaVWorld world;
+
+    /**
+     * @param particles Where to emit particles.
+     * @param eventRing The ring the world publishes its events to, or null
+     *                  for no bursts.
+     */
+    public ParticleEffects(ParticleSystem particles, GameEventRing eventRing) {
+        this.particles = particles;
+        this.events = eventRing == null ? null : eventRing.newConsumer();
+    }
+
+    public ParticleSystem getParticles() {
+        return particles;
+    }
+
+    /**
+     * Emit the effects for the world's latest tick, and step the particles.
+     * Call this after each world update.
+     *
+     * @param world The world.
+     * @param deltaT The number of milliseconds the world was just stepped.
+     */
+    public void update(DeltaVWorld world, int deltaT) {
+        DeltaVShip ship = world.getShip();
+        if (ship.isThrusting() && ship.getFuelRemaining() > 0 && !world.isGameOver()) {
+            emitExhaust(ship);
+        }
+        if (events != null) {
+            this.world = world;
+            events.poll(this);
+            this.world = null;
+        }
+        particles.update(deltaT, world.getGravityField());
+    }
+
+    public void onEvent(int type, int slot, int amount) {
+        if (type == GameEventRing.DEBRIS_CAPTURED) {
+            DeltaVShip ship = world.getShip();
+            burst(ship.getxPosition(), ship.getyPosition(), ship.getVelocityInX(), ship.getVelocityInY());
+        } else if (type == GameEventRing.DEBRIS_SWALLOWED) {
+            GravityField gravityField = world.getGravityField();
+            if (amount >= 0 && amount < gravityField.getBlackHoleCount()) {
+                swirl(gravityField.getBlackHole(amount));
+            }
+        }
+    }
+
+    /**
+     * Exhaust leaves the back of the ship, against the thrust, spread out a
+     * little either side.
+     */
+    private void emitExhaust(DeltaVShip ship) {
+        // The thruster pushes along (sin, -cos) of the heading.
+        double heading = ship.getHeading();
+        double backX = -Math.sin(heading);
+        double backY = Math.cos(heading);
+        double nozzleX = ship.getxPosition() + backX * DeltaVGameConfig.SHIP_HEIGHT / 2;
+        double nozzleY = ship.getyPosition() + backY * DeltaVGameConfig.SHIP_HEIGHT / 2;
+        for (int k = 0; k < DeltaVGameConfig.EXHAUST_PARTICLES_PER_TICK; k++) {
+            double speed = DeltaVGameConfig.EXHAUST_SPEED * (0.5 + random.nextDouble() * 0.5);
+            double spread = (random.nextDouble() - 0.5) * DeltaVGameConfig.EXHAUST_SPEED * 0.5;
+            particles.emit(nozzleX, nozzleY,
+                    ship.getVelocityInX() + backX * speed - backY * spread,
+                    ship.getVelocityInY() + backY * speed + backX * spread,
+                    lifetime(DeltaVGameConfig.EXHAUST_LIFE_MILLIS));
+        }
+    }
+
+    /**
+     * Sparks fly out every which way from a capture, carried along with the
+     * ship.
+     */
+    private void burst(double x, double y, double velocityInX, double velocityInY) {
+        for (int k = 0; k < DeltaVGameConfig.CAPTURE_PARTICLES; k++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double speed = DeltaVGameConfig.CAPTURE_SPEED * (0.3 + random.nextDouble() * 0.7);
+            particles.emit(x, y,
+                    velocityInX + Math.cos(angle) * speed,
+                    velocityInY + Math.sin(angle) * speed,
+                    lifetime(DeltaVGameConfig.CAPTURE_LIFE_MILLIS));
+        }
+    }
+
+    /**
+     * Particles start on a ring just outside the black hole, moving round
+     * it, and spiral in as its gravity takes them.  Anything starting inside
+     * would die straight away.
+     */
+    private void swirl(BlackHole blackHole) {
+        double radius = Math.max(blackHole.getWidth(), blackHole.getHeight()) * 0.75;
+        for (int k = 0; k < DeltaVGameConfig.SWALLOW_PARTICLES; k++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            double speed = DeltaVGameConfig.SWALLOW_SPEED * (0.7 + random.nextDouble() * 0.3);
+            particles.emit(blackHole.getxPosition() + cos * radius, blackHole.getyPosition() + sin * radius,
+                    -sin * speed, cos * speed,
+                    lifetime(DeltaVGameConfig.SWALLOW_LIFE_MILLIS));
+        }
+    }
+
+    /**
+     * Somewhere between half and all of the given life, so effects fade out
+     * raggedly rather than all at once.
+     */
+    private int lifetime(int lifeMillis) {
+        return (int)(lifeMillis * (0.5 + random.nextDouble() * 0.5));
+    }
+}
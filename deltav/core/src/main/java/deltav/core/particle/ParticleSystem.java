@@ -0,0 +1,195 @@
+package deltav.core.particle;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.GravityField;
+import deltav.core.util.GravityUtil;
+
+/**
+ * A fixed size pool of particles for effects: exhaust, sparks and the like.
+ * Particles are purely for show; they never touch the world, so they can be
+ * as many and as random as we like without affecting replays or saves.
+ *
+ * Like DebrisField, particles live in parallel primitive arrays allocated up
+ * front, and live particles are kept packed at the front of them.  A dying
+ * particle is replaced by the last live one, so updating and drawing only
+ * ever walk the live ones and nothing is allocated however many come and
+ * go.  When the pool is full, new particles are simply not emitted.
+ *
+ * Particles fall under the same gravity field as everything else, and die
+ * when their time is up or when they fall into a black hole.
+ */
+public class ParticleSystem {
+
+    private final int capacity;
+
+    /**
+     * The number of live particles, which are the first count slots.
+     */
+    private int count;
+
+    /**
+     * Floats are plenty for something that lives a second, and halve the
+     * memory of a big pool.
+     */
+    private final float[] x;
+    private final float[] y;
+    private final float[] previousX;
+    private final float[] previousY;
+    private final float[] velocityInX;
+    private final float[] velocityInY;
+
+    /**
+     * How long each particle has lived, and how long it will, in
+     * milliseconds.
+     */
+    private final int[] age;
+    private final int[] life;
+
+    /**
+     * Scratch space for sampling gravity.
+     */
+    private final GravityUtil.ForceOfGravity force = new GravityUtil.ForceOfGravity();
+
+    public ParticleSystem(int capacity) {
+        this.capacity = capacity;
+        x = new float[capacity];
+        y = new float[capacity];
+        previousX = new float[capacity];
+        previousY = new float[capacity];
+        velocityInX = new float[capacity];
+        velocityInY = new float[capacity];
+        age = new int[capacity];
+        life = new int[capacity];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public float getxPosition(int i) {
+        return x[i];
+    }
+
+    public float getyPosition(int i) {
+        return y[i];
+    }
+
+    public float getPreviousxPosition(int i) {
+        return previousX[i];
+    }
+
+    public float getPreviousyPosition(int i) {
+        return previousY[i];
+    }
+
+    public float getVelocityInX(int i) {
+        return velocityInX[i];
+    }
+
+    public float getVelocityInY(int i) {
+        return velocityInY[i];
+    }
+
+    /**
+     * How much of a particle's life it has left, from 1 when it is emitted
+     * down to 0.
+     */
+    public float getRemaining(int i) {
+        return 1 - (float)age[i] / life[i];
+    }
+
+    /**
+     * Add a particle.
+     *
+     * @param x Where it starts along the X axis.
+     * @param y Where it starts along the Y axis.
+     * @param velocityInX Its velocity, in pixels per reference step, like
+     *                    everything else's.
+     * @param velocityInY
+     * @param lifeMillis How long it lives.
+     * @return False if the pool was full and it wasn't added.
+     */
+    public boolean emit(double x, double y, double velocityInX, double velocityInY, int lifeMillis) {
+        if (count == capacity) {
+            return false;
+        }
+        int i = count++;
+        this.x[i] = (float)x;
+        this.y[i] = (float)y;
+        previousX[i] = (float)x;
+        previousY[i] = (float)y;
+        this.velocityInX[i] = (float)velocityInX;
+        this.velocityInY[i] = (float)velocityInY;
+        age[i] = 0;
+        life[i] = Math.max(lifeMillis, 1);
+        return true;
+    }
+
+    /**
+     * Kill every particle.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Age and move every live particle, with the same semi-implicit Euler
+     * step as the world's objects, and kill those whose time is up or that
+     * fell into, or flew through, a black hole.
+     *
+     * @param deltaT The number of milliseconds since the last update.
+     * @param gravityField The gravity to fall under.
+     */
+    public void update(int deltaT, GravityField gravityField) {
+        gravityField.rebuildIfNeeded();
+        double seconds = deltaT / 1000D;
+        double steps = deltaT / DeltaVGameConfig.REFERENCE_STEP_MILLIS;
+        int i = 0;
+        while (i < count) {
+            int aged = age[i] + deltaT;
+            if (aged >= life[i]) {
+                remove(i);
+                continue;
+            }
+            age[i] = aged;
+
+            float px = x[i];
+            float py = y[i];
+            gravityField.sample(px, py, force);
+            float vx = (float)(velocityInX[i] + force.forceInX * seconds);
+            float vy = (float)(velocityInY[i] + force.forceInY * seconds);
+            previousX[i] = px;
+            previousY[i] = py;
+            px += (float)(vx * steps);
+            py += (float)(vy * steps);
+            if (gravityField.findBlackHoleIndexCrossing(previousX[i], previousY[i], px, py) >= 0) {
+                remove(i);
+                continue;
+            }
+            x[i] = px;
+            y[i] = py;
+            velocityInX[i] = vx;
+            velocityInY[i] = vy;
+            i++;
+        }
+    }
+
+    /**
+     * Kill a particle by moving the last live one into its slot.
+     */
+    private void remove(int i) {
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        previousX[i] = previousX[last];
+        previousY[i] = previousY[last];
+        velocityInX[i] = velocityInX[last];
+        velocityInY[i] = velocityInY[last];
+        age[i] = age[last];
+        life[i] = life[last];
+    }
+}
@@ -0,0 +1,157 @@
+package deltav.core.perf;
+
+import java.util.Arrays;
+
+/**
+ * Counts how many times each duration came up, in microseconds.  Below 64us
+ * every microsecond gets its own bucket; above that each power of two is
+ * split into 32 buckets, so any value is known to within about 3% however
+ * large it is.  The buckets are one fixed array, so recording a value is a
+ * little arithmetic and an increment - no allocation and no sorting - and a
+ * histogram can be left recording for the whole life of the game.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Each power of two above the linear range is split into 2 ^ this many
+     * buckets.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Values below this each have a bucket of their own.
+     */
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int LINEAR_BITS = SUB_BUCKET_BITS + 1;
+
+    /**
+     * Values of 2 ^ (this + 1) microseconds and up, about 35 minutes, all
+     * land in the last bucket.
+     */
+    private static final int MAX_EXPONENT = 30;
+
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_EXPONENT - LINEAR_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Count one value.
+     *
+     * @param micros The value, in microseconds.  Negative values count as 0.
+     */
+    public void record(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+        counts[getBucket(micros)]++;
+        count++;
+        total += micros;
+        if (micros < min) {
+            min = micros;
+        }
+        if (micros > max) {
+            max = micros;
+        }
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    static int getBucket(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int)micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int)(micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - LINEAR_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * The largest value that falls in a bucket.
+     */
+    static long getBucketUpperBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_BITS;
+        int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long)(SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    // Getters.
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * The smallest value recorded, or 0 if there are none.
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getMean() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * The value the given fraction of recorded values are at or below, to
+     * within a bucket.
+     *
+     * @param fraction From 0 to 1, e.g. 0.99 for the 99th percentile.
+     * @return The value, in microseconds, or 0 if nothing has been recorded.
+     */
+    public long getPercentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long)Math.ceil(fraction * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(getBucketUpperBound(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Write out every non-empty bucket, one per line, as the bucket's upper
+     * bound and its count, each line starting with the given prefix.
+     */
+    public void writeBuckets(String prefix, StringBuilder out) {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            if (counts[bucket] != 0) {
+                out.append(prefix).append(getBucketUpperBound(bucket)).append(',')
+                        .append(counts[bucket]).append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package deltav.core.perf;
+
+/**
+ * Times each phase of the game loop into a LatencyHistogram, and keeps track
+ * of how far apart frames land.  Wrap a phase in begin and end; call frame
+ * once per rendered frame.  Recording allocates nothing, so the metrics can
+ * stay on for a whole game on a real device without the GC noticing, and
+ * PerfOverlay or report can read them at any point.
+ *
+ * Phases can nest - update contains gravity, integration and collision, and
+ * render contains draw and hud - but a phase can't be inside itself.
+ *
+ * If an AllocationCounter is set, each phase also notes how many bytes the
+ * thread allocated while it ran.  Nothing in core can count allocations, so
+ * that is up to the platform.
+ */
+public class PerfMetrics {
+
+    /**
+     * The phases, and the histograms for frame pacing.  Frame interval is
+     * the time from one frame to the next, and frame jitter is how much that
+     * changed from the frame before.
+     */
+    public static final int UPDATE = 0;
+    public static final int GRAVITY = 1;
+    public static final int INTEGRATION = 2;
+    public static final int COLLISION = 3;
+    public static final int RENDER = 4;
+    public static final int DRAW = 5;
+    public static final int HUD = 6;
+    public static final int FRAME_INTERVAL = 7;
+    public static final int FRAME_JITTER = 8;
+    public static final int HISTOGRAM_COUNT = 9;
+
+    private static final String[] NAMES = {
+            "update", "gravity", "integration", "collision", "render", "draw", "hud",
+            "frame interval", "frame jitter"
+    };
+
+    /**
+     * Where the time comes from.
+     */
+    public interface Clock {
+
+        /**
+         * The current time, in nanoseconds from any fixed point.
+         */
+        long nanoTime();
+    }
+
+    /**
+     * Counts the bytes the current thread has allocated.
+     */
+    public interface AllocationCounter {
+
+        /**
+         * The total bytes allocated by the calling thread so far.  This must
+         * not allocate itself, or must leave its own allocation out.
+         */
+        long getAllocatedBytes();
+    }
+
+    private final Clock clock;
+    private AllocationCounter allocationCounter;
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[HISTOGRAM_COUNT];
+
+    /**
+     * When each running phase began, and the bytes allocated by then.
+     */
+    private final long[] startNanos = new long[HISTOGRAM_COUNT];
+    private final long[] startBytes = new long[HISTOGRAM_COUNT];
+
+    /**
+     * The bytes allocated during each phase, in total and at most in one go.
+     */
+    private final long[] allocatedBytes = new long[HISTOGRAM_COUNT];
+    private final long[] maxAllocatedBytes = new long[HISTOGRAM_COUNT];
+
+    /**
+     * When the last frame happened and how long the interval before it was,
+     * or -1 before the first.
+     */
+    private long lastFrameNanos = -1;
+    private long lastFrameInterval = -1;
+
+    public PerfMetrics(Clock clock) {
+        this.clock = clock;
+        for (int h = 0; h < HISTOGRAM_COUNT; h++) {
+            histograms[h] = new LatencyHistogram();
+        }
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    public void setAllocationCounter(AllocationCounter allocationCounter) {
+        this.allocationCounter = allocationCounter;
+    }
+
+    public static String getName(int histogram) {
+        return NAMES[histogram];
+    }
+
+    public LatencyHistogram getHistogram(int histogram) {
+        return histograms[histogram];
+    }
+
+    /**
+     * The bytes allocated during a phase, over all the times it ran.
+     */
+    public long getAllocatedBytes(int phase) {
+        return allocatedBytes[phase];
+    }
+
+    /**
+     * The most bytes allocated during a single run of a phase.
+     */
+    public long getMaxAllocatedBytes(int phase) {
+        return maxAllocatedBytes[phase];
+    }
+
+    /**
+     * Note the start of a phase.
+     */
+    public void begin(int phase) {
+        if (allocationCounter != null) {
+            startBytes[phase] = allocationCounter.getAllocatedBytes();
+        }
+        startNanos[phase] = clock.nanoTime();
+    }
+
+    /**
+     * Note the end of a phase, and record how long it took since begin.
+     */
+    public void end(int phase) {
+        long nanos = clock.nanoTime() - startNanos[phase];
+        histograms[phase].record(nanos / 1000);
+        if (allocationCounter != null) {
+            long bytes = allocationCounter.getAllocatedBytes() - startBytes[phase];
+            allocatedBytes[phase] += bytes;
+            if (bytes > maxAllocatedBytes[phase]) {
+                maxAllocatedBytes[phase] = bytes;
+            }
+        }
+    }
+
+    /**
+     * Note that a frame is being rendered.
+     */
+    public void frame() {
+        long now = clock.nanoTime();
+        if (lastFrameNanos >= 0) {
+            long interval = now - lastFrameNanos;
+            histograms[FRAME_INTERVAL].record(interval / 1000);
+            if (lastFrameInterval >= 0) {
+                histograms[FRAME_JITTER].record(Math.abs(interval - lastFrameInterval) / 1000);
+            }
+            lastFrameInterval = interval;
+        }
+        lastFrameNanos = now;
+    }
+
+    /**
+     * Forget everything recorded so far, e.g. after loading, so it doesn't
+     * skew the numbers.
+     */
+    public void reset() {
+        for (int h = 0; h < HISTOGRAM_COUNT; h++) {
+            histograms[h].reset();
+            allocatedBytes[h] = 0;
+            maxAllocatedBytes[h] = 0;
+        }
+        lastFrameNanos = -1;
+        lastFrameInterval = -1;
+    }
+
+    /**
+     * Write out everything recorded, for saving to a file.  The report is
+     * CSV: a summary line per histogram, then every non-empty bucket of
+     * every histogram, so two runs can be compared in a spreadsheet.  Times
+     * are in microseconds.
+     */
+    public void report(StringBuilder out) {
+        out.append("name,count,mean,min,p50,p90,p99,p999,max,allocated bytes,max allocated bytes\n");
+        for (int h = 0; h < HISTOGRAM_COUNT; h++) {
+            LatencyHistogram histogram = histograms[h];
+            out.append(NAMES[h]).append(',')
+                    .append(histogram.getCount()).append(',')
+                    .append(histogram.getMean()).append(',')
+                    .append(histogram.getMin()).append(',')
+                    .append(histogram.getPercentile(0.5)).append(',')
+                    .append(histogram.getPercentile(0.9)).append(',')
+                    .append(histogram.getPercentile(0.99)).append(',')
+                    .append(histogram.getPercentile(0.999)).append(',')
+                    .append(histogram.getMax()).append(',')
+                    .append(allocatedBytes[h]).append(',')
+                    .append(maxAllocatedBytes[h]).append('\n');
+        }
+        out.append('\n');
+        out.append("name,bucket,count\n");
+        for (int h = 0; h < HISTOGRAM_COUNT; h++) {
+            histograms[h].writeBuckets(NAMES[h] + ",", out);
+        }
+    }
+
+    /**
+     * The report, as a String.
+     */
+    public String report() {
+        StringBuilder out = new StringBuilder();
+        report(out);
+        return out.toString();
+    }
+}
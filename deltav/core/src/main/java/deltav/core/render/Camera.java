@@ -0,0 +1,95 @@
+package deltav.core.render;
+
+/**
+ * Which part of the world is on screen.  The camera keeps whatever it
+ * follows in the middle of the view, but never shows past the edges of the
+ * world; a world smaller than the view sits in the middle of it instead.
+ *
+ * Positions are in world coordinates throughout.  Drawing translates by
+ * minus the left and top edges, so everything lands in the right place on
+ * screen.
+ */
+public class Camera {
+
+    /**
+     * The size of the view, on screen.
+     */
+    private final float viewWidth;
+    private final float viewHeight;
+
+    /**
+     * The size of the world being looked at.
+     */
+    private final float worldWidth;
+    private final float worldHeight;
+
+    /**
+     * The world position of the view's top left corner.
+     */
+    private float left;
+    private float top;
+
+    public Camera(float viewWidth, float viewHeight, float worldWidth, float worldHeight) {
+        this.viewWidth = viewWidth;
+        this.viewHeight = viewHeight;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        follow(worldWidth / 2, worldHeight / 2);
+    }
+
+    // Getters.
+
+    public float getLeft() {
+        return left;
+    }
+
+    public float getTop() {
+        return top;
+    }
+
+    public float getRight() {
+        return left + viewWidth;
+    }
+
+    public float getBottom() {
+        return top + viewHeight;
+    }
+
+    public float getViewWidth() {
+        return viewWidth;
+    }
+
+    public float getViewHeight() {
+        return viewHeight;
+    }
+
+    /**
+     * Center the view on a point, as far as the edges of the world allow.
+     *
+     * @param x The point's position along the X axis.
+     * @param y The point's position along the Y axis.
+     */
+    public void follow(float x, float y) {
+        left = clamp(x - viewWidth / 2, worldWidth - viewWidth);
+        top = clamp(y - viewHeight / 2, worldHeight - viewHeight);
+    }
+
+    private static float clamp(float edge, float maxEdge) {
+        if (maxEdge < 0) {
+            return maxEdge / 2;
+        }
+        return edge < 0 ? 0 : (edge > maxEdge ? maxEdge : edge);
+    }
+
+    /**
+     * Is any of a square around a point on screen?
+     *
+     * @param x The point's position along the X axis.
+     * @param y The point's position along the Y axis.
+     * @param halfSize Half the width of the square.
+     */
+    public boolean isVisible(float x, float y, float halfSize) {
+        return x + halfSize >= left && x - halfSize <= left + viewWidth
+                && y + halfSize >= top && y - halfSize <= top + viewHeight;
+    }
+}
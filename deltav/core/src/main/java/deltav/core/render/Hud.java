@@ -0,0 +1,164 @@
+package deltav.core.render;
+
+import playn.core.*;
+
+import static playn.core.PlayN.graphics;
+
+/**
+ * Draws the scoreboard.  All the text we could ever need - the labels and the
+ * ten digits - is rendered once into a single glyph atlas when the HUD is
+ * created.  After that, showing a number is just a handful of drawImage calls
+ * from that one texture, so the HUD creates no images, layers or garbage per
+ * frame.  The list of glyphs to draw is only rebuilt when fuel, score or the
+ * game over flag actually change.
+ */
+public class Hud {
+
+    /**
+     * The glyphs in our atlas.  Glyphs 0 to 9 are the digits.
+     */
+    private static final int GLYPH_FUEL = 10;
+    private static final int GLYPH_SCORE = 11;
+    private static final int GLYPH_GAME_OVER = 12;
+    private static final String[] GLYPH_TEXT = {
+            "0", "1", "2", "3", "4", "5", "6", "7", "8", "9",
+            "Fuel: ", "Score: ", "GAME OVER!"
+    };
+
+    /**
+     * Space left between glyphs in the atlas, so they don't bleed into each
+     * other when scaled.
+     */
+    private static final int GLYPH_PADDING = 2;
+
+    /**
+     * The most glyphs we will ever draw: two labels with up to ten digits
+     * each, plus the game over line.
+     */
+    private static final int MAX_GLYPHS = 23;
+
+    /**
+     * The color of the scoreboard text.
+     */
+    private static final int TEXT_COLOR = 0xFFFF0000;
+
+    /**
+     * Where on screen the scoreboard goes.
+     */
+    private final float left;
+    private final float top;
+
+    /**
+     * The atlas, and the position and width of each glyph within it.
+     */
+    private final CanvasImage atlas;
+    private final float[] glyphX = new float[GLYPH_TEXT.length];
+    private final float[] glyphWidth = new float[GLYPH_TEXT.length];
+    private final float lineHeight;
+
+    /**
+     * The glyphs to draw and the line each one is on, as of the last change.
+     */
+    private final int[] glyphs = new int[MAX_GLYPHS];
+    private final int[] lines = new int[MAX_GLYPHS];
+    private int glyphCount;
+
+    /**
+     * The values currently shown.  We start with impossible values so the
+     * first update always builds the glyph list.
+     */
+    private int shownFuel = -1;
+    private int shownScore = -1;
+    private boolean shownGameOver;
+
+    public Hud(float left, float top) {
+        this.left = left;
+        this.top = top;
+
+        // Lay out every glyph to find out how big the atlas needs to be.
+        Font font = graphics().createFont("Courier", Font.Style.PLAIN, 18);
+        TextFormat format = new TextFormat().withFont(font);
+        TextLayout[] layouts = new TextLayout[GLYPH_TEXT.length];
+        float atlasWidth = 0;
+        float height = 0;
+        for (int g = 0; g < GLYPH_TEXT.length; g++) {
+            layouts[g] = graphics().layoutText(GLYPH_TEXT[g], format);
+            glyphX[g] = atlasWidth;
+            glyphWidth[g] = layouts[g].width();
+            atlasWidth += (float)Math.ceil(layouts[g].width()) + GLYPH_PADDING;
+            height = Math.max(height, layouts[g].height());
+        }
+        lineHeight = (float)Math.ceil(height);
+
+        // Then draw them all into it, once.
+        atlas = graphics().createImage(atlasWidth, lineHeight);
+        atlas.canvas().setFillColor(TEXT_COLOR);
+        for (int g = 0; g < GLYPH_TEXT.length; g++) {
+            atlas.canvas().fillText(layouts[g], glyphX[g], 0);
+        }
+    }
+
+    /**
+     * Make sure the glyph list reflects the given values.  This is cheap
+     * when nothing has changed, which is almost every frame.
+     */
+    public void update(int fuel, int score, boolean gameOver) {
+        if (fuel == shownFuel && score == shownScore && gameOver == shownGameOver) {
+            return;
+        }
+        shownFuel = fuel;
+        shownScore = score;
+        shownGameOver = gameOver;
+
+        glyphCount = 0;
+        addGlyph(GLYPH_FUEL, 0);
+        addNumber(fuel, 0);
+        addGlyph(GLYPH_SCORE, 1);
+        addNumber(score, 1);
+        if (gameOver) {
+            addGlyph(GLYPH_GAME_OVER, 2);
+        }
+    }
+
+    private void addGlyph(int glyph, int line) {
+        glyphs[glyphCount] = glyph;
+        lines[glyphCount] = line;
+        glyphCount++;
+    }
+
+    /**
+     * Add the digits of a number, most significant first, without building a
+     * String.
+     */
+    private void addNumber(int value, int line) {
+        value = Math.max(value, 0);
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            addGlyph((value / divisor) % 10, line);
+        }
+    }
+
+    /**
+     * Draw the scoreboard as of the last update.
+     *
+     * @param surface The Surface to paint to.
+     */
+    public void paint(Surface surface) {
+        float x = left;
+        int line = 0;
+        for (int k = 0; k < glyphCount; k++) {
+            if (lines[k] != line) {
+                line = lines[k];
+                x = left;
+            }
+            int g = glyphs[k];
+            float width = glyphWidth[g];
+            surface.drawImage(atlas, x, top + line * lineHeight, width, lineHeight,
+                    glyphX[g], 0, width, lineHeight);
+            x += width;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package deltav.core.render;
+
+import deltav.core.perf.LatencyHistogram;
+import deltav.core.perf.PerfMetrics;
+import playn.core.*;
+
+import static playn.core.PlayN.graphics;
+
+/**
+ * Shows the perf metrics on screen: for each phase and the frame pacing, the
+ * median, 99th percentile and worst time in milliseconds, and the bytes
+ * allocated per run where we know them.
+ *
+ * The text is laid out into one image a couple of times a second rather than
+ * every frame, so while the overlay is hidden it costs nothing and while it
+ * is showing it costs one drawImage per frame, plus a little garbage at each
+ * refresh.
+ */
+public class PerfOverlay {
+
+    /**
+     * How often to refresh the numbers.
+     */
+    private static final long REFRESH_NANOS = 500 * 1000 * 1000L;
+
+    private static final int TEXT_COLOR = 0xFFFFFF00;
+    private static final int BACKGROUND_COLOR = 0xA0000000;
+    private static final float WIDTH = 520;
+    private static final float LINE_HEIGHT = 16;
+    private static final float PADDING = 4;
+
+    private final PerfMetrics metrics;
+
+    /**
+     * Where on screen the overlay goes.
+     */
+    private final float left;
+    private final float top;
+
+    private final TextFormat format;
+    private final CanvasImage image;
+
+    private boolean visible;
+
+    /**
+     * When the image was last refreshed, or -1 if it needs refreshing now.
+     */
+    private long refreshedNanos = -1;
+
+    public PerfOverlay(PerfMetrics metrics, float left, float top) {
+        this.metrics = metrics;
+        this.left = left;
+        this.top = top;
+        Font font = graphics().createFont("Courier", Font.Style.PLAIN, 12);
+        format = new TextFormat().withFont(font);
+        image = graphics().createImage(WIDTH, PerfMetrics.HISTOGRAM_COUNT * LINE_HEIGHT + PADDING * 2);
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    public void setVisible(boolean visible) {
+        this.visible = visible;
+        refreshedNanos = -1;
+    }
+
+    public void toggle() {
+        setVisible(!visible);
+    }
+
+    /**
+     * Draw the overlay, if it is showing.
+     *
+     * @param surface The Surface to paint to.
+     */
+    public void paint(Surface surface) {
+        if (!visible) {
+            return;
+        }
+        long now = metrics.getClock().nanoTime();
+        if (refreshedNanos < 0 || now - refreshedNanos >= REFRESH_NANOS) {
+            refresh();
+            refreshedNanos = now;
+        }
+        surface.drawImage(image, left, top);
+    }
+
+    private void refresh() {
+        Canvas canvas = image.canvas();
+        canvas.clear();
+        canvas.setFillColor(BACKGROUND_COLOR);
+        canvas.fillRect(0, 0, canvas.width(), canvas.height());
+        canvas.setFillColor(TEXT_COLOR);
+        StringBuilder line = new StringBuilder();
+        for (int h = 0; h < PerfMetrics.HISTOGRAM_COUNT; h++) {
+            LatencyHistogram histogram = metrics.getHistogram(h);
+            line.setLength(0);
+            line.append(PerfMetrics.getName(h));
+            while (line.length() < 16) {
+                line.append(' ');
+            }
+            line.append("p50 ");
+            appendMillis(line, histogram.getPercentile(0.5));
+            line.append("  p99 ");
+            appendMillis(line, histogram.getPercentile(0.99));
+            line.append("  max ");
+            appendMillis(line, histogram.getMax());
+            if (histogram.getCount() > 0 && metrics.getAllocatedBytes(h) > 0) {
+                line.append("  ").append(metrics.getAllocatedBytes(h) / histogram.getCount()).append(" B");
+            }
+            canvas.fillText(graphics().layoutText(line.toString(), format), PADDING, PADDING + h * LINE_HEIGHT);
+        }
+    }
+
+    /**
+     * Append a time in microseconds as milliseconds to two places.  GWT has
+     * no String.format, so we do it by hand.
+     */
+    private static void appendMillis(StringBuilder out, long micros) {
+        long hundredths = (micros + 5) / 10;
+        out.append(hundredths / 100).append('.');
+        long fraction = hundredths % 100;
+        if (fraction < 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+}
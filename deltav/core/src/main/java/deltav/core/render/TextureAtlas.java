@@ -0,0 +1,134 @@
+package deltav.core.render;
+
+import playn.core.Image;
+import playn.core.util.Callback;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static playn.core.PlayN.assets;
+
+/**
+ * The game's sprites, packed into one image by the assets build.  Each
+ * sprite is a sub-region of the atlas, looked up by name.  The regions come
+ * from the manifest written alongside the atlas, so their sizes are known as
+ * soon as it is read, before the atlas image itself has loaded, and nothing
+ * needs laying out again once it has.
+ *
+ * Everything drawn from one atlas shares a texture, which lets the GL
+ * backends draw the ship and all the debris in one batch.
+ */
+public class TextureAtlas {
+
+    /**
+     * Where the assets build puts the game's sprite atlas manifest.
+     */
+    public static final String SPRITES = "images/sprites.atlas";
+
+    /**
+     * The sprite names we use.  These are the names of the files in the
+     * assets module's sprites directory.
+     */
+    public static final String SHIP = "spaceship-icon";
+    public static final String SHIP_THRUSTING = "spaceship-icon-thrust";
+    public static final String DEBRIS = "mass1";
+    public static final String PARTICLE = "spark";
+
+    private final Image image;
+    private final Map<String, Image.Region> regions = new HashMap<String, Image.Region>();
+
+    private TextureAtlas(Image image) {
+        this.image = image;
+    }
+
+    /**
+     * Load an atlas: first the manifest, then the image it names, relative to
+     * the manifest.  The callback fires once the manifest is read, which is
+     * all that's needed to start drawing; the image carries on loading and is
+     * drawn once it is ready.
+     *
+     * @param manifestPath The path of the manifest within the assets.
+     * @param callback Told of the atlas, or why it couldn't be read.
+     */
+    public static void load(final String manifestPath, final Callback<TextureAtlas> callback) {
+        assets().getText(manifestPath, new Callback<String>() {
+            public void onSuccess(String manifest) {
+                TextureAtlas atlas;
+                try {
+                    String directory = manifestPath.substring(0, manifestPath.lastIndexOf('/') + 1);
+                    atlas = parse(assets().getImage(directory + getImageName(manifest)), manifest);
+                } catch (RuntimeException e) {
+                    callback.onFailure(e);
+                    return;
+                }
+                callback.onSuccess(atlas);
+            }
+
+            public void onFailure(Throwable cause) {
+                callback.onFailure(cause);
+            }
+        });
+    }
+
+    /**
+     * The file name of the atlas image, from the manifest's first line.
+     */
+    private static String getImageName(String manifest) {
+        int end = manifest.indexOf('\n');
+        String[] header = (end < 0 ? manifest : manifest.substring(0, end)).trim().split(" ");
+        if (header.length != 4 || !header[0].equals("atlas")) {
+            throw new IllegalArgumentException("Not an atlas manifest");
+        }
+        return header[1];
+    }
+
+    /**
+     * Read a manifest, as written by the assets build's AtlasPacker.
+     *
+     * @param image The atlas image the manifest describes.
+     * @param manifest The text of the manifest.
+     * @return The atlas.
+     * @throws IllegalArgumentException If the manifest can't be read.
+     */
+    public static TextureAtlas parse(Image image, String manifest) {
+        getImageName(manifest);
+        TextureAtlas atlas = new TextureAtlas(image);
+        String[] lines = manifest.split("\n");
+        for (int k = 1; k < lines.length; k++) {
+            String line = lines[k].trim();
+            if (line.length() == 0) {
+                continue;
+            }
+            String[] fields = line.split(" ");
+            if (fields.length != 5) {
+                throw new IllegalArgumentException("Bad atlas manifest line: " + line);
+            }
+            atlas.regions.put(fields[0], image.subImage(
+                    Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                    Integer.parseInt(fields[3]), Integer.parseInt(fields[4])));
+        }
+        return atlas;
+    }
+
+    /**
+     * The whole atlas image.
+     */
+    public Image getImage() {
+        return image;
+    }
+
+    /**
+     * A sprite, as a region of the atlas.  Its size is right straight away,
+     * whether or not the atlas has finished loading.
+     *
+     * @param name The sprite's name.
+     * @throws IllegalArgumentException If there is no such sprite.
+     */
+    public Image.Region get(String name) {
+        Image.Region region = regions.get(name);
+        if (region == null) {
+            throw new IllegalArgumentException("No sprite named " + name);
+        }
+        return region;
+    }
+}
@@ -0,0 +1,323 @@
+package deltav.core.render;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.DebrisField;
+import deltav.core.model.DeltaVShip;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.net.WorldSnapshot;
+import deltav.core.particle.ParticleSystem;
+import deltav.core.perf.PerfMetrics;
+import playn.core.*;
+
+import static playn.core.PlayN.graphics;
+
+/**
+ * The PlayN side of the game world.  This owns every layer needed to draw a
+ * DeltaVWorld, and reads the world's state each frame without ever changing
+ * it.  Only the ship has a layer of its own (so it can rotate); debris is
+ * drawn straight from the field's position arrays, so no layer or other
+ * object is created per piece.  The ship and debris are regions of one
+ * sprite atlas, so they all come from the same texture, and PlayN's GL
+ * backends already gather consecutive draws from one texture into a batch.
+ *
+ * The world can be bigger than the screen.  A Camera follows the ship, and
+ * only the debris the camera can see is drawn, found through the world's
+ * collision grid rather than by looking at every piece, so drawing costs the
+ * same however big the world gets.  The scoreboard stays put on screen.
+ *
+ * Particles, if there are any, are drawn from one small sprite, faded out in
+ * a few steps as they age.  Like the debris, they are drawn straight from
+ * their arrays, with no layer or other object per particle.
+ *
+ * A renderer can also draw snapshots of a world running somewhere else, as
+ * received from a game server.
+ */
+public class WorldRenderer {
+
+    /**
+     * Debris that moves further than this between two snapshots has been
+     * respawned rather than flown there, so we don't draw it in between.
+     */
+    private static final double MAX_INTERPOLATED_DISTANCE = 100;
+
+    /**
+     * Debris is filed in the grid where it is as of the latest update, but
+     * drawn part way from where it was before, so we look this far beyond
+     * the view for it.
+     */
+    private static final float CULL_MARGIN = 64;
+
+    /**
+     * The number of steps particles fade out in.
+     */
+    private static final int PARTICLE_FADE_STEPS = 4;
+
+    /**
+     * The world we are drawing, or null if we are drawing snapshots.
+     */
+    private final DeltaVWorld world;
+
+    /**
+     * The ship's sprites, plain and thrusting.
+     */
+    private final Image shipImg;
+    private final Image thrustingImg;
+
+    /**
+     * An ImageLayer to store the ship on.  This will let us rotate.
+     */
+    private final ImageLayer shipLayer;
+
+    /**
+     * The image every piece of debris is drawn with, and half its size.
+     */
+    private final Image debrisImg;
+    private final float debrisHalfSize;
+
+    /**
+     * The particles to draw, or null, the sprite they are drawn with and
+     * half its size.
+     */
+    private ParticleSystem particles;
+    private final Image particleImg;
+    private final float particleHalfSize;
+
+    /**
+     * Which part of the world is on screen.
+     */
+    private final Camera camera;
+
+    /**
+     * Scratch space for the debris slots near the view.
+     */
+    private final int[] visible;
+
+    /**
+     * The scoreboard.
+     */
+    private final Hud hud;
+
+    /**
+     * Times drawing the world and the scoreboard, or null.
+     */
+    private PerfMetrics perfMetrics;
+
+    /**
+     * Create a renderer for a local world.
+     *
+     * @param world The world to draw.
+     * @param sprites The sprite atlas, from TextureAtlas.SPRITES.
+     */
+    public WorldRenderer(DeltaVWorld world, TextureAtlas sprites) {
+        this(world, world.getDebrisField().getCapacity(), world.getWidth(), world.getHeight(), sprites);
+    }
+
+    /**
+     * Create a renderer for snapshots of a remote world.  Remote worlds are
+     * always the default size.
+     *
+     * @param debrisCapacity The most debris the snapshots will hold.
+     * @param sprites The sprite atlas, from TextureAtlas.SPRITES.
+     */
+    public WorldRenderer(int debrisCapacity, TextureAtlas sprites) {
+        this(debrisCapacity, DeltaVGameConfig.WORLD_WIDTH, DeltaVGameConfig.WORLD_HEIGHT, sprites);
+    }
+
+    /**
+     * Create a renderer for snapshots of a world of any size.
+     *
+     * @param debrisCapacity The most debris the snapshots will hold.
+     * @param worldWidth The width of the world.
+     * @param worldHeight The height of the world.
+     * @param sprites The sprite atlas, from TextureAtlas.SPRITES.
+     */
+    public WorldRenderer(int debrisCapacity, int worldWidth, int worldHeight, TextureAtlas sprites) {
+        this(null, debrisCapacity, worldWidth, worldHeight, sprites);
+    }
+
+    private WorldRenderer(DeltaVWorld world, int debrisCapacity, int worldWidth, int worldHeight,
+                          TextureAtlas sprites) {
+        this.world = world;
+        shipImg = sprites.get(TextureAtlas.SHIP);
+        thrustingImg = sprites.get(TextureAtlas.SHIP_THRUSTING);
+        shipLayer = graphics().createImageLayer(shipImg);
+        shipLayer.setOrigin(DeltaVGameConfig.SHIP_WIDTH / 2, DeltaVGameConfig.SHIP_HEIGHT / 2);
+        debrisImg = sprites.get(TextureAtlas.DEBRIS);
+        debrisHalfSize = Math.max(debrisImg.width(), debrisImg.height()) / 2;
+        particleImg = sprites.get(TextureAtlas.PARTICLE);
+        particleHalfSize = Math.max(particleImg.width(), particleImg.height()) / 2;
+        camera = new Camera(DeltaVGameConfig.SCREEN_WIDTH, DeltaVGameConfig.SCREEN_HEIGHT, worldWidth, worldHeight);
+        visible = world == null ? null : new int[debrisCapacity];
+        hud = new Hud(10, 10);
+    }
+
+    /**
+     * Time the draw and hud phases of every paint into the given metrics, or
+     * stop timing them if it is null.
+     */
+    public void setPerfMetrics(PerfMetrics perfMetrics) {
+        this.perfMetrics = perfMetrics;
+    }
+
+    /**
+     * Draw the given particles under the ship and debris, or stop drawing
+     * particles if it is null.
+     */
+    public void setParticles(ParticleSystem particles) {
+        this.particles = particles;
+    }
+
+    public Camera getCamera() {
+        return camera;
+    }
+
+    /**
+     * Blend between an object's state at the last two updates.
+     *
+     * @param previous The value as of the previous update.
+     * @param current The value as of the latest update.
+     * @param alpha How far we are between the latest update and the next.
+     * @return The value to draw.
+     */
+    protected static float interpolate(double previous, double current, float alpha) {
+        return (float)(previous + (current - previous) * alpha);
+    }
+
+    /**
+     * Paint the world to the screen using the provided Surface.  The
+     * simulation runs at a fixed rate, so most frames fall between two
+     * updates; we draw everything that fraction of the way from where it was
+     * to where it is.
+     *
+     * @param surface The Surface to paint to.
+     * @param alpha How far we are between the latest update and the next,
+     *              from 0 to 1.
+     */
+    public void paint(Surface surface, float alpha) {
+        // Draw the ship and the debris near it, with the camera on the ship.
+        if (perfMetrics != null) {
+            perfMetrics.begin(PerfMetrics.DRAW);
+        }
+        DeltaVShip ship = world.getShip();
+        camera.follow(interpolate(ship.getPreviousxPosition(), ship.getxPosition(), alpha),
+                interpolate(ship.getPreviousyPosition(), ship.getyPosition(), alpha));
+        surface.save();
+        surface.translate(-camera.getLeft(), -camera.getTop());
+        if (particles != null) {
+            paintParticles(surface, alpha);
+        }
+        paintShip(surface, ship, alpha);
+        paintDebris(surface, world.getDebrisField(), alpha);
+        surface.restore();
+
+        // Draw the scoreboard.
+        if (perfMetrics != null) {
+            perfMetrics.end(PerfMetrics.DRAW);
+            perfMetrics.begin(PerfMetrics.HUD);
+        }
+        hud.update(world.getShip().getFuelRemaining(), world.getScore(), world.isGameOver());
+        hud.paint(surface);
+        if (perfMetrics != null) {
+            perfMetrics.end(PerfMetrics.HUD);
+        }
+    }
+
+    /**
+     * Paint a remote world, between two snapshots of it.
+     *
+     * @param surface The Surface to paint to.
+     * @param from The earlier snapshot.
+     * @param to The later snapshot.  This may be the same as from.
+     * @param alpha How far we are from the earlier snapshot to the later one,
+     *              from 0 to 1.
+     */
+    public void paint(Surface surface, WorldSnapshot from, WorldSnapshot to, float alpha) {
+        // Headings wrap around, so blend the short way round.
+        double fromHeading = from.getShipHeading();
+        double toHeading = to.getShipHeading();
+        if (toHeading - fromHeading > Math.PI) {
+            fromHeading += 2 * Math.PI;
+        } else if (fromHeading - toHeading > Math.PI) {
+            toHeading += 2 * Math.PI;
+        }
+        float shipX = interpolate(from.getShipxPosition(), to.getShipxPosition(), alpha);
+        float shipY = interpolate(from.getShipyPosition(), to.getShipyPosition(), alpha);
+        camera.follow(shipX, shipY);
+        surface.save();
+        surface.translate(-camera.getLeft(), -camera.getTop());
+        paintShip(surface, to.isThrusting() && to.getFuel() > 0, shipX, shipY,
+                interpolate(fromHeading, toHeading, alpha));
+
+        // Snapshots have no grid to search, so this one looks at every piece.
+        int capacity = Math.min(from.getCapacity(), to.getCapacity());
+        for (int i = 0; i < capacity; i++) {
+            if (!to.isDebrisAlive(i)) {
+                continue;
+            }
+            double x = to.getDebrisxPosition(i);
+            double y = to.getDebrisyPosition(i);
+            float drawX = (float)x;
+            float drawY = (float)y;
+            if (from.isDebrisAlive(i)
+                    && Math.abs(x - from.getDebrisxPosition(i)) < MAX_INTERPOLATED_DISTANCE
+                    && Math.abs(y - from.getDebrisyPosition(i)) < MAX_INTERPOLATED_DISTANCE) {
+                drawX = interpolate(from.getDebrisxPosition(i), x, alpha);
+                drawY = interpolate(from.getDebrisyPosition(i), y, alpha);
+            }
+            if (camera.isVisible(drawX, drawY, debrisHalfSize)) {
+                surface.drawImageCentered(debrisImg, drawX, drawY);
+            }
+        }
+        surface.restore();
+
+        hud.update(to.getFuel(), to.getScore(), to.isGameOver());
+        hud.paint(surface);
+    }
+
+    protected void paintShip(Surface surface, DeltaVShip ship, float alpha) {
+        // We only show the exhaust while the thruster is actually firing.
+        paintShip(surface, ship.isThrusting() && ship.getFuelRemaining() > 0,
+                interpolate(ship.getPreviousxPosition(), ship.getxPosition(), alpha),
+                interpolate(ship.getPreviousyPosition(), ship.getyPosition(), alpha),
+                interpolate(ship.getPreviousHeading(), ship.getHeading(), alpha));
+    }
+
+    private void paintShip(Surface surface, boolean firing, float x, float y, float heading) {
+        shipLayer.setImage(firing ? thrustingImg : shipImg);
+        shipLayer.setRotation(heading);
+        shipLayer.setTranslation(x, y);
+        surface.drawLayer(shipLayer);
+    }
+
+    /**
+     * Draw the particles the camera can see, each as faded as its age.
+     */
+    protected void paintParticles(Surface surface, float alpha) {
+        for (int i = 0, n = particles.getCount(); i < n; i++) {
+            float x = interpolate(particles.getPreviousxPosition(i), particles.getxPosition(i), alpha);
+            float y = interpolate(particles.getPreviousyPosition(i), particles.getyPosition(i), alpha);
+            if (camera.isVisible(x, y, particleHalfSize)) {
+                int step = Math.min((int)(particles.getRemaining(i) * PARTICLE_FADE_STEPS), PARTICLE_FADE_STEPS - 1);
+                surface.setAlpha((step + 1f) / PARTICLE_FADE_STEPS);
+                surface.drawImageCentered(particleImg, x, y);
+            }
+        }
+        surface.setAlpha(1);
+    }
+
+    /**
+     * Draw the debris the camera can see.
+     */
+    protected void paintDebris(Surface surface, DebrisField debrisField, float alpha) {
+        int count = world.queryDebris(camera.getLeft() - CULL_MARGIN, camera.getRight() + CULL_MARGIN,
+                camera.getTop() - CULL_MARGIN, camera.getBottom() + CULL_MARGIN, visible);
+        for (int k = 0; k < count; k++) {
+            int i = visible[k];
+            float x = interpolate(debrisField.getPreviousxPosition(i), debrisField.getxPosition(i), alpha);
+            float y = interpolate(debrisField.getPreviousyPosition(i), debrisField.getyPosition(i), alpha);
+            if (camera.isVisible(x, y, debrisHalfSize)) {
+                surface.drawImageCentered(debrisImg, x, y);
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package deltav.core.save;
+
+import deltav.core.model.BlackHole;
+import deltav.core.model.DebrisField;
+import deltav.core.model.DeltaVShip;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.model.GravityField;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Saves a whole world to a file and reads it back, for suspending on mobile,
+ * checkpointing long headless runs and restarting servers.  The file is a
+ * fixed layout of little endian primitives, written and read through a
+ * memory-mapped buffer, with the debris arrays copied in bulk - there's no
+ * reflection and nothing per object, so 100k pieces of debris take a few
+ * milliseconds either way.
+ *
+ * The layout is:
+ *
+ *    0  'D' 'V' 'S' version
+ *    4  int debris capacity
+ *    8  int number of black holes
+ *   12  int score
+ *   16  long seed
+ *   24  long state of the world's randomness
+ *   32  int flags: 1 if the game is over, 2 if the ship is thrusting
+ *   36  int ship rotation direction
+ *   40  int ship fuel
+ *   44  int world width
+ *   48  int world height
+ *   52  int which dormant sectors step next
+ *   56  double ship x, y, x velocity, y velocity, heading, fuel owed
+ *  104  for each black hole, double x, y, width, height, gravity
+ *       long alive bitmap words, (capacity + 63) / 64 of them
+ *       double debris x, y, x velocity and y velocity, capacity of each
+ *
+ * A restored world carries on exactly as the saved one would have, unless
+ * debris collisions are on: which order pieces sharing a grid cell bounce
+ * off each other in isn't saved.
+ *
+ * This uses java.nio, so it is left out of the GWT build.
+ */
+public class WorldSaveFile {
+
+    /**
+     * The magic bytes and version at the start of every save.
+     */
+    private static final byte[] MAGIC = {'D', 'V', 'S'};
+    private static final int VERSION = 2;
+
+    /**
+     * Bits in the flags.
+     */
+    private static final int FLAG_GAME_OVER = 1;
+    private static final int FLAG_THRUSTING = 2;
+
+    /**
+     * The size of everything before the black holes, and of each black hole.
+     */
+    private static final int HEADER_BYTES = 104;
+    private static final int BLACK_HOLE_BYTES = 5 * 8;
+
+    /**
+     * The size of a save.
+     *
+     * @param capacity The number of debris slots.
+     * @param blackHoles The number of black holes.
+     */
+    public static long getSize(int capacity, int blackHoles) {
+        return HEADER_BYTES
+                + (long)blackHoles * BLACK_HOLE_BYTES
+                + (long)((capacity + 63) >>> 6) * 8
+                + (long)capacity * 4 * 8;
+    }
+
+    /**
+     * Save a world, replacing whatever is in the file.  The magic bytes are
+     * rubbed out first and go back in last, so a save that is interrupted
+     * part way won't read back.
+     *
+     * @param world The world to save.
+     * @param file Where to save it.
+     * @throws IOException If the file can't be written.
+     */
+    public static void write(DeltaVWorld world, File file) throws IOException {
+        DebrisField debrisField = world.getDebrisField();
+        GravityField gravityField = world.getGravityField();
+        int capacity = debrisField.getCapacity();
+        int blackHoles = gravityField.getBlackHoleCount();
+        long size = getSize(capacity, blackHoles);
+
+        RandomAccessFile out = new RandomAccessFile(file, "rw");
+        try {
+            out.setLength(size);
+            MappedByteBuffer buffer = out.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            // Rub out the magic from any earlier save first.
+            buffer.putInt(0, 0);
+            buffer.force();
+
+            DeltaVShip ship = world.getShip();
+            buffer.position(4);
+            buffer.putInt(capacity);
+            buffer.putInt(blackHoles);
+            buffer.putInt(world.getScore());
+            buffer.putLong(world.getSeed());
+            buffer.putLong(world.getRandomState());
+            buffer.putInt((world.isGameOver() ? FLAG_GAME_OVER : 0) | (ship.isThrusting() ? FLAG_THRUSTING : 0));
+            buffer.putInt(ship.getRotationDirection());
+            buffer.putInt(ship.getFuelRemaining());
+            buffer.putInt(world.getWidth());
+            buffer.putInt(world.getHeight());
+            buffer.putInt(world.getDormantPhase());
+            buffer.putDouble(ship.getxPosition());
+            buffer.putDouble(ship.getyPosition());
+            buffer.putDouble(ship.getVelocityInX());
+            buffer.putDouble(ship.getVelocityInY());
+            buffer.putDouble(ship.getHeading());
+            buffer.putDouble(ship.getFuelOwed());
+
+            for (int h = 0; h < blackHoles; h++) {
+                BlackHole blackHole = gravityField.getBlackHole(h);
+                buffer.putDouble(blackHole.getxPosition());
+                buffer.putDouble(blackHole.getyPosition());
+                buffer.putDouble(blackHole.getWidth());
+                buffer.putDouble(blackHole.getHeight());
+                buffer.putDouble(blackHole.getGravity());
+            }
+
+            long[] alive = debrisField.getAliveBits();
+            buffer.asLongBuffer().put(alive);
+            buffer.position(buffer.position() + alive.length * 8);
+            putDoubles(buffer, debrisField.getxPositions(), capacity);
+            putDoubles(buffer, debrisField.getyPositions(), capacity);
+            putDoubles(buffer, debrisField.getVelocitiesInX(), capacity);
+            putDoubles(buffer, debrisField.getVelocitiesInY(), capacity);
+            buffer.force();
+
+            buffer.position(0);
+            buffer.put(MAGIC);
+            buffer.put((byte)VERSION);
+            buffer.force();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Read a saved world.
+     *
+     * @param file The save.
+     * @return A new world, in exactly the state it was saved in.
+     * @throws IOException If the file can't be read, or isn't a whole save.
+     */
+    public static DeltaVWorld read(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            long size = in.length();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Not a DeltaV save: " + file);
+            }
+            MappedByteBuffer buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            for (int k = 0; k < MAGIC.length; k++) {
+                if (buffer.get() != MAGIC[k]) {
+                    throw new IOException("Not a DeltaV save: " + file);
+                }
+            }
+            int version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported save version " + version + ": " + file);
+            }
+            int capacity = buffer.getInt();
+            int blackHoles = buffer.getInt();
+            if (capacity < 0 || blackHoles < 0 || size != getSize(capacity, blackHoles)) {
+                throw new IOException("Save is the wrong size: " + file);
+            }
+
+            int score = buffer.getInt();
+            long seed = buffer.getLong();
+            long randomState = buffer.getLong();
+            int flags = buffer.getInt();
+            int rotationDirection = buffer.getInt();
+            int fuel = buffer.getInt();
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int dormantPhase = buffer.getInt();
+            if (width <= 0 || height <= 0 || dormantPhase < 0) {
+                throw new IOException("Save has a bad header: " + file);
+            }
+            DeltaVWorld world = new DeltaVWorld(capacity, seed, width, height);
+
+            DeltaVShip ship = world.getShip();
+            ship.setThrusting((flags & FLAG_THRUSTING) != 0);
+            ship.setRotationDirection(rotationDirection);
+            ship.setFuelRemaining(fuel);
+            ship.setxPosition(buffer.getDouble());
+            ship.setyPosition(buffer.getDouble());
+            ship.setVelocityInX(buffer.getDouble());
+            ship.setVelocityInY(buffer.getDouble());
+            ship.setHeading(buffer.getDouble());
+            ship.setFuelOwed(buffer.getDouble());
+
+            GravityField gravityField = world.getGravityField();
+            while (gravityField.getBlackHoleCount() > 0) {
+                world.removeBlackHole(gravityField.getBlackHole(0));
+            }
+            for (int h = 0; h < blackHoles; h++) {
+                world.addBlackHole(new BlackHole(buffer.getDouble(), buffer.getDouble(),
+                        buffer.getDouble(), buffer.getDouble(), buffer.getDouble()));
+            }
+
+            DebrisField debrisField = world.getDebrisField();
+            long[] alive = debrisField.getAliveBits();
+            buffer.asLongBuffer().get(alive);
+            buffer.position(buffer.position() + alive.length * 8);
+            getDoubles(buffer, debrisField.getxPositions(), capacity);
+            getDoubles(buffer, debrisField.getyPositions(), capacity);
+            getDoubles(buffer, debrisField.getVelocitiesInX(), capacity);
+            getDoubles(buffer, debrisField.getVelocitiesInY(), capacity);
+            System.arraycopy(debrisField.getxPositions(), 0, debrisField.getPreviousxPositions(), 0, capacity);
+            System.arraycopy(debrisField.getyPositions(), 0, debrisField.getPreviousyPositions(), 0, capacity);
+            debrisField.recount();
+
+            world.restore(score, (flags & FLAG_GAME_OVER) != 0, randomState, dormantPhase);
+            return world;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void putDoubles(ByteBuffer buffer, double[] values, int length) {
+        buffer.asDoubleBuffer().put(values, 0, length);
+        buffer.position(buffer.position() + length * 8);
+    }
+
+    private static void getDoubles(ByteBuffer buffer, double[] values, int length) {
+        buffer.asDoubleBuffer().get(values, 0, length);
+        buffer.position(buffer.position() + length * 8);
+    }
+}
@@ -0,0 +1,358 @@
+package deltav.core.util;
+
+import java.util.Arrays;
+
+/**
+ * A Barnes-Hut quadtree for computing the gravity bodies exert on each other
+ * in O(n log n) rather than O(n^2).  Each node of the tree records the total
+ * mass and center of mass of the bodies beneath it; when a node is far enough
+ * away from the point being queried - its size divided by its distance is
+ * less than the opening angle theta - the whole node is treated as a single
+ * body.  A theta of 0 gives the exact answer, larger values trade accuracy
+ * for speed.  0.5 is the usual choice.
+ *
+ * Everything is stored in flat arrays that grow as needed and are reused
+ * from one build to the next, so rebuilding the tree every tick doesn't
+ * allocate once it has warmed up.
+ *
+ * Usage: clear, add every body, build, then query with accelerationAt.
+ */
+public class BarnesHutTree {
+
+    /**
+     * Marks an empty child or body list.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * How deep the tree may go.  Bodies that still share a node at this depth
+     * (which only happens if they are practically on top of each other) are
+     * kept together in one leaf.
+     */
+    private static final int MAX_DEPTH = 32;
+
+    /**
+     * The gravitational constant, and a softening length that keeps the force
+     * finite when bodies pass very close to each other.
+     */
+    private final double gravity;
+    private final double softeningSquared;
+
+    /**
+     * The bodies: position, mass, the caller's id for each, and a link to the
+     * next body in the same leaf.
+     */
+    private double[] bodyX;
+    private double[] bodyY;
+    private double[] bodyMass;
+    private int[] bodyId;
+    private int[] bodyNext;
+    private int bodyCount;
+
+    /**
+     * The bounds of the bodies added since the last clear.
+     */
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+
+    /**
+     * The nodes: the square each covers, the mass beneath it, its center of
+     * mass, the first of its four consecutive children (or NONE for a leaf)
+     * and, for leaves, the first body in it.
+     */
+    private double[] nodeMinX;
+    private double[] nodeMinY;
+    private double[] nodeSize;
+    private double[] nodeMass;
+    private double[] nodeComX;
+    private double[] nodeComY;
+    private int[] nodeChild;
+    private int[] nodeBody;
+    private int nodeCount;
+
+    /**
+     * Scratch stack for walking the tree.
+     */
+    private final int[] stack = new int[MAX_DEPTH * 3 + 4];
+
+    /**
+     * Create a tree.
+     *
+     * @param gravity The gravitational constant.
+     * @param softening The softening length.  Bodies closer than about this
+     *                  pull on each other less than the inverse square law
+     *                  would say.
+     * @param initialCapacity The number of bodies to make room for up front.
+     */
+    public BarnesHutTree(double gravity, double softening, int initialCapacity) {
+        this.gravity = gravity;
+        this.softeningSquared = softening * softening;
+        int bodies = Math.max(initialCapacity, 1);
+        bodyX = new double[bodies];
+        bodyY = new double[bodies];
+        bodyMass = new double[bodies];
+        bodyId = new int[bodies];
+        bodyNext = new int[bodies];
+        int nodes = bodies * 2 + 1;
+        nodeMinX = new double[nodes];
+        nodeMinY = new double[nodes];
+        nodeSize = new double[nodes];
+        nodeMass = new double[nodes];
+        nodeComX = new double[nodes];
+        nodeComY = new double[nodes];
+        nodeChild = new int[nodes];
+        nodeBody = new int[nodes];
+        clear();
+    }
+
+    public int getBodyCount() {
+        return bodyCount;
+    }
+
+    /**
+     * Forget every body, ready to add a new set.
+     */
+    public void clear() {
+        bodyCount = 0;
+        nodeCount = 0;
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        maxX = Double.NEGATIVE_INFINITY;
+        maxY = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Add a body.
+     *
+     * @param x The body's position along the X axis.
+     * @param y The body's position along the Y axis.
+     * @param mass The body's mass.
+     * @param id An id for the body, so that a body can be left out of its own
+     *           query.
+     */
+    public void add(double x, double y, double mass, int id) {
+        if (bodyCount == bodyX.length) {
+            int capacity = bodyCount * 2;
+            bodyX = Arrays.copyOf(bodyX, capacity);
+            bodyY = Arrays.copyOf(bodyY, capacity);
+            bodyMass = Arrays.copyOf(bodyMass, capacity);
+            bodyId = Arrays.copyOf(bodyId, capacity);
+            bodyNext = Arrays.copyOf(bodyNext, capacity);
+        }
+        bodyX[bodyCount] = x;
+        bodyY[bodyCount] = y;
+        bodyMass[bodyCount] = mass;
+        bodyId[bodyCount] = id;
+        bodyCount++;
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+    }
+
+    /**
+     * Build the tree over every body added since the last clear.
+     */
+    public void build() {
+        nodeCount = 0;
+        if (bodyCount == 0) {
+            return;
+        }
+
+        // The root is a square covering every body, with a little slack so
+        // nothing sits exactly on the far edge.
+        double size = Math.max(maxX - minX, maxY - minY) * 1.0001 + 1e-9;
+        newNode(minX, minY, size);
+        for (int b = 0; b < bodyCount; b++) {
+            insert(b);
+        }
+
+        // Children are always created after their parents, so walking the
+        // nodes backwards visits every child before its parent.
+        for (int node = nodeCount - 1; node >= 0; node--) {
+            double mass = 0;
+            double comX = 0;
+            double comY = 0;
+            int child = nodeChild[node];
+            if (child == NONE) {
+                for (int b = nodeBody[node]; b != NONE; b = bodyNext[b]) {
+                    mass += bodyMass[b];
+                    comX += bodyX[b] * bodyMass[b];
+                    comY += bodyY[b] * bodyMass[b];
+                }
+            } else {
+                for (int c = child; c < child + 4; c++) {
+                    mass += nodeMass[c];
+                    comX += nodeComX[c] * nodeMass[c];
+                    comY += nodeComY[c] * nodeMass[c];
+                }
+            }
+            nodeMass[node] = mass;
+            nodeComX[node] = mass > 0 ? comX / mass : 0;
+            nodeComY[node] = mass > 0 ? comY / mass : 0;
+        }
+    }
+
+    private int newNode(double x, double y, double size) {
+        if (nodeCount == nodeMinX.length) {
+            int capacity = nodeCount * 2;
+            nodeMinX = Arrays.copyOf(nodeMinX, capacity);
+            nodeMinY = Arrays.copyOf(nodeMinY, capacity);
+            nodeSize = Arrays.copyOf(nodeSize, capacity);
+            nodeMass = Arrays.copyOf(nodeMass, capacity);
+            nodeComX = Arrays.copyOf(nodeComX, capacity);
+            nodeComY = Arrays.copyOf(nodeComY, capacity);
+            nodeChild = Arrays.copyOf(nodeChild, capacity);
+            nodeBody = Arrays.copyOf(nodeBody, capacity);
+        }
+        int node = nodeCount++;
+        nodeMinX[node] = x;
+        nodeMinY[node] = y;
+        nodeSize[node] = size;
+        nodeChild[node] = NONE;
+        nodeBody[node] = NONE;
+        return node;
+    }
+
+    /**
+     * Which of a node's children a point falls in.
+     */
+    private int quadrant(int node, double x, double y) {
+        double half = nodeSize[node] * 0.5;
+        int quadrant = 0;
+        if (x >= nodeMinX[node] + half) {
+            quadrant |= 1;
+        }
+        if (y >= nodeMinY[node] + half) {
+            quadrant |= 2;
+        }
+        return quadrant;
+    }
+
+    private void insert(int b) {
+        int node = 0;
+        int depth = 0;
+        while (true) {
+            if (nodeChild[node] != NONE) {
+                node = nodeChild[node] + quadrant(node, bodyX[b], bodyY[b]);
+                depth++;
+                continue;
+            }
+            if (nodeBody[node] == NONE || depth >= MAX_DEPTH) {
+                // An empty leaf, or as deep as we go: file the body here.
+                bodyNext[b] = nodeBody[node];
+                nodeBody[node] = b;
+                return;
+            }
+
+            // An occupied leaf: split it, push its body down a level and try
+            // again from here.
+            int resident = nodeBody[node];
+            double half = nodeSize[node] * 0.5;
+            double x = nodeMinX[node];
+            double y = nodeMinY[node];
+            int first = newNode(x, y, half);
+            newNode(x + half, y, half);
+            newNode(x, y + half, half);
+            newNode(x + half, y + half, half);
+            nodeChild[node] = first;
+            nodeBody[node] = NONE;
+
+            int target = first + quadrant(node, bodyX[resident], bodyY[resident]);
+            bodyNext[resident] = NONE;
+            nodeBody[target] = resident;
+        }
+    }
+
+    /**
+     * Compute the acceleration the bodies in the tree cause at a point.
+     *
+     * @param x The point's position along the X axis.
+     * @param y The point's position along the Y axis.
+     * @param selfId The id of the body at the point, which is left out, or
+     *               any id not in the tree to include everything.
+     * @param theta The opening angle.
+     * @param out Where to store the x and y components of the acceleration.
+     */
+    public void accelerationAt(double x, double y, int selfId, double theta, GravityUtil.ForceOfGravity out) {
+        double accelerationInX = 0;
+        double accelerationInY = 0;
+        if (nodeCount > 0) {
+            double thetaSquared = theta * theta;
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int node = stack[--top];
+                if (nodeMass[node] == 0) {
+                    continue;
+                }
+                int child = nodeChild[node];
+                if (child == NONE) {
+                    for (int b = nodeBody[node]; b != NONE; b = bodyNext[b]) {
+                        if (bodyId[b] != selfId) {
+                            double deltaX = bodyX[b] - x;
+                            double deltaY = bodyY[b] - y;
+                            double scale = pull(bodyMass[b], deltaX * deltaX + deltaY * deltaY);
+                            accelerationInX += deltaX * scale;
+                            accelerationInY += deltaY * scale;
+                        }
+                    }
+                    continue;
+                }
+
+                double deltaX = nodeComX[node] - x;
+                double deltaY = nodeComY[node] - y;
+                double distanceSquared = deltaX * deltaX + deltaY * deltaY;
+                double size = nodeSize[node];
+                boolean inside = x >= nodeMinX[node] && x < nodeMinX[node] + size
+                        && y >= nodeMinY[node] && y < nodeMinY[node] + size;
+                if (!inside && size * size < thetaSquared * distanceSquared) {
+                    // Far enough away to treat as one body.
+                    double scale = pull(nodeMass[node], distanceSquared);
+                    accelerationInX += deltaX * scale;
+                    accelerationInY += deltaY * scale;
+                } else {
+                    stack[top++] = child;
+                    stack[top++] = child + 1;
+                    stack[top++] = child + 2;
+                    stack[top++] = child + 3;
+                }
+            }
+        }
+        out.forceInX = accelerationInX;
+        out.forceInY = accelerationInY;
+    }
+
+    /**
+     * Compute the same acceleration as accelerationAt by summing over every
+     * body.  This is O(n) per query, and is here as the reference the tree is
+     * checked and benchmarked against.
+     */
+    public void accelerationAtBruteForce(double x, double y, int selfId, GravityUtil.ForceOfGravity out) {
+        double accelerationInX = 0;
+        double accelerationInY = 0;
+        for (int b = 0; b < bodyCount; b++) {
+            if (bodyId[b] != selfId) {
+                double deltaX = bodyX[b] - x;
+                double deltaY = bodyY[b] - y;
+                double scale = pull(bodyMass[b], deltaX * deltaX + deltaY * deltaY);
+                accelerationInX += deltaX * scale;
+                accelerationInY += deltaY * scale;
+            }
+        }
+        out.forceInX = accelerationInX;
+        out.forceInY = accelerationInY;
+    }
+
+    /**
+     * The softened inverse square pull of a mass at the given squared
+     * distance, divided by the distance so it can scale the offset vector
+     * directly.
+     */
+    private double pull(double mass, double distanceSquared) {
+        double softened = distanceSquared + softeningSquared;
+        return gravity * mass / (softened * Math.sqrt(softened));
+    }
+}
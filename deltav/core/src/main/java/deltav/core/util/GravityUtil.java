@@ -8,6 +8,18 @@ import deltav.core.model.DeltaVObject;
  */
 public class GravityUtil {
 
+    /**
+     * The center of the screen, where the black hole sits.
+     */
+    private static final double CENTER_X = DeltaVGameConfig.SCREEN_WIDTH * 0.5;
+    private static final double CENTER_Y = DeltaVGameConfig.SCREEN_HEIGHT * 0.5;
+
+    /**
+     * The screen aspect ratio scaling applied to each component of the force.
+     */
+    private static final double SCALE_X = CENTER_X / CENTER_Y;
+    private static final double SCALE_Y = CENTER_Y / CENTER_X;
+
     /**
      * A class for composing the force of gravity in the X and Y directions.
      */
@@ -36,10 +48,21 @@ public class GravityUtil {
      * @return A Geometry object storing the measurements for the object.
      */
     protected static Geometry getGeometryOfObject(DeltaVObject object) {
+        return getGeometryAt(object.getxPosition(), object.getyPosition());
+    }
+
+    /**
+     * Get the Geometry of a point with respect to the screen.
+     *
+     * @param xPosition The point's position along the X axis.
+     * @param yPosition The point's position along the Y axis.
+     * @return A Geometry object storing the measurements for the point.
+     */
+    protected static Geometry getGeometryAt(double xPosition, double yPosition) {
         double centerX = DeltaVGameConfig.SCREEN_WIDTH * 0.5;
         double centerY = DeltaVGameConfig.SCREEN_HEIGHT * 0.5;
-        double deltaX = centerX - object.getxPosition();
-        double deltaY = centerY - object.getyPosition();
+        double deltaX = centerX - xPosition;
+        double deltaY = centerY - yPosition;
         double distanceFromCenter = Math.sqrt(Math.pow(deltaX, 2) + Math.pow(deltaY, 2));
 
         Geometry geometry = new Geometry();
@@ -51,17 +74,90 @@ public class GravityUtil {
         return geometry;
     }
 
+    /**
+     * Compute the force of gravity acting on a point, writing the result into
+     * a ForceOfGravity owned by the caller.  This is the version to use in
+     * anything that runs every tick: it allocates nothing, and gets the
+     * direction of the force by normalizing the vector to the center rather
+     * than through atan, sin and cos.  The results match
+     * getForceOfGravityAt to within rounding error.
+     *
+     * @param xPosition The point's position along the X axis.
+     * @param yPosition The point's position along the Y axis.
+     * @param out Where to store the x and y components of the force.
+     */
+    public static void computeForceOfGravityAt(double xPosition, double yPosition, ForceOfGravity out) {
+        computeForceOfGravityTowards(CENTER_X, CENTER_Y, DeltaVGameConfig.GRAVITY, xPosition, yPosition, out);
+    }
+
+    /**
+     * Compute the force of gravity a well anywhere in the world exerts on a
+     * point, writing the result into a ForceOfGravity owned by the caller.
+     * This is computeForceOfGravityAt for a well of any strength, at any
+     * position.
+     *
+     * @param wellX The well's position along the X axis.
+     * @param wellY The well's position along the Y axis.
+     * @param gravity The well's gravitational constant.
+     * @param xPosition The point's position along the X axis.
+     * @param yPosition The point's position along the Y axis.
+     * @param out Where to store the x and y components of the force.
+     */
+    public static void computeForceOfGravityTowards(double wellX, double wellY, double gravity,
+                                                    double xPosition, double yPosition, ForceOfGravity out) {
+        double deltaX = wellX - xPosition;
+        double deltaY = wellY - yPosition;
+        double distanceSquared = deltaX * deltaX + deltaY * deltaY;
+        if (distanceSquared == 0) {
+            // Dead center, there is no direction to pull in.
+            out.forceInX = 0;
+            out.forceInY = 0;
+            return;
+        }
+
+        double denominator = distanceSquared < 0.01 ? 0.01 : distanceSquared;
+        double forceOfGravity = Math.min(
+                gravity / denominator,
+                DeltaVGameConfig.MAX_ACCEL_OF_GRAVITY
+        );
+
+        // The original decomposition took sin(atan(dy / dx)) for the X
+        // component and cos(atan(dy / dx)) for the Y component, then flipped
+        // each to point at the center.  In magnitude those are |dy| / d and
+        // |dx| / d, so we can skip the trig entirely.
+        double scale = forceOfGravity / Math.sqrt(distanceSquared);
+        double accelerationInX = scale * Math.abs(deltaY) * SCALE_X;
+        double accelerationInY = scale * Math.abs(deltaX) * SCALE_Y;
+        out.forceInX = xPosition > wellX ? -accelerationInX : accelerationInX;
+        out.forceInY = yPosition > wellY ? -accelerationInY : accelerationInY;
+    }
+
     /**
      * Get the force of gravity acting on the object in both the X and Y
-     * directions.
+     * directions.  This allocates a new result on every call; prefer
+     * computeForceOfGravityAt on hot paths.
      *
      * @param object The object under the influence of gravity.
      * @return A ForceOfGravity object storing the x and y components of the
      *         force.
      */
     public static ForceOfGravity getForceOfGravityOnObject(DeltaVObject object) {
+        return getForceOfGravityAt(object.getxPosition(), object.getyPosition());
+    }
+
+    /**
+     * Get the force of gravity acting on a point in both the X and Y
+     * directions.  This is the original trig-based calculation, kept as the
+     * reference computeForceOfGravityAt is checked against.
+     *
+     * @param xPosition The point's position along the X axis.
+     * @param yPosition The point's position along the Y axis.
+     * @return A ForceOfGravity object storing the x and y components of the
+     *         force.
+     */
+    public static ForceOfGravity getForceOfGravityAt(double xPosition, double yPosition) {
         // Get our distance from the center of the world.
-        Geometry geometry = getGeometryOfObject(object);
+        Geometry geometry = getGeometryAt(xPosition, yPosition);
 
         // Force of gravity is inversely proportional to the square of the
         // distance.
@@ -87,12 +183,12 @@ public class GravityUtil {
         double accelerationInY = forceOfGravity * Math.cos(angleOfForceVector) * (geometry.centerY / geometry.centerX);
 
         // Normalize the direction of the acceleration vectors.
-        if ((object.getxPosition() > geometry.centerX && accelerationInX > 0) ||
-                (object.getxPosition() <= geometry.centerX && accelerationInX < 0)) {
+        if ((xPosition > geometry.centerX && accelerationInX > 0) ||
+                (xPosition <= geometry.centerX && accelerationInX < 0)) {
             accelerationInX *= -1;
         }
-        if ((object.getyPosition() > geometry.centerY && accelerationInY > 0) ||
-                (object.getyPosition() <= geometry.centerY && accelerationInY < 0)) {
+        if ((yPosition > geometry.centerY && accelerationInY > 0) ||
+                (yPosition <= geometry.centerY && accelerationInY < 0)) {
             accelerationInY *= -1;
         }
 
@@ -0,0 +1,51 @@
+package deltav.core.util;
+
+import java.util.Random;
+
+/**
+ * A Random whose state can be read and put back, so a saved world carries on
+ * drawing exactly the numbers it would have.  java.util.Random keeps its
+ * state to itself, so we run the same 48 bit linear congruential generator
+ * it documents ourselves.  Every number it hands out comes through next, so
+ * the sequences are identical to a plain Random with the same seed.
+ */
+public class ResumableRandom extends Random {
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * The generator's state.
+     */
+    private long state;
+
+    public ResumableRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        // Random's constructor calls this before our fields are set up, which
+        // is fine since state has no initializer to undo it.
+        super.setSeed(seed);
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int)(state >>> (48 - bits));
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Carry on from a state returned by getState.
+     */
+    public void setState(long state) {
+        this.state = state & MASK;
+    }
+}
@@ -0,0 +1,127 @@
+package deltav.core.util;
+
+/**
+ * Continuous collision tests.  Everything in the world moves in a straight
+ * line from where it was at the start of a tick to where it is at the end,
+ * so rather than only asking whether one thing has ended up inside another,
+ * which lets something fast skip right over something small between ticks,
+ * we ask whether its path crossed it, and when.
+ *
+ * Times are fractions of the tick, from 0 at its start to 1 at its end.
+ */
+public class SweptCollision {
+
+    /**
+     * What the tests return when the paths never meet.
+     */
+    public static final double MISS = -1;
+
+    private SweptCollision() {
+    }
+
+    /**
+     * When does a point moving in a straight line first enter a box?  Like
+     * DeltaVObject.isBoundedBy, the box includes its right and bottom edges
+     * but not its left and top, and a point that ends up inside always
+     * counts as a hit, so this never misses anything the end-of-tick check
+     * would have caught.
+     *
+     * @param startX Where the point starts along the X axis.
+     * @param startY Where the point starts along the Y axis.
+     * @param endX Where the point ends along the X axis.
+     * @param endY Where the point ends along the Y axis.
+     * @param topLeftX The left edge of the box.
+     * @param bottomRightX The right edge of the box.
+     * @param topLeftY The top edge of the box.
+     * @param bottomRightY The bottom edge of the box.
+     * @return The time the point enters the box, 0 if it starts inside, or
+     *         MISS.
+     */
+    public static double segmentHitsBox(double startX, double startY, double endX, double endY,
+                                        double topLeftX, double bottomRightX,
+                                        double topLeftY, double bottomRightY) {
+        // Clip the path to the slab between each pair of edges in turn; what's
+        // left of it is the part inside the box.
+        double enter = 0;
+        double exit = 1;
+        double moveX = endX - startX;
+        if (moveX == 0) {
+            if (startX <= topLeftX || startX > bottomRightX) {
+                return MISS;
+            }
+        } else {
+            double near = (topLeftX - startX) / moveX;
+            double far = (bottomRightX - startX) / moveX;
+            if (near > far) {
+                double swap = near;
+                near = far;
+                far = swap;
+            }
+            enter = Math.max(enter, near);
+            exit = Math.min(exit, far);
+        }
+        double moveY = endY - startY;
+        if (moveY == 0) {
+            if (startY <= topLeftY || startY > bottomRightY) {
+                return MISS;
+            }
+        } else {
+            double near = (topLeftY - startY) / moveY;
+            double far = (bottomRightY - startY) / moveY;
+            if (near > far) {
+                double swap = near;
+                near = far;
+                far = swap;
+            }
+            enter = Math.max(enter, near);
+            exit = Math.min(exit, far);
+        }
+        if (enter <= exit) {
+            return enter;
+        }
+
+        // Rounding in the divides can clip away a path that ends just inside
+        // an edge.
+        if (endX > topLeftX && endX <= bottomRightX && endY > topLeftY && endY <= bottomRightY) {
+            return 1;
+        }
+        return MISS;
+    }
+
+    /**
+     * When do two circles moving in straight lines first overlap?  We only
+     * need their relative motion: where the second is from the first at the
+     * start, and how much further it moves than the first over the tick.
+     *
+     * @param deltaX How far the second circle's center starts from the
+     *               first's along the X axis.
+     * @param deltaY The same along the Y axis.
+     * @param moveX How much further the second circle moves than the first
+     *              along the X axis.
+     * @param moveY The same along the Y axis.
+     * @param distance How close the centers are when the circles touch: the
+     *                 sum of their radii.
+     * @return The time the circles touch, 0 if they start overlapping, or
+     *         MISS.
+     */
+    public static double circlesTouch(double deltaX, double deltaY, double moveX, double moveY,
+                                      double distance) {
+        // Solve |delta + t * move| = distance for the earlier t.
+        double c = deltaX * deltaX + deltaY * deltaY - distance * distance;
+        if (c < 0) {
+            return 0;
+        }
+        double b = deltaX * moveX + deltaY * moveY;
+        if (b >= 0) {
+            // Not getting any closer.
+            return MISS;
+        }
+        double a = moveX * moveX + moveY * moveY;
+        double discriminant = b * b - a * c;
+        if (discriminant < 0) {
+            return MISS;
+        }
+        double time = (-b - Math.sqrt(discriminant)) / a;
+        return time <= 1 ? time : MISS;
+    }
+}
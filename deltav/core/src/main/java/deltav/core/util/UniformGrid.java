@@ -0,0 +1,204 @@
+package deltav.core.util;
+
+import java.util.Arrays;
+
+/**
+ * A uniform grid for finding objects near a point or rectangle without
+ * checking every object in the world.  Objects are identified by an int (their
+ * slot in a DebrisField, for instance) and each cell keeps an intrusive
+ * doubly-linked list of the objects inside it.  Moving an object only touches
+ * the grid when it actually changes cell, so keeping the grid current every
+ * tick is cheap, and nothing is allocated after construction.
+ */
+public class UniformGrid {
+
+    /**
+     * Marks an empty list or an object that isn't in the grid.
+     */
+    private static final int NONE = -1;
+
+    /**
+     * The area covered by the grid.  Anything outside it is kept in the
+     * nearest edge cell.
+     */
+    private final double minX;
+    private final double minY;
+
+    /**
+     * The size of each (square) cell, and its inverse to save a divide.
+     */
+    private final double cellSize;
+    private final double inverseCellSize;
+
+    /**
+     * The number of cells along each axis.
+     */
+    private final int columns;
+    private final int rows;
+
+    /**
+     * The first object in each cell.
+     */
+    private final int[] head;
+
+    /**
+     * The links for each object, and the cell it is currently filed under.
+     */
+    private final int[] next;
+    private final int[] previous;
+    private final int[] cellOf;
+
+    /**
+     * Create a grid.
+     *
+     * @param minX The left edge of the area to cover.
+     * @param minY The top edge of the area to cover.
+     * @param maxX The right edge of the area to cover.
+     * @param maxY The bottom edge of the area to cover.
+     * @param cellSize The width and height of each cell.
+     * @param capacity The number of object ids the grid must hold, 0 to
+     *                 capacity - 1.
+     */
+    public UniformGrid(double minX, double minY, double maxX, double maxY, double cellSize, int capacity) {
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1 / cellSize;
+        this.columns = Math.max(1, (int)Math.ceil((maxX - minX) * inverseCellSize));
+        this.rows = Math.max(1, (int)Math.ceil((maxY - minY) * inverseCellSize));
+        head = new int[columns * rows];
+        next = new int[capacity];
+        previous = new int[capacity];
+        cellOf = new int[capacity];
+        Arrays.fill(head, NONE);
+        Arrays.fill(cellOf, NONE);
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * The column of cells a position along the X axis falls in, clamped to
+     * the grid.
+     */
+    public int getColumn(double x) {
+        return column(x);
+    }
+
+    /**
+     * The row of cells a position along the Y axis falls in, clamped to the
+     * grid.
+     */
+    public int getRow(double y) {
+        return row(y);
+    }
+
+    private int column(double x) {
+        int column = (int)((x - minX) * inverseCellSize);
+        return column < 0 ? 0 : (column >= columns ? columns - 1 : column);
+    }
+
+    private int row(double y) {
+        int row = (int)((y - minY) * inverseCellSize);
+        return row < 0 ? 0 : (row >= rows ? rows - 1 : row);
+    }
+
+    /**
+     * File an object under the cell containing the given point, moving it if
+     * it was previously in another cell.
+     *
+     * @param id The object to file.
+     * @param x The object's position along the X axis.
+     * @param y The object's position along the Y axis.
+     */
+    public void update(int id, double x, double y) {
+        int cell = row(y) * columns + column(x);
+        if (cellOf[id] == cell) {
+            return;
+        }
+        remove(id);
+
+        int first = head[cell];
+        next[id] = first;
+        previous[id] = NONE;
+        if (first != NONE) {
+            previous[first] = id;
+        }
+        head[cell] = id;
+        cellOf[id] = cell;
+    }
+
+    /**
+     * Take an object out of the grid.  Does nothing if it isn't in the grid.
+     *
+     * @param id The object to remove.
+     */
+    public void remove(int id) {
+        int cell = cellOf[id];
+        if (cell == NONE) {
+            return;
+        }
+        int before = previous[id];
+        int after = next[id];
+        if (before == NONE) {
+            head[cell] = after;
+        } else {
+            next[before] = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        }
+        cellOf[id] = NONE;
+    }
+
+    /**
+     * Collect every object filed in a cell that overlaps the given rectangle.
+     * These are only candidates - objects near the edge of a cell may lie
+     * outside the rectangle, so callers still do the exact test.
+     *
+     * @param topLeftX The left edge of the rectangle.
+     * @param bottomRightX The right edge of the rectangle.
+     * @param topLeftY The top edge of the rectangle.
+     * @param bottomRightY The bottom edge of the rectangle.
+     * @param out Where to write the candidate ids.  This must be big enough
+     *            to hold every object in the grid.
+     * @return The number of candidates written to out.
+     */
+    public int query(double topLeftX, double bottomRightX, double topLeftY, double bottomRightY, int[] out) {
+        return queryCells(column(topLeftX), column(bottomRightX), row(topLeftY), row(bottomRightY), out, 0);
+    }
+
+    /**
+     * Collect every object filed in a block of cells.  Unlike query, blocks
+     * that don't overlap never return the same object.
+     *
+     * @param firstColumn The first column of the block.
+     * @param lastColumn The last column of the block, inclusive.
+     * @param firstRow The first row of the block.
+     * @param lastRow The last row of the block, inclusive.
+     * @param out Where to write the ids.
+     * @param count How many ids are already in out; the new ones go after
+     *              them.
+     * @return The number of ids in out now.
+     */
+    public int queryCells(int firstColumn, int lastColumn, int firstRow, int lastRow, int[] out, int count) {
+        for (int row = firstRow; row <= lastRow; row++) {
+            int cell = row * columns + firstColumn;
+            for (int column = firstColumn; column <= lastColumn; column++, cell++) {
+                for (int id = head[cell]; id != NONE; id = next[id]) {
+                    out[count++] = id;
+                }
+            }
+        }
+        return count;
+    }
+}
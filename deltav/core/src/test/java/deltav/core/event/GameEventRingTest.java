@@ -0,0 +1,145 @@
+package deltav.core.event;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.DeltaVShip;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.model.ScriptedFlight;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GameEventRingTest {
+
+    /**
+     * Counts and checks the events a consumer reads.
+     */
+    private static class Counter implements GameEventRing.Handler {
+        final int[] counts = new int[5];
+        int fuel;
+        int lastAmount = Integer.MIN_VALUE;
+        boolean inOrder = true;
+
+        public void onEvent(int type, int slot, int amount) {
+            counts[type]++;
+            if (type == GameEventRing.DEBRIS_CAPTURED) {
+                fuel += amount;
+            }
+            inOrder &= amount > lastAmount;
+            lastAmount = amount;
+        }
+    }
+
+    /**
+     * The world publishes a capture for every point scored, and the drain
+     * and game over when the ship sits in the black hole.
+     * @throws Exception
+     */
+    @Test
+    public void testWorldPublishesEvents() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(2000, 21L);
+        GameEventRing ring = new GameEventRing(64);
+        world.setEventRing(ring);
+        GameEventRing.Consumer consumer = ring.newConsumer();
+        Counter counter = new Counter();
+        DeltaVShip ship = world.getShip();
+        for (int tick = 0; tick < 400; tick++) {
+            ScriptedFlight.fly(ship, tick);
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+            consumer.poll(counter);
+        }
+        assertEquals(0, consumer.getDropped());
+        assertTrue("expected some captures", world.getScore() > 0);
+        assertEquals(world.getScore(), counter.counts[GameEventRing.DEBRIS_CAPTURED]);
+        assertTrue(counter.fuel > 0);
+        assertTrue(counter.counts[GameEventRing.DEBRIS_SWALLOWED] > 0);
+
+        ship.setxPosition(DeltaVGameConfig.WORLD_WIDTH / 2);
+        ship.setyPosition(DeltaVGameConfig.WORLD_HEIGHT / 2);
+        ship.setFuelRemaining(DeltaVGameConfig.FUEL_DRAINED_BY_BLACK_HOLE * 2);
+        counter = new Counter();
+        while (!world.isGameOver()) {
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        }
+        consumer.poll(counter);
+        // Debris caught on the way down may top the fuel up for a tick or two.
+        assertTrue(counter.counts[GameEventRing.SHIP_DRAINED] >= 2);
+        assertEquals(1, counter.counts[GameEventRing.GAME_OVER]);
+        assertEquals(world.getScore(), counter.lastAmount);
+    }
+
+    /**
+     * A consumer that falls more than a ring behind loses the oldest events,
+     * knows how many, and still reads the rest in order.
+     * @throws Exception
+     */
+    @Test
+    public void testLappedConsumerDrops() throws Exception {
+        GameEventRing ring = new GameEventRing(16);
+        GameEventRing.Consumer consumer = ring.newConsumer();
+        for (int k = 0; k < 50; k++) {
+            ring.publish(GameEventRing.DEBRIS_SWALLOWED, k, k);
+        }
+        Counter counter = new Counter();
+        int read = consumer.poll(counter);
+        assertEquals(50, read + consumer.getDropped());
+        assertTrue(read >= 15);
+        assertEquals(49, counter.lastAmount);
+        assertTrue(counter.inOrder);
+        assertEquals(0, consumer.poll(counter));
+    }
+
+    /**
+     * Consumers on their own threads, one keeping up and one slow, see every
+     * event they don't drop exactly once and in order, while the producer
+     * never waits for them.
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentConsumers() throws Exception {
+        final int total = 2000000;
+        final GameEventRing ring = new GameEventRing(1024);
+        final GameEventRing.Consumer[] consumers = {ring.newConsumer(), ring.newConsumer()};
+        final Counter[] counters = {new Counter(), new Counter()};
+        final long[] delivered = new long[2];
+        final boolean[] done = new boolean[1];
+        Thread[] threads = new Thread[2];
+        for (int c = 0; c < 2; c++) {
+            final int consumer = c;
+            threads[c] = new Thread() {
+                @Override
+                public void run() {
+                    while (true) {
+                        boolean finished;
+                        synchronized (done) {
+                            finished = done[0];
+                        }
+                        delivered[consumer] += consumers[consumer].poll(counters[consumer]);
+                        if (finished && consumers[consumer].getBacklog() == 0) {
+                            return;
+                        }
+                        if (consumer == 1) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+            threads[c].start();
+        }
+        for (int k = 0; k < total; k++) {
+            ring.publish(GameEventRing.DEBRIS_CAPTURED, k & 0xFFFF, k);
+        }
+        synchronized (done) {
+            done[0] = true;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        for (int c = 0; c < 2; c++) {
+            assertTrue(counters[c].inOrder);
+            assertEquals(total, delivered[c] + consumers[c].getDropped());
+            assertEquals(delivered[c], counters[c].counts[GameEventRing.DEBRIS_CAPTURED]);
+            assertEquals(total - 1, counters[c].lastAmount);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package deltav.core.input;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.model.ScriptedFlight;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InputReplayTest {
+
+    /**
+     * Record a game, flying the ship around, and check the replay ends in
+     * exactly the same state.
+     * @throws Exception
+     */
+    @Test
+    public void testReplayMatchesRecording() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(2000, 1234L);
+        InputRecorder recorder = new InputRecorder(world, DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        for (int tick = 0; tick < 3000; tick++) {
+            ScriptedFlight.fly(world.getShip(), tick);
+            recorder.record();
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        }
+        recorder.finish();
+        byte[] log = recorder.toByteArray();
+
+        assertTrue("expected some captures", world.getScore() > 0);
+        assertTrue("log is " + log.length + " bytes", log.length < 1024);
+
+        InputReplay replay = new InputReplay(log);
+        assertEquals(1234L, replay.getSeed());
+        assertEquals(2000, replay.getNumberOfDebrisPieces());
+        assertEquals(3000, replay.getTicks());
+        assertEquals(world.getScore(), replay.getExpectedScore());
+        assertEquals(world.getShip().getFuelRemaining(), replay.getExpectedFuel());
+
+        DeltaVWorld replayed = replay.run();
+        assertEquals(world.getScore(), replayed.getScore());
+        assertEquals(world.getShip().getFuelRemaining(), replayed.getShip().getFuelRemaining());
+        assertEquals(world.getShip().getxPosition(), replayed.getShip().getxPosition(), 0);
+        assertEquals(world.getShip().getyPosition(), replayed.getShip().getyPosition(), 0);
+        assertEquals(world.getShip().getHeading(), replayed.getShip().getHeading(), 0);
+        assertTrue(replay.verify());
+    }
+
+    /**
+     * A log whose recorded outcome doesn't match the simulation fails to
+     * verify.
+     * @throws Exception
+     */
+    @Test
+    public void testVerifyDetectsMismatch() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(2000, 99L);
+        InputRecorder recorder = new InputRecorder(world, DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        for (int tick = 0; tick < 500; tick++) {
+            ScriptedFlight.fly(world.getShip(), tick);
+            recorder.record();
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        }
+        recorder.finish();
+        byte[] log = recorder.toByteArray();
+
+        // The last byte belongs to the recorded fuel.
+        log[log.length - 1] ^= 1;
+        assertFalse(new InputReplay(log).verify());
+    }
+}
@@ -29,7 +29,8 @@ public class DeltaVObjectTest {
         // Distance from center before update was 100 * sqrt(2).  So the force
         // of gravity should be our GRAVITY constant / 20000.  That means that
         // we should have moved GRAVITY / 20000 * .707 in the negative x and y
-        // directions, scaled to the screen dimensions.
+        // directions, scaled to the screen dimensions.  Velocity is measured
+        // per reference step, so a 1000ms update moves us that many steps.
         double expectedVelocityInX = DeltaVGameConfig.GRAVITY / 20000
                 * Math.cos(Math.PI / 4)
                 * ((double)DeltaVGameConfig.SCREEN_WIDTH / (double)DeltaVGameConfig.SCREEN_HEIGHT)
@@ -40,8 +41,11 @@ public class DeltaVObjectTest {
                 * -1D;
         assertEquals(expectedVelocityInX, testObject.getVelocityInX(), 1e-15);
         assertEquals(expectedVelocityInY, testObject.getVelocityInY(), 1e-15);
-        assertEquals(initialX + expectedVelocityInX, testObject.getxPosition(), 1e-15);
-        assertEquals(initialY + expectedVelocityInY, testObject.getyPosition(), 1e-15);
+        double stepsElapsed = 1000 / DeltaVGameConfig.REFERENCE_STEP_MILLIS;
+        assertEquals(initialX + expectedVelocityInX * stepsElapsed, testObject.getxPosition(), 1e-12);
+        assertEquals(initialY + expectedVelocityInY * stepsElapsed, testObject.getyPosition(), 1e-12);
+        assertEquals(initialX, testObject.getPreviousxPosition(), 0);
+        assertEquals(initialY, testObject.getPreviousyPosition(), 0);
     }
 
     @Test
@@ -0,0 +1,227 @@
+package deltav.core.model;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.event.GameEventRing;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DeltaVWorldTest {
+
+    /**
+     * The world should step without any PlayN platform registered.
+     * @throws Exception
+     */
+    @Test
+    public void testHeadlessUpdatePhysics() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(100);
+        for (int tick = 0; tick < 1000; tick++) {
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        }
+
+        assertEquals(100, world.getDebrisField().getCount());
+        assertTrue(world.getShip().getFuelRemaining() >= 0);
+        assertTrue(world.getShip().getFuelRemaining() <= DeltaVGameConfig.MAX_FUEL);
+    }
+
+    @Test
+    public void testBlackHoleEndsGame() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(0);
+        DeltaVShip ship = world.getShip();
+        ship.setxPosition(DeltaVGameConfig.SCREEN_WIDTH / 2 + 1);
+        ship.setyPosition(DeltaVGameConfig.SCREEN_HEIGHT / 2 + 1);
+        ship.setFuelRemaining(1);
+
+        world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+
+        assertEquals(0, ship.getFuelRemaining());
+        assertTrue(world.isGameOver());
+    }
+
+    /**
+     * Thrusting and sitting in the black hole cost the same fuel per second
+     * whatever the simulation step, with fractions of a unit carried over.
+     * @throws Exception
+     */
+    @Test
+    public void testFuelPerSecondIgnoresStep() throws Exception {
+        int[] steps = {5, 10, 20, 25};
+        for (int step : steps) {
+            DeltaVWorld world = new DeltaVWorld(0);
+            DeltaVShip ship = world.getShip();
+            ship.setThrusting(true);
+            for (int millis = 0; millis < 100; millis += step) {
+                ship.updatePhysics(step);
+            }
+            assertEquals(DeltaVGameConfig.MAX_FUEL - 10, ship.getFuelRemaining());
+
+            world = new DeltaVWorld(0);
+            ship = world.getShip();
+            for (int millis = 0; millis < 100; millis += step) {
+                ship.setxPosition(DeltaVGameConfig.SCREEN_WIDTH / 2 + 1);
+                ship.setyPosition(DeltaVGameConfig.SCREEN_HEIGHT / 2 + 1);
+                ship.setVelocityInX(0);
+                ship.setVelocityInY(0);
+                world.updatePhysics(step);
+            }
+            assertEquals(DeltaVGameConfig.MAX_FUEL - 10 * DeltaVGameConfig.FUEL_DRAINED_BY_BLACK_HOLE,
+                    ship.getFuelRemaining());
+        }
+    }
+
+    /**
+     * A world bigger than the screen keeps its ship and debris to its own
+     * bounds, puts its black hole in its own center, and finds only the
+     * debris near a rectangle when asked.
+     * @throws Exception
+     */
+    @Test
+    public void testLargeWorld() throws Exception {
+        int width = DeltaVGameConfig.SCREEN_WIDTH * 4;
+        int height = DeltaVGameConfig.SCREEN_HEIGHT * 4;
+        DeltaVWorld world = new DeltaVWorld(2000, 7L, width, height);
+        assertEquals(width, world.getWidth());
+        assertEquals(height, world.getHeight());
+        BlackHole blackHole = world.getGravityField().getBlackHole(0);
+        assertEquals(width / 2, blackHole.getxPosition(), 0);
+        assertEquals(height / 2, blackHole.getyPosition(), 0);
+
+        DeltaVShip ship = world.getShip();
+        ship.setxPosition(width - 30);
+        ship.setyPosition(height - 30);
+        ship.setVelocityInX(50);
+        ship.setVelocityInY(50);
+        world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        assertEquals(width - DeltaVGameConfig.SHIP_WIDTH / 2, ship.getxPosition(), 0);
+        assertEquals(height - DeltaVGameConfig.SHIP_HEIGHT / 2, ship.getyPosition(), 0);
+
+        DebrisField field = world.getDebrisField();
+        boolean offScreen = false;
+        for (int i = field.nextAlive(0); i >= 0; i = field.nextAlive(i + 1)) {
+            offScreen |= field.getxPosition(i) > DeltaVGameConfig.SCREEN_WIDTH * 1.1;
+        }
+        assertTrue("expected debris beyond the first screen", offScreen);
+
+        // A screen sized query finds every piece on that screen, and nowhere
+        // near all the pieces in the world.
+        int[] found = new int[field.getCapacity()];
+        int count = world.queryDebris(0, DeltaVGameConfig.SCREEN_WIDTH, 0, DeltaVGameConfig.SCREEN_HEIGHT, found);
+        boolean[] isFound = new boolean[field.getCapacity()];
+        for (int k = 0; k < count; k++) {
+            isFound[found[k]] = true;
+        }
+        int onScreen = 0;
+        for (int i = field.nextAlive(0); i >= 0; i = field.nextAlive(i + 1)) {
+            if (field.isBoundedBy(i, 0, DeltaVGameConfig.SCREEN_WIDTH, 0, DeltaVGameConfig.SCREEN_HEIGHT)) {
+                assertTrue(isFound[i]);
+                onScreen++;
+            }
+        }
+        assertTrue(onScreen > 0);
+        assertTrue(count < field.getCount() / 4);
+    }
+
+    /**
+     * A world too big to simulate at once only steps the debris near the
+     * ship every tick, steps the sectors around that once per cycle of
+     * turns, and leaves the rest alone.
+     * @throws Exception
+     */
+    @Test
+    public void testSectorStreaming() throws Exception {
+        assertNull(new DeltaVWorld(20, 1L).getSectors());
+
+        int width = DeltaVGameConfig.SCREEN_WIDTH * 10;
+        int height = DeltaVGameConfig.SCREEN_HEIGHT * 10;
+        DeltaVWorld world = new DeltaVWorld(20000, 3L, width, height);
+        WorldSectors sectors = world.getSectors();
+        assertNotNull(sectors);
+        DeltaVShip ship = world.getShip();
+        ship.setxPosition(1000);
+        ship.setyPosition(1000);
+        int shipColumn = sectors.getSectorColumn(1000);
+        int shipRow = sectors.getSectorRow(1000);
+
+        DebrisField field = world.getDebrisField();
+        double[] startX = field.getxPositions().clone();
+        int[] distance = new int[field.getCapacity()];
+        for (int i = 0; i < field.getCapacity(); i++) {
+            distance[i] = Math.max(Math.abs(sectors.getSectorColumn(field.getxPosition(i)) - shipColumn),
+                    Math.abs(sectors.getSectorRow(field.getyPosition(i)) - shipRow));
+        }
+
+        int ticks = sectors.getDormantStepTicks();
+        int mostStepped = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            ship.setFuelRemaining(DeltaVGameConfig.MAX_FUEL);
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+            mostStepped = Math.max(mostStepped, world.getActiveDebrisCount() + world.getDormantDebrisCount());
+        }
+        assertTrue("stepped " + mostStepped, mostStepped < field.getCount() / 10);
+
+        // Everything near the ship has moved, and nearly everything far away
+        // hasn't; the black hole still swallows what is in it.
+        int far = 0;
+        int farMoved = 0;
+        for (int i = 0; i < field.getCapacity(); i++) {
+            boolean moved = field.getxPosition(i) != startX[i];
+            if (distance[i] <= DeltaVGameConfig.DORMANT_SECTOR_RADIUS) {
+                assertTrue(moved);
+            } else {
+                far++;
+                farMoved += moved ? 1 : 0;
+            }
+        }
+        assertTrue(far > field.getCount() / 2);
+        assertTrue("moved " + farMoved, farMoved < far / 100);
+    }
+
+    /**
+     * Debris fast enough to jump right over the black hole in one tick is
+     * still swallowed, and debris the ship flies past in one tick is still
+     * captured.
+     * @throws Exception
+     */
+    @Test
+    public void testNoTunnelling() throws Exception {
+        double centerX = DeltaVGameConfig.WORLD_WIDTH / 2;
+        double centerY = DeltaVGameConfig.WORLD_HEIGHT / 2;
+
+        // Checking only where it ends up, the piece would miss the black hole.
+        DeltaVWorld world = new DeltaVWorld(1, 5L);
+        DebrisField reference = new DeltaVWorld(1, 5L).getDebrisField();
+        world.getDebrisField().spawn(0, centerX - 100, centerY, 200, 0);
+        reference.spawn(0, centerX - 100, centerY, 200, 0);
+        reference.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        assertTrue(reference.getxPosition(0) > DeltaVGameConfig.BLACK_HOLE_BOTTOM_RIGHT_X);
+
+        GameEventRing ring = new GameEventRing(16);
+        world.setEventRing(ring);
+        GameEventRing.Consumer consumer = ring.newConsumer();
+        world.getShip().setxPosition(100);
+        world.getShip().setyPosition(100);
+        world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        final int[] swallowed = new int[] {0, -1};
+        consumer.poll(new GameEventRing.Handler() {
+            public void onEvent(int type, int slot, int amount) {
+                if (type == GameEventRing.DEBRIS_SWALLOWED) {
+                    swallowed[0]++;
+                    swallowed[1] = amount;
+                }
+            }
+        });
+        assertEquals(1, swallowed[0]);
+        assertEquals(0, swallowed[1]);
+
+        // The ship passes a piece standing still, ending up well beyond it.
+        world = new DeltaVWorld(1, 5L);
+        world.getDebrisField().spawn(0, 250, 300, 0, 0);
+        DeltaVShip ship = world.getShip();
+        ship.setxPosition(100);
+        ship.setyPosition(300);
+        ship.setVelocityInX(300);
+        world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        assertTrue(ship.getxPosition() - ship.getWidth() / 2 > 260);
+        assertEquals(DeltaVGameConfig.POINTS_PER_DEBRIS, world.getScore());
+    }
+}
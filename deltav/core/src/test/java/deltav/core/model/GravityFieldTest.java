@@ -0,0 +1,123 @@
+package deltav.core.model;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.util.GravityUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GravityFieldTest {
+
+    private static final double MIN_X = -DeltaVGameConfig.SCREEN_WIDTH * .1;
+    private static final double MIN_Y = -DeltaVGameConfig.SCREEN_HEIGHT * .1;
+    private static final double MAX_X = DeltaVGameConfig.SCREEN_WIDTH * 1.1;
+    private static final double MAX_Y = DeltaVGameConfig.SCREEN_HEIGHT * 1.1;
+
+    private GravityField createField(double cellSize) {
+        return new GravityField(MIN_X, MIN_Y, MAX_X, MAX_Y, cellSize);
+    }
+
+    /**
+     * With only the default black hole, the exact field is the same as the
+     * original single-well calculation everywhere.
+     * @throws Exception
+     */
+    @Test
+    public void testDefaultBlackHoleMatchesGravityUtil() throws Exception {
+        GravityField field = createField(0);
+        field.addBlackHole(BlackHole.createDefault());
+        field.rebuildIfNeeded();
+
+        GravityUtil.ForceOfGravity expected = new GravityUtil.ForceOfGravity();
+        GravityUtil.ForceOfGravity actual = new GravityUtil.ForceOfGravity();
+        for (double x = MIN_X; x <= MAX_X; x += 7.3) {
+            for (double y = MIN_Y; y <= MAX_Y; y += 7.3) {
+                GravityUtil.computeForceOfGravityAt(x, y, expected);
+                field.sample(x, y, actual);
+                assertEquals(expected.forceInX, actual.forceInX, 0);
+                assertEquals(expected.forceInY, actual.forceInY, 0);
+            }
+        }
+    }
+
+    /**
+     * Away from the black hole, where the force changes slowly, sampling the
+     * grid should be close to the exact force.  The force flips direction
+     * across the lines through the black hole's center, so within a cell of
+     * those the grid smooths it out and we don't compare.  At the grid points
+     * themselves it should be exact.
+     * @throws Exception
+     */
+    @Test
+    public void testSampleIsCloseToExact() throws Exception {
+        double cellSize = DeltaVGameConfig.GRAVITY_FIELD_CELL_SIZE;
+        GravityField field = createField(cellSize);
+        BlackHole blackHole = BlackHole.createDefault();
+        field.addBlackHole(blackHole);
+        field.rebuildIfNeeded();
+
+        GravityUtil.ForceOfGravity expected = new GravityUtil.ForceOfGravity();
+        GravityUtil.ForceOfGravity actual = new GravityUtil.ForceOfGravity();
+        for (double x = MIN_X; x <= MAX_X; x += 3.7) {
+            for (double y = MIN_Y; y <= MAX_Y; y += 3.7) {
+                double deltaX = x - blackHole.getxPosition();
+                double deltaY = y - blackHole.getyPosition();
+                if (deltaX * deltaX + deltaY * deltaY < 150 * 150
+                        || Math.abs(deltaX) < cellSize || Math.abs(deltaY) < cellSize) {
+                    continue;
+                }
+                field.computeExactly(x, y, expected);
+                field.sample(x, y, actual);
+                assertEquals("x at " + x + "," + y, expected.forceInX, actual.forceInX, 0.1);
+                assertEquals("y at " + x + "," + y, expected.forceInY, actual.forceInY, 0.1);
+            }
+        }
+
+        for (double x = MIN_X; x <= MAX_X; x += cellSize * 5) {
+            for (double y = MIN_Y; y <= MAX_Y; y += cellSize * 5) {
+                field.computeExactly(x, y, expected);
+                field.sample(x, y, actual);
+                assertEquals(expected.forceInX, actual.forceInX, 1e-9);
+                assertEquals(expected.forceInY, actual.forceInY, 1e-9);
+            }
+        }
+    }
+
+    /**
+     * The pull of several black holes adds up, and the grid follows black
+     * holes being added and removed.
+     * @throws Exception
+     */
+    @Test
+    public void testMultipleBlackHoles() throws Exception {
+        GravityField field = createField(DeltaVGameConfig.GRAVITY_FIELD_CELL_SIZE);
+        BlackHole left = new BlackHole(200, 200, 50, 50, DeltaVGameConfig.GRAVITY);
+        BlackHole right = new BlackHole(1000, 600, 50, 50, DeltaVGameConfig.GRAVITY / 2);
+        field.addBlackHole(left);
+        field.addBlackHole(right);
+        field.rebuildIfNeeded();
+
+        // A grid point, so sampling is exact.
+        double x = MIN_X + DeltaVGameConfig.GRAVITY_FIELD_CELL_SIZE * 70;
+        double y = MIN_Y + DeltaVGameConfig.GRAVITY_FIELD_CELL_SIZE * 40;
+        GravityUtil.ForceOfGravity fromLeft = new GravityUtil.ForceOfGravity();
+        GravityUtil.ForceOfGravity fromRight = new GravityUtil.ForceOfGravity();
+        GravityUtil.ForceOfGravity actual = new GravityUtil.ForceOfGravity();
+        GravityUtil.computeForceOfGravityTowards(200, 200, DeltaVGameConfig.GRAVITY, x, y, fromLeft);
+        GravityUtil.computeForceOfGravityTowards(1000, 600, DeltaVGameConfig.GRAVITY / 2, x, y, fromRight);
+        field.sample(x, y, actual);
+        assertEquals(fromLeft.forceInX + fromRight.forceInX, actual.forceInX, 1e-9);
+        assertEquals(fromLeft.forceInY + fromRight.forceInY, actual.forceInY, 1e-9);
+
+        assertSame(left, field.findBlackHoleAt(210, 190));
+        assertSame(right, field.findBlackHoleAt(1000, 600));
+        assertNull(field.findBlackHoleAt(600, 425));
+
+        field.removeBlackHole(right);
+        field.rebuildIfNeeded();
+        field.sample(x, y, actual);
+        assertEquals(fromLeft.forceInX, actual.forceInX, 1e-9);
+        assertEquals(fromLeft.forceInY, actual.forceInY, 1e-9);
+        assertNull(field.findBlackHoleAt(1000, 600));
+    }
+}
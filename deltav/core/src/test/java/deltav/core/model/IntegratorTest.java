@@ -0,0 +1,107 @@
+package deltav.core.model;
+
+import deltav.core.config.DeltaVGameConfig;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class IntegratorTest {
+
+    /**
+     * Objects only substep near a black hole, more the closer they are, and
+     * never more than the maximum.
+     * @throws Exception
+     */
+    @Test
+    public void testSubstepsOnlyNearWells() throws Exception {
+        GravityField field = createField(DeltaVGameConfig.SUBSTEP_RADIUS);
+        double centerX = DeltaVGameConfig.SCREEN_WIDTH / 2;
+        double centerY = DeltaVGameConfig.SCREEN_HEIGHT / 2;
+        double radius = field.getSubstepRadius();
+
+        assertEquals(1, field.getSubsteps(0, 0));
+        assertEquals(1, field.getSubsteps(centerX + radius, centerY));
+        int near = field.getSubsteps(centerX + radius / 2, centerY);
+        int nearer = field.getSubsteps(centerX + radius / 8, centerY);
+        assertTrue(near > 1);
+        assertTrue(nearer > near);
+        assertEquals(field.getMaxSubsteps(), field.getSubsteps(centerX, centerY));
+
+        field.setSubstepRadius(0);
+        assertEquals(1, field.getSubsteps(centerX + 1, centerY));
+    }
+
+    /**
+     * Follow a close pass around the black hole and compare it with a run at
+     * a tiny step.  Verlet at the game's tick, substepping near the well,
+     * should end up closer than semi-implicit Euler stepping everything at a
+     * tenth of the tick, for well under half the force evaluations.
+     * @throws Exception
+     */
+    @Test
+    public void testAdaptiveVerletBeatsFineEuler() throws Exception {
+        int ticks = 150;
+        double[] reference = new double[2];
+        fly(Integrator.VERLET, createField(0), 0.01, ticks * 1000, reference);
+
+        double[] adaptive = new double[2];
+        int adaptiveEvaluations = fly(Integrator.VERLET, createField(DeltaVGameConfig.SUBSTEP_RADIUS),
+                10, ticks, adaptive);
+        double[] fine = new double[2];
+        int fineEvaluations = fly(Integrator.SEMI_IMPLICIT_EULER, createField(0), 1, ticks * 10, fine);
+        double[] coarse = new double[2];
+        fly(Integrator.SEMI_IMPLICIT_EULER, createField(0), 10, ticks, coarse);
+
+        double adaptiveError = distance(adaptive, reference);
+        double fineError = distance(fine, reference);
+        double coarseError = distance(coarse, reference);
+        assertTrue("adaptive Verlet is " + adaptiveError + " off, fine Euler " + fineError,
+                adaptiveError < fineError);
+        assertTrue("adaptive Verlet is " + adaptiveError + " off, coarse Euler " + coarseError,
+                adaptiveError * 10 < coarseError);
+        assertTrue(adaptiveEvaluations + " evaluations against " + fineEvaluations,
+                adaptiveEvaluations * 2 < fineEvaluations);
+    }
+
+    /**
+     * The world's field, with the default black hole and the given substep
+     * radius.
+     */
+    private static GravityField createField(double substepRadius) {
+        GravityField field = new GravityField(
+                0 - DeltaVGameConfig.SCREEN_WIDTH * .1,
+                0 - DeltaVGameConfig.SCREEN_HEIGHT * .1,
+                DeltaVGameConfig.SCREEN_WIDTH * 1.1,
+                DeltaVGameConfig.SCREEN_HEIGHT * 1.1,
+                DeltaVGameConfig.GRAVITY_FIELD_CELL_SIZE);
+        field.addBlackHole(BlackHole.createDefault());
+        field.setSubstepRadius(substepRadius);
+        field.rebuildIfNeeded();
+        return field;
+    }
+
+    /**
+     * Send a body on a close pass from just below and right of the black
+     * hole.
+     *
+     * @return The number of force evaluations.
+     */
+    private static int fly(Integrator integrator, GravityField field, double deltaT, int steps, double[] out) {
+        Integrator.Body body = new Integrator.Body();
+        body.xPosition = DeltaVGameConfig.SCREEN_WIDTH / 2 + 40;
+        body.yPosition = DeltaVGameConfig.SCREEN_HEIGHT / 2 + 70;
+        body.velocityInX = -2.5;
+        body.velocityInY = -1;
+        int evaluations = 0;
+        for (int k = 0; k < steps; k++) {
+            evaluations += integrator.advance(body, field, deltaT);
+        }
+        out[0] = body.xPosition;
+        out[1] = body.yPosition;
+        return evaluations;
+    }
+
+    private static double distance(double[] a, double[] b) {
+        return Math.sqrt((a[0] - b[0]) * (a[0] - b[0]) + (a[1] - b[1]) * (a[1] - b[1]));
+    }
+}
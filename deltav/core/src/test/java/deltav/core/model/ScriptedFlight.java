@@ -0,0 +1,23 @@
+package deltav.core.model;
+
+/**
+ * The flight tests use when they need a game with something going on: the
+ * ship thrusts in bursts and turns back and forth, so it wanders the world,
+ * burns fuel and captures debris, the same way every time.
+ */
+public class ScriptedFlight {
+
+    private ScriptedFlight() {
+    }
+
+    /**
+     * Set the ship's controls for a tick of the script.
+     *
+     * @param ship The ship to fly.
+     * @param tick The tick, counting from the start of the script.
+     */
+    public static void fly(DeltaVShip ship, int tick) {
+        ship.setThrusting(tick % 70 < 25);
+        ship.setRotationDirection(tick % 150 < 40 ? 1 : (tick % 150 < 60 ? -1 : 0));
+    }
+}
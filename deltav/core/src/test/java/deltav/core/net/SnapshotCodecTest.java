@@ -0,0 +1,201 @@
+package deltav.core.net;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.model.ScriptedFlight;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SnapshotCodecTest {
+
+    /**
+     * Encode a running world's snapshots and check the decoder always agrees
+     * with the encoder about what the client believes, through debris
+     * respawning, the ship flying about and its heading wrapping round.
+     * Without a budget, every piece of debris should be within the tolerance
+     * of where it really is.
+     * @throws Exception
+     */
+    @Test
+    public void testRoundTrip() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(5000, 7L);
+        SnapshotEncoder encoder = new SnapshotEncoder();
+        SnapshotDecoder decoder = new SnapshotDecoder();
+        PacketWriter packet = new PacketWriter(1024);
+        WorldSnapshot sent = new WorldSnapshot();
+        WorldSnapshot received = new WorldSnapshot();
+
+        int keyframeLength = 0;
+        long totalLength = 0;
+        for (int tick = 1; tick <= 2000; tick++) {
+            ScriptedFlight.fly(world.getShip(), tick);
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+            if (tick % 5 != 0) {
+                continue;
+            }
+
+            sent.capture(world, tick);
+            packet.reset();
+            encoder.encode(sent, packet);
+            decoder.decode(packet.getBytes(), 0, packet.getLength(), received);
+            assertSame(encoder.believed, received);
+            assertClose(sent, received, SnapshotCodec.TOLERANCE);
+            if (tick == 5) {
+                keyframeLength = packet.getLength();
+            } else {
+                totalLength += packet.getLength();
+            }
+        }
+
+        assertTrue("expected some captures", world.getScore() > 0);
+        double averageLength = totalLength / 399D;
+        assertTrue("average correction is " + averageLength + " bytes, keyframe " + keyframeLength,
+                averageLength < keyframeLength / 4D);
+    }
+
+    /**
+     * With a tight budget, packets stay under it, the decoder still agrees
+     * with the encoder, and debris that is left uncorrected on one snapshot
+     * is caught up on later ones once things calm down.
+     * @throws Exception
+     */
+    @Test
+    public void testBudget() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(5000, 8L);
+        SnapshotEncoder encoder = new SnapshotEncoder();
+        SnapshotDecoder decoder = new SnapshotDecoder();
+        PacketWriter packet = new PacketWriter(1024);
+        WorldSnapshot sent = new WorldSnapshot();
+        WorldSnapshot received = new WorldSnapshot();
+
+        int budget = 512;
+        for (int tick = 1; tick <= 1000; tick++) {
+            ScriptedFlight.fly(world.getShip(), tick);
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+            if (tick % 5 != 0) {
+                continue;
+            }
+
+            sent.capture(world, tick);
+            packet.reset();
+            encoder.encode(sent, packet, budget);
+            decoder.decode(packet.getBytes(), 0, packet.getLength(), received);
+            assertSame(encoder.believed, received);
+            if (tick > 5) {
+                assertTrue("packet is " + packet.getLength() + " bytes", packet.getLength() <= budget);
+            }
+        }
+
+        // Keep sending the last snapshot again.  Nothing coasts, so
+        // everything should be corrected within a few packets.
+        for (int k = 0; k < 100; k++) {
+            packet.reset();
+            encoder.encode(sent, packet, budget);
+            decoder.decode(packet.getBytes(), 0, packet.getLength(), received);
+        }
+        assertClose(sent, received, SnapshotCodec.TOLERANCE);
+    }
+
+    /**
+     * A difference can't be decoded without the keyframe before it, and
+     * resetting the encoder sends a fresh keyframe.
+     * @throws Exception
+     */
+    @Test
+    public void testKeyframeRequired() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(100, 3L);
+        SnapshotEncoder encoder = new SnapshotEncoder();
+        PacketWriter packet = new PacketWriter(1024);
+        WorldSnapshot snapshot = new WorldSnapshot();
+
+        snapshot.capture(world, 1);
+        encoder.encode(snapshot, packet);
+        world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        snapshot.capture(world, 2);
+        packet.reset();
+        encoder.encode(snapshot, packet);
+
+        SnapshotDecoder decoder = new SnapshotDecoder();
+        WorldSnapshot received = new WorldSnapshot();
+        try {
+            decoder.decode(packet.getBytes(), 0, packet.getLength(), received);
+            fail("decoded a difference without its keyframe");
+        } catch (IllegalArgumentException expected) {
+            // Good.
+        }
+
+        encoder.reset();
+        packet.reset();
+        encoder.encode(snapshot, packet);
+        decoder.decode(packet.getBytes(), 0, packet.getLength(), received);
+        assertSame(snapshot, received);
+    }
+
+    /**
+     * A skip past the last debris slot is rejected, even one so big that
+     * adding it would wrap the slot index around.
+     * @throws Exception
+     */
+    @Test
+    public void testOversizedSkip() throws Exception {
+        int[] skips = {11, Integer.MAX_VALUE};
+        for (int skip : skips) {
+            PacketWriter packet = new PacketWriter(64);
+            packet.writeVarInt(1);
+            packet.writeByte(SnapshotCodec.FLAG_KEYFRAME);
+            packet.writeVarInt(10);
+            for (int k = 0; k < 5; k++) {
+                packet.writeVarInt(0);
+            }
+            // Slot 0 alive, then the skip.
+            packet.writeVarInt(1);
+            for (int k = 0; k < 4; k++) {
+                packet.writeSignedVarInt(0);
+            }
+            packet.writeVarInt(skip << 1);
+
+            try {
+                new SnapshotDecoder().decode(packet.getBytes(), 0, packet.getLength(), new WorldSnapshot());
+                fail("decoded a skip of " + skip + " past the last slot");
+            } catch (IllegalArgumentException expected) {
+                // Good.
+            }
+        }
+    }
+
+    /**
+     * Check two snapshots hold the same state.
+     */
+    static void assertSame(WorldSnapshot expected, WorldSnapshot actual) {
+        assertEquals(expected.tick, actual.tick);
+        assertEquals(expected.score, actual.score);
+        assertEquals(expected.fuel, actual.fuel);
+        assertEquals(expected.gameOver, actual.gameOver);
+        assertEquals(expected.thrusting, actual.thrusting);
+        assertEquals(expected.shipX, actual.shipX);
+        assertEquals(expected.shipY, actual.shipY);
+        assertEquals(expected.shipHeading, actual.shipHeading);
+        assertEquals(expected.capacity, actual.capacity);
+        for (int i = 0; i < expected.capacity; i++) {
+            assertEquals(expected.alive[i], actual.alive[i]);
+            assertEquals(expected.debrisX[i], actual.debrisX[i]);
+            assertEquals(expected.debrisY[i], actual.debrisY[i]);
+            assertEquals(expected.debrisVelocityX[i], actual.debrisVelocityX[i]);
+            assertEquals(expected.debrisVelocityY[i], actual.debrisVelocityY[i]);
+        }
+    }
+
+    /**
+     * Check a snapshot has the same debris alive as another, and every piece
+     * within the given distance, in fixed point.
+     */
+    static void assertClose(WorldSnapshot expected, WorldSnapshot actual, int tolerance) {
+        assertEquals(expected.capacity, actual.capacity);
+        for (int i = 0; i < expected.capacity; i++) {
+            assertEquals(expected.alive[i], actual.alive[i]);
+            assertTrue("debris " + i + " is off", Math.abs(expected.debrisX[i] - actual.debrisX[i]) <= tolerance);
+            assertTrue("debris " + i + " is off", Math.abs(expected.debrisY[i] - actual.debrisY[i]) <= tolerance);
+        }
+    }
+}
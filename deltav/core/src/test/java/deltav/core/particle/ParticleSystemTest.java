@@ -0,0 +1,131 @@
+package deltav.core.particle;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.event.GameEventRing;
+import deltav.core.model.BlackHole;
+import deltav.core.model.DeltaVShip;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.model.GravityField;
+import deltav.core.model.ScriptedFlight;
+import deltav.core.util.GravityUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ParticleSystemTest {
+
+    /**
+     * The pool never grows: emitting into a full pool fails, and particles
+     * die once their time is up, leaving their slots to new ones.
+     * @throws Exception
+     */
+    @Test
+    public void testFixedCapacity() throws Exception {
+        GravityField field = new GravityField(0, 0, 1000, 1000, 8);
+        ParticleSystem particles = new ParticleSystem(100);
+        for (int k = 0; k < 100; k++) {
+            assertTrue(particles.emit(10, 10 + k, 0, 0, k < 50 ? 30 : 1000));
+        }
+        assertFalse(particles.emit(10, 10, 0, 0, 1000));
+        assertEquals(100, particles.getCount());
+
+        for (int tick = 0; tick < 3; tick++) {
+            particles.update(10, field);
+        }
+        assertEquals(50, particles.getCount());
+        for (int i = 0; i < particles.getCount(); i++) {
+            assertEquals(1 - 30 / 1000F, particles.getRemaining(i), 1e-6);
+        }
+        assertTrue(particles.emit(10, 10, 0, 0, 1000));
+    }
+
+    /**
+     * Particles fall under the same field as the world's objects, and die
+     * when they reach a black hole.
+     * @throws Exception
+     */
+    @Test
+    public void testGravity() throws Exception {
+        GravityField field = new GravityField(0, 0, 1000, 1000, 8);
+        field.addBlackHole(new BlackHole(500, 500, 50, 50, DeltaVGameConfig.GRAVITY));
+        ParticleSystem particles = new ParticleSystem(10);
+        particles.emit(300, 300, 0, 0, 100000);
+
+        GravityUtil.ForceOfGravity force = new GravityUtil.ForceOfGravity();
+        field.rebuildIfNeeded();
+        field.sample(300, 300, force);
+        particles.update(10, field);
+        assertEquals(force.forceInX * 10 / 1000, particles.getVelocityInX(0), 1e-5);
+        assertEquals(force.forceInY * 10 / 1000, particles.getVelocityInY(0), 1e-5);
+        assertEquals(300, particles.getPreviousxPosition(0), 0);
+        assertTrue(particles.getxPosition(0) > 300);
+        assertTrue(particles.getyPosition(0) > 300);
+
+        // One heading into the black hole dies there.
+        particles.emit(500, 465, 0, 20, 100000);
+        particles.update(10, field);
+        assertEquals(1, particles.getCount());
+        assertTrue(particles.getxPosition(0) < 500);
+    }
+
+    /**
+     * The thruster leaves exhaust behind the ship.
+     * @throws Exception
+     */
+    @Test
+    public void testExhaust() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(20, 21L);
+        ParticleEffects effects = new ParticleEffects(new ParticleSystem(100), null);
+        ParticleSystem particles = effects.getParticles();
+        DeltaVShip ship = world.getShip();
+        ship.setHeading(0);
+        world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        effects.update(world, DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        assertEquals(0, particles.getCount());
+
+        ship.setThrusting(true);
+        world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        effects.update(world, DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        assertEquals(DeltaVGameConfig.EXHAUST_PARTICLES_PER_TICK, particles.getCount());
+        for (int i = 0; i < particles.getCount(); i++) {
+            // A heading of 0 thrusts up the screen, so exhaust goes down it.
+            assertTrue(particles.getyPosition(i) > ship.getyPosition() + DeltaVGameConfig.SHIP_HEIGHT / 2);
+            assertTrue(particles.getVelocityInY(i) > ship.getVelocityInY());
+        }
+    }
+
+    /**
+     * Captures and swallowed debris throw out bursts, without a particle
+     * past the pool's capacity, and it all fades out once nothing more
+     * happens.
+     * @throws Exception
+     */
+    @Test
+    public void testBursts() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(2000, 21L);
+        GameEventRing ring = new GameEventRing(1024);
+        world.setEventRing(ring);
+        ParticleEffects effects = new ParticleEffects(new ParticleSystem(2000), ring);
+        ParticleSystem particles = effects.getParticles();
+        DeltaVShip ship = world.getShip();
+
+        world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        effects.update(world, DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        assertTrue("expected a capture burst", particles.getCount() >= DeltaVGameConfig.CAPTURE_PARTICLES);
+
+        int captures = world.getScore();
+        for (int tick = 0; tick < 400; tick++) {
+            ScriptedFlight.fly(ship, tick);
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+            effects.update(world, DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+            assertTrue(particles.getCount() <= particles.getCapacity());
+        }
+        assertTrue("expected some captures", world.getScore() > captures);
+
+        ship.setThrusting(false);
+        for (int tick = 0; tick < 200; tick++) {
+            effects.update(world, DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        }
+        assertEquals(0, particles.getCount());
+    }
+}
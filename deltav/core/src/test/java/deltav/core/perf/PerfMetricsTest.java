@@ -0,0 +1,128 @@
+package deltav.core.perf;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.DeltaVWorld;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PerfMetricsTest {
+
+    /**
+     * A clock that only moves when told to.
+     */
+    private static class FakeClock implements PerfMetrics.Clock {
+        long nanos;
+
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+    }
+
+    /**
+     * Percentiles should come out within a bucket - about 3% - of the
+     * exact value, at every scale.
+     * @throws Exception
+     */
+    @Test
+    public void testHistogramPercentiles() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100000; micros++) {
+            histogram.record(micros);
+        }
+        assertEquals(100000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(100000, histogram.getMax());
+        assertEquals(50000, histogram.getMean());
+        assertEquals(50000, histogram.getPercentile(0.5), 50000 * 0.035);
+        assertEquals(99000, histogram.getPercentile(0.99), 99000 * 0.035);
+        assertEquals(100000, histogram.getPercentile(1));
+        assertEquals(10, histogram.getPercentile(0.0001));
+
+        // Every value falls in a bucket whose upper bound is at least it.
+        for (long micros = 0; micros < 1L << 32; micros = micros * 3 / 2 + 1) {
+            int bucket = LatencyHistogram.getBucket(micros);
+            assertTrue(LatencyHistogram.getBucketUpperBound(bucket) >= micros || micros >= 1L << 31);
+            assertTrue(bucket == 0 || LatencyHistogram.getBucketUpperBound(bucket - 1) < micros);
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0.5));
+    }
+
+    /**
+     * Phases, allocations and frame pacing should all be recorded.
+     * @throws Exception
+     */
+    @Test
+    public void testPhasesAndFrames() throws Exception {
+        FakeClock clock = new FakeClock();
+        PerfMetrics metrics = new PerfMetrics(clock);
+        final long[] allocated = new long[1];
+        metrics.setAllocationCounter(new PerfMetrics.AllocationCounter() {
+            @Override
+            public long getAllocatedBytes() {
+                return allocated[0];
+            }
+        });
+
+        // Nested phases.
+        metrics.begin(PerfMetrics.UPDATE);
+        clock.nanos += 1000000;
+        metrics.begin(PerfMetrics.GRAVITY);
+        clock.nanos += 250000;
+        allocated[0] += 64;
+        metrics.end(PerfMetrics.GRAVITY);
+        metrics.end(PerfMetrics.UPDATE);
+        assertEquals(1250, metrics.getHistogram(PerfMetrics.UPDATE).getMax());
+        assertEquals(250, metrics.getHistogram(PerfMetrics.GRAVITY).getMax());
+        assertEquals(64, metrics.getAllocatedBytes(PerfMetrics.GRAVITY));
+        assertEquals(64, metrics.getMaxAllocatedBytes(PerfMetrics.UPDATE));
+
+        // Frames 16ms apart, then one late by 4ms.
+        for (int k = 0; k < 5; k++) {
+            metrics.frame();
+            clock.nanos += 16000000;
+        }
+        clock.nanos += 4000000;
+        metrics.frame();
+        LatencyHistogram intervals = metrics.getHistogram(PerfMetrics.FRAME_INTERVAL);
+        LatencyHistogram jitter = metrics.getHistogram(PerfMetrics.FRAME_JITTER);
+        assertEquals(5, intervals.getCount());
+        assertEquals(20000, intervals.getMax());
+        assertEquals(4, jitter.getCount());
+        assertEquals(0, jitter.getMin());
+        assertEquals(4000, jitter.getMax());
+
+        String report = metrics.report();
+        assertTrue(report.startsWith("name,count,mean,"));
+        assertTrue(report.contains("\ngravity,1,250,250,250,250,250,250,250,64,64\n"));
+        // 16ms lands in the bucket that runs up to 16.127ms.
+        assertTrue(report.contains("\nframe interval,16127,4\n"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getHistogram(PerfMetrics.UPDATE).getCount());
+        assertEquals(0, metrics.getAllocatedBytes(PerfMetrics.GRAVITY));
+    }
+
+    /**
+     * A world with metrics should time each of its phases once per update.
+     * @throws Exception
+     */
+    @Test
+    public void testWorldPhases() throws Exception {
+        FakeClock clock = new FakeClock();
+        PerfMetrics metrics = new PerfMetrics(clock);
+        DeltaVWorld world = new DeltaVWorld(100, 5L);
+        world.setPerfMetrics(metrics);
+        for (int tick = 0; tick < 10; tick++) {
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        }
+        assertEquals(10, metrics.getHistogram(PerfMetrics.GRAVITY).getCount());
+        assertEquals(10, metrics.getHistogram(PerfMetrics.INTEGRATION).getCount());
+        assertEquals(10, metrics.getHistogram(PerfMetrics.COLLISION).getCount());
+        assertEquals(0, metrics.getHistogram(PerfMetrics.UPDATE).getCount());
+    }
+}
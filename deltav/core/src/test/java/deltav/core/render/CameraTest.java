@@ -0,0 +1,59 @@
+package deltav.core.render;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CameraTest {
+
+    /**
+     * The camera keeps what it follows in the middle of the view, but stops
+     * at the edges of the world.
+     * @throws Exception
+     */
+    @Test
+    public void testFollowStopsAtEdges() throws Exception {
+        Camera camera = new Camera(100, 50, 1000, 500);
+
+        camera.follow(400, 300);
+        assertEquals(350, camera.getLeft(), 0);
+        assertEquals(275, camera.getTop(), 0);
+        assertEquals(450, camera.getRight(), 0);
+        assertEquals(325, camera.getBottom(), 0);
+
+        camera.follow(10, 10);
+        assertEquals(0, camera.getLeft(), 0);
+        assertEquals(0, camera.getTop(), 0);
+
+        camera.follow(990, 490);
+        assertEquals(900, camera.getLeft(), 0);
+        assertEquals(450, camera.getTop(), 0);
+    }
+
+    /**
+     * A world smaller than the view sits in the middle of it, wherever the
+     * ship goes.
+     * @throws Exception
+     */
+    @Test
+    public void testSmallWorldIsCentered() throws Exception {
+        Camera camera = new Camera(100, 50, 60, 50);
+        camera.follow(5, 45);
+        assertEquals(-20, camera.getLeft(), 0);
+        assertEquals(0, camera.getTop(), 0);
+    }
+
+    /**
+     * Anything overlapping the view is visible, and nothing else.
+     * @throws Exception
+     */
+    @Test
+    public void testIsVisible() throws Exception {
+        Camera camera = new Camera(100, 50, 1000, 500);
+        camera.follow(400, 300);
+        assertTrue(camera.isVisible(400, 300, 0));
+        assertTrue(camera.isVisible(345, 300, 10));
+        assertFalse(camera.isVisible(335, 300, 10));
+        assertFalse(camera.isVisible(400, 340, 10));
+    }
+}
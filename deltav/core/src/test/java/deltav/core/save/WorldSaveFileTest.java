@@ -0,0 +1,154 @@
+package deltav.core.save;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.BlackHole;
+import deltav.core.model.DebrisField;
+import deltav.core.model.DeltaVShip;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.model.ScriptedFlight;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class WorldSaveFileTest {
+
+    /**
+     * Save a world part way through a game, then check a restored copy plays
+     * on exactly the same as the original.
+     * @throws Exception
+     */
+    @Test
+    public void testRestoreCarriesOnExactly() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(5000, 21L);
+        world.addBlackHole(new BlackHole(200, 150, 30, 30, 5));
+        for (int tick = 0; tick < 400; tick++) {
+            ScriptedFlight.fly(world.getShip(), tick);
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        }
+
+        File file = File.createTempFile("deltav", ".dvs");
+        try {
+            WorldSaveFile.write(world, file);
+            assertEquals(WorldSaveFile.getSize(5000, 2), file.length());
+            DeltaVWorld restored = WorldSaveFile.read(file);
+            assertEquals(21L, restored.getSeed());
+            assertEquals(2, restored.getGravityField().getBlackHoleCount());
+            assertEquals(world.getDebrisField().getCount(), restored.getDebrisField().getCount());
+
+            for (int tick = 400; tick < 800; tick++) {
+                ScriptedFlight.fly(world.getShip(), tick);
+                world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+                ScriptedFlight.fly(restored.getShip(), tick);
+                restored.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+            }
+
+            assertTrue("expected some captures", world.getScore() > 0);
+            assertEquals(world.getScore(), restored.getScore());
+            assertEquals(world.isGameOver(), restored.isGameOver());
+            DeltaVShip ship = world.getShip();
+            DeltaVShip restoredShip = restored.getShip();
+            assertEquals(ship.getFuelRemaining(), restoredShip.getFuelRemaining());
+            assertEquals(ship.getxPosition(), restoredShip.getxPosition(), 0);
+            assertEquals(ship.getyPosition(), restoredShip.getyPosition(), 0);
+            assertEquals(ship.getHeading(), restoredShip.getHeading(), 0);
+            DebrisField field = world.getDebrisField();
+            DebrisField restoredField = restored.getDebrisField();
+            for (int i = 0; i < field.getCapacity(); i++) {
+                assertEquals(field.isAlive(i), restoredField.isAlive(i));
+                assertEquals(field.getxPosition(i), restoredField.getxPosition(i), 0);
+                assertEquals(field.getyPosition(i), restoredField.getyPosition(i), 0);
+                assertEquals(field.getVelocityInX(i), restoredField.getVelocityInX(i), 0);
+                assertEquals(field.getVelocityInY(i), restoredField.getVelocityInY(i), 0);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * A world split into sectors keeps its size and carries on with the same
+     * dormant sectors' turns after it is restored.
+     * @throws Exception
+     */
+    @Test
+    public void testRestoreLargeWorld() throws Exception {
+        int width = DeltaVGameConfig.SCREEN_WIDTH * 6;
+        int height = DeltaVGameConfig.SCREEN_HEIGHT * 6;
+        DeltaVWorld world = new DeltaVWorld(8000, 9L, width, height);
+        for (int tick = 0; tick < 203; tick++) {
+            ScriptedFlight.fly(world.getShip(), tick);
+            world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        }
+
+        File file = File.createTempFile("deltav", ".dvs");
+        try {
+            WorldSaveFile.write(world, file);
+            DeltaVWorld restored = WorldSaveFile.read(file);
+            assertEquals(width, restored.getWidth());
+            assertEquals(height, restored.getHeight());
+            assertNotNull(restored.getSectors());
+            assertEquals(world.getDormantPhase(), restored.getDormantPhase());
+
+            for (int tick = 203; tick < 403; tick++) {
+                ScriptedFlight.fly(world.getShip(), tick);
+                world.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+                ScriptedFlight.fly(restored.getShip(), tick);
+                restored.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+            }
+            assertEquals(world.getScore(), restored.getScore());
+            assertEquals(world.getShip().getxPosition(), restored.getShip().getxPosition(), 0);
+            DebrisField field = world.getDebrisField();
+            DebrisField restoredField = restored.getDebrisField();
+            for (int i = 0; i < field.getCapacity(); i++) {
+                assertEquals(field.getxPosition(i), restoredField.getxPosition(i), 0);
+                assertEquals(field.getyPosition(i), restoredField.getyPosition(i), 0);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * A save that didn't finish, or was cut short, doesn't read back.
+     * @throws Exception
+     */
+    @Test
+    public void testIncompleteSaveIsRejected() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(100, 5L);
+        File file = File.createTempFile("deltav", ".dvs");
+        try {
+            WorldSaveFile.write(world, file);
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(file.length() - 8);
+            } finally {
+                raf.close();
+            }
+            assertUnreadable(file);
+
+            WorldSaveFile.write(world, file);
+            raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.write(0);
+            } finally {
+                raf.close();
+            }
+            assertUnreadable(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void assertUnreadable(File file) {
+        try {
+            WorldSaveFile.read(file);
+            fail("read an incomplete save");
+        } catch (IOException expected) {
+            // Good.
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package deltav.core.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BarnesHutTreeTest {
+
+    private static BarnesHutTree randomTree(int bodies) {
+        BarnesHutTree tree = new BarnesHutTree(200, 10, 16);
+        Random r = new Random(7);
+        for (int b = 0; b < bodies; b++) {
+            tree.add(r.nextDouble() * 1200, r.nextDouble() * 850, 1 + r.nextInt(3), b);
+        }
+        // A couple of bodies on top of each other, to exercise the depth cap.
+        tree.add(600, 425, 1, bodies);
+        tree.add(600, 425, 1, bodies + 1);
+        tree.build();
+        return tree;
+    }
+
+    /**
+     * With an opening angle of zero the tree never approximates, so it should
+     * agree with brute force to within rounding.
+     * @throws Exception
+     */
+    @Test
+    public void testZeroThetaMatchesBruteForce() throws Exception {
+        BarnesHutTree tree = randomTree(500);
+        GravityUtil.ForceOfGravity expected = new GravityUtil.ForceOfGravity();
+        GravityUtil.ForceOfGravity actual = new GravityUtil.ForceOfGravity();
+        for (int id = 0; id < 502; id += 7) {
+            double x = id * 2.3;
+            double y = id * 1.7;
+            tree.accelerationAtBruteForce(x, y, id, expected);
+            tree.accelerationAt(x, y, id, 0, actual);
+            assertEquals(expected.forceInX, actual.forceInX, 1e-9);
+            assertEquals(expected.forceInY, actual.forceInY, 1e-9);
+        }
+    }
+
+    /**
+     * The usual opening angle should stay within a few percent of the exact
+     * answer.
+     * @throws Exception
+     */
+    @Test
+    public void testApproximationIsClose() throws Exception {
+        BarnesHutTree tree = randomTree(5000);
+        GravityUtil.ForceOfGravity expected = new GravityUtil.ForceOfGravity();
+        GravityUtil.ForceOfGravity actual = new GravityUtil.ForceOfGravity();
+        double errorSquared = 0;
+        double magnitudeSquared = 0;
+        for (int id = 0; id < 5000; id += 13) {
+            tree.accelerationAtBruteForce(id % 1200, id % 850, id, expected);
+            tree.accelerationAt(id % 1200, id % 850, id, 0.5, actual);
+            double dx = expected.forceInX - actual.forceInX;
+            double dy = expected.forceInY - actual.forceInY;
+            errorSquared += dx * dx + dy * dy;
+            magnitudeSquared += expected.forceInX * expected.forceInX + expected.forceInY * expected.forceInY;
+        }
+        assertTrue(Math.sqrt(errorSquared / magnitudeSquared) < 0.02);
+    }
+}
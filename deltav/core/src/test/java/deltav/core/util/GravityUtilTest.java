@@ -0,0 +1,45 @@
+package deltav.core.util;
+
+import deltav.core.config.DeltaVGameConfig;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GravityUtilTest {
+
+    /**
+     * Sweep the whole area debris can reach, including the capped region
+     * around the black hole and the axes through the center, and check the
+     * allocation-free kernel against the original trig-based calculation.
+     * @throws Exception
+     */
+    @Test
+    public void testComputeForceOfGravityMatchesReference() throws Exception {
+        GravityUtil.ForceOfGravity force = new GravityUtil.ForceOfGravity();
+        double minX = -DeltaVGameConfig.SCREEN_WIDTH * .1;
+        double maxX = DeltaVGameConfig.SCREEN_WIDTH * 1.1;
+        double minY = -DeltaVGameConfig.SCREEN_HEIGHT * .1;
+        double maxY = DeltaVGameConfig.SCREEN_HEIGHT * 1.1;
+        for (double x = minX; x <= maxX; x += 2.5) {
+            for (double y = minY; y <= maxY; y += 2.5) {
+                if (x == DeltaVGameConfig.SCREEN_WIDTH / 2 && y == DeltaVGameConfig.SCREEN_HEIGHT / 2) {
+                    // The reference is undefined (NaN) at dead center.
+                    continue;
+                }
+                GravityUtil.ForceOfGravity expected = GravityUtil.getForceOfGravityAt(x, y);
+                GravityUtil.computeForceOfGravityAt(x, y, force);
+                assertEquals("x at " + x + "," + y, expected.forceInX, force.forceInX, 1e-12);
+                assertEquals("y at " + x + "," + y, expected.forceInY, force.forceInY, 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testComputeForceOfGravityAtCenter() throws Exception {
+        GravityUtil.ForceOfGravity force = new GravityUtil.ForceOfGravity();
+        GravityUtil.computeForceOfGravityAt(DeltaVGameConfig.SCREEN_WIDTH / 2,
+                DeltaVGameConfig.SCREEN_HEIGHT / 2, force);
+        assertEquals(0, force.forceInX, 0);
+        assertEquals(0, force.forceInY, 0);
+    }
+}
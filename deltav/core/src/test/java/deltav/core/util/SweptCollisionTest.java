@@ -0,0 +1,69 @@
+package deltav.core.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SweptCollisionTest {
+
+    /**
+     * A point that jumps clean over a box in one step still hits it, at the
+     * time it reaches the near edge, and one that passes beside it doesn't.
+     * @throws Exception
+     */
+    @Test
+    public void testSegmentTunnelling() throws Exception {
+        assertEquals(0.25, SweptCollision.segmentHitsBox(0, 50, 200, 50, 50, 100, 25, 75), 1e-12);
+        assertEquals(0.5, SweptCollision.segmentHitsBox(100, 200, 100, 0, 75, 125, 50, 100), 1e-12);
+        assertEquals(SweptCollision.MISS, SweptCollision.segmentHitsBox(0, 0, 200, 20, 50, 100, 25, 75), 0);
+        assertEquals(SweptCollision.MISS, SweptCollision.segmentHitsBox(0, 50, 40, 50, 50, 100, 25, 75), 0);
+
+        // Diagonally past a corner.
+        assertEquals(SweptCollision.MISS, SweptCollision.segmentHitsBox(0, 60, 60, 0, 50, 100, 25, 75), 0);
+        assertTrue(SweptCollision.segmentHitsBox(0, 90, 90, 0, 50, 100, 25, 75) > 0);
+    }
+
+    /**
+     * Whatever the point-in-box check catches, the swept check does too,
+     * with the same edges included.
+     * @throws Exception
+     */
+    @Test
+    public void testSegmentAgreesWithPointCheck() throws Exception {
+        // Starting inside hits straight away, standing still or not.
+        assertEquals(0, SweptCollision.segmentHitsBox(60, 60, 60, 60, 50, 100, 25, 75), 0);
+        assertEquals(0, SweptCollision.segmentHitsBox(60, 60, 300, 300, 50, 100, 25, 75), 0);
+
+        // Ending inside hits.
+        assertTrue(SweptCollision.segmentHitsBox(0, 0, 60, 60, 50, 100, 25, 75) > 0);
+        assertEquals(1, SweptCollision.segmentHitsBox(100.5, 50, 100, 50, 50, 100, 25, 75), 0);
+
+        // The left and top edges are outside; the right and bottom inside.
+        assertEquals(SweptCollision.MISS, SweptCollision.segmentHitsBox(50, 60, 50, 70, 50, 100, 25, 75), 0);
+        assertEquals(SweptCollision.MISS, SweptCollision.segmentHitsBox(60, 25, 70, 25, 50, 100, 25, 75), 0);
+        assertEquals(0, SweptCollision.segmentHitsBox(100, 60, 100, 70, 50, 100, 25, 75), 0);
+        assertEquals(0, SweptCollision.segmentHitsBox(60, 75, 70, 75, 50, 100, 25, 75), 0);
+    }
+
+    /**
+     * Circles that pass through each other in one step touch when their
+     * centers first come within the sum of their radii.
+     * @throws Exception
+     */
+    @Test
+    public void testCirclesTouch() throws Exception {
+        // Head on, closing 100 over the step, touching when 20 apart.
+        assertEquals(0.3, SweptCollision.circlesTouch(50, 0, -100, 0, 20), 1e-12);
+
+        // Already overlapping.
+        assertEquals(0, SweptCollision.circlesTouch(10, 0, -100, 0, 20), 0);
+
+        // Moving apart, passing too wide, and not getting there in time.
+        assertEquals(SweptCollision.MISS, SweptCollision.circlesTouch(50, 0, 100, 0, 20), 0);
+        assertEquals(SweptCollision.MISS, SweptCollision.circlesTouch(50, 30, -100, 0, 20), 0);
+        assertEquals(SweptCollision.MISS, SweptCollision.circlesTouch(500, 0, -100, 0, 20), 0);
+
+        // A glancing pass: 50 along and 12 across touches at 50 - 16 along.
+        assertEquals(0.34, SweptCollision.circlesTouch(50, 12, -100, 0, 20), 1e-12);
+    }
+}
@@ -0,0 +1,49 @@
+package deltav.core.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class UniformGridTest {
+
+    @Test
+    public void testQueryFindsOnlyNearbyObjects() throws Exception {
+        UniformGrid grid = new UniformGrid(0, 0, 1000, 1000, 100, 4);
+        grid.update(0, 50, 50);
+        grid.update(1, 150, 50);
+        grid.update(2, 950, 950);
+        grid.update(3, 60, 40);
+
+        int[] out = new int[4];
+        int count = grid.query(0, 99, 0, 99, out);
+        Arrays.sort(out, 0, count);
+        assertEquals(2, count);
+        assertEquals(0, out[0]);
+        assertEquals(3, out[1]);
+    }
+
+    @Test
+    public void testUpdateMovesAndRemoveUnlinks() throws Exception {
+        UniformGrid grid = new UniformGrid(0, 0, 1000, 1000, 100, 3);
+        grid.update(0, 50, 50);
+        grid.update(1, 50, 50);
+        grid.update(2, 50, 50);
+
+        // Move the middle of the list to another cell, then remove the head.
+        grid.update(1, 550, 550);
+        grid.remove(2);
+
+        int[] out = new int[3];
+        assertEquals(1, grid.query(0, 99, 0, 99, out));
+        assertEquals(0, out[0]);
+        assertEquals(1, grid.query(500, 599, 500, 599, out));
+        assertEquals(1, out[0]);
+
+        // Anything off the edge of the grid lands in the nearest cell.
+        grid.update(2, -500, 5000);
+        assertEquals(1, grid.query(0, 1, 999, 1000, out));
+        assertEquals(2, out[0]);
+    }
+}
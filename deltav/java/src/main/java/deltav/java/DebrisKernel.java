@@ -0,0 +1,27 @@
+package deltav.java;
+
+import deltav.core.model.DebrisField;
+import deltav.core.model.Integrator;
+
+/**
+ * Integrates a range of the debris field, the inner loop of
+ * ForkJoinDebrisStepper.  Every kernel must give exactly the results of
+ * DebrisField.updatePhysics over the same range, down to the last bit, so
+ * which one runs never changes the game.  Get one from DebrisKernels, which
+ * picks the fastest this JVM can run.
+ *
+ * A kernel may keep scratch space, so each thread needs its own.
+ */
+public interface DebrisKernel {
+
+    /**
+     * Update the physics for the live pieces in a range of slots.
+     *
+     * @param field The debris to step.
+     * @param from The first slot to update.
+     * @param to One past the last slot to update.
+     * @param deltaT The number of millis since the last update.
+     * @param body Scratch space for the integrator.
+     */
+    void updatePhysics(DebrisField field, int from, int to, int deltaT, Integrator.Body body);
+}
@@ -0,0 +1,84 @@
+package deltav.java;
+
+import deltav.core.model.DebrisField;
+import deltav.core.model.Integrator;
+
+/**
+ * Picks a DebrisKernel.  On a JDK with the incubating Vector API, and run
+ * with --add-modules jdk.incubator.vector, that is VectorDebrisKernel, which
+ * the JDK 16+ build compiles from src/main/java16.  Anywhere else - an older
+ * JDK, a build without it, or the module not added - it is the scalar
+ * kernel, which is just DebrisField's own loop.
+ *
+ * Run with -Ddeltav.vector=false to use the scalar kernel regardless.
+ */
+public class DebrisKernels {
+
+    private static final String VECTOR_PROPERTY = "deltav.vector";
+
+    private static final String VECTOR_KERNEL = "deltav.java.VectorDebrisKernel";
+
+    /**
+     * The scalar kernel, which keeps no state, so can be shared.
+     */
+    public static final DebrisKernel SCALAR = new DebrisKernel() {
+        @Override
+        public void updatePhysics(DebrisField field, int from, int to, int deltaT, Integrator.Body body) {
+            field.updatePhysics(from, to, deltaT, body);
+        }
+    };
+
+    /**
+     * The vector kernel's class, or null if we can't run it.
+     */
+    private static final Class<?> vectorKernel = findVectorKernel();
+
+    private DebrisKernels() {
+    }
+
+    /**
+     * A kernel for one thread, the fastest we can run.
+     */
+    public static DebrisKernel create() {
+        if (vectorKernel == null || !Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true"))) {
+            return SCALAR;
+        }
+        DebrisKernel kernel = createVector();
+        return kernel != null ? kernel : SCALAR;
+    }
+
+    /**
+     * A vector kernel for one thread, or null if we can't run one.
+     */
+    public static DebrisKernel createVector() {
+        if (vectorKernel == null) {
+            return null;
+        }
+        try {
+            return (DebrisKernel)vectorKernel.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    public static boolean isVectorAvailable() {
+        return vectorKernel != null;
+    }
+
+    /**
+     * Load the vector kernel and make one, to be sure the Vector API is
+     * really there; without the incubator module, that fails with a
+     * LinkageError rather than a ClassNotFoundException.
+     */
+    private static Class<?> findVectorKernel() {
+        try {
+            Class<?> kernel = Class.forName(VECTOR_KERNEL);
+            kernel.getDeclaredConstructor().newInstance();
+            return kernel;
+        } catch (ReflectiveOperationException e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+}
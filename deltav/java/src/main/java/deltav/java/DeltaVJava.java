@@ -5,15 +5,224 @@ import playn.core.PlayN;
 import playn.java.JavaPlatform;
 
 import deltav.core.DeltaV;
+import deltav.core.event.GameEventRing;
+import deltav.core.input.InputRecorder;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.perf.PerfMetrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 public class DeltaVJava {
 
+    /**
+     * Run with -Ddeltav.parallel=true to step debris across all cores.
+     */
+    private static final String PARALLEL_PROPERTY = "deltav.parallel";
+
+    /**
+     * Run with -Ddeltav.record=some/file.dvr to save a replay of the game to
+     * that file on exit.  Play it back with DeltaVReplay.
+     */
+    private static final String RECORD_PROPERTY = "deltav.record";
+
+    /**
+     * Run with -Ddeltav.connect=host:port to play on a game server instead
+     * of locally.
+     */
+    private static final String CONNECT_PROPERTY = "deltav.connect";
+
+    /**
+     * Run with -Ddeltav.perf=some/file.csv to save the perf metrics to that
+     * file on exit.  Press F3 in game to see them as they are.
+     */
+    private static final String PERF_PROPERTY = "deltav.perf";
+
+    /**
+     * Run with -Ddeltav.worldScale=4 to play in a world four times the
+     * screen's width and height, with the debris to match.  Such games
+     * aren't recorded.
+     */
+    private static final String WORLD_SCALE_PROPERTY = "deltav.worldScale";
+
+    /**
+     * Run with -Ddeltav.events=some/file.csv to log every capture, black
+     * hole contact and game over to that file as it happens.
+     */
+    private static final String EVENTS_PROPERTY = "deltav.events";
+
+    /**
+     * How often the event log catches up with the game.
+     */
+    private static final long EVENT_LOG_INTERVAL_MILLIS = 100;
+
+    /**
+     * Run with -Ddeltav.threaded=true to step the world on a thread of its
+     * own, apart from the rendering.  Such games have no perf overlay,
+     * events or recording.
+     */
+    private static final String THREADED_PROPERTY = "deltav.threaded";
+
     public static void main(String[] args) {
         JavaPlatform.Config config = new JavaPlatform.Config();
         // use config to customize the Java platform, if needed
         config.width = DeltaVGameConfig.SCREEN_WIDTH;
         config.height = DeltaVGameConfig.SCREEN_HEIGHT;
         JavaPlatform.register(config);
-        PlayN.run(new DeltaV());
+
+        String connect = System.getProperty(CONNECT_PROPERTY);
+        if (connect != null) {
+            int colon = connect.lastIndexOf(':');
+            PlayN.run(new RemoteDeltaV(new InetSocketAddress(connect.substring(0, colon),
+                    Integer.parseInt(connect.substring(colon + 1)))));
+            return;
+        }
+
+        int scale = Integer.getInteger(WORLD_SCALE_PROPERTY, 1);
+        if (Boolean.getBoolean(THREADED_PROPERTY)) {
+            DeltaVWorld world = new DeltaVWorld(DeltaVGameConfig.NUMBER_OF_DEBRIS_PIECES * scale * scale,
+                    new Random().nextLong(),
+                    DeltaVGameConfig.WORLD_WIDTH * scale, DeltaVGameConfig.WORLD_HEIGHT * scale);
+            if (Boolean.getBoolean(PARALLEL_PROPERTY)) {
+                world.setDebrisStepper(new ForkJoinDebrisStepper(new ForkJoinPool()));
+            }
+            PlayN.run(new ThreadedDeltaV(world));
+            return;
+        }
+
+        DeltaV game = new DeltaV();
+        if (Boolean.getBoolean(PARALLEL_PROPERTY)) {
+            game.setDebrisStepper(new ForkJoinDebrisStepper(new ForkJoinPool()));
+        }
+        if (scale > 1) {
+            game.setWorld(new DeltaVWorld(DeltaVGameConfig.NUMBER_OF_DEBRIS_PIECES * scale * scale,
+                    new Random().nextLong(),
+                    DeltaVGameConfig.WORLD_WIDTH * scale, DeltaVGameConfig.WORLD_HEIGHT * scale));
+        }
+        game.setPerfMetrics(createPerfMetrics());
+        String perfPath = System.getProperty(PERF_PROPERTY);
+        if (perfPath != null) {
+            savePerfMetricsOnExit(game, perfPath);
+        }
+        String eventsPath = System.getProperty(EVENTS_PROPERTY);
+        if (eventsPath != null) {
+            logEvents(game.getEventRing(), eventsPath);
+        }
+        String recordPath = System.getProperty(RECORD_PROPERTY);
+        if (recordPath != null) {
+            game.setRecordingInput(true);
+            saveReplayOnExit(game, recordPath);
+        }
+        PlayN.run(game);
+    }
+
+    /**
+     * Metrics timed with System.nanoTime, which is finer than PlayN's clock,
+     * and counting allocations if the JVM can.
+     */
+    private static PerfMetrics createPerfMetrics() {
+        PerfMetrics metrics = new PerfMetrics(new PerfMetrics.Clock() {
+            @Override
+            public long nanoTime() {
+                return System.nanoTime();
+            }
+        });
+        metrics.setAllocationCounter(ThreadAllocationCounter.create());
+        return metrics;
+    }
+
+    private static void savePerfMetricsOnExit(final DeltaV game, final String path) {
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                String report;
+                synchronized (game) {
+                    report = game.getPerfMetrics().report();
+                }
+                try {
+                    Files.write(Paths.get(path), report.getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    System.err.println("Couldn't save perf metrics to " + path + ": " + e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Write the game's events to a file from a thread of our own, so the
+     * game never waits on the disk.
+     */
+    private static void logEvents(GameEventRing ring, String path) {
+        final GameEventRing.Consumer consumer = ring.newConsumer();
+        final Writer out;
+        try {
+            out = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8);
+            out.write("event,slot,amount\n");
+        } catch (IOException e) {
+            System.err.println("Couldn't log events to " + path + ": " + e);
+            return;
+        }
+        final StringBuilder lines = new StringBuilder();
+        final GameEventRing.Handler handler = new GameEventRing.Handler() {
+            @Override
+            public void onEvent(int type, int slot, int amount) {
+                lines.append(GameEventRing.getName(type)).append(',').append(slot).append(',')
+                        .append(amount).append('\n');
+            }
+        };
+        Thread thread = new Thread("event log") {
+            private long dropped;
+
+            @Override
+            public void run() {
+                try {
+                    while (true) {
+                        consumer.poll(handler);
+                        if (consumer.getDropped() > dropped) {
+                            lines.append("dropped,-1,").append(consumer.getDropped() - dropped).append('\n');
+                            dropped = consumer.getDropped();
+                        }
+                        out.write(lines.toString());
+                        out.flush();
+                        lines.setLength(0);
+                        Thread.sleep(EVENT_LOG_INTERVAL_MILLIS);
+                    }
+                } catch (InterruptedException | IOException e) {
+                    System.err.println("Stopped logging events: " + e);
+                }
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void saveReplayOnExit(final DeltaV game, final String path) {
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                // The game thread records inside DeltaV.update, which holds
+                // the game's lock, so it can't grow the replay under us.
+                byte[] replay;
+                synchronized (game) {
+                    InputRecorder recorder = game.getInputRecorder();
+                    if (recorder == null) {
+                        return;
+                    }
+                    recorder.finish();
+                    replay = recorder.toByteArray();
+                }
+                try {
+                    Files.write(Paths.get(path), replay);
+                } catch (IOException e) {
+                    System.err.println("Couldn't save replay to " + path + ": " + e);
+                }
+            }
+        });
     }
 }
@@ -0,0 +1,44 @@
+package deltav.java;
+
+import deltav.core.input.InputReplay;
+import deltav.core.model.DeltaVWorld;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Plays back replays saved with -Ddeltav.record, headless and as fast as
+ * possible, and checks each one still ends with the recorded score and fuel.
+ * Exits with status 1 if any of them doesn't, so it can run as part of a
+ * build.
+ *
+ * Usage: DeltaVReplay file.dvr [file.dvr ...]
+ */
+public class DeltaVReplay {
+
+    public static void main(String[] args) throws IOException {
+        boolean allMatched = true;
+        for (String path : args) {
+            InputReplay replay = new InputReplay(Files.readAllBytes(Paths.get(path)));
+
+            long start = System.nanoTime();
+            DeltaVWorld world = replay.run();
+            long elapsedNanos = System.nanoTime() - start;
+
+            boolean matched = world.getScore() == replay.getExpectedScore()
+                    && world.getShip().getFuelRemaining() == replay.getExpectedFuel();
+            allMatched &= matched;
+
+            double gameMillis = (double)replay.getTicks() * replay.getStepMillis();
+            System.out.printf("%s: %s  %d ticks at %.0fx realtime, score %d (expected %d), fuel %d (expected %d)%n",
+                    path, matched ? "OK" : "MISMATCH", replay.getTicks(),
+                    gameMillis / Math.max(elapsedNanos / 1e6, 1e-3),
+                    world.getScore(), replay.getExpectedScore(),
+                    world.getShip().getFuelRemaining(), replay.getExpectedFuel());
+        }
+        if (!allMatched) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package deltav.java;
+
+import deltav.core.model.DebrisEvents;
+import deltav.core.model.DebrisField;
+import deltav.core.model.DebrisStepper;
+import deltav.core.model.Integrator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Steps the debris field across a ForkJoinPool.  The field's slots are split
+ * into fixed partitions; each worker integrates its partition and checks it
+ * for collisions, recording events into a buffer of its own.  The buffers
+ * are then concatenated in partition order, which is slot order, so the
+ * world applies exactly the events the serial step would have - score, fuel
+ * and every respawn come out the same.
+ *
+ * Each partition integrates with the fastest DebrisKernel this JVM can run,
+ * which gives the same results as the field's own loop, only sooner.
+ *
+ * The tasks and buffers are created once and reused every tick.
+ */
+public class ForkJoinDebrisStepper implements DebrisStepper {
+
+    /**
+     * Partitions are a multiple of this many slots, so no two workers share
+     * a word of the field's alive bitmap or, mostly, a cache line.
+     */
+    private static final int SLOT_ALIGNMENT = 64;
+
+    /**
+     * Below this many slots per partition, the fork/join overhead isn't worth
+     * it.
+     */
+    private static final int MIN_SLOTS_PER_PARTITION = 1024;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * How many partitions to aim for per worker, so a slow worker doesn't
+     * hold everyone up.
+     */
+    private final int partitionsPerWorker;
+
+    /**
+     * The per-partition tasks, rebuilt only if the field's capacity changes.
+     */
+    private Partition[] partitions = new Partition[0];
+    private int partitionedCapacity = -1;
+
+    /**
+     * The root task that forks the partitions.
+     */
+    private final StepAll stepAll = new StepAll();
+
+    /**
+     * The arguments for the current tick, read by the partitions.
+     */
+    private DebrisField field;
+    private int deltaT;
+    private double shipTopLeftX;
+    private double shipBottomRightX;
+    private double shipTopLeftY;
+    private double shipBottomRightY;
+    private double shipMovedX;
+    private double shipMovedY;
+
+    public ForkJoinDebrisStepper(ForkJoinPool pool) {
+        this(pool, 4);
+    }
+
+    public ForkJoinDebrisStepper(ForkJoinPool pool, int partitionsPerWorker) {
+        this.pool = pool;
+        this.partitionsPerWorker = partitionsPerWorker;
+    }
+
+    @Override
+    public void step(DebrisField field, int deltaT, double shipTopLeftX, double shipBottomRightX,
+                     double shipTopLeftY, double shipBottomRightY, double shipMovedX, double shipMovedY,
+                     DebrisEvents events) {
+        if (field.getCapacity() != partitionedCapacity) {
+            partition(field.getCapacity());
+        }
+
+        this.field = field;
+        this.deltaT = deltaT;
+        this.shipTopLeftX = shipTopLeftX;
+        this.shipBottomRightX = shipBottomRightX;
+        this.shipTopLeftY = shipTopLeftY;
+        this.shipBottomRightY = shipBottomRightY;
+        this.shipMovedX = shipMovedX;
+        this.shipMovedY = shipMovedY;
+
+        stepAll.reinitialize();
+        pool.invoke(stepAll);
+
+        // Merge in partition order, which is slot order.
+        for (Partition partition : partitions) {
+            events.addAll(partition.events);
+        }
+        this.field = null;
+    }
+
+    /**
+     * Split the slots into partitions.
+     */
+    private void partition(int capacity) {
+        int wanted = Math.max(1, pool.getParallelism() * partitionsPerWorker);
+        int slotsPerPartition = Math.max(MIN_SLOTS_PER_PARTITION, (capacity + wanted - 1) / wanted);
+        slotsPerPartition = (slotsPerPartition + SLOT_ALIGNMENT - 1) / SLOT_ALIGNMENT * SLOT_ALIGNMENT;
+
+        int count = Math.max(1, (capacity + slotsPerPartition - 1) / slotsPerPartition);
+        partitions = new Partition[count];
+        for (int p = 0; p < count; p++) {
+            int from = p * slotsPerPartition;
+            partitions[p] = new Partition(from, Math.min(capacity, from + slotsPerPartition));
+        }
+        partitionedCapacity = capacity;
+    }
+
+    /**
+     * Forks every partition and waits for them all.
+     */
+    private class StepAll extends RecursiveAction {
+        @Override
+        protected void compute() {
+            for (Partition partition : partitions) {
+                partition.reinitialize();
+            }
+            invokeAll(partitions);
+        }
+    }
+
+    /**
+     * Integrates and collides one range of slots.
+     */
+    private class Partition extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+
+        /**
+         * This partition's own kernel, scratch space and event buffer.
+         */
+        private final DebrisKernel kernel = DebrisKernels.create();
+        private final Integrator.Body body = new Integrator.Body();
+        private final DebrisEvents events = new DebrisEvents(16);
+
+        Partition(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            events.clear();
+            kernel.updatePhysics(field, from, to, deltaT, body);
+            field.detectCollisions(from, to, shipTopLeftX, shipBottomRightX,
+                    shipTopLeftY, shipBottomRightY, shipMovedX, shipMovedY, events);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package deltav.java;
+
+import static playn.core.PlayN.*;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.input.ShipControls;
+import deltav.core.input.ShipKeyboardListener;
+import deltav.core.model.DeltaVShip;
+import deltav.core.net.SnapshotInterpolator;
+import deltav.core.render.TextureAtlas;
+import deltav.core.render.WorldRenderer;
+import deltav.server.GameClient;
+import playn.core.*;
+import playn.core.util.Callback;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Plays DeltaV on a game server rather than locally.  There is no world
+ * here: the keyboard drives a stand-in ship whose controls are sent to the
+ * server, and we draw whatever snapshots come back, a little in the past so
+ * there is always a pair to blend between.
+ */
+public class RemoteDeltaV extends Game.Default {
+
+    /**
+     * How many snapshots to keep for interpolation.
+     */
+    private static final int SNAPSHOTS_KEPT = 8;
+
+    private final InetSocketAddress address;
+
+    private GameClient client;
+    private SnapshotInterpolator interpolator;
+
+    /**
+     * The sprites, once their manifest has loaded.
+     */
+    private TextureAtlas sprites;
+
+    /**
+     * Created once we know how much debris the server has.
+     */
+    private WorldRenderer renderer;
+
+    /**
+     * Holds the controls the keyboard sets.  It is never simulated.
+     */
+    private final DeltaVShip controls = new DeltaVShip();
+
+    /**
+     * Our clock, in ticks, as of the most recent paint and the one drawn
+     * before it.
+     */
+    private int updates;
+    private double clock;
+    private double drawnClock;
+
+    public RemoteDeltaV(InetSocketAddress address) {
+        super(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        this.address = address;
+    }
+
+    @Override
+    public void init() {
+        Image bgImage = assets().getImage("images/bg2.jpg");
+        graphics().rootLayer().add(graphics().createImageLayer(bgImage));
+
+        interpolator = new SnapshotInterpolator(SNAPSHOTS_KEPT, DeltaVGameConfig.SNAPSHOT_DELAY_TICKS);
+        try {
+            client = new GameClient(address, interpolator);
+        } catch (IOException e) {
+            throw new RuntimeException("Couldn't connect to " + address, e);
+        }
+        keyboard().setListener(new ShipKeyboardListener(controls));
+        TextureAtlas.load(TextureAtlas.SPRITES, new Callback<TextureAtlas>() {
+            public void onSuccess(TextureAtlas atlas) {
+                sprites = atlas;
+            }
+
+            public void onFailure(Throwable cause) {
+                log().error("Couldn't load " + TextureAtlas.SPRITES, cause);
+            }
+        });
+
+        graphics().rootLayer().add(graphics().createImmediateLayer(new ImmediateLayer.Renderer() {
+            public void render(Surface surface) {
+                surface.clear();
+                double elapsed = clock - drawnClock;
+                drawnClock = clock;
+                if (!interpolator.advance(elapsed) || sprites == null) {
+                    return;
+                }
+                if (renderer == null) {
+                    renderer = new WorldRenderer(interpolator.getTo().getCapacity(), sprites);
+                }
+                renderer.paint(surface, interpolator.getFrom(), interpolator.getTo(), interpolator.getAlpha());
+            }
+        }));
+    }
+
+    @Override
+    public void update(int delta) {
+        updates++;
+        try {
+            client.sendControls(ShipControls.encode(controls));
+            client.poll();
+        } catch (IOException e) {
+            log().error("Lost connection to " + address, e);
+        }
+    }
+
+    @Override
+    public void paint(float alpha) {
+        clock = updates + alpha;
+    }
+}
@@ -0,0 +1,161 @@
+package deltav.java;
+
+import deltav.core.input.ShipControls;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.net.WorldSnapshot;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Steps a world on a thread of its own, on its own fixed clock, so a slow
+ * frame never holds up the physics and a slow tick never holds up a frame.
+ * After every tick the last two ticks' snapshots are published through a
+ * SnapshotExchange for the renderer to blend between.  Nothing else may
+ * touch the world once the thread has started.
+ *
+ * Control changes come in through a queue.  Each tick takes at most one, so
+ * a key tapped and released between two ticks still flies the ship for a
+ * tick; people don't change the controls often enough for the queue to back
+ * up.
+ */
+public class SimulationThread extends Thread {
+
+    /**
+     * How many control changes may wait for the simulation.  Any more are
+     * dropped rather than making the input thread wait.
+     */
+    private static final int CONTROLS_QUEUED = 64;
+
+    /**
+     * If the simulation falls more than this many ticks behind its clock it
+     * gives up catching up on them, rather than running flat out for ever
+     * after one long stall.
+     */
+    private static final int MAX_TICKS_BEHIND = 25;
+
+    private final DeltaVWorld world;
+    private final int stepMillis;
+    private final long stepNanos;
+
+    private final SnapshotExchange exchange = new SnapshotExchange();
+    private final BlockingQueue<Integer> controls = new ArrayBlockingQueue<Integer>(CONTROLS_QUEUED);
+
+    /**
+     * The snapshot of the latest tick, kept to be the from half of the next
+     * pair published.
+     */
+    private final WorldSnapshot latest = new WorldSnapshot();
+
+    private volatile boolean running = true;
+    private volatile int ticks;
+
+    /**
+     * @param world The world to step.  It belongs to this thread from now on.
+     * @param stepMillis How much game time each tick simulates, and how often
+     *                   ticks are run.
+     */
+    public SimulationThread(DeltaVWorld world, int stepMillis) {
+        super("simulation");
+        this.world = world;
+        this.stepMillis = stepMillis;
+        this.stepNanos = TimeUnit.MILLISECONDS.toNanos(stepMillis);
+        setDaemon(true);
+        latest.capture(world, 0);
+    }
+
+    public int getStepMillis() {
+        return stepMillis;
+    }
+
+    /**
+     * The number of ticks run so far.
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Queue a change to the ship's controls, as encoded by ShipControls.
+     * Never waits.
+     *
+     * @return False if the queue was full and the change was dropped.
+     */
+    public boolean sendControls(int encoded) {
+        return controls.offer(encoded);
+    }
+
+    /**
+     * Stop after the current tick, and wait for that to happen.
+     */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(this);
+        join();
+    }
+
+    @Override
+    public void run() {
+        long due = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            if (now < due) {
+                LockSupport.parkNanos(due - now);
+                continue;
+            }
+            tick(due);
+            due += stepNanos;
+            if (now - due > MAX_TICKS_BEHIND * stepNanos) {
+                due = now;
+            }
+        }
+    }
+
+    private void tick(long due) {
+        Integer change = controls.poll();
+        if (change != null) {
+            ShipControls.apply(change, world.getShip());
+        }
+        world.updatePhysics(stepMillis);
+        int tick = ticks + 1;
+
+        exchange.getBackFrom().copyFrom(latest);
+        WorldSnapshot to = exchange.getBackTo();
+        to.capture(world, tick);
+        latest.copyFrom(to);
+        exchange.publish(due);
+        ticks = tick;
+    }
+
+    // For the render thread.
+
+    /**
+     * Take the newest pair of snapshots, if there is one we haven't seen.
+     *
+     * @return True if the pair changed.
+     */
+    public boolean acquire() {
+        return exchange.acquire();
+    }
+
+    /**
+     * The snapshots of the two ticks last acquired, and how far between them
+     * to draw at the given time, from 0 to 1.  We draw a tick behind the
+     * clock, so there is always a pair to blend between; if a tick runs late
+     * the picture holds on the latest one until it arrives.
+     */
+    public WorldSnapshot getFrom() {
+        return exchange.getFrontFrom();
+    }
+
+    public WorldSnapshot getTo() {
+        return exchange.getFrontTo();
+    }
+
+    public float getAlpha(long nanoTime) {
+        double alpha = (double)(nanoTime - exchange.getFrontDueNanos()) / stepNanos;
+        return (float)Math.max(0, Math.min(1, alpha));
+    }
+}
@@ -0,0 +1,99 @@
+package deltav.java;
+
+import deltav.core.net.WorldSnapshot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands pairs of snapshots - the last two ticks, so the renderer can blend
+ * between them - from the simulation thread to the render thread without
+ * either ever waiting for the other.  It is a triple buffer: the simulation
+ * fills the back pair while the renderer draws the front one, and the two
+ * swap their pair with the middle one when they're done.  Neither ever
+ * touches a pair the other holds, and nothing is allocated after
+ * construction.
+ *
+ * If the simulation publishes twice between frames, the renderer only sees
+ * the newer pair; if the renderer draws twice between ticks, it draws the
+ * same pair again.
+ */
+class SnapshotExchange {
+
+    /**
+     * The index of the middle pair, and whether it is newer than the
+     * renderer's.
+     */
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    private final WorldSnapshot[] from = new WorldSnapshot[3];
+    private final WorldSnapshot[] to = new WorldSnapshot[3];
+
+    /**
+     * When the tick in each pair's to snapshot was due, in System.nanoTime.
+     */
+    private final long[] dueNanos = new long[3];
+
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    /**
+     * The pairs held by the simulation and the renderer.
+     */
+    private int back = 0;
+    private int front = 2;
+
+    SnapshotExchange() {
+        for (int k = 0; k < 3; k++) {
+            from[k] = new WorldSnapshot();
+            to[k] = new WorldSnapshot();
+        }
+    }
+
+    // For the simulation thread.
+
+    WorldSnapshot getBackFrom() {
+        return from[back];
+    }
+
+    WorldSnapshot getBackTo() {
+        return to[back];
+    }
+
+    /**
+     * Hand over the back pair, once it has been filled in, and take another
+     * to fill next time.
+     *
+     * @param due When the tick in the pair's to snapshot was due.
+     */
+    void publish(long due) {
+        dueNanos[back] = due;
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    // For the render thread.
+
+    /**
+     * Take the newest pair, if there is one we haven't seen.
+     *
+     * @return True if the front pair changed.
+     */
+    boolean acquire() {
+        if ((middle.get() & FRESH) == 0) {
+            return false;
+        }
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return true;
+    }
+
+    WorldSnapshot getFrontFrom() {
+        return from[front];
+    }
+
+    WorldSnapshot getFrontTo() {
+        return to[front];
+    }
+
+    long getFrontDueNanos() {
+        return dueNanos[front];
+    }
+}
@@ -0,0 +1,63 @@
+package deltav.java;
+
+import deltav.core.perf.PerfMetrics;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Counts the current thread's allocations with HotSpot's ThreadMXBean.  On
+ * some JVMs asking allocates a couple of small arrays itself, so we measure
+ * that once up front and leave it out of every reading.
+ */
+public class ThreadAllocationCounter implements PerfMetrics.AllocationCounter {
+
+    private final com.sun.management.ThreadMXBean threads;
+
+    /**
+     * The bytes one reading allocates, which we subtract from each.
+     */
+    private final long overhead;
+
+    /**
+     * The bytes we have left out so far.
+     */
+    private long correction;
+
+    private ThreadAllocationCounter(com.sun.management.ThreadMXBean threads) {
+        this.threads = threads;
+        long least = Long.MAX_VALUE;
+        for (int k = 0; k < 16; k++) {
+            long before = read();
+            least = Math.min(least, read() - before);
+        }
+        overhead = least;
+    }
+
+    /**
+     * Create a counter, if this JVM can count allocations.
+     *
+     * @return The counter, or null if allocations can't be counted.
+     */
+    public static ThreadAllocationCounter create() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean hotSpotThreads = (com.sun.management.ThreadMXBean)threads;
+        if (!hotSpotThreads.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        hotSpotThreads.setThreadAllocatedMemoryEnabled(true);
+        return new ThreadAllocationCounter(hotSpotThreads);
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        correction += overhead;
+        return read() - correction;
+    }
+
+    private long read() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,132 @@
+package deltav.java;
+
+import static playn.core.PlayN.*;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.input.ShipControls;
+import deltav.core.input.ShipKeyboardListener;
+import deltav.core.model.DeltaVShip;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.render.TextureAtlas;
+import deltav.core.render.WorldRenderer;
+import playn.core.*;
+import playn.core.util.Callback;
+
+/**
+ * Plays DeltaV with the world stepped on a SimulationThread of its own.
+ * PlayN's thread only draws and reads the keyboard: the keyboard drives a
+ * stand-in ship whose controls are queued for the simulation, much as
+ * RemoteDeltaV sends them to a server, and every frame draws the newest
+ * snapshots the simulation has published, without waiting on it.
+ */
+public class ThreadedDeltaV extends Game.Default {
+
+    private final SimulationThread simulation;
+
+    /**
+     * The world's size, read before the simulation thread owns it.
+     */
+    private final int worldWidth;
+    private final int worldHeight;
+
+    /**
+     * The sprites, once their manifest has loaded.
+     */
+    private TextureAtlas sprites;
+
+    /**
+     * Created once the first snapshots have arrived.
+     */
+    private WorldRenderer renderer;
+
+    /**
+     * Holds the controls the keyboard sets.  It is never simulated.
+     */
+    private final DeltaVShip controls = new DeltaVShip();
+
+    /**
+     * The controls last queued for the simulation.
+     */
+    private int sent = ShipControls.NONE;
+
+    /**
+     * @param world The world to play.  It belongs to the simulation thread
+     *              from now on.
+     */
+    public ThreadedDeltaV(DeltaVWorld world) {
+        super(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        worldWidth = world.getWidth();
+        worldHeight = world.getHeight();
+        simulation = new SimulationThread(world, DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+    }
+
+    @Override
+    public void init() {
+        Image bgImage = assets().getImage("images/bg2.jpg");
+        graphics().rootLayer().add(graphics().createImageLayer(bgImage));
+
+        final ShipKeyboardListener shipListener = new ShipKeyboardListener(controls);
+        keyboard().setListener(new Keyboard.Listener() {
+            public void onKeyDown(Keyboard.Event event) {
+                shipListener.onKeyDown(event);
+                sendControls();
+            }
+
+            public void onKeyTyped(Keyboard.TypedEvent event) {
+                shipListener.onKeyTyped(event);
+            }
+
+            public void onKeyUp(Keyboard.Event event) {
+                shipListener.onKeyUp(event);
+                sendControls();
+            }
+        });
+        TextureAtlas.load(TextureAtlas.SPRITES, new Callback<TextureAtlas>() {
+            public void onSuccess(TextureAtlas atlas) {
+                sprites = atlas;
+            }
+
+            public void onFailure(Throwable cause) {
+                log().error("Couldn't load " + TextureAtlas.SPRITES, cause);
+            }
+        });
+
+        graphics().rootLayer().add(graphics().createImmediateLayer(new ImmediateLayer.Renderer() {
+            public void render(Surface surface) {
+                surface.clear();
+                simulation.acquire();
+                if (simulation.getTo().getTick() == 0 || sprites == null) {
+                    return;
+                }
+                if (renderer == null) {
+                    renderer = new WorldRenderer(simulation.getTo().getCapacity(), worldWidth, worldHeight, sprites);
+                }
+                renderer.paint(surface, simulation.getFrom(), simulation.getTo(),
+                        simulation.getAlpha(System.nanoTime()));
+            }
+        }));
+        simulation.start();
+    }
+
+    /**
+     * Queue the controls for the simulation if the keyboard changed them.
+     * Key repeats don't.
+     */
+    private void sendControls() {
+        int encoded = ShipControls.encode(controls);
+        if (encoded != sent && simulation.sendControls(encoded)) {
+            sent = encoded;
+        }
+    }
+
+    @Override
+    public void update(int delta) {
+        // The simulation thread keeps its own time.
+    }
+
+    @Override
+    public void paint(float alpha) {
+        // Nor does PlayN's alpha mean anything to it; the renderer works out
+        // its own from the clock.
+    }
+}
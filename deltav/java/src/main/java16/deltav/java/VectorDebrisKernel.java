@@ -0,0 +1,216 @@
+package deltav.java;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.BlackHole;
+import deltav.core.model.DebrisField;
+import deltav.core.model.GravityField;
+import deltav.core.model.Integrator;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Steps debris a whole vector of slots at a time with the incubating Vector
+ * API: as many as the CPU's widest registers hold, 8 with AVX-512.  Only
+ * built by the JDK 16+ profile; DebrisKernels falls back to the scalar
+ * kernel wherever this can't load.
+ *
+ * This is DebrisField's Verlet step over the precomputed gravity grid, with
+ * every operation done in the same order as the scalar code so the results
+ * are identical to the bit.  There is no fused multiply-add for that reason.
+ * The grid's corners are fetched lane by lane into scratch arrays: on JDK
+ * 17 the Vector API's gathers, masked loads and stores, and conversions to
+ * int are left to slow fallbacks, so instead every load and store is a
+ * whole vector and lanes we aren't stepping are blended back unchanged.
+ *
+ * Pieces within the substep radius of a black hole need several substeps,
+ * a different number each, so they drop out of the vector and are stepped
+ * one at a time by DebrisField, as are slots at the ends of the range that
+ * don't fill a vector.  So is everything if the field isn't integrated the
+ * way this kernel knows.
+ */
+class VectorDebrisKernel implements DebrisKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    /**
+     * The alive bits of one vector's worth of slots.
+     */
+    private static final long LANE_BITS = LANES == 64 ? -1L : (1L << LANES) - 1;
+
+    /**
+     * Scratch space for each lane's position on the grid, the cell it's in,
+     * and the forces at that cell's four corners.
+     */
+    private final double[] gridXs = new double[LANES];
+    private final double[] gridYs = new double[LANES];
+    private final double[] cells = new double[2 * LANES];
+    private final double[] corners = new double[8 * LANES];
+
+    @Override
+    public void updatePhysics(DebrisField field, int from, int to, int deltaT, Integrator.Body body) {
+        GravityField gravityField = field.getGravityField();
+        if (field.getIntegrator() != Integrator.VERLET || gravityField == null
+                || gravityField.getForces() == null || 64 % LANES != 0) {
+            field.updatePhysics(from, to, deltaT, body);
+            return;
+        }
+
+        // Vectors start on a multiple of LANES, so never straddle a word of
+        // the alive bitmap.
+        int start = Math.min(to, (from + LANES - 1) / LANES * LANES);
+        int end = start + (to - start) / LANES * LANES;
+        field.updatePhysics(from, start, deltaT, body);
+        for (int i = start; i < end; i += LANES) {
+            step(field, gravityField, i, deltaT, body);
+        }
+        field.updatePhysics(end, to, deltaT, body);
+    }
+
+    /**
+     * Step the LANES slots from i.
+     */
+    private void step(DebrisField field, GravityField gravityField, int i, int deltaT, Integrator.Body body) {
+        long aliveBits = (field.getAliveBits()[i >>> 6] >>> (i & 63)) & LANE_BITS;
+        if (aliveBits == 0) {
+            return;
+        }
+        double[] x = field.getxPositions();
+        double[] y = field.getyPositions();
+        double[] velocityInX = field.getVelocitiesInX();
+        double[] velocityInY = field.getVelocitiesInY();
+        DoubleVector px = DoubleVector.fromArray(SPECIES, x, i);
+        DoubleVector py = DoubleVector.fromArray(SPECIES, y, i);
+        DoubleVector vx = DoubleVector.fromArray(SPECIES, velocityInX, i);
+        DoubleVector vy = DoubleVector.fromArray(SPECIES, velocityInY, i);
+
+        // Only pieces outside every black hole's substep radius take a
+        // single step, as in GravityField.getSubsteps.
+        VectorMask<Double> single = aliveBits == LANE_BITS
+                ? SPECIES.maskAll(true) : VectorMask.fromLong(SPECIES, aliveBits);
+        double radius = gravityField.getSubstepRadius();
+        double radiusSquared = radius * radius;
+        for (int h = 0; h < gravityField.getBlackHoleCount(); h++) {
+            BlackHole blackHole = gravityField.getBlackHole(h);
+            DoubleVector deltaX = DoubleVector.broadcast(SPECIES, blackHole.getxPosition()).sub(px);
+            DoubleVector deltaY = DoubleVector.broadcast(SPECIES, blackHole.getyPosition()).sub(py);
+            DoubleVector distanceSquared = deltaX.mul(deltaX).add(deltaY.mul(deltaY));
+            single = single.and(distanceSquared.compare(VectorOperators.GE, radiusSquared));
+        }
+
+        long singleBits = single.toLong();
+        if (singleBits != 0) {
+            stepSingle(field, gravityField, i, deltaT, single, px, py, vx, vy);
+        }
+        long substepped = aliveBits & ~singleBits;
+        while (substepped != 0) {
+            int slot = i + Long.numberOfTrailingZeros(substepped);
+            field.updatePhysics(slot, slot + 1, deltaT, body);
+            substepped &= substepped - 1;
+        }
+    }
+
+    /**
+     * VerletIntegrator.step and DebrisField's bounds, for the lanes in the
+     * mask.
+     */
+    private void stepSingle(DebrisField field, GravityField gravityField, int i, int deltaT,
+                            VectorMask<Double> mask,
+                            DoubleVector px, DoubleVector py, DoubleVector vx, DoubleVector vy) {
+        DoubleVector oldVx = vx;
+        DoubleVector oldVy = vy;
+        double step = deltaT;
+        double halfSteps = step / 2 / DeltaVGameConfig.REFERENCE_STEP_MILLIS;
+        DoubleVector midX = px.add(vx.mul(halfSteps));
+        DoubleVector midY = py.add(vy.mul(halfSteps));
+
+        // GravityField.sample at the midpoint.  Lanes we aren't stepping
+        // sample the grid's corner, so their indices are always in range.
+        VectorMask<Double> skipped = mask.not();
+        double minX = gravityField.getMinX();
+        double minY = gravityField.getMinY();
+        double inverseCellSize = gravityField.getInverseCellSize();
+        int columns = gravityField.getColumns();
+        int rows = gravityField.getRows();
+        DoubleVector gridX = midX.blend(minX, skipped).sub(minX).mul(inverseCellSize);
+        DoubleVector gridY = midY.blend(minY, skipped).sub(minY).mul(inverseCellSize);
+        gridX = gridX.blend(0, gridX.compare(VectorOperators.LT, 0));
+        gridY = gridY.blend(0, gridY.compare(VectorOperators.LT, 0));
+        VectorMask<Double> pastX = gridX.compare(VectorOperators.GE, columns);
+        VectorMask<Double> pastY = gridY.compare(VectorOperators.GE, rows);
+        gridX = gridX.blend(columns, pastX);
+        gridY = gridY.blend(rows, pastY);
+        gridX.intoArray(gridXs, 0);
+        gridY.intoArray(gridYs, 0);
+        double[] forces = gravityField.getForces();
+        int stride = (columns + 1) * 2;
+        for (int lane = 0; lane < LANES; lane++) {
+            int column = gridXs[lane] == columns ? columns - 1 : (int)gridXs[lane];
+            int row = gridYs[lane] == rows ? rows - 1 : (int)gridYs[lane];
+            int top = row * stride + column * 2;
+            int bottom = top + stride;
+            cells[lane] = column;
+            cells[LANES + lane] = row;
+            corners[lane] = forces[top];
+            corners[LANES + lane] = forces[top + 1];
+            corners[2 * LANES + lane] = forces[top + 2];
+            corners[3 * LANES + lane] = forces[top + 3];
+            corners[4 * LANES + lane] = forces[bottom];
+            corners[5 * LANES + lane] = forces[bottom + 1];
+            corners[6 * LANES + lane] = forces[bottom + 2];
+            corners[7 * LANES + lane] = forces[bottom + 3];
+        }
+        DoubleVector fractionX = gridX.sub(DoubleVector.fromArray(SPECIES, cells, 0));
+        DoubleVector fractionY = gridY.sub(DoubleVector.fromArray(SPECIES, cells, LANES));
+        DoubleVector topLeftX = DoubleVector.fromArray(SPECIES, corners, 0);
+        DoubleVector topLeftY = DoubleVector.fromArray(SPECIES, corners, LANES);
+        DoubleVector topRightX = DoubleVector.fromArray(SPECIES, corners, 2 * LANES);
+        DoubleVector topRightY = DoubleVector.fromArray(SPECIES, corners, 3 * LANES);
+        DoubleVector bottomLeftX = DoubleVector.fromArray(SPECIES, corners, 4 * LANES);
+        DoubleVector bottomLeftY = DoubleVector.fromArray(SPECIES, corners, 5 * LANES);
+        DoubleVector bottomRightX = DoubleVector.fromArray(SPECIES, corners, 6 * LANES);
+        DoubleVector bottomRightY = DoubleVector.fromArray(SPECIES, corners, 7 * LANES);
+        DoubleVector topX = topLeftX.add(topRightX.sub(topLeftX).mul(fractionX));
+        DoubleVector topY = topLeftY.add(topRightY.sub(topLeftY).mul(fractionX));
+        DoubleVector bottomX = bottomLeftX.add(bottomRightX.sub(bottomLeftX).mul(fractionX));
+        DoubleVector bottomY = bottomLeftY.add(bottomRightY.sub(bottomLeftY).mul(fractionX));
+        DoubleVector forceInX = topX.add(bottomX.sub(topX).mul(fractionY));
+        DoubleVector forceInY = topY.add(bottomY.sub(topY).mul(fractionY));
+
+        // The kick, with debris's zero extra acceleration added just as the
+        // scalar code does, then the second drift.
+        vx = vx.add(forceInX.add(0D).mul(step).div(1000D));
+        vy = vy.add(forceInY.add(0D).mul(step).div(1000D));
+        DoubleVector newX = midX.add(vx.mul(halfSteps));
+        DoubleVector newY = midY.add(vy.mul(halfSteps));
+
+        // Keep it within the bounds, as DebrisField does.
+        double boundsMinX = 0 - field.getWidth() * .1;
+        double boundsMaxX = field.getWidth() * 1.1;
+        double boundsMinY = 0 - field.getHeight() * .1;
+        double boundsMaxY = field.getHeight() * 1.1;
+        VectorMask<Double> under = newX.compare(VectorOperators.LT, boundsMinX);
+        newX = newX.blend(boundsMinX, under);
+        vx = vx.blend(0, under);
+        VectorMask<Double> over = newX.compare(VectorOperators.GT, boundsMaxX);
+        newX = newX.blend(boundsMaxX, over);
+        vx = vx.blend(0, over);
+        under = newY.compare(VectorOperators.LT, boundsMinY);
+        newY = newY.blend(boundsMinY, under);
+        vy = vy.blend(0, under);
+        over = newY.compare(VectorOperators.GT, boundsMaxY);
+        newY = newY.blend(boundsMaxY, over);
+        vy = vy.blend(0, over);
+
+        DoubleVector.fromArray(SPECIES, field.getPreviousxPositions(), i).blend(px, mask)
+                .intoArray(field.getPreviousxPositions(), i);
+        DoubleVector.fromArray(SPECIES, field.getPreviousyPositions(), i).blend(py, mask)
+                .intoArray(field.getPreviousyPositions(), i);
+        px.blend(newX, mask).intoArray(field.getxPositions(), i);
+        py.blend(newY, mask).intoArray(field.getyPositions(), i);
+        oldVx.blend(vx, mask).intoArray(field.getVelocitiesInX(), i);
+        oldVy.blend(vy, mask).intoArray(field.getVelocitiesInY(), i);
+    }
+}
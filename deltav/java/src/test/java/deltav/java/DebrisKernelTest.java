@@ -0,0 +1,97 @@
+package deltav.java;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.BlackHole;
+import deltav.core.model.DebrisField;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.model.Integrator;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class DebrisKernelTest {
+
+    /**
+     * The kernel DebrisKernels picks steps debris exactly as the field does.
+     * @throws Exception
+     */
+    @Test
+    public void testChosenKernelMatchesField() throws Exception {
+        crossCheck(DebrisKernels.create());
+    }
+
+    /**
+     * The vector kernel steps debris exactly as the field does, to the bit,
+     * including debris close enough to a black hole to be substepped, debris
+     * held at the edge of the world, dead slots, and ranges that don't start
+     * or end on a whole vector.  It is skipped unless run on a JDK 16+ build
+     * with --add-modules jdk.incubator.vector.
+     * @throws Exception
+     */
+    @Test
+    public void testVectorKernelMatchesField() throws Exception {
+        DebrisKernel kernel = DebrisKernels.createVector();
+        assumeTrue("no Vector API here", kernel != null);
+        crossCheck(kernel);
+    }
+
+    private static void crossCheck(DebrisKernel kernel) throws Exception {
+        DeltaVWorld expected = createWorld();
+        DeltaVWorld actual = createWorld();
+        DebrisField expectedField = expected.getDebrisField();
+        DebrisField actualField = actual.getDebrisField();
+        Integrator.Body body = new Integrator.Body();
+        int capacity = expectedField.getCapacity();
+
+        for (int tick = 0; tick < 300; tick++) {
+            // Alternate between the whole field and a ragged range.
+            int from = tick % 2 == 0 ? 0 : 5;
+            int to = tick % 2 == 0 ? capacity : capacity - 3;
+            expectedField.updatePhysics(from, to, DeltaVGameConfig.SIMULATION_STEP_MILLIS, body);
+            kernel.updatePhysics(actualField, from, to, DeltaVGameConfig.SIMULATION_STEP_MILLIS, body);
+        }
+
+        int moved = 0;
+        for (int i = 0; i < capacity; i++) {
+            assertEquals(expectedField.isAlive(i), actualField.isAlive(i));
+            assertBits(i, expectedField.getxPosition(i), actualField.getxPosition(i));
+            assertBits(i, expectedField.getyPosition(i), actualField.getyPosition(i));
+            assertBits(i, expectedField.getPreviousxPosition(i), actualField.getPreviousxPosition(i));
+            assertBits(i, expectedField.getPreviousyPosition(i), actualField.getPreviousyPosition(i));
+            assertBits(i, expectedField.getVelocityInX(i), actualField.getVelocityInX(i));
+            assertBits(i, expectedField.getVelocityInY(i), actualField.getVelocityInY(i));
+            if (expectedField.getxPosition(i) != expectedField.getPreviousxPosition(i)) {
+                moved++;
+            }
+        }
+        assertTrue(moved > capacity / 2);
+    }
+
+    /**
+     * A world with debris everywhere, some of it dead, some of it already
+     * skimming the black holes, and some pinned at the edges.
+     */
+    private static DeltaVWorld createWorld() {
+        DeltaVWorld world = new DeltaVWorld(10003, 77L);
+        world.addBlackHole(new BlackHole(200, 200, 40, 40, 30000));
+        world.getGravityField().rebuildIfNeeded();
+        DebrisField field = world.getDebrisField();
+        for (int i = 0; i < field.getCapacity(); i += 7) {
+            field.kill(i);
+        }
+        for (int i = 3; i < 400; i += 10) {
+            field.spawn(i, world.getWidth() / 2 + 30 + i % 50, world.getHeight() / 2 - 40, 1, 2);
+        }
+        for (int i = 401; i < 500; i += 3) {
+            field.spawn(i, -world.getWidth(), world.getHeight() * 2, -5, 5);
+        }
+        return world;
+    }
+
+    private static void assertBits(int slot, double expected, double actual) {
+        if (Double.doubleToLongBits(expected) != Double.doubleToLongBits(actual)) {
+            fail("slot " + slot + ": expected " + expected + " but was " + actual);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package deltav.java;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.DebrisField;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.model.ScriptedFlight;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ForkJoinDebrisStepperTest {
+
+    /**
+     * Run the same seeded game serially and in parallel, flying the ship
+     * through the debris, and check they end up in exactly the same state.
+     * @throws Exception
+     */
+    @Test
+    public void testParallelMatchesSerial() throws Exception {
+        DeltaVWorld serial = new DeltaVWorld(20000, 42L);
+        DeltaVWorld parallel = new DeltaVWorld(20000, 42L);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        parallel.setDebrisStepper(new ForkJoinDebrisStepper(pool));
+
+        for (int tick = 0; tick < 500; tick++) {
+            ScriptedFlight.fly(serial.getShip(), tick);
+            ScriptedFlight.fly(parallel.getShip(), tick);
+            serial.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+            parallel.updatePhysics(DeltaVGameConfig.SIMULATION_STEP_MILLIS);
+        }
+        pool.shutdown();
+
+        assertTrue("expected some captures", serial.getScore() > 0);
+        assertEquals(serial.getScore(), parallel.getScore());
+        assertEquals(serial.getShip().getFuelRemaining(), parallel.getShip().getFuelRemaining());
+        assertEquals(serial.isGameOver(), parallel.isGameOver());
+
+        DebrisField expected = serial.getDebrisField();
+        DebrisField actual = parallel.getDebrisField();
+        for (int i = 0; i < expected.getCapacity(); i++) {
+            assertEquals(expected.getxPosition(i), actual.getxPosition(i), 0);
+            assertEquals(expected.getyPosition(i), actual.getyPosition(i), 0);
+            assertEquals(expected.getVelocityInX(i), actual.getVelocityInX(i), 0);
+            assertEquals(expected.getVelocityInY(i), actual.getVelocityInY(i), 0);
+        }
+    }
+}
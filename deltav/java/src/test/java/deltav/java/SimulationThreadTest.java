@@ -0,0 +1,101 @@
+package deltav.java;
+
+import deltav.core.input.ShipControls;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.net.WorldSnapshot;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SimulationThreadTest {
+
+    /**
+     * Every pair the renderer picks up is two consecutive ticks, each just as
+     * the same world stepped here reached them, however the two threads'
+     * timing falls.
+     * @throws Exception
+     */
+    @Test
+    public void testPublishedPairsMatchTheWorld() throws Exception {
+        SimulationThread simulation = new SimulationThread(new DeltaVWorld(500, 5L), 1);
+        DeltaVWorld reference = new DeltaVWorld(500, 5L);
+        WorldSnapshot expected = new WorldSnapshot();
+        int referenceTicks = 0;
+        simulation.start();
+
+        int pairs = 0;
+        int lastTick = 0;
+        long deadline = System.currentTimeMillis() + 10000;
+        while (pairs < 40 && System.currentTimeMillis() < deadline) {
+            if (!simulation.acquire()) {
+                Thread.yield();
+                continue;
+            }
+            WorldSnapshot from = simulation.getFrom();
+            WorldSnapshot to = simulation.getTo();
+            assertEquals(to.getTick() - 1, from.getTick());
+            assertTrue(to.getTick() > lastTick);
+            lastTick = to.getTick();
+
+            while (referenceTicks < from.getTick()) {
+                reference.updatePhysics(1);
+                referenceTicks++;
+            }
+            expected.capture(reference, referenceTicks);
+            assertSnapshotsEqual(expected, from);
+            reference.updatePhysics(1);
+            referenceTicks++;
+            expected.capture(reference, referenceTicks);
+            assertSnapshotsEqual(expected, to);
+            pairs++;
+        }
+        simulation.shutdown();
+        assertEquals(40, pairs);
+    }
+
+    /**
+     * Queued controls reach the ship one change a tick, so a tap shorter
+     * than a tick still flies the ship for exactly one.
+     * @throws Exception
+     */
+    @Test
+    public void testControlsReachTheShip() throws Exception {
+        DeltaVWorld world = new DeltaVWorld(20, 9L);
+        SimulationThread simulation = new SimulationThread(world, 1);
+        assertTrue(simulation.sendControls(ShipControls.encode(true, 1)));
+        assertTrue(simulation.sendControls(ShipControls.NONE));
+        simulation.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (simulation.getTicks() < 20 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        simulation.shutdown();
+        assertTrue(simulation.getTicks() >= 20);
+
+        DeltaVWorld reference = new DeltaVWorld(20, 9L);
+        ShipControls.apply(ShipControls.encode(true, 1), reference.getShip());
+        reference.updatePhysics(1);
+        ShipControls.apply(ShipControls.NONE, reference.getShip());
+        for (int tick = 1; tick < simulation.getTicks(); tick++) {
+            reference.updatePhysics(1);
+        }
+        assertFalse(world.getShip().isThrusting());
+        assertEquals(reference.getShip().getFuelRemaining(), world.getShip().getFuelRemaining());
+        assertEquals(reference.getShip().getxPosition(), world.getShip().getxPosition(), 0);
+        assertEquals(reference.getShip().getyPosition(), world.getShip().getyPosition(), 0);
+        assertEquals(reference.getShip().getHeading(), world.getShip().getHeading(), 0);
+    }
+
+    private static void assertSnapshotsEqual(WorldSnapshot expected, WorldSnapshot actual) {
+        assertEquals(expected.getTick(), actual.getTick());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getFuel(), actual.getFuel());
+        assertEquals(expected.getShipxPosition(), actual.getShipxPosition(), 0);
+        assertEquals(expected.getShipyPosition(), actual.getShipyPosition(), 0);
+        for (int i = 0; i < expected.getCapacity(); i++) {
+            assertEquals(expected.isDebrisAlive(i), actual.isDebrisAlive(i));
+            assertEquals(expected.getDebrisxPosition(i), actual.getDebrisxPosition(i), 0);
+            assertEquals(expected.getDebrisyPosition(i), actual.getDebrisyPosition(i), 0);
+        }
+    }
+}
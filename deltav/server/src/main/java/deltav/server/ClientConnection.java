@@ -0,0 +1,147 @@
+package deltav.server;
+
+import deltav.core.input.ShipControls;
+import deltav.core.net.PacketWriter;
+import deltav.core.net.SnapshotEncoder;
+import deltav.core.net.WorldSnapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * One client of a GameServer: its socket, the snapshot encoder holding what
+ * it has been sent so far, and whatever we haven't managed to write to it
+ * yet.
+ */
+class ClientConnection {
+
+    /**
+     * If this much is still waiting to be written, the client isn't keeping
+     * up and we skip snapshots until it does.  Skipping is safe because each
+     * snapshot is encoded against the last one actually queued.
+     */
+    static final int MAX_BACKLOG_BYTES = 1 << 20;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+
+    /**
+     * Encodes snapshots against what this client has already been sent.
+     */
+    private final SnapshotEncoder encoder = new SnapshotEncoder();
+
+    /**
+     * Bytes read from the client, and bytes queued to go to it.  The output
+     * buffer is kept in write mode and grows as needed.
+     */
+    private final ByteBuffer in = ByteBuffer.allocate(64);
+    private ByteBuffer out = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * What we have sent this client, for keeping an eye on bandwidth.
+     */
+    private long bytesSent;
+    private int snapshotsSent;
+    private int snapshotsSkipped;
+
+    ClientConnection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public int getSnapshotsSent() {
+        return snapshotsSent;
+    }
+
+    public int getSnapshotsSkipped() {
+        return snapshotsSkipped;
+    }
+
+    /**
+     * Read whatever the client has sent.  The client sends one byte of
+     * ShipControls each time its controls change, so only the latest valid
+     * one matters.
+     *
+     * @return The latest controls, or -1 if none arrived.
+     * @throws IOException If the client has gone away.
+     */
+    int read() throws IOException {
+        int controls = -1;
+        while (true) {
+            in.clear();
+            int read = channel.read(in);
+            if (read < 0) {
+                throw new IOException("Client disconnected");
+            }
+            if (read == 0) {
+                return controls;
+            }
+            for (int k = 0; k < read; k++) {
+                int b = in.get(k) & 0xFF;
+                if (ShipControls.isValid(b)) {
+                    controls = b;
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue a snapshot for this client, and start writing it.
+     *
+     * @param snapshot The snapshot to send.
+     * @param packet Scratch space for encoding.
+     * @param budgetBytes Roughly how big the snapshot may be, unless it is a
+     *                    keyframe.
+     * @throws IOException If the client has gone away.
+     */
+    void send(WorldSnapshot snapshot, PacketWriter packet, int budgetBytes) throws IOException {
+        if (out.position() > MAX_BACKLOG_BYTES) {
+            snapshotsSkipped++;
+            return;
+        }
+        packet.reset();
+        encoder.encode(snapshot, packet, budgetBytes);
+        int length = packet.getLength();
+        if (out.remaining() < length + 4) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + length + 4));
+            out.flip();
+            bigger.put(out);
+            out = bigger;
+        }
+        out.putInt(length);
+        out.put(packet.getBytes(), 0, length);
+        bytesSent += length + 4;
+        snapshotsSent++;
+        flush();
+    }
+
+    /**
+     * Write as much of the queue as the socket will take, and only ask to
+     * hear about the socket being writable if something is left over.
+     *
+     * @throws IOException If the client has gone away.
+     */
+    void flush() throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+        key.interestOps(out.position() > 0
+                ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                : SelectionKey.OP_READ);
+    }
+
+    void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // We're done with it either way.
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package deltav.server;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.save.WorldSaveFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Runs a headless game server.
+ *
+ * Usage: DeltaVServer [port] [debris pieces] [checkpoint file]
+ *
+ * With a checkpoint file, the world is saved to it every minute, and a
+ * server started with an existing checkpoint carries on from it.
+ */
+public class DeltaVServer {
+
+    /**
+     * The port we listen on unless told otherwise.
+     */
+    public static final int DEFAULT_PORT = 7777;
+
+    /**
+     * How often to save a checkpoint, in ticks.
+     */
+    public static final int CHECKPOINT_INTERVAL_TICKS = 60 * 1000 / DeltaVGameConfig.SIMULATION_STEP_MILLIS;
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int debris = args.length > 1 ? Integer.parseInt(args[1]) : DeltaVGameConfig.NUMBER_OF_DEBRIS_PIECES;
+
+        File checkpointFile = args.length > 2 ? new File(args[2]) : null;
+
+        DeltaVWorld world;
+        if (checkpointFile != null && checkpointFile.exists()) {
+            world = WorldSaveFile.read(checkpointFile);
+            debris = world.getDebrisField().getCapacity();
+            System.out.println("Restored the world from " + checkpointFile);
+        } else {
+            world = new DeltaVWorld(debris);
+        }
+        GameServer server = new GameServer(world, new InetSocketAddress(port),
+                DeltaVGameConfig.SIMULATION_STEP_MILLIS, DeltaVGameConfig.SNAPSHOT_INTERVAL_TICKS);
+        if (checkpointFile != null) {
+            server.setCheckpoint(checkpointFile, CHECKPOINT_INTERVAL_TICKS);
+        }
+        System.out.println("DeltaV server listening on port " + server.getLocalPort()
+                + " with " + debris + " debris, seed " + world.getSeed());
+        server.run();
+    }
+}
@@ -0,0 +1,201 @@
+package deltav.server;
+
+import deltav.core.net.SnapshotDecoder;
+import deltav.core.net.SnapshotEncoder;
+import deltav.core.net.SnapshotInterpolator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * The client end of a GameServer connection.  Snapshots are decoded as they
+ * arrive and handed to a SnapshotInterpolator for drawing; controls are sent
+ * whenever they change.  Nothing here blocks once connected, so poll can be
+ * called from a game's update.
+ */
+public class GameClient implements Closeable {
+
+    /**
+     * The most debris we expect a server to send unless told otherwise.
+     */
+    public static final int DEFAULT_MAX_DEBRIS = 1 << 20;
+
+    private final SocketChannel channel;
+    private final SnapshotDecoder decoder;
+    private final SnapshotInterpolator interpolator;
+
+    /**
+     * The longest frame a snapshot of the most debris we accept can take.
+     * Anything longer is garbage, and we would rather drop the connection
+     * than try to buffer it.
+     */
+    private final int maxFrameBytes;
+
+    /**
+     * Bytes received but not yet decoded, in write mode.  This grows to fit
+     * the largest snapshot, which is the first.
+     */
+    private ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+
+    /**
+     * The last controls sent, and a buffer to send them from.
+     */
+    private int sentControls = -1;
+    private final ByteBuffer controlsBuffer = ByteBuffer.allocate(1);
+
+    /**
+     * What we have received, for keeping an eye on bandwidth.
+     */
+    private long bytesReceived;
+    private int snapshotsReceived;
+
+    /**
+     * Has the server gone away?
+     */
+    private boolean disconnected;
+
+    /**
+     * Connect to a server.  This blocks until the connection is made.
+     *
+     * @param address The server's address.
+     * @param interpolator Where to put the snapshots we receive.
+     * @throws IOException If we can't connect.
+     */
+    public GameClient(InetSocketAddress address, SnapshotInterpolator interpolator) throws IOException {
+        this(address, interpolator, DEFAULT_MAX_DEBRIS);
+    }
+
+    /**
+     * Connect to a server.  This blocks until the connection is made.
+     *
+     * @param address The server's address.
+     * @param interpolator Where to put the snapshots we receive.
+     * @param maxDebris The most debris we accept snapshots of.
+     * @throws IOException If we can't connect.
+     */
+    public GameClient(InetSocketAddress address, SnapshotInterpolator interpolator, int maxDebris)
+            throws IOException {
+        long maxPacketBytes = SnapshotEncoder.getMaxPacketBytes(maxDebris);
+        if (maxPacketBytes > Integer.MAX_VALUE - 4) {
+            throw new IllegalArgumentException("Too much debris to buffer: " + maxDebris);
+        }
+        this.interpolator = interpolator;
+        decoder = new SnapshotDecoder(maxDebris);
+        maxFrameBytes = (int)maxPacketBytes;
+        channel = SocketChannel.open(address);
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    // Getters.
+
+    public SnapshotInterpolator getInterpolator() {
+        return interpolator;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public int getSnapshotsReceived() {
+        return snapshotsReceived;
+    }
+
+    public boolean isDisconnected() {
+        return disconnected;
+    }
+
+    /**
+     * Read and decode whatever the server has sent.
+     *
+     * @return The number of snapshots received.
+     * @throws IOException If the connection fails or the server sends
+     *                     something we can't decode.
+     */
+    public int poll() throws IOException {
+        if (disconnected) {
+            return 0;
+        }
+        int received = 0;
+        while (true) {
+            if (!in.hasRemaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(in.capacity() * 2);
+                in.flip();
+                bigger.put(in);
+                in = bigger;
+            }
+            int read = channel.read(in);
+            if (read < 0) {
+                disconnected = true;
+                break;
+            }
+            if (read == 0) {
+                break;
+            }
+            bytesReceived += read;
+            received += decodeFrames();
+        }
+        return received;
+    }
+
+    /**
+     * Decode every complete frame in the input buffer.
+     */
+    private int decodeFrames() throws IOException {
+        int decoded = 0;
+        in.flip();
+        while (in.remaining() >= 4) {
+            int length = in.getInt(in.position());
+            if (length < 0 || length > maxFrameBytes) {
+                throw new IOException("Bad frame length " + length);
+            }
+            if (in.remaining() < length + 4) {
+                if (in.capacity() < length + 4) {
+                    // Make sure the rest of this frame will fit.
+                    ByteBuffer bigger = ByteBuffer.allocate(length + 4);
+                    bigger.put(in);
+                    in = bigger;
+                    return decoded;
+                }
+                break;
+            }
+            try {
+                decoder.decode(in.array(), in.position() + 4, length, interpolator.next());
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Bad snapshot: " + e.getMessage());
+            }
+            interpolator.add();
+            in.position(in.position() + length + 4);
+            decoded++;
+            snapshotsReceived++;
+        }
+        in.compact();
+        return decoded;
+    }
+
+    /**
+     * Tell the server what the ship's controls are.  Nothing is sent unless
+     * they have changed.
+     *
+     * @param controls The controls, packed by ShipControls.
+     */
+    public void sendControls(int controls) throws IOException {
+        if (controls == sentControls || disconnected) {
+            return;
+        }
+        controlsBuffer.clear();
+        controlsBuffer.put((byte)controls);
+        controlsBuffer.flip();
+        if (channel.write(controlsBuffer) == 1) {
+            sentControls = controls;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,289 @@
+package deltav.server;
+
+import deltav.core.config.DeltaVGameConfig;
+import deltav.core.input.ShipControls;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.net.PacketWriter;
+import deltav.core.net.WorldSnapshot;
+import deltav.core.save.WorldSaveFile;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Runs a DeltaVWorld for clients on the other end of a network.  The server
+ * is authoritative: the world only ever updates here, clients just send the
+ * ship's controls and draw the snapshots they are sent.
+ *
+ * Everything runs on one thread, around a non-blocking selector.  Each pass
+ * of poll handles whatever network traffic is waiting, then runs any ticks
+ * that are due.  Every few ticks, each client is sent a snapshot of the
+ * world, encoded against the snapshots it already has (see SnapshotEncoder),
+ * so the bandwidth per client depends on how much is changing rather than on
+ * how much debris there is.
+ *
+ * The world has a single ship.  The first client to connect flies it and
+ * anyone else watches; when the pilot leaves, the longest-connected watcher
+ * takes over.
+ */
+public class GameServer implements Closeable {
+
+    /**
+     * The most ticks we will run in one go to catch up after a stall.  Beyond
+     * that we let the world fall behind the clock rather than spiral.
+     */
+    private static final int MAX_CATCH_UP_TICKS = 10;
+
+    private final DeltaVWorld world;
+    private final int stepMillis;
+    private final int snapshotIntervalTicks;
+
+    /**
+     * Roughly how many bytes each snapshot after a client's first may take.
+     */
+    private int snapshotBudgetBytes = DeltaVGameConfig.SNAPSHOT_BUDGET_BYTES;
+
+    /**
+     * Where to save the world every so often, so the server can be restarted
+     * where it left off, and how many ticks apart.
+     */
+    private File checkpointFile;
+    private int checkpointIntervalTicks;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * Connected clients, in the order they connected.  The first is the
+     * pilot.
+     */
+    private final List<ClientConnection> clients = new ArrayList<ClientConnection>();
+
+    /**
+     * Scratch space for capturing and encoding snapshots.
+     */
+    private final WorldSnapshot snapshot = new WorldSnapshot();
+    private final PacketWriter packet = new PacketWriter(64 * 1024);
+
+    /**
+     * The number of ticks run, and when the next one is due.
+     */
+    private int tick;
+    private long nextTickNanos;
+
+    /**
+     * Start listening for clients.
+     *
+     * @param world The world to run.
+     * @param address Where to listen.  Port 0 picks any free port.
+     * @param stepMillis The number of milliseconds each tick simulates.
+     * @param snapshotIntervalTicks How many ticks between snapshots.
+     * @throws IOException If we can't listen on the address.
+     */
+    public GameServer(DeltaVWorld world, InetSocketAddress address, int stepMillis, int snapshotIntervalTicks)
+            throws IOException {
+        this.world = world;
+        this.stepMillis = stepMillis;
+        this.snapshotIntervalTicks = snapshotIntervalTicks;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.socket().bind(address);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    // Getters.
+
+    public DeltaVWorld getWorld() {
+        return world;
+    }
+
+    public int getSnapshotBudgetBytes() {
+        return snapshotBudgetBytes;
+    }
+
+    public void setSnapshotBudgetBytes(int snapshotBudgetBytes) {
+        this.snapshotBudgetBytes = snapshotBudgetBytes;
+    }
+
+    /**
+     * Save the world to a file every so often with WorldSaveFile.
+     *
+     * @param checkpointFile Where to save it, or null to stop saving.
+     * @param checkpointIntervalTicks How many ticks between saves.
+     */
+    public void setCheckpoint(File checkpointFile, int checkpointIntervalTicks) {
+        this.checkpointFile = checkpointFile;
+        this.checkpointIntervalTicks = checkpointIntervalTicks;
+    }
+
+    public int getLocalPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * The bytes sent to the given client so far, counting framing.
+     */
+    public long getBytesSent(int client) {
+        return clients.get(client).getBytesSent();
+    }
+
+    /**
+     * Run the server until it is closed.
+     */
+    public void run() throws IOException {
+        while (serverChannel.isOpen()) {
+            poll();
+        }
+    }
+
+    /**
+     * Wait for network traffic until the next tick is due, then run any
+     * ticks that are.
+     */
+    public void poll() throws IOException {
+        long now = System.nanoTime();
+        if (nextTickNanos == 0) {
+            nextTickNanos = now;
+        }
+        pumpNetwork(Math.max(0, (nextTickNanos - now) / 1000000));
+
+        now = System.nanoTime();
+        for (int caughtUp = 0; now - nextTickNanos >= 0 && caughtUp < MAX_CATCH_UP_TICKS; caughtUp++) {
+            tick();
+            nextTickNanos += stepMillis * 1000000L;
+        }
+        if (now - nextTickNanos >= 0) {
+            nextTickNanos = now;
+        }
+    }
+
+    /**
+     * Handle connections, input and pending writes.
+     *
+     * @param timeoutMillis How long to wait for something to happen, or 0
+     *                      to only handle what is already waiting.
+     */
+    public void pumpNetwork(long timeoutMillis) throws IOException {
+        if (timeoutMillis > 0) {
+            selector.select(timeoutMillis);
+        } else {
+            selector.selectNow();
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            ClientConnection client = (ClientConnection)key.attachment();
+            try {
+                if (key.isReadable()) {
+                    int controls = client.read();
+                    if (controls >= 0 && client == pilot()) {
+                        ShipControls.apply(controls, world.getShip());
+                    }
+                }
+                if (key.isValid() && key.isWritable()) {
+                    client.flush();
+                }
+            } catch (IOException e) {
+                disconnect(client);
+            }
+        }
+    }
+
+    /**
+     * Update the world once, and send a snapshot or save a checkpoint if
+     * one is due.
+     */
+    public void tick() {
+        world.updatePhysics(stepMillis);
+        tick++;
+        if (tick % snapshotIntervalTicks == 0) {
+            broadcast();
+        }
+        if (checkpointFile != null && tick % checkpointIntervalTicks == 0) {
+            try {
+                WorldSaveFile.write(world, checkpointFile);
+            } catch (IOException e) {
+                // Better to keep playing than to stop over a missed save.
+                System.err.println("Couldn't save a checkpoint to " + checkpointFile + ": " + e);
+            }
+        }
+    }
+
+    private void broadcast() {
+        if (clients.isEmpty()) {
+            return;
+        }
+        snapshot.capture(world, tick);
+        for (int k = clients.size() - 1; k >= 0; k--) {
+            ClientConnection client = clients.get(k);
+            try {
+                client.send(snapshot, packet, snapshotBudgetBytes);
+            } catch (IOException e) {
+                disconnect(client);
+            }
+        }
+    }
+
+    private ClientConnection pilot() {
+        return clients.isEmpty() ? null : clients.get(0);
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        ClientConnection client = new ClientConnection(channel, key);
+        key.attach(client);
+        clients.add(client);
+    }
+
+    private void disconnect(ClientConnection client) {
+        boolean wasPilot = client == pilot();
+        client.close();
+        clients.remove(client);
+        if (wasPilot) {
+            // Nobody is holding the controls any more.
+            ShipControls.apply(ShipControls.NONE, world.getShip());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ClientConnection client : clients) {
+            client.close();
+        }
+        clients.clear();
+        serverChannel.close();
+        selector.close();
+    }
+}
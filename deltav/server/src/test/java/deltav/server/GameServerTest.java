@@ -0,0 +1,134 @@
+package deltav.server;
+
+import deltav.core.input.ShipControls;
+import deltav.core.model.DebrisField;
+import deltav.core.model.DeltaVWorld;
+import deltav.core.net.SnapshotInterpolator;
+import deltav.core.net.WorldSnapshot;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.Assert.*;
+
+public class GameServerTest {
+
+    /**
+     * Run a server and a client over loopback.  The client's controls should
+     * reach the ship, its snapshots should match the server's world to
+     * within the codec's tolerance, and once the first snapshot is through
+     * each one should be a small fraction of the size of the world.
+     * @throws Exception
+     */
+    @Test
+    public void testLoopback() throws Exception {
+        int debris = 10000;
+        DeltaVWorld world = new DeltaVWorld(debris, 11L);
+        GameServer server = new GameServer(world, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 10, 5);
+        // Correct everything, so we can check the tolerance.
+        server.setSnapshotBudgetBytes(Integer.MAX_VALUE);
+        SnapshotInterpolator interpolator = new SnapshotInterpolator(8, 10);
+        GameClient client = new GameClient(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort()), interpolator);
+        try {
+            for (int k = 0; k < 100 && server.getClientCount() == 0; k++) {
+                server.pumpNetwork(10);
+            }
+            assertEquals(1, server.getClientCount());
+
+            client.sendControls(ShipControls.encode(true, 1));
+            for (int k = 0; k < 100 && !world.getShip().isThrusting(); k++) {
+                server.pumpNetwork(10);
+            }
+            assertTrue(world.getShip().isThrusting());
+            assertEquals(1, world.getShip().getRotationDirection());
+
+            long keyframeBytes = 0;
+            for (int tick = 1; tick <= 500; tick++) {
+                server.tick();
+                server.pumpNetwork(0);
+                client.poll();
+                if (tick == 5) {
+                    drain(server, client, 1);
+                    keyframeBytes = client.getBytesReceived();
+                }
+            }
+            drain(server, client, 100);
+
+            WorldSnapshot latest = interpolator.newest();
+            assertEquals(500, latest.getTick());
+            assertEquals(world.getScore(), latest.getScore());
+            assertEquals(world.getShip().getFuelRemaining(), latest.getFuel());
+            assertEquals(world.getShip().getxPosition(), latest.getShipxPosition(), 1D / 32);
+            assertEquals(world.getShip().getyPosition(), latest.getShipyPosition(), 1D / 32);
+            DebrisField field = world.getDebrisField();
+            for (int i = 0; i < debris; i++) {
+                assertTrue(latest.isDebrisAlive(i));
+                assertEquals(field.getxPosition(i), latest.getDebrisxPosition(i), 1 + 1D / 64);
+                assertEquals(field.getyPosition(i), latest.getDebrisyPosition(i), 1 + 1D / 64);
+            }
+
+            double bytesPerSnapshot = (client.getBytesReceived() - keyframeBytes) / 99D;
+            assertTrue("keyframe " + keyframeBytes + " bytes, then " + bytesPerSnapshot + " per snapshot",
+                    bytesPerSnapshot < keyframeBytes / 4D);
+            assertEquals(server.getBytesSent(0), client.getBytesReceived());
+
+            // The client should be able to draw, a little behind the server.
+            assertTrue(interpolator.advance(0));
+            assertEquals(490, interpolator.getRenderTick(), 0);
+        } finally {
+            client.close();
+            server.close();
+        }
+    }
+
+    /**
+     * A frame longer than any snapshot could be drops the connection with an
+     * IOException, rather than making the client try to buffer it.
+     * @throws Exception
+     */
+    @Test
+    public void testOversizedFrame() throws Exception {
+        ServerSocketChannel listener = ServerSocketChannel.open();
+        listener.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        GameClient client = new GameClient(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                listener.socket().getLocalPort()), new SnapshotInterpolator(8, 10), 1000);
+        SocketChannel server = listener.accept();
+        try {
+            ByteBuffer frame = ByteBuffer.allocate(4);
+            frame.putInt(Integer.MAX_VALUE - 2);
+            frame.flip();
+            server.write(frame);
+            try {
+                for (int k = 0; k < 100; k++) {
+                    client.poll();
+                    Thread.sleep(1);
+                }
+                fail("expected the frame to be refused");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().startsWith("Bad frame length"));
+            }
+        } finally {
+            client.close();
+            server.close();
+            listener.close();
+        }
+    }
+
+    /**
+     * Pump both ends until the client has the given number of snapshots.
+     */
+    private static void drain(GameServer server, GameClient client, int snapshots) throws Exception {
+        for (int k = 0; k < 200 && client.getSnapshotsReceived() < snapshots; k++) {
+            server.pumpNetwork(1);
+            client.poll();
+            Thread.sleep(1);
+        }
+        assertEquals(snapshots, client.getSnapshotsReceived());
+    }
+}
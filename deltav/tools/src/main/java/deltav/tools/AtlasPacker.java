@@ -0,0 +1,239 @@
+package deltav.tools;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Packs a directory of sprites into one texture atlas, for the assets build.
+ * The game then loads one image instead of one per sprite, and everything
+ * drawn from the atlas shares a texture, so the GL backends can draw it all
+ * in one batch.
+ *
+ * Usage: AtlasPacker input-directory output-directory name
+ *
+ * Every PNG in the input directory is packed into name.png in the output
+ * directory, and name.atlas is written next to it, listing where each sprite
+ * ended up.  The manifest is plain text:
+ *
+ *   atlas name.png width height
+ *   sprite-name x y width height      (one line per sprite)
+ *
+ * with sprites named after their files, minus the extension.  The core reads
+ * it with TextureAtlas.
+ *
+ * Sprites are packed in rows, tallest first, into the smallest power of two
+ * sized image they fit in, since some older mobile GPUs want power of two
+ * textures.  Each sprite is surrounded by transparent padding, so filtering
+ * at the edge of one never picks up its neighbour.
+ */
+public class AtlasPacker {
+
+    /**
+     * The transparent space between sprites.
+     */
+    public static final int PADDING = 2;
+
+    /**
+     * The largest atlas we are willing to make.  2048 is the most every
+     * device we target can handle.
+     */
+    public static final int MAX_SIZE = 2048;
+
+    /**
+     * A sprite, and where it was packed.
+     */
+    public static class Sprite {
+        final String name;
+        final BufferedImage image;
+        int x;
+        int y;
+
+        public Sprite(String name, BufferedImage image) {
+            this.name = name;
+            this.image = image;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public int getWidth() {
+            return image.getWidth();
+        }
+
+        public int getHeight() {
+            return image.getHeight();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: AtlasPacker input-directory output-directory name");
+            System.exit(1);
+        }
+        File input = new File(args[0]);
+        File output = new File(args[1]);
+        String name = args[2];
+
+        List<Sprite> sprites = read(input);
+        int[] size = pack(sprites);
+        if (!output.isDirectory() && !output.mkdirs()) {
+            throw new IOException("Couldn't create " + output);
+        }
+        ImageIO.write(draw(sprites, size[0], size[1]), "png", new File(output, name + ".png"));
+        Writer manifest = new OutputStreamWriter(new FileOutputStream(new File(output, name + ".atlas")),
+                StandardCharsets.UTF_8);
+        try {
+            writeManifest(name + ".png", sprites, size[0], size[1], manifest);
+        } finally {
+            manifest.close();
+        }
+        System.out.println("Packed " + sprites.size() + " sprites into " + name + ".png, "
+                + size[0] + "x" + size[1]);
+    }
+
+    /**
+     * Read every PNG in a directory, in name order.
+     */
+    static List<Sprite> read(File directory) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        Arrays.sort(files);
+        List<Sprite> sprites = new ArrayList<Sprite>();
+        for (File file : files) {
+            String fileName = file.getName();
+            if (!fileName.toLowerCase().endsWith(".png")) {
+                continue;
+            }
+            BufferedImage image = ImageIO.read(file);
+            if (image == null) {
+                throw new IOException("Couldn't read " + file);
+            }
+            String name = fileName.substring(0, fileName.length() - 4);
+            if (name.isEmpty() || name.matches(".*\\s.*")) {
+                throw new IOException("Sprite names can't be empty or contain spaces: " + file);
+            }
+            sprites.add(new Sprite(name, image));
+        }
+        return sprites;
+    }
+
+    /**
+     * Work out where each sprite goes, trying every power of two width and
+     * keeping whichever gives the smallest atlas.
+     *
+     * @param sprites The sprites, whose positions are set.
+     * @return The width and height of the atlas.
+     * @throws IOException If the sprites won't fit in the largest atlas.
+     */
+    public static int[] pack(List<Sprite> sprites) throws IOException {
+        // Tallest first, so each row wastes as little height as possible.
+        // The sort is stable, so equal heights stay in name order.
+        List<Sprite> sorted = new ArrayList<Sprite>(sprites);
+        Collections.sort(sorted, new Comparator<Sprite>() {
+            @Override
+            public int compare(Sprite a, Sprite b) {
+                return b.getHeight() - a.getHeight();
+            }
+        });
+
+        int bestWidth = -1;
+        int bestHeight = -1;
+        for (int width = 1; width <= MAX_SIZE; width *= 2) {
+            int height = packRows(sorted, width);
+            if (height < 0) {
+                continue;
+            }
+            height = nextPowerOfTwo(height);
+            if (height <= MAX_SIZE && (bestWidth < 0 || (long)width * height < (long)bestWidth * bestHeight)) {
+                bestWidth = width;
+                bestHeight = height;
+            }
+        }
+        if (bestWidth < 0) {
+            throw new IOException("The sprites don't fit in a " + MAX_SIZE + "x" + MAX_SIZE + " atlas");
+        }
+        packRows(sorted, bestWidth);
+        return new int[] {bestWidth, bestHeight};
+    }
+
+    /**
+     * Pack sprites into rows of the given width.
+     *
+     * @return The height used, or -1 if a sprite is too wide.
+     */
+    private static int packRows(List<Sprite> sorted, int width) {
+        int x = PADDING;
+        int y = PADDING;
+        int rowHeight = 0;
+        for (Sprite sprite : sorted) {
+            if (sprite.getWidth() + PADDING * 2 > width) {
+                return -1;
+            }
+            if (x + sprite.getWidth() + PADDING > width) {
+                x = PADDING;
+                y += rowHeight + PADDING;
+                rowHeight = 0;
+            }
+            sprite.x = x;
+            sprite.y = y;
+            x += sprite.getWidth() + PADDING;
+            rowHeight = Math.max(rowHeight, sprite.getHeight());
+        }
+        return y + rowHeight + PADDING;
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        int power = 1;
+        while (power < value) {
+            power *= 2;
+        }
+        return power;
+    }
+
+    /**
+     * Draw the packed sprites into the atlas image.
+     */
+    public static BufferedImage draw(List<Sprite> sprites, int width, int height) {
+        BufferedImage atlas = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (Sprite sprite : sprites) {
+            int[] pixels = sprite.image.getRGB(0, 0, sprite.getWidth(), sprite.getHeight(),
+                    null, 0, sprite.getWidth());
+            atlas.setRGB(sprite.x, sprite.y, sprite.getWidth(), sprite.getHeight(), pixels, 0, sprite.getWidth());
+        }
+        return atlas;
+    }
+
+    /**
+     * Write the manifest, listing the sprites in name order.
+     */
+    public static void writeManifest(String imageName, List<Sprite> sprites, int width, int height, Writer out)
+            throws IOException {
+        out.write("atlas " + imageName + " " + width + " " + height + "\n");
+        for (Sprite sprite : sprites) {
+            out.write(sprite.name + " " + sprite.x + " " + sprite.y + " "
+                    + sprite.getWidth() + " " + sprite.getHeight() + "\n");
+        }
+    }
+}
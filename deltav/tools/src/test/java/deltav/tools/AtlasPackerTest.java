@@ -0,0 +1,70 @@
+package deltav.tools;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AtlasPackerTest {
+
+    /**
+     * Every sprite should land inside a power of two atlas, padded away from
+     * the edges and from every other sprite, and be drawn where the manifest
+     * says it is.
+     * @throws Exception
+     */
+    @Test
+    public void testPack() throws Exception {
+        List<AtlasPacker.Sprite> sprites = new ArrayList<AtlasPacker.Sprite>();
+        int[][] sizes = {{48, 48}, {48, 48}, {20, 20}, {100, 7}, {3, 90}, {64, 64}, {1, 1}};
+        for (int k = 0; k < sizes.length; k++) {
+            BufferedImage image = new BufferedImage(sizes[k][0], sizes[k][1], BufferedImage.TYPE_INT_ARGB);
+            for (int x = 0; x < sizes[k][0]; x++) {
+                for (int y = 0; y < sizes[k][1]; y++) {
+                    image.setRGB(x, y, 0xFF000000 | k);
+                }
+            }
+            sprites.add(new AtlasPacker.Sprite("sprite" + k, image));
+        }
+
+        int[] size = AtlasPacker.pack(sprites);
+        assertEquals(0, size[0] & (size[0] - 1));
+        assertEquals(0, size[1] & (size[1] - 1));
+        int p = AtlasPacker.PADDING;
+        for (int a = 0; a < sprites.size(); a++) {
+            AtlasPacker.Sprite sprite = sprites.get(a);
+            assertTrue(sprite.getX() >= p && sprite.getY() >= p);
+            assertTrue(sprite.getX() + sprite.getWidth() + p <= size[0]);
+            assertTrue(sprite.getY() + sprite.getHeight() + p <= size[1]);
+            for (int b = a + 1; b < sprites.size(); b++) {
+                AtlasPacker.Sprite other = sprites.get(b);
+                boolean apart = sprite.getX() + sprite.getWidth() + p <= other.getX()
+                        || other.getX() + other.getWidth() + p <= sprite.getX()
+                        || sprite.getY() + sprite.getHeight() + p <= other.getY()
+                        || other.getY() + other.getHeight() + p <= sprite.getY();
+                assertTrue(sprite.getName() + " overlaps " + other.getName(), apart);
+            }
+        }
+
+        BufferedImage atlas = AtlasPacker.draw(sprites, size[0], size[1]);
+        for (int k = 0; k < sprites.size(); k++) {
+            AtlasPacker.Sprite sprite = sprites.get(k);
+            assertEquals(0xFF000000 | k, atlas.getRGB(sprite.getX(), sprite.getY()));
+            assertEquals(0xFF000000 | k, atlas.getRGB(sprite.getX() + sprite.getWidth() - 1,
+                    sprite.getY() + sprite.getHeight() - 1));
+        }
+        assertEquals(0, atlas.getRGB(0, 0));
+
+        StringWriter manifest = new StringWriter();
+        AtlasPacker.writeManifest("sprites.png", sprites, size[0], size[1], manifest);
+        String[] lines = manifest.toString().split("\n");
+        assertEquals("atlas sprites.png " + size[0] + " " + size[1], lines[0]);
+        assertEquals(sprites.size() + 1, lines.length);
+        AtlasPacker.Sprite first = sprites.get(0);
+        assertEquals("sprite0 " + first.getX() + " " + first.getY() + " 48 48", lines[1]);
+    }
+}